@@ -0,0 +1,93 @@
+package com.airline.loyalty.benchmark;
+
+import com.airline.loyalty.model.CabinClass;
+import com.airline.loyalty.model.CustomerTier;
+import com.airline.loyalty.model.PointsCalculation;
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.model.PromoResponse;
+import com.airline.loyalty.model.QuoteBatch;
+import com.airline.loyalty.service.PointsCalculationService;
+import com.airline.loyalty.testutils.InMemoryFxServiceClient;
+import com.airline.loyalty.testutils.InMemoryPromoServiceClient;
+import com.airline.loyalty.testutils.TestConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to price {@code rows} bookings with
+ * {@link PointsCalculationService#calculateBatch} against calling
+ * {@link PointsCalculationService#calculatePoints} once per row, on the same
+ * randomly generated bookings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchCalculationBenchmark {
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP"};
+    private static final double[] RATES = {1.0, 1.1, 1.27};
+
+    @Param({"1024", "1048576"})
+    public int rows;
+
+    private Vertx vertx;
+    private PointsCalculationService service;
+    private QuoteBatch batch;
+    private PointsQuoteRequest[] requests;
+
+    @Setup
+    public void setUp() {
+        vertx = Vertx.vertx();
+        JsonObject config = TestConfig.load("test");
+        PromoResponse summer = new PromoResponse("SUMMER25", 0.25, LocalDate.now().plusDays(30).toString(), true);
+        service = new PointsCalculationService(
+            new InMemoryFxServiceClient(vertx, config).withRate("EUR", 1.1).withRate("GBP", 1.27),
+            new InMemoryPromoServiceClient(vertx, config).withPromo(summer),
+            config
+        );
+
+        Random random = new Random(42);
+        batch = new QuoteBatch(rows, CURRENCIES, RATES, new PromoResponse[] {summer});
+        requests = new PointsQuoteRequest[rows];
+        CabinClass[] cabins = CabinClass.values();
+        CustomerTier[] tiers = CustomerTier.values();
+        for (int i = 0; i < rows; i++) {
+            double fare = 50 + random.nextInt(500_000) / 100.0;
+            int currency = random.nextInt(CURRENCIES.length);
+            CabinClass cabin = cabins[random.nextInt(cabins.length)];
+            CustomerTier tier = tiers[random.nextInt(tiers.length)];
+            boolean promo = random.nextInt(4) == 0;
+            batch.set(i, fare, currency, cabin, tier, promo ? 0 : -1);
+            requests[i] = new PointsQuoteRequest(fare, CURRENCIES[currency], cabin.name(), tier.name(),
+                promo ? "SUMMER25" : null);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Benchmark
+    public int[] columnar() {
+        service.calculateBatch(batch);
+        return batch.totalPoints();
+    }
+
+    @Benchmark
+    public void scalar(Blackhole blackhole) {
+        for (PointsQuoteRequest request : requests) {
+            PointsCalculation calculation = service.calculatePoints(request).result();
+            blackhole.consume(calculation);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.airline.loyalty.benchmark;
+
+import com.airline.loyalty.model.PointsCalculation;
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.service.PointsCalculationService;
+import com.airline.loyalty.testutils.InMemoryFxServiceClient;
+import com.airline.loyalty.testutils.InMemoryPromoServiceClient;
+import com.airline.loyalty.testutils.TestConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link PointsCalculationService#calculatePoints} with
+ * in-memory FX and promo clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuoteCalculationBenchmark {
+
+    private Vertx vertx;
+    private PointsCalculationService service;
+
+    private PointsQuoteRequest usdNoPromo;
+    private PointsQuoteRequest eurWithPromo;
+
+    @Setup
+    public void setUp() {
+        vertx = Vertx.vertx();
+        JsonObject config = TestConfig.load("test");
+        service = new PointsCalculationService(
+            new InMemoryFxServiceClient(vertx, config).withRate("EUR", 1.1),
+            new InMemoryPromoServiceClient(vertx, config)
+                .withPromo("SUMMER25", 0.25, LocalDate.now().plusDays(30), true),
+            config
+        );
+
+        usdNoPromo = new PointsQuoteRequest(1234.50, "USD", "ECONOMY", "SILVER", null);
+        eurWithPromo = new PointsQuoteRequest(2500.00, "EUR", "BUSINESS", "GOLD", "SUMMER25");
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Benchmark
+    public PointsCalculation usdNoPromo() {
+        return service.calculatePoints(usdNoPromo).result();
+    }
+
+    @Benchmark
+    public PointsCalculation eurWithPromo() {
+        return service.calculatePoints(eurWithPromo).result();
+    }
+}
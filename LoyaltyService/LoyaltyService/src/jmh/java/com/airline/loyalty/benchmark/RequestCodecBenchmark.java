@@ -0,0 +1,71 @@
+package com.airline.loyalty.benchmark;
+
+import com.airline.loyalty.model.PointsCalculation;
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.model.QuoteWarning;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request steps of {@code PointsQuoteHandler}, measured one by one:
+ * body decoding, bean validation and response encoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestCodecBenchmark {
+
+    private Buffer body;
+    private PointsQuoteRequest request;
+    private Validator validator;
+    private PointsCalculation calculation;
+
+    @Setup
+    public void setUp() {
+        body = Buffer.buffer("""
+            {"fareAmount":1234.50,"currency":"EUR","cabinClass":"ECONOMY","customerTier":"SILVER","promoCode":"SUMMER25"}
+            """);
+        request = new JsonObject(body).mapTo(PointsQuoteRequest.class);
+        // Configured as PointsQuoteHandler configures it
+        validator = Validation.byDefaultProvider()
+            .configure()
+            .messageInterpolator(new ParameterMessageInterpolator())
+            .buildValidatorFactory()
+            .getValidator();
+        calculation = PointsCalculation.builder()
+            .basePoints(1357)
+            .tierBonus(203)
+            .promoBonus(339)
+            .totalPoints(1899)
+            .effectiveFxRate(1.1)
+            .addWarning(QuoteWarning.PROMO_EXPIRES_SOON)
+            .build();
+    }
+
+    @Benchmark
+    public PointsQuoteRequest decode() {
+        return new JsonObject(body).mapTo(PointsQuoteRequest.class);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<PointsQuoteRequest>> validate() {
+        return validator.validate(request);
+    }
+
+    @Benchmark
+    public Buffer encode() {
+        return Json.encodeToBuffer(calculation.toResponse());
+    }
+}
@@ -0,0 +1,129 @@
+package com.airline.loyalty.benchmark;
+
+import com.airline.loyalty.MainVerticle;
+import com.airline.loyalty.testutils.DownstreamStubs;
+import com.airline.loyalty.testutils.TestConfig;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end quote throughput with tracing off, on at the default head
+ * sampling rate (1%, plus failed and slow traces), and exporting every
+ * trace, on the same workload: EUR quotes with a promo, so each one records
+ * server, stage, FX attempt and promo spans.
+ *
+ * The downstream stubs answer without delay so the tracing cost is not hidden
+ * behind network waits. The quote cache and idempotency store are disabled so
+ * every request reaches the calculation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class TracingBenchmark {
+
+    @Param({"OFF", "SAMPLED", "ALL"})
+    public String tracing;
+
+    private WireMockServer fxService;
+    private WireMockServer promoService;
+    private Path traceDir;
+    private Vertx serviceVertx;
+    private Vertx clientVertx;
+    private WebClient client;
+    private Buffer body;
+
+    @Setup
+    public void setUp() throws Exception {
+        fxService = new WireMockServer(WireMockConfiguration.options().dynamicPort().containerThreads(64));
+        promoService = new WireMockServer(WireMockConfiguration.options().dynamicPort().containerThreads(64));
+        fxService.start();
+        promoService.start();
+        DownstreamStubs.stubFxRate(fxService, "EUR", "USD", 1.1);
+        DownstreamStubs.stubPromo(promoService, "SUMMER25", 0.25, LocalDate.now().plusDays(30), true);
+
+        int appPort = findRandomPort();
+        JsonObject config = TestConfig.load("test");
+        config.getJsonObject("http").put("port", appPort).put("host", "127.0.0.1");
+        config.getJsonObject("fxService").put("host", "localhost").put("port", fxService.port())
+            .put("rateCacheTtlMillis", 0);
+        config.getJsonObject("promoService").put("host", "localhost").put("port", promoService.port());
+        config.getJsonObject("observability").put("metricsPort", findRandomPort());
+        config.getJsonObject("admin").put("enabled", false);
+        config.getJsonObject("quoteCache").put("enabled", false);
+        config.getJsonObject("idempotency").put("enabled", false);
+        traceDir = Files.createTempDirectory("traces");
+        config.getJsonObject("tracing")
+            .put("enabled", !tracing.equals("OFF"))
+            .put("sampleRate", tracing.equals("ALL") ? 1.0 : 0.01)
+            .put("file", traceDir.resolve("traces.otlp.jsonl").toString());
+
+        serviceVertx = Vertx.vertx();
+        serviceVertx.deployVerticle(MainVerticle.class.getName(),
+                MainVerticle.deploymentOptions(config).setInstances(Runtime.getRuntime().availableProcessors()))
+            .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+
+        clientVertx = Vertx.vertx();
+        client = WebClient.create(clientVertx, new WebClientOptions()
+            .setDefaultHost("127.0.0.1")
+            .setDefaultPort(appPort)
+            .setMaxPoolSize(64));
+        body = new JsonObject()
+            .put("fareAmount", 1000.0)
+            .put("currency", "EUR")
+            .put("cabinClass", "ECONOMY")
+            .put("customerTier", "SILVER")
+            .put("promoCode", "SUMMER25")
+            .toBuffer();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+        clientVertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        serviceVertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        fxService.stop();
+        promoService.stop();
+        try (var files = Files.list(traceDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(traceDir);
+    }
+
+    @Benchmark
+    public int quote() throws Exception {
+        HttpResponse<Buffer> response = client.post("/v1/points/quote")
+            .putHeader("Content-Type", "application/json")
+            .sendBuffer(body)
+            .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Quote failed with " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    private static int findRandomPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.airline.loyalty.loadtest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * DownstreamSimulator is an embedded WireMock server whose every response is
+ * delayed by a sampled latency, and which fails a configurable share of calls
+ * with a 500 or by stalling past the client's timeout.
+ */
+class DownstreamSimulator {
+
+    private final String name;
+    private final WireMockServer server;
+
+    DownstreamSimulator(String name, LatencyDistribution latency, double errorRate,
+                        double timeoutRate, int timeoutDelayMillis) {
+        this.name = name;
+        this.server = new WireMockServer(WireMockConfiguration.options()
+            .dynamicPort()
+            .containerThreads(200)
+            .disableRequestJournal()
+            .asynchronousResponseEnabled(true)
+            .asynchronousResponseThreads(50)
+            .extensions(new FaultInjector(latency, errorRate, timeoutRate, timeoutDelayMillis)));
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop();
+    }
+
+    int port() {
+        return server.port();
+    }
+
+    WireMockServer server() {
+        return server;
+    }
+
+    String name() {
+        return name;
+    }
+
+    private static final class FaultInjector implements ResponseDefinitionTransformerV2 {
+        private final LatencyDistribution latency;
+        private final double errorRate;
+        private final double timeoutRate;
+        private final int timeoutDelayMillis;
+
+        FaultInjector(LatencyDistribution latency, double errorRate, double timeoutRate, int timeoutDelayMillis) {
+            this.latency = latency;
+            this.errorRate = errorRate;
+            this.timeoutRate = timeoutRate;
+            this.timeoutDelayMillis = timeoutDelayMillis;
+        }
+
+        @Override
+        public ResponseDefinition transform(ServeEvent serveEvent) {
+            ResponseDefinitionBuilder response = ResponseDefinitionBuilder.like(serveEvent.getResponseDefinition());
+            double roll = ThreadLocalRandom.current().nextDouble();
+
+            if (roll < timeoutRate) {
+                return response.withFixedDelay(timeoutDelayMillis).build();
+            }
+            if (roll < timeoutRate + errorRate) {
+                return response.withStatus(500).withBody("{\"error\":\"SIMULATED\"}")
+                    .withFixedDelay((int) latency.sampleMillis()).build();
+            }
+            return response.withFixedDelay((int) latency.sampleMillis()).build();
+        }
+
+        @Override
+        public String getName() {
+            return "fault-injector";
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.airline.loyalty.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A downstream latency distribution, parsed from a compact spec:
+ * <ul>
+ *   <li>{@code fixed:MS}</li>
+ *   <li>{@code uniform:LOW_MS:HIGH_MS}</li>
+ *   <li>{@code lognormal:MEDIAN_MS:SIGMA}</li>
+ * </ul>
+ */
+interface LatencyDistribution {
+
+    long sampleMillis();
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.split(":");
+        try {
+            switch (parts[0]) {
+                case "fixed": {
+                    long millis = Long.parseLong(parts[1]);
+                    return () -> millis;
+                }
+                case "uniform": {
+                    long low = Long.parseLong(parts[1]);
+                    long high = Long.parseLong(parts[2]);
+                    return () -> ThreadLocalRandom.current().nextLong(low, high + 1);
+                }
+                case "lognormal": {
+                    double median = Double.parseDouble(parts[1]);
+                    double sigma = Double.parseDouble(parts[2]);
+                    return () -> Math.round(median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.airline.loyalty.loadtest;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.client.WebClient;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * LoadGenerator drives open-model, constant-rate traffic: request {@code i} is
+ * due at {@code start + i / rate} whether or not earlier requests have
+ * completed, and its latency is measured from that intended start time.
+ *
+ * Measuring from the schedule rather than from the actual send is what corrects
+ * for coordinated omission: when the service stalls, the queued-up requests are
+ * charged for the time they spent waiting to be sent.
+ */
+class LoadGenerator {
+
+    private static final long TICK_MILLIS = 1;
+
+    private final Vertx vertx;
+    private final WebClient client;
+    private final int ratePerSecond;
+    private final IntFunction<Buffer> bodies;
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+    LoadGenerator(Vertx vertx, WebClient client, int ratePerSecond, IntFunction<Buffer> bodies) {
+        this.vertx = vertx;
+        this.client = client;
+        this.ratePerSecond = ratePerSecond;
+        this.bodies = bodies;
+    }
+
+    /**
+     * Sends {@code ratePerSecond * durationSeconds} requests on schedule and
+     * completes once every response (or failure) has been recorded.
+     */
+    Future<Void> run(int durationSeconds, Recorder recorder) {
+        Promise<Void> done = Promise.promise();
+        long total = (long) ratePerSecond * durationSeconds;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime();
+        long[] sent = {0};
+        LongAdder inFlight = new LongAdder();
+
+        vertx.setPeriodic(TICK_MILLIS, timerId -> {
+            long due = Math.min(total, (System.nanoTime() - start) / intervalNanos + 1);
+            while (sent[0] < due) {
+                long intendedStart = start + sent[0] * intervalNanos;
+                inFlight.increment();
+                send(bodies.apply((int) sent[0]), intendedStart, recorder, () -> {
+                    inFlight.decrement();
+                    if (sent[0] == total && inFlight.sum() == 0) {
+                        done.tryComplete();
+                    }
+                });
+                sent[0]++;
+            }
+            if (sent[0] == total) {
+                vertx.cancelTimer(timerId);
+            }
+        });
+        return done.future();
+    }
+
+    private void send(Buffer body, long intendedStart, Recorder recorder, Runnable onComplete) {
+        client.post("/v1/points/quote")
+            .putHeader("Content-Type", "application/json")
+            .sendBuffer(body)
+            .onComplete(ar -> {
+                recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart));
+                int status = ar.succeeded() ? ar.result().statusCode() : 0;
+                statusCounts.computeIfAbsent(status, s -> new LongAdder()).increment();
+                onComplete.run();
+            });
+    }
+
+    /**
+     * Response counts by HTTP status; {@code 0} counts client-side failures.
+     */
+    Map<Integer, LongAdder> statusCounts() {
+        return statusCounts;
+    }
+}
@@ -0,0 +1,188 @@
+package com.airline.loyalty.loadtest;
+
+import com.airline.loyalty.MainVerticle;
+import com.airline.loyalty.testutils.DownstreamStubs;
+import com.airline.loyalty.testutils.TestConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadTestRunner starts the service in-process against simulated FX and promo
+ * services, drives constant-rate traffic at it and writes HdrHistogram results.
+ *
+ * Run with {@code mvn -Ploadtest test-compile exec:java} and tune it with
+ * {@code -Dloadtest.*} system properties, e.g.
+ * {@code -Dloadtest.rate=2000 -Dloadtest.fx.latency=lognormal:40:0.6 -Dloadtest.fx.errorRate=0.02}.
+ * {@code -Dloadtest.threadingModel=VIRTUAL_THREAD} runs the service on virtual
+ * threads (Java 21+) for comparison with the default event-loop mode.
+ *
+ * Output goes to {@code loadtest.out} (default {@code target/loadtest}):
+ * {@code latency.hlog} holds one interval histogram per second and
+ * {@code latency.hgrm} the percentile distribution of the whole measured run,
+ * both in milliseconds and corrected for coordinated omission.
+ */
+public class LoadTestRunner {
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY"};
+    private static final double[] RATES = {1.0, 1.1, 1.27, 0.0067};
+    private static final String[] CABINS = {"ECONOMY", "PREMIUM_ECONOMY", "BUSINESS", "FIRST"};
+    private static final String[] TIERS = {"NONE", "SILVER", "GOLD", "PLATINUM"};
+    private static final String[] PROMOS = {null, "SUMMER25", "UNKNOWN"};
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("loadtest.rate", 500);
+        int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+        int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 60);
+        File outDir = new File(System.getProperty("loadtest.out", "target/loadtest"));
+
+        JsonObject config = TestConfig.load(System.getProperty("loadtest.profile", "test"));
+        int fxTimeout = config.getJsonObject("fxService").getInteger("timeout");
+        int promoTimeout = config.getJsonObject("promoService").getInteger("timeout");
+
+        DownstreamSimulator fx = simulator("fx", fxTimeout);
+        DownstreamSimulator promo = simulator("promo", promoTimeout);
+        fx.start();
+        promo.start();
+        for (int i = 1; i < CURRENCIES.length; i++) {
+            DownstreamStubs.stubFxRate(fx.server(), CURRENCIES[i], "USD", RATES[i]);
+        }
+        DownstreamStubs.stubPromo(promo.server(), "SUMMER25", 0.25, LocalDate.now().plusDays(30), true);
+        DownstreamStubs.stubUnknownPromos(promo.server());
+
+        int appPort = findRandomPort();
+        config.getJsonObject("http").put("port", appPort).put("host", "127.0.0.1");
+        config.getJsonObject("fxService").put("host", "localhost").put("port", fx.port());
+        config.getJsonObject("promoService").put("host", "localhost").put("port", promo.port());
+        config.getJsonObject("observability").put("metricsPort", findRandomPort());
+        config.getJsonObject("admin").put("enabled", false);
+        String threadingModel = System.getProperty("loadtest.threadingModel");
+        if (threadingModel != null) {
+            config.put("execution", new JsonObject().put("threadingModel", threadingModel));
+        }
+
+        Vertx serviceVertx = Vertx.vertx();
+        serviceVertx.deployVerticle(MainVerticle.class.getName(),
+                MainVerticle.deploymentOptions(config).setInstances(Runtime.getRuntime().availableProcessors()))
+            .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+
+        Vertx clientVertx = Vertx.vertx();
+        WebClient client = WebClient.create(clientVertx, new WebClientOptions()
+            .setDefaultHost("127.0.0.1")
+            .setDefaultPort(appPort)
+            .setMaxPoolSize(1000)
+            .setPipelining(false)
+            .setIdleTimeout(60));
+        Buffer[] bodies = requestBodies();
+        LoadGenerator generator = new LoadGenerator(clientVertx, client, rate, i -> bodies[i % bodies.length]);
+
+        Recorder recorder = new Recorder(3);
+        if (warmupSeconds > 0) {
+            System.out.printf("Warming up at %d req/s for %d s%n", rate, warmupSeconds);
+            await(generator.run(warmupSeconds, recorder));
+            recorder.getIntervalHistogram();
+            generator.statusCounts().clear();
+        }
+
+        System.out.printf("Measuring at %d req/s for %d s%n", rate, durationSeconds);
+        outDir.mkdirs();
+        Histogram accumulated = new Histogram(3);
+        try (PrintStream hlog = new PrintStream(new File(outDir, "latency.hlog"), StandardCharsets.UTF_8)) {
+            HistogramLogWriter writer = new HistogramLogWriter(hlog);
+            writer.outputLogFormatVersion();
+            writer.outputStartTime(System.currentTimeMillis());
+            writer.outputLegend();
+
+            long[] timerId = {0};
+            Histogram[] interval = {null};
+            timerId[0] = clientVertx.setPeriodic(1000, t -> {
+                interval[0] = recorder.getIntervalHistogram(interval[0]);
+                accumulated.add(interval[0]);
+                writer.outputIntervalHistogram(interval[0]);
+            });
+            await(generator.run(durationSeconds, recorder));
+            clientVertx.cancelTimer(timerId[0]);
+
+            Histogram last = recorder.getIntervalHistogram();
+            accumulated.add(last);
+            writer.outputIntervalHistogram(last);
+        }
+
+        try (PrintStream hgrm = new PrintStream(new File(outDir, "latency.hgrm"), StandardCharsets.UTF_8)) {
+            accumulated.outputPercentileDistribution(hgrm, 1000.0);
+        }
+
+        printSummary(accumulated, generator.statusCounts(), outDir);
+
+        client.close();
+        await(clientVertx.close());
+        await(serviceVertx.close());
+        fx.stop();
+        promo.stop();
+    }
+
+    private static DownstreamSimulator simulator(String name, int clientTimeoutMillis) {
+        String prefix = "loadtest." + name + ".";
+        return new DownstreamSimulator(
+            name,
+            LatencyDistribution.parse(System.getProperty(prefix + "latency", "lognormal:20:0.5")),
+            Double.parseDouble(System.getProperty(prefix + "errorRate", "0.0")),
+            Double.parseDouble(System.getProperty(prefix + "timeoutRate", "0.0")),
+            clientTimeoutMillis * 2
+        );
+    }
+
+    private static Buffer[] requestBodies() {
+        Buffer[] bodies = new Buffer[CURRENCIES.length * CABINS.length * TIERS.length * PROMOS.length];
+        int i = 0;
+        for (String currency : CURRENCIES) {
+            for (String cabin : CABINS) {
+                for (String tier : TIERS) {
+                    for (String promo : PROMOS) {
+                        JsonObject body = new JsonObject()
+                            .put("fareAmount", 250.0 + 97.5 * i)
+                            .put("currency", currency)
+                            .put("cabinClass", cabin)
+                            .put("customerTier", tier)
+                            .put("promoCode", promo);
+                        bodies[i++] = body.toBuffer();
+                    }
+                }
+            }
+        }
+        return bodies;
+    }
+
+    private static void printSummary(Histogram histogram, Map<Integer, ?> statusCounts, File outDir) {
+        System.out.printf("%nRequests: %d  (status counts: %s)%n", histogram.getTotalCount(), new TreeMap<>(statusCounts));
+        for (double p : new double[] {50, 90, 99, 99.9, 99.99, 100}) {
+            System.out.printf("  p%-6s %10.2f ms%n", p, histogram.getValueAtPercentile(p) / 1000.0);
+        }
+        System.out.printf("Histograms written to %s%n", outDir.getAbsolutePath());
+    }
+
+    private static int findRandomPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static <T> T await(io.vertx.core.Future<T> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,98 @@
+package com.airline.loyalty;
+
+import com.airline.loyalty.audit.AuditJournal;
+import com.airline.loyalty.audit.AuditRecord;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Command-line entry point that decodes quote audit segments (see
+ * {@link AuditJournal}) to JSON lines on standard output:
+ *
+ * <pre>
+ * java -cp points-quote-service.jar com.airline.loyalty.AuditReaderMain \
+ *     [--request-id ID] [--member-id ID] [--from 2024-01-31T00:00:00Z] [--to ...] logs/audit
+ * </pre>
+ *
+ * Each argument after the options is a segment or a directory of segments,
+ * read oldest first. A segment ending in a torn or corrupt record is reported
+ * on standard error.
+ */
+public class AuditReaderMain {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        int i = 0;
+        while (i + 1 < args.length && args[i].startsWith("--")) {
+            options.put(args[i].substring(2), args[i + 1]);
+            i += 2;
+        }
+        if (i >= args.length) {
+            System.err.println("Usage: AuditReaderMain [--request-id ID] [--member-id ID] [--from <instant>]"
+                + " [--to <instant>] <segment or directory>...");
+            System.exit(2);
+            return;
+        }
+
+        List<Path> segments = new ArrayList<>();
+        for (; i < args.length; i++) {
+            Path path = Path.of(args[i]);
+            if (Files.isDirectory(path)) {
+                segments.addAll(AuditJournal.segments(path));
+            } else {
+                segments.add(path);
+            }
+        }
+
+        Predicate<AuditRecord> filter = filter(options);
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+            new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16));
+        long[] matched = {0};
+        for (Path segment : segments) {
+            long end = AuditJournal.read(segment, record -> {
+                if (filter.test(record)) {
+                    out.println(record.toJson().encode());
+                    matched[0]++;
+                }
+            });
+            long size = Files.size(segment);
+            if (end < size) {
+                System.err.printf("%s: stopped at a torn or corrupt record at byte %d of %d%n", segment, end, size);
+            }
+        }
+        out.flush();
+        System.err.printf("%d records from %d segments%n", matched[0], segments.size());
+    }
+
+    private static Predicate<AuditRecord> filter(Map<String, String> options) {
+        Predicate<AuditRecord> filter = record -> true;
+        String requestId = options.get("request-id");
+        if (requestId != null) {
+            filter = filter.and(record -> requestId.equals(record.requestId()));
+        }
+        String memberId = options.get("member-id");
+        if (memberId != null) {
+            filter = filter.and(record -> memberId.equals(record.memberId()));
+        }
+        if (options.containsKey("from")) {
+            long from = Instant.parse(options.get("from")).toEpochMilli();
+            filter = filter.and(record -> record.issuedAtMillis() >= from);
+        }
+        if (options.containsKey("to")) {
+            long to = Instant.parse(options.get("to")).toEpochMilli();
+            filter = filter.and(record -> record.issuedAtMillis() < to);
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,43 @@
+package com.airline.loyalty;
+
+import com.airline.loyalty.service.FxRateHistory;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line entry point that compiles daily FX rates into the
+ * memory-mappable history file named by {@code fxHistory.file}:
+ *
+ * <pre>
+ * java -cp points-quote-service.jar com.airline.loyalty.FxHistoryMain rates.csv data/fx-history.bin
+ * </pre>
+ *
+ * The input is {@code date,currency,rate} rows (with a header line) of rates
+ * into the base currency of the profile file ({@code vertx.profile} /
+ * {@code VERTX_PROFILE}, default dev).
+ */
+public class FxHistoryMain {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: FxHistoryMain <rates.csv> <history file>");
+            System.exit(2);
+            return;
+        }
+
+        JsonObject config = ProfileConfig.load(ProfileConfig.profile());
+        String baseCurrency = config.getJsonObject("currency").getString("base");
+
+        FxRateHistory history = FxRateHistory.readCsv(baseCurrency, Path.of(args[0]));
+        Path output = Path.of(args[1]);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        history.write(output);
+
+        System.out.printf("Wrote %d currencies from %s to %s into %s (%d bytes)%n",
+            history.currencyCount(), history.getFirstDate(), history.getLastDate(), output, Files.size(output));
+    }
+}
@@ -2,10 +2,10 @@ package com.airline.loyalty;
 
 import io.vertx.config.ConfigRetriever;
 import io.vertx.config.ConfigRetrieverOptions;
-import io.vertx.config.ConfigStoreOptions;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
-import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.TimeUnit;
 
 
 public class Main {
@@ -13,34 +13,58 @@ public class Main {
     public static void main(String[] args) {
         Vertx vertx = Vertx.vertx();
 
-        String profile = System.getProperty(
-            "vertx.profile",
-            System.getenv().getOrDefault("VERTX_PROFILE", "dev")
-        );
-        
-        
+        // Unlike the Vert.x Launcher, Vertx.vertx() adds no shutdown hook: on SIGTERM, undeploy so that
+        // MainVerticle.stop flushes the audit journal, snapshots the ledger and writes the warm cache
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                vertx.close().toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, "vertx-shutdown"));
 
-        ConfigStoreOptions fileStore = new ConfigStoreOptions()
-            .setType("file")
-            .setConfig(new JsonObject()
-                .put("path", "src/main/resources/application-" + profile + ".json"));
+        // Training run for the AppCDS archive (appcds profile): exit once warmed up
+        boolean exitWhenReady = Boolean.getBoolean("loyalty.exitWhenReady");
+        if (exitWhenReady) {
+            vertx.eventBus().consumer(MainVerticle.READY_ADDRESS, msg ->
+                vertx.close().onComplete(ar -> System.exit(0)));
+        }
 
         ConfigRetriever retriever = ConfigRetriever.create(
             vertx,
-            new ConfigRetrieverOptions().addStore(fileStore)
+            new ConfigRetrieverOptions().addStore(ProfileConfig.store(ProfileConfig.profile()))
         );
 
         retriever.getConfig(ar -> {
             if (ar.failed()) {
                 ar.cause().printStackTrace();
+                if (exitWhenReady) {
+                    System.exit(1);
+                }
                 return;
             }
 
-            DeploymentOptions options =
-                new DeploymentOptions().setConfig(ar.result());
+            DeploymentOptions options;
+            try {
+                options = MainVerticle.deploymentOptions(ar.result());
+            } catch (IllegalStateException e) {
+                // Misconfigured for this runtime: stop rather than run without the service
+                e.printStackTrace();
+                System.exit(1);
+                return;
+            }
 
-            vertx.deployVerticle(new MainVerticle(), options);
+            vertx.deployVerticle(new MainVerticle(), options)
+                .onFailure(err -> {
+                    err.printStackTrace();
+                    if (exitWhenReady) {
+                        System.exit(1);
+                    }
+                });
         });
+
+        // Let running verticles react to edits of the profile file (e.g. rule changes)
+        retriever.listen(change ->
+            vertx.eventBus().publish(MainVerticle.CONFIG_CHANGED_ADDRESS, change.getNewConfiguration()));
     }
 }
-
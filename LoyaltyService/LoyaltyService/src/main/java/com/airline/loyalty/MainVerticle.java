@@ -1,65 +1,235 @@
 package com.airline.loyalty;
 
+import com.airline.loyalty.handler.AccrualHandler;
+import com.airline.loyalty.handler.AdminAuthHandler;
+import com.airline.loyalty.handler.BalanceHandler;
+import com.airline.loyalty.handler.ChangePushHandler;
 import com.airline.loyalty.handler.HealthCheckHandler;
+import com.airline.loyalty.handler.IdempotencyHandler;
 import com.airline.loyalty.handler.PointsQuoteHandler;
+import com.airline.loyalty.handler.RateLimitHandler;
+import com.airline.loyalty.handler.ProfilingHandler;
+import com.airline.loyalty.handler.ReadinessHandler;
+import com.airline.loyalty.handler.RequestLimits;
+import com.airline.loyalty.audit.AuditJournal;
+import com.airline.loyalty.ledger.AccrualLedger;
+import com.airline.loyalty.logging.LoggingMetrics;
+import com.airline.loyalty.logging.RequestLogContext;
+import com.airline.loyalty.profiling.JfrProfiler;
+import com.airline.loyalty.service.ChangeMessages;
+import com.airline.loyalty.service.FxRateHistory;
 import com.airline.loyalty.service.FxServiceClient;
+import com.airline.loyalty.service.IdempotencyStore;
 import com.airline.loyalty.service.PointsCalculationService;
+import com.airline.loyalty.service.PromoEngine;
 import com.airline.loyalty.service.PromoServiceClient;
+import com.airline.loyalty.service.QuoteCache;
+import com.airline.loyalty.service.RateLimiter;
+import com.airline.loyalty.service.WarmCache;
+import com.airline.loyalty.tracing.Tracer;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.micrometer.prometheus.PrometheusConfig;
 import io.micrometer.prometheus.PrometheusMeterRegistry;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.ThreadingModel;
 import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
 import io.vertx.ext.web.Router;
-import io.vertx.ext.web.handler.BodyHandler;
+import io.vertx.ext.web.handler.LoggerFormat;
 import io.vertx.ext.web.handler.LoggerHandler;
 import io.vertx.ext.web.handler.TimeoutHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+
 /**
  * MainVerticle is the primary deployment unit of the Vert.x application.
  *
  */
 public class MainVerticle extends AbstractVerticle {
     private static final Logger logger = LoggerFactory.getLogger(MainVerticle.class);
+
+    /** Event-bus address on which {@link Main} publishes reloaded configuration. */
+    public static final String CONFIG_CHANGED_ADDRESS = "loyalty.config.changed";
+
+    /** Event-bus address for FX rate changes pushed by upstream systems (see {@link ChangeMessages}). */
+    public static final String FX_RATES_CHANGED_ADDRESS = "loyalty.fx.changed";
+
+    /** Event-bus address for promo changes pushed by upstream systems (see {@link ChangeMessages}). */
+    public static final String PROMOS_CHANGED_ADDRESS = "loyalty.promos.changed";
+
+    /** Event-bus address on which an instance publishes its deployment ID once it is ready. */
+    public static final String READY_ADDRESS = "loyalty.ready";
+
     private HttpServer server;
     private HttpServer metricsServer;
+    private HttpServer adminServer;
+    private Supplier<Future<Void>> writeWarmCache;
+    private volatile boolean ready;
+    private Tracer tracer;
+    private PromoEngine promoEngine;
+    private JfrProfiler ownedProfiler;
+    private AccrualLedger ownedLedger;
+    private AuditJournal ownedAuditJournal;
+    private final StartupMetrics startupMetrics = new StartupMetrics();
+
+    /**
+     * Deployment options for a profile config. Quote handling runs on event
+     * loops unless {@code execution.threadingModel} is {@code VIRTUAL_THREAD},
+     * which needs a Java 21+ runtime and lets handlers await blocking work.
+     *
+     * @throws IllegalStateException if {@code VIRTUAL_THREAD} is configured on
+     *         a runtime without virtual threads
+     */
+    public static DeploymentOptions deploymentOptions(JsonObject config) {
+        ThreadingModel threadingModel = ThreadingModel.valueOf(config.getJsonObject("execution", new JsonObject())
+            .getString("threadingModel", ThreadingModel.EVENT_LOOP.name()));
+        if (threadingModel == ThreadingModel.VIRTUAL_THREAD && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("execution.threadingModel is VIRTUAL_THREAD, which needs Java 21+, but this is Java "
+                + Runtime.version().feature());
+        }
+        return new DeploymentOptions()
+            .setConfig(config)
+            .setThreadingModel(threadingModel);
+    }
 
     @Override
     public void start(Promise<Void> startPromise) {
         JsonObject config = config();
+
+        // An admin endpoint needs a token to keep callers out, and so do the ledger's
+        String adminToken;
+        String ledgerToken;
+        try {
+            adminToken = isAdminEnabled(config) ? AdminAuthHandler.token(config) : null;
+            ledgerToken = AccrualLedger.isEnabled(config)
+                ? AdminAuthHandler.token(config, "ledger", "LEDGER_TOKEN") : null;
+        } catch (IllegalStateException e) {
+            startPromise.fail(e);
+            return;
+        }
         
         // Initialize metrics
         PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new LoggingMetrics().bindTo(meterRegistry);
+        startupMetrics.bindTo(meterRegistry);
         
         // Initialize services
-        FxServiceClient fxService = new FxServiceClient(vertx, config);
-        PromoServiceClient promoService = new PromoServiceClient(vertx, config);
+        FxServiceClient fxService = new FxServiceClient(vertx, config, meterRegistry);
+        PromoServiceClient promoService = new PromoServiceClient(vertx, config, meterRegistry);
+        FxRateHistory fxHistory = null;
+        if (FxRateHistory.isEnabled(config)) {
+            // Memory-mapped, so instances and processes mapping the same file share its pages
+            try {
+                fxHistory = FxRateHistory.load(config);
+            } catch (IOException e) {
+                logger.error("Failed to load FX history", e);
+                startPromise.fail(e);
+                return;
+            }
+            logger.info("FX history loaded: {} currencies from {} to {}",
+                fxHistory.currencyCount(), fxHistory.getFirstDate(), fxHistory.getLastDate());
+        }
+        promoEngine = PromoEngine.isEnabled(config)
+            ? new PromoEngine(vertx, promoService, config, meterRegistry) : null;
         PointsCalculationService calculationService = new PointsCalculationService(
-            fxService, promoService, config
+            fxService, fxHistory, promoService, promoEngine, config
         );
 
+        QuoteCache quoteCache = QuoteCache.isEnabled(config) ? new QuoteCache(config, meterRegistry) : null;
+        vertx.eventBus().<JsonObject>consumer(CONFIG_CHANGED_ADDRESS, msg -> {
+            calculationService.applyRules(msg.body());
+            if (quoteCache != null) {
+                quoteCache.onConfigChanged(msg.body());
+            }
+        });
+        vertx.eventBus().<JsonObject>consumer(FX_RATES_CHANGED_ADDRESS, msg -> {
+            calculationService.applyFxChange(msg.body());
+            if (quoteCache != null) {
+                if (msg.body().getBoolean("invalidateAll", false)) {
+                    quoteCache.clear();
+                } else {
+                    quoteCache.invalidateCurrencies(ChangeMessages.currencies(msg.body()));
+                }
+            }
+        });
+        vertx.eventBus().<JsonObject>consumer(PROMOS_CHANGED_ADDRESS, msg -> {
+            calculationService.applyPromoChange(msg.body());
+            if (quoteCache != null) {
+                quoteCache.invalidatePromos(ChangeMessages.promoCodes(msg.body()));
+            }
+        });
+
+        IdempotencyStore idempotencyStore = IdempotencyStore.isEnabled(config) ? sharedIdempotencyStore(config) : null;
+
+        RateLimiter rateLimiter = RateLimiter.isEnabled(config) ? sharedRateLimiter(config) : null;
+
+        AccrualLedger ledger = AccrualLedger.isEnabled(config) ? sharedLedger(config) : null;
+
+        AuditJournal auditJournal = AuditJournal.isEnabled(config) ? sharedAuditJournal(config) : null;
+        if (auditJournal != null) {
+            auditJournal.bindTo(meterRegistry);
+        }
+
+        tracer = Tracer.isEnabled(config) ? new Tracer(config, meterRegistry) : null;
+
         // Create routers
-        Router router = createMainRouter(calculationService, meterRegistry);
+        Router router = createMainRouter(calculationService, quoteCache, idempotencyStore, rateLimiter, ledger,
+            ledgerToken, auditJournal, startupMetrics, tracer, meterRegistry);
         Router metricsRouter = createMetricsRouter(meterRegistry);
+        Router adminRouter = adminToken != null ? createAdminRouter(meterRegistry, config, adminToken) : null;
 
         // Start main server
         JsonObject httpConfig = config.getJsonObject("http");
         int port = httpConfig.getInteger("port");
         String host = httpConfig.getString("host");
 
-        vertx.createHttpServer()
-            .requestHandler(router)
-            .listen(port, host)
+        // Restore the warm-cache snapshot, then give the promo engine (or, without it,
+        // the promo code filter) one catalogue fetch before taking traffic
+        Future<Void> cacheRestored = Future.succeededFuture();
+        if (WarmCache.isEnabled(config)) {
+            WarmCache warmCache = new WarmCache(vertx, config);
+            cacheRestored = warmCache.restore(calculationService.getFxRateTable(), promoEngine);
+            if (claimWarmCacheWriter()) {
+                warmCache.startWriting(calculationService.getFxRateTable(), promoEngine);
+                writeWarmCache = () -> warmCache.write(calculationService.getFxRateTable(), promoEngine);
+            }
+        }
+        cacheRestored
+            .compose(v -> promoEngine != null ? promoEngine.start() : promoService.startCodeFilter())
+            .compose(v -> ledger != null ? ledger.recover(vertx) : Future.succeededFuture())
+            .compose(v -> auditJournal != null ? auditJournal.start(vertx) : Future.succeededFuture())
+            .compose(v -> vertx.createHttpServer(RequestLimits.applyTo(new HttpServerOptions(), config))
+                .requestHandler(router)
+                .listen(port, host))
             .onSuccess(s -> {
                 server = s;
                 logger.info("Points Quote Service listening on {}:{}", host, port);
-                
-                // Start metrics server
-                startMetricsServer(metricsRouter, config, startPromise);
+
+                // Report ready once the synthetic quotes have warmed up the JIT;
+                // deployment does not wait for it
+                if (WarmUp.isEnabled(config)) {
+                    new WarmUp(vertx, config)
+                        .run(stubbed -> createMainRouter(stubbed, null, null, null, null, null, null, null, null,
+                            new SimpleMeterRegistry()),
+                            calculationService.getFxRateTable())
+                        .onComplete(ar -> markReady());
+                } else {
+                    markReady();
+                }
+
+                // Start metrics and admin servers
+                startMetricsServer(metricsRouter, config)
+                    .compose(v -> adminRouter != null ? startAdminServer(adminRouter, config) : Future.succeededFuture())
+                    .onComplete(startPromise);
             })
             .onFailure(err -> {
                 logger.error("Failed to start server", err);
@@ -67,28 +237,77 @@ public class MainVerticle extends AbstractVerticle {
             });
     }
 
-    private Router createMainRouter(PointsCalculationService calculationService, MeterRegistry meterRegistry) {
+    private void markReady() {
+        ready = true;
+        startupMetrics.markReady();
+        vertx.eventBus().publish(READY_ADDRESS, deploymentID());
+    }
+
+    private Router createMainRouter(PointsCalculationService calculationService, QuoteCache quoteCache,
+                                    IdempotencyStore idempotencyStore, RateLimiter rateLimiter,
+                                    AccrualLedger ledger, String ledgerToken, AuditJournal auditJournal,
+                                    StartupMetrics startupMetrics, Tracer tracer, MeterRegistry meterRegistry) {
         Router router = Router.router(vertx);
 
         // Global handlers
-        router.route().handler(LoggerHandler.create());
-        router.route().handler(BodyHandler.create());
-        router.route().handler(TimeoutHandler.create(10000));
+        router.route().handler(LoggerHandler.create(LoggerFormat.CUSTOM).customFormatter(RequestLogContext::accessLog));
+        router.route().handler(TimeoutHandler.create(config().getJsonObject("http", new JsonObject())
+            .getLong("requestTimeoutMillis", FxServiceClient.DEFAULT_REQUEST_TIMEOUT_MILLIS)));
         router.route().handler(ctx -> {
-            String requestId = ctx.request().getHeader("X-Request-ID");
+            String requestId = ctx.request().getHeader(RequestLogContext.REQUEST_ID_HEADER);
             if (requestId == null || requestId.isEmpty()) {
                 requestId = java.util.UUID.randomUUID().toString();
             }
-            ctx.put("X-Request-ID", requestId);
-            ctx.response().putHeader("X-Request-ID", requestId);
+            ctx.put(RequestLogContext.REQUEST_ID_HEADER, requestId);
+            ctx.response().putHeader(RequestLogContext.REQUEST_ID_HEADER, requestId);
+            RequestLogContext.bind(ctx);
             ctx.next();
         });
 
-        // Routes
-        router.post("/v1/points/quote").handler(new PointsQuoteHandler(calculationService, meterRegistry));
+        // Over-limit clients are refused before their body is read
+        if (rateLimiter != null) {
+            router.route("/v1/*").handler(new RateLimitHandler(rateLimiter, config(), meterRegistry));
+        }
+
+        // Routes: only these take a body, each bounded by its limit
+        RequestLimits requestLimits = new RequestLimits(config(), meterRegistry);
+        router.post("/v1/points/quote").handler(requestLimits.body("/v1/points/quote"));
+        if (ledger != null) {
+            // Crediting and reading balances are for trusted services only, checked before the body is read
+            AdminAuthHandler ledgerAuth = new AdminAuthHandler(ledgerToken, "ledger", meterRegistry);
+            router.post("/v1/points/accrue").handler(ledgerAuth);
+            router.get("/v1/points/balance/:memberId").handler(ledgerAuth);
+            router.post("/v1/points/accrue").handler(requestLimits.body("/v1/points/accrue"));
+        }
+        if (tracer != null) {
+            router.post("/v1/points/quote").handler(tracer::traceRequest);
+        }
+        if (startupMetrics != null) {
+            router.post("/v1/points/quote").handler(startupMetrics::recordFirstQuote);
+        }
+        IdempotencyHandler idempotencyHandler = idempotencyStore != null
+            ? new IdempotencyHandler(idempotencyStore, meterRegistry) : null;
+        if (idempotencyHandler != null) {
+            router.post("/v1/points/quote").handler(idempotencyHandler);
+        }
+        router.post("/v1/points/quote").handler(new PointsQuoteHandler(calculationService, quoteCache, auditJournal,
+            meterRegistry));
+        if (ledger != null) {
+            if (tracer != null) {
+                router.post("/v1/points/accrue").handler(tracer::traceRequest);
+            }
+            if (idempotencyHandler != null) {
+                router.post("/v1/points/accrue").handler(idempotencyHandler);
+            }
+            router.post("/v1/points/accrue").handler(new AccrualHandler(calculationService, ledger, auditJournal,
+                meterRegistry));
+            router.get("/v1/points/balance/:memberId").handler(new BalanceHandler(ledger));
+        }
         router.get("/health").handler(new HealthCheckHandler());
+        router.get("/ready").handler(new ReadinessHandler(() -> ready));
 
-        // Error handler
+        // Error handlers
+        router.errorHandler(413, requestLimits::handleTooLarge);
         router.errorHandler(500, ctx -> {
             logger.error("Unhandled error", ctx.failure());
             ctx.response()
@@ -100,6 +319,67 @@ public class MainVerticle extends AbstractVerticle {
         return router;
     }
 
+    /**
+     * Request IDs must be recognised whichever verticle instance a retry lands
+     * on, so all instances share the first store created.
+     */
+    private IdempotencyStore sharedIdempotencyStore(JsonObject config) {
+        LocalMap<String, IdempotencyStore> stores = vertx.sharedData().getLocalMap("loyalty.idempotency");
+        IdempotencyStore store = new IdempotencyStore(config);
+        IdempotencyStore existing = stores.putIfAbsent("store", store);
+        return existing != null ? existing : store;
+    }
+
+    /**
+     * A client's requests may land on any verticle instance, so all instances
+     * share the first limiter created.
+     */
+    private RateLimiter sharedRateLimiter(JsonObject config) {
+        LocalMap<String, RateLimiter> limiters = vertx.sharedData().getLocalMap("loyalty.ratelimit");
+        RateLimiter limiter = new RateLimiter(config);
+        RateLimiter existing = limiters.putIfAbsent("limiter", limiter);
+        return existing != null ? existing : limiter;
+    }
+
+    /**
+     * Balances and the WAL are per process, so all instances share the first
+     * ledger created; its instance closes it on undeploy.
+     */
+    private AccrualLedger sharedLedger(JsonObject config) {
+        LocalMap<String, AccrualLedger> ledgers = vertx.sharedData().getLocalMap("loyalty.ledger");
+        AccrualLedger ledger = new AccrualLedger(config);
+        AccrualLedger existing = ledgers.putIfAbsent("ledger", ledger);
+        if (existing != null) {
+            return existing;
+        }
+        ownedLedger = ledger;
+        return ledger;
+    }
+
+    /**
+     * Segments are per process and written by one thread, so all instances
+     * share the first journal created; its instance closes it on undeploy.
+     */
+    private AuditJournal sharedAuditJournal(JsonObject config) {
+        LocalMap<String, AuditJournal> journals = vertx.sharedData().getLocalMap("loyalty.audit");
+        AuditJournal journal = new AuditJournal(config);
+        AuditJournal existing = journals.putIfAbsent("journal", journal);
+        if (existing != null) {
+            return existing;
+        }
+        ownedAuditJournal = journal;
+        return journal;
+    }
+
+    /**
+     * One verticle instance writes the warm-cache snapshot; their caches hold
+     * much the same rates and promos.
+     */
+    private boolean claimWarmCacheWriter() {
+        LocalMap<String, String> writers = vertx.sharedData().getLocalMap("loyalty.warmcache");
+        return writers.putIfAbsent("writer", deploymentID()) == null;
+    }
+
     private Router createMetricsRouter(PrometheusMeterRegistry meterRegistry) {
         Router router = Router.router(vertx);
         router.get("/metrics").handler(ctx -> {
@@ -110,40 +390,171 @@ public class MainVerticle extends AbstractVerticle {
         return router;
     }
 
-    private void startMetricsServer(Router metricsRouter, JsonObject config, Promise<Void> startPromise) {
+    private static boolean isAdminEnabled(JsonObject config) {
+        return config.getJsonObject("admin", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    /**
+     * Internal admin endpoint, behind the admin token: upstream systems push FX
+     * and promo changes, which are fanned out to every instance over the event
+     * bus, and operators take JFR recordings.
+     */
+    private Router createAdminRouter(PrometheusMeterRegistry meterRegistry, JsonObject config, String adminToken) {
+        Router router = Router.router(vertx);
+        router.route("/admin/*").handler(new AdminAuthHandler(adminToken, meterRegistry));
+        RequestLimits requestLimits = new RequestLimits(config, meterRegistry);
+        router.post("/admin/*").handler(requestLimits.body("/admin/*"));
+        router.errorHandler(413, requestLimits::handleTooLarge);
+        router.post("/admin/fx-rates").handler(new ChangePushHandler(
+            "fx", FX_RATES_CHANGED_ADDRESS, ChangeMessages::validateFxChange, meterRegistry));
+        router.post("/admin/promos").handler(new ChangePushHandler(
+            "promo", PROMOS_CHANGED_ADDRESS, ChangeMessages::validatePromoChange, meterRegistry));
+
+        if (JfrProfiler.isEnabled(config)) {
+            ProfilingHandler profilingHandler = new ProfilingHandler(sharedProfiler(config), meterRegistry);
+            router.post("/admin/jfr/recording").handler(profilingHandler::handleRecording);
+            router.post("/admin/jfr/dump").handler(profilingHandler::handleDump);
+        }
+        return router;
+    }
+
+    /**
+     * JFR recordings are JVM-wide, so all instances share the first profiler
+     * created; its instance starts the continuous recording, off the event
+     * loop, and closes it on undeploy.
+     */
+    private JfrProfiler sharedProfiler(JsonObject config) {
+        LocalMap<String, JfrProfiler> profilers = vertx.sharedData().getLocalMap("loyalty.profiling");
+        JfrProfiler profiler = new JfrProfiler(config);
+        JfrProfiler existing = profilers.putIfAbsent("profiler", profiler);
+        if (existing != null) {
+            return existing;
+        }
+        ownedProfiler = profiler;
+        vertx.executeBlocking(() -> {
+            profiler.startContinuous();
+            return null;
+        }, false).onFailure(err -> logger.warn("Continuous JFR recording not started", err));
+        return profiler;
+    }
+
+    private Future<Void> startMetricsServer(Router metricsRouter, JsonObject config) {
         JsonObject obsConfig = config.getJsonObject("observability");
         if (!obsConfig.getBoolean("metricsEnabled")) {
-            startPromise.complete();
-            return;
+            return Future.succeededFuture();
         }
 
         int metricsPort = obsConfig.getInteger("metricsPort");
-        vertx.createHttpServer()
+        return vertx.createHttpServer(RequestLimits.applyTo(new HttpServerOptions(), config))
             .requestHandler(metricsRouter)
             .listen(metricsPort, "0.0.0.0")
             .onSuccess(s -> {
                 metricsServer = s;
                 logger.info("Metrics server listening on port {}", metricsPort);
-                startPromise.complete();
             })
-            .onFailure(err -> {
+            .<Void>mapEmpty()
+            .recover(err -> {
                 logger.warn("Failed to start metrics server, continuing without metrics", err);
-                startPromise.complete();
+                return Future.succeededFuture();
             });
     }
 
+    /**
+     * Listens on {@code admin.host} (loopback unless configured otherwise)
+     * and {@code admin.port}.
+     */
+    private Future<Void> startAdminServer(Router adminRouter, JsonObject config) {
+        JsonObject adminConfig = config.getJsonObject("admin");
+        String adminHost = adminConfig.getString("host", "127.0.0.1");
+        int adminPort = adminConfig.getInteger("port", 9091);
+        return vertx.createHttpServer(RequestLimits.applyTo(new HttpServerOptions(), config))
+            .requestHandler(adminRouter)
+            .listen(adminPort, adminHost)
+            .onSuccess(s -> {
+                adminServer = s;
+                logger.info("Admin server listening on {}:{}", adminHost, adminPort);
+            })
+            .mapEmpty();
+    }
+
+    private Future<Void> closeOwnedLedger() {
+        if (ownedLedger == null) {
+            return Future.succeededFuture();
+        }
+        vertx.sharedData().<String, AccrualLedger>getLocalMap("loyalty.ledger").remove("ledger", ownedLedger);
+        AccrualLedger ledger = ownedLedger;
+        return vertx.executeBlocking(() -> {
+            ledger.close();
+            return null;
+        }, false);
+    }
+
+    private Future<Void> closeOwnedAuditJournal() {
+        if (ownedAuditJournal == null) {
+            return Future.succeededFuture();
+        }
+        vertx.sharedData().<String, AuditJournal>getLocalMap("loyalty.audit").remove("journal", ownedAuditJournal);
+        AuditJournal journal = ownedAuditJournal;
+        return vertx.executeBlocking(() -> {
+            journal.close();
+            return null;
+        }, false);
+    }
+
+    private Future<Void> closeTracer() {
+        if (tracer == null) {
+            return Future.succeededFuture();
+        }
+        // Flushes the queued traces, joining the exporter thread, so off the event loop
+        return vertx.executeBlocking(() -> {
+            tracer.close();
+            return null;
+        }, false);
+    }
+
+    private Future<Void> closeOwnedProfiler() {
+        if (ownedProfiler == null) {
+            return Future.succeededFuture();
+        }
+        vertx.sharedData().<String, JfrProfiler>getLocalMap("loyalty.profiling").remove("profiler", ownedProfiler);
+        JfrProfiler profiler = ownedProfiler;
+        return vertx.executeBlocking(() -> {
+            profiler.close();
+            return null;
+        }, false);
+    }
+
     @Override
     public void stop(Promise<Void> stopPromise) {
-        if (server != null) {
-            server.close().onComplete(ar -> {
-                if (metricsServer != null) {
-                    metricsServer.close().onComplete(stopPromise);
-                } else {
-                    stopPromise.complete();
-                }
-            });
-        } else {
-            stopPromise.complete();
+        if (promoEngine != null) {
+            promoEngine.stop();
+        }
+        // Leave the next instance the freshest snapshot
+        Future<Void> snapshotWritten = Future.succeededFuture();
+        if (writeWarmCache != null) {
+            vertx.sharedData().<String, String>getLocalMap("loyalty.warmcache").remove("writer", deploymentID());
+            snapshotWritten = writeWarmCache.get().otherwiseEmpty();
         }
+        snapshotWritten.onComplete(written -> {
+            if (server != null) {
+                // Once no more accruals can arrive, commit the queued ones and snapshot the ledger,
+                // and write the queued audit records. Traces are flushed once the last request span has
+                // ended, and the profiler is closed once its admin routes are gone
+                server.close()
+                    .transform(ar -> closeOwnedLedger())
+                    .transform(ar -> closeOwnedAuditJournal())
+                    .transform(ar -> closeTracer())
+                    .transform(ar -> metricsServer != null ? metricsServer.close() : Future.succeededFuture())
+                    .transform(ar -> adminServer != null ? adminServer.close() : Future.<Void>succeededFuture())
+                    .transform(ar -> closeOwnedProfiler())
+                    .onComplete(stopPromise);
+            } else {
+                closeOwnedLedger()
+                    .transform(ar -> closeOwnedAuditJournal())
+                    .transform(ar -> closeTracer())
+                    .transform(ar -> closeOwnedProfiler())
+                    .onComplete(stopPromise);
+            }
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.airline.loyalty;
+
+import io.vertx.config.ConfigStoreOptions;
+import io.vertx.core.json.JsonObject;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Locates the profile config for the command-line entry points.
+ *
+ * The profile ({@code vertx.profile} / {@code VERTX_PROFILE}, default dev)
+ * selects {@code application-<profile>.json}, read from the classpath so the
+ * shaded jar runs from any directory. Setting {@code config.file} /
+ * {@code CONFIG_FILE} reads that file instead, e.g. to edit rules at runtime.
+ */
+public final class ProfileConfig {
+
+    private ProfileConfig() {}
+
+    public static String profile() {
+        return System.getProperty("vertx.profile", System.getenv().getOrDefault("VERTX_PROFILE", "dev"));
+    }
+
+    static String resource(String profile) {
+        return "application-" + profile + ".json";
+    }
+
+    private static String overrideFile() {
+        return System.getProperty("config.file", System.getenv("CONFIG_FILE"));
+    }
+
+    /**
+     * Config store for {@link io.vertx.config.ConfigRetriever}. A relative
+     * path the Vert.x file system does not find on disk is looked up on the
+     * classpath.
+     */
+    public static ConfigStoreOptions store(String profile) {
+        String file = overrideFile();
+        return new ConfigStoreOptions()
+            .setType("file")
+            .setConfig(new JsonObject().put("path", file != null ? file : resource(profile)));
+    }
+
+    public static JsonObject load(String profile) throws IOException {
+        String file = overrideFile();
+        if (file != null) {
+            return new JsonObject(Files.readString(Path.of(file)));
+        }
+        try (InputStream in = ProfileConfig.class.getResourceAsStream("/" + resource(profile))) {
+            if (in == null) {
+                throw new FileNotFoundException("No " + resource(profile) + " on the classpath");
+            }
+            return new JsonObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
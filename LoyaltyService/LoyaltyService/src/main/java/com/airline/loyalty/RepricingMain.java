@@ -0,0 +1,107 @@
+package com.airline.loyalty;
+
+import ch.qos.logback.classic.Level;
+import com.airline.loyalty.batch.BulkRepricer;
+import com.airline.loyalty.batch.InputFormat;
+import com.airline.loyalty.batch.SnapshotFxServiceClient;
+import com.airline.loyalty.batch.SnapshotPromoServiceClient;
+import com.airline.loyalty.service.FxRateHistory;
+import com.airline.loyalty.service.PointsCalculationService;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command-line entry point that re-prices a file of historical bookings
+ * offline, with FX rates (and optionally promos) from snapshot files. Bookings
+ * with a past {@code asOfDate} are priced from the daily FX history
+ * ({@code --fx-history}, else {@code fxHistory.file} when enabled); the
+ * snapshot only holds the rates for bookings without one:
+ *
+ * <pre>
+ * java -cp points-quote-service.jar com.airline.loyalty.RepricingMain \
+ *     --input bookings.csv --output points.csv --fx-snapshot fx-2024-01-31.json \
+ *     [--fx-history fx-history.bin] [--promos promos.json] [--format CSV|NDJSON] [--parallelism N] [--chunk-mb 8]
+ * </pre>
+ *
+ * Business rules come from the same profile file as the service
+ * ({@code vertx.profile} / {@code VERTX_PROFILE}, default dev).
+ */
+public class RepricingMain {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        if (options == null || !options.containsKey("input") || !options.containsKey("output")
+                || !options.containsKey("fx-snapshot")) {
+            System.err.println("Usage: RepricingMain --input <file> --output <file> --fx-snapshot <file>"
+                + " [--fx-history <file>] [--promos <file>] [--format CSV|NDJSON] [--parallelism N] [--chunk-mb N]");
+            System.exit(2);
+            return;
+        }
+
+        JsonObject config = ProfileConfig.load(ProfileConfig.profile());
+
+        Path input = Path.of(options.get("input"));
+        InputFormat format = options.containsKey("format")
+            ? InputFormat.valueOf(options.get("format").toUpperCase(Locale.ROOT))
+            : InputFormat.of(input);
+        int parallelism = Integer.parseInt(options.getOrDefault("parallelism",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int chunkBytes = options.containsKey("chunk-mb")
+            ? Integer.parseInt(options.get("chunk-mb")) << 20
+            : BulkRepricer.DEFAULT_CHUNK_BYTES;
+
+        // Per-quote INFO lines (capped totals, expiring promos) would swamp the log at batch rates
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(PointsCalculationService.class)).setLevel(Level.WARN);
+
+        // The snapshot clients never use it, but their HTTP base classes need a Vertx instance
+        Vertx vertx = Vertx.vertx();
+        try {
+            SnapshotFxServiceClient fxService =
+                SnapshotFxServiceClient.load(vertx, config, Path.of(options.get("fx-snapshot")));
+            SnapshotPromoServiceClient promoService = SnapshotPromoServiceClient.load(vertx, config,
+                options.containsKey("promos") ? Path.of(options.get("promos")) : null);
+            FxRateHistory fxHistory = null;
+            if (options.containsKey("fx-history")) {
+                fxHistory = FxRateHistory.map(Path.of(options.get("fx-history")));
+            } else if (FxRateHistory.isEnabled(config)) {
+                fxHistory = FxRateHistory.load(config);
+            }
+            PointsCalculationService calculationService =
+                new PointsCalculationService(fxService, fxHistory, promoService, null, config);
+
+            System.out.printf("Re-pricing %s (%s) with %d FX rates as of %s and %d promos%n",
+                input, format, fxService.size(), fxService.getAsOf(), promoService.size());
+            if (fxHistory != null) {
+                System.out.printf("Bookings with an asOfDate use the FX history: %d currencies from %s to %s%n",
+                    fxHistory.currencyCount(), fxHistory.getFirstDate(), fxHistory.getLastDate());
+            } else {
+                System.out.println("No FX history: bookings with a past asOfDate in another currency will fail");
+            }
+
+            BulkRepricer.Result result = new BulkRepricer(calculationService, parallelism, chunkBytes)
+                .reprice(input, format, Path.of(options.get("output")));
+
+            System.out.printf("Re-priced %d bookings (%d errors) in %.1f s, %.0f rows/s%n",
+                result.rows(), result.errors(), result.elapsedNanos() / 1e9, result.rowsPerSecond());
+        } finally {
+            vertx.close();
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                return null;
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,66 @@
+package com.airline.loyalty;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * StartupMetrics exports how long after JVM start the instance became ready
+ * and served its first successful quote, the latter being what an autoscaled
+ * instance is started for. Both gauges are NaN until it happens.
+ */
+public class StartupMetrics implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(StartupMetrics.class);
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private volatile long readyAtMillis = -1;
+    private volatile long firstQuoteAtMillis = -1;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("startup_time_to_ready_seconds", this, m -> m.sinceJvmStart(m.readyAtMillis))
+            .description("Time from JVM start until /ready reported ready")
+            .baseUnit("seconds")
+            .register(registry);
+        Gauge.builder("startup_time_to_first_quote_seconds", this, m -> m.sinceJvmStart(m.firstQuoteAtMillis))
+            .description("Time from JVM start until the first successful quote response")
+            .baseUnit("seconds")
+            .register(registry);
+    }
+
+    public void markReady() {
+        readyAtMillis = System.currentTimeMillis();
+        logger.info("Ready {} ms after JVM start", readyAtMillis - jvmStartMillis);
+    }
+
+    /**
+     * Route handler for the quote endpoint: records the first quote answered
+     * with 200, then passes the request on.
+     */
+    public void recordFirstQuote(RoutingContext ctx) {
+        if (firstQuoteAtMillis < 0) {
+            ctx.addEndHandler(ar -> {
+                if (ar.succeeded() && ctx.response().getStatusCode() == 200) {
+                    markFirstQuote();
+                }
+            });
+        }
+        ctx.next();
+    }
+
+    private synchronized void markFirstQuote() {
+        if (firstQuoteAtMillis < 0) {
+            firstQuoteAtMillis = System.currentTimeMillis();
+            logger.info("First quote served {} ms after JVM start", firstQuoteAtMillis - jvmStartMillis);
+        }
+    }
+
+    private double sinceJvmStart(long atMillis) {
+        return atMillis < 0 ? Double.NaN : (atMillis - jvmStartMillis) / 1000.0;
+    }
+}
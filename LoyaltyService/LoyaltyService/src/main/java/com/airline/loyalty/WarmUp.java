@@ -0,0 +1,184 @@
+package com.airline.loyalty;
+
+import com.airline.loyalty.batch.SnapshotFxServiceClient;
+import com.airline.loyalty.batch.SnapshotPromoServiceClient;
+import com.airline.loyalty.model.CabinClass;
+import com.airline.loyalty.model.CustomerTier;
+import com.airline.loyalty.service.FxRateTable;
+import com.airline.loyalty.service.PointsCalculationService;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.client.WebClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * WarmUp runs synthetic quotes through the real request pipeline before an
+ * instance reports ready, so live traffic meets JIT-compiled code rather than
+ * the interpreter.
+ *
+ * Every {@code warmUp.rounds} round posts one quote for each combination of
+ * {@code warmUp.currencies}, cabin, tier and with/without a promo code, over
+ * HTTP to a loopback server with the same routes and handlers as the main
+ * one. That server's calculation service answers from stubbed FX rates and
+ * promos, so warm-up never calls the FX or promo service. Afterwards the live
+ * FX rate cache is primed with each warm-up currency, which also opens the
+ * connections to the FX service. The whole phase is cut short after
+ * {@code warmUp.maxMillis}.
+ */
+public class WarmUp {
+    private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+
+    static final String PROMO_CODE = "WARMUP";
+
+    private final Vertx vertx;
+    private final JsonObject config;
+    private final int rounds;
+    private final List<String> currencies;
+    private final long maxMillis;
+
+    public WarmUp(Vertx vertx, JsonObject config) {
+        JsonObject warmUpConfig = config.getJsonObject("warmUp", new JsonObject());
+        this.vertx = vertx;
+        this.config = config;
+        this.rounds = warmUpConfig.getInteger("rounds", 20);
+        this.maxMillis = warmUpConfig.getLong("maxMillis", 30000L);
+        JsonArray configured = warmUpConfig.getJsonArray("currencies", new JsonArray().add("USD"));
+        this.currencies = new ArrayList<>(configured.size());
+        for (int i = 0; i < configured.size(); i++) {
+            currencies.add(configured.getString(i));
+        }
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getJsonObject("warmUp", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    /**
+     * Runs the warm-up. The returned future completes when it is over and
+     * does not fail: a failing synthetic quote or FX lookup is only logged.
+     *
+     * @param routerFactory builds the main router around a calculation service
+     * @param liveRates     the live FX rate cache to prime
+     */
+    public Future<Void> run(Function<PointsCalculationService, Router> routerFactory, FxRateTable liveRates) {
+        long start = System.currentTimeMillis();
+        long deadline = start + maxMillis;
+        Router router = routerFactory.apply(stubbedCalculationService());
+
+        return vertx.createHttpServer()
+            .requestHandler(router)
+            .listen(0, "127.0.0.1")
+            .compose(server -> {
+                WebClient client = WebClient.create(vertx);
+                return runRounds(client, server.actualPort(), 0, deadline)
+                    .eventually(() -> {
+                        client.close();
+                        return server.close();
+                    });
+            })
+            .compose(quotes -> primeFxRates(liveRates).map(primed -> {
+                logger.info("Warm-up finished: {} synthetic quotes, {} FX rates primed in {} ms",
+                    quotes, primed, System.currentTimeMillis() - start);
+                return (Void) null;
+            }))
+            .onFailure(err -> logger.warn("Warm-up failed, continuing cold: {}", err.toString()))
+            .otherwiseEmpty();
+    }
+
+    /**
+     * Calculation service over fixed FX rates (1.0 into the base currency) and
+     * a single always-applicable promo.
+     */
+    private PointsCalculationService stubbedCalculationService() {
+        JsonObject stubConfig = config.copy();
+        // Go through the FX client on every quote rather than the rate cache
+        stubConfig.getJsonObject("fxService").put("rateCacheTtlMillis", 0);
+        String base = config.getJsonObject("currency").getString("base");
+
+        JsonObject rates = new JsonObject();
+        for (String currency : currencies) {
+            rates.put(currency, 1.0);
+        }
+        SnapshotFxServiceClient fx = new SnapshotFxServiceClient(vertx, stubConfig,
+            new JsonObject().put("base", base).put("rates", rates));
+        SnapshotPromoServiceClient promo = new SnapshotPromoServiceClient(vertx, stubConfig, new JsonArray()
+            .add(new JsonObject()
+                .put("promoCode", PROMO_CODE)
+                .put("bonusMultiplier", 0.1)
+                .put("expiryDate", LocalDate.now().plusYears(1).toString())
+                .put("active", true)));
+        return new PointsCalculationService(fx, promo, stubConfig);
+    }
+
+    /**
+     * Posts the rounds one after another, each round's quotes concurrently.
+     *
+     * @return the number of quotes posted
+     */
+    private Future<Integer> runRounds(WebClient client, int port, int round, long deadline) {
+        if (round >= rounds || System.currentTimeMillis() >= deadline) {
+            return Future.succeededFuture(round * quotesPerRound());
+        }
+        List<Future<?>> quotes = new ArrayList<>(quotesPerRound());
+        int i = 0;
+        for (String currency : currencies) {
+            for (CabinClass cabin : CabinClass.values()) {
+                for (CustomerTier tier : CustomerTier.values()) {
+                    for (boolean withPromo : new boolean[] {false, true}) {
+                        // A different fare every quote, so no two share a quote cache entry
+                        JsonObject quote = new JsonObject()
+                            .put("fareAmount", 100.0 + round * 1000 + i++)
+                            .put("currency", currency)
+                            .put("cabinClass", cabin.name())
+                            .put("customerTier", tier.name());
+                        if (withPromo) {
+                            quote.put("promoCode", PROMO_CODE);
+                        }
+                        quotes.add(client.post(port, "127.0.0.1", "/v1/points/quote")
+                            .putHeader("X-Request-ID", "warmup-" + round + "-" + i)
+                            .sendJsonObject(quote)
+                            .onSuccess(response -> {
+                                if (response.statusCode() != 200) {
+                                    logger.warn("Warm-up quote failed with {}: {}", response.statusCode(),
+                                        response.bodyAsString());
+                                }
+                            }));
+                    }
+                }
+            }
+        }
+        return Future.join(quotes)
+            .transform(ar -> runRounds(client, port, round + 1, deadline));
+    }
+
+    private int quotesPerRound() {
+        return currencies.size() * CabinClass.values().length * CustomerTier.values().length * 2;
+    }
+
+    /**
+     * Looks up each warm-up currency in the live rate cache.
+     *
+     * @return the number of rates fetched
+     */
+    private Future<Integer> primeFxRates(FxRateTable liveRates) {
+        String base = liveRates.getBaseCurrency();
+        List<Future<FxRateTable.Rate>> lookups = new ArrayList<>();
+        for (String currency : currencies) {
+            if (!currency.equals(base)) {
+                lookups.add(liveRates.rate(currency, base)
+                    .onFailure(err -> logger.warn("Could not prime FX rate for {}: {}", currency, err.getMessage())));
+            }
+        }
+        return Future.join(lookups).transform(ar ->
+            Future.succeededFuture((int) lookups.stream().filter(Future::succeeded).count()));
+    }
+}
@@ -0,0 +1,309 @@
+package com.airline.loyalty.audit;
+
+import com.airline.loyalty.model.PointsCalculation;
+import com.airline.loyalty.model.PointsQuoteRequest;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.Shareable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * AuditJournal keeps a record of every quote issued, for disputes, without
+ * putting disk writes on the request path.
+ *
+ * Event loops encode each quote into an {@link AuditRecord} frame and offer it
+ * to a lock-free {@link RecordRing} ({@code audit.ringSize} records). A single
+ * writer thread drains the ring into a batch buffer ({@code audit.batchBytes})
+ * and appends each batch with one write to the current segment file,
+ * {@code audit-<start millis>.log}, starting a new one when it would grow past
+ * {@code audit.segmentBytes}. Segments are forced to disk when they are
+ * closed; a process crash loses nothing written, an OS crash may lose the
+ * tail of the open segment. Segments are never deleted here: archiving them
+ * is an operations task.
+ *
+ * When the ring is full, or after a write failed, a record is not taken.
+ * What the request does then is {@code audit.onFull}: {@code drop} (default)
+ * serves the quote unaudited, {@code reject} fails it. Either way the record
+ * is counted. One instance is shared by all verticle instances through
+ * Vert.x local shared data, hence {@link Shareable}.
+ */
+public class AuditJournal implements Shareable, MeterBinder, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditJournal.class);
+
+    static final int SEGMENT_MAGIC = 0x51414A31; // "QAJ1"
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public enum OnFull { DROP, REJECT }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int batchBytes;
+    private final OnFull onFull;
+    private final RecordRing ring;
+
+    private final AtomicLong writtenRecords = new AtomicLong();
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final AtomicLong rejectedRecords = new AtomicLong();
+    private final AtomicLong failedRecords = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong writtenBytes = new AtomicLong();
+
+    private Thread writer;
+    private volatile boolean running;
+    private volatile Throwable failure;
+    private FileChannel channel;
+    private Path segment;
+    private long segmentPosition;
+    private long lastSegmentStamp;
+
+    public AuditJournal(JsonObject config) {
+        JsonObject auditConfig = config.getJsonObject("audit", new JsonObject());
+        this.directory = Path.of(auditConfig.getString("directory", "logs/audit"));
+        this.batchBytes = Math.max(AuditRecord.MAX_FRAME_BYTES, auditConfig.getInteger("batchBytes", 1 << 20));
+        this.segmentBytes = Math.max(batchBytes, auditConfig.getLong("segmentBytes", 64L * 1024 * 1024));
+        this.onFull = OnFull.valueOf(auditConfig.getString("onFull", "drop").toUpperCase());
+        this.ring = new RecordRing(auditConfig.getInteger("ringSize", 65536));
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getJsonObject("audit", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    /**
+     * Opens a new segment and starts the writer. Blocking; later calls return
+     * at once.
+     */
+    public synchronized void start() throws IOException {
+        if (writer != null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        openSegment();
+        running = true;
+        writer = new Thread(this::run, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Starts on a worker thread; see {@link #start}.
+     */
+    public Future<Void> start(Vertx vertx) {
+        return vertx.executeBlocking(() -> {
+            start();
+            return null;
+        }, false);
+    }
+
+    /**
+     * Hands an encoded record to the writer. Never blocks.
+     *
+     * @return {@code false} if the record was not taken (counted as dropped or
+     *         rejected, per {@link #getOnFull})
+     */
+    public boolean append(byte[] record) {
+        if (running && failure == null && ring.offer(record)) {
+            return true;
+        }
+        if (onFull == OnFull.REJECT) {
+            rejectedRecords.incrementAndGet();
+        } else {
+            droppedRecords.incrementAndGet();
+        }
+        return false;
+    }
+
+    /**
+     * Encodes a quote as issued now and appends it.
+     *
+     * @return {@code false} if the quote must be refused: the record was not
+     *         taken and {@code audit.onFull} is reject
+     */
+    public boolean record(AuditRecord.Kind kind, boolean cached, String requestId, String memberId,
+                          PointsQuoteRequest request, PointsCalculation calculation) {
+        byte[] record = AuditRecord.encode(kind, cached, System.currentTimeMillis(), requestId, memberId,
+            request, calculation);
+        return append(record) || onFull == OnFull.DROP;
+    }
+
+    public OnFull getOnFull() {
+        return onFull;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        recordsCounter(registry, "written", writtenRecords);
+        recordsCounter(registry, "dropped", droppedRecords);
+        recordsCounter(registry, "rejected", rejectedRecords);
+        recordsCounter(registry, "failed", failedRecords);
+        FunctionCounter.builder("audit_batches_total", batches, AtomicLong::get)
+            .description("Batched segment writes")
+            .register(registry);
+        FunctionCounter.builder("audit_written_bytes_total", writtenBytes, AtomicLong::get)
+            .description("Bytes written to audit segments")
+            .register(registry);
+        Gauge.builder("audit_ring_depth", ring, RecordRing::size)
+            .description("Audit records waiting for the writer")
+            .register(registry);
+        Gauge.builder("audit_ring_capacity", ring, RecordRing::capacity)
+            .description("Audit records the ring holds")
+            .register(registry);
+    }
+
+    private static void recordsCounter(MeterRegistry registry, String outcome, AtomicLong count) {
+        FunctionCounter.builder("audit_records_total", count, AtomicLong::get)
+            .description("Audit records by outcome: written; dropped (quote served) or rejected (quote"
+                + " refused) when not taken; failed when lost to a segment write error")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+
+    /**
+     * Writes the records already taken, closes the segment and stops the
+     * writer. Blocking.
+     */
+    @Override
+    public void close() {
+        running = false;
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        ByteBuffer batch = ByteBuffer.allocateDirect(batchBytes);
+        while (running || !ring.isEmpty()) {
+            int records = 0;
+            byte[] next;
+            while ((next = ring.peek()) != null && next.length <= batch.remaining()) {
+                batch.put(ring.poll());
+                records++;
+            }
+            if (records == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            batch.flip();
+            if (failure != null) {
+                failedRecords.addAndGet(records);
+            } else {
+                write(batch, records);
+            }
+            batch.clear();
+        }
+        if (channel != null) {
+            closeSegment();
+        }
+    }
+
+    private void write(ByteBuffer batch, int records) {
+        int bytes = batch.remaining();
+        try {
+            if (segmentPosition > 4 && segmentPosition + bytes > segmentBytes) {
+                closeSegment();
+                openSegment();
+            }
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Audit segment write failed, no longer taking records", e);
+            failure = e;
+            failedRecords.addAndGet(records);
+            return;
+        }
+        segmentPosition += bytes;
+        writtenRecords.addAndGet(records);
+        writtenBytes.addAndGet(bytes);
+        batches.incrementAndGet();
+    }
+
+    private void openSegment() throws IOException {
+        long stamp = Math.max(System.currentTimeMillis(), lastSegmentStamp + 1);
+        Path file = directory.resolve(String.format("audit-%013d.log", stamp));
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(4).putInt(SEGMENT_MAGIC).flip();
+        while (header.hasRemaining()) {
+            opened.write(header);
+        }
+        lastSegmentStamp = stamp;
+        channel = opened;
+        segment = file;
+        segmentPosition = 4;
+        logger.debug("Audit segment opened: {}", file);
+    }
+
+    private void closeSegment() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close audit segment {}: {}", segment, e.toString());
+        }
+        channel = null;
+    }
+
+    /**
+     * @return the segments in {@code directory}, oldest first
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(f -> f.getFileName().toString().matches("audit-\\d+\\.log"))
+                .sorted()
+                .toList();
+        }
+    }
+
+    /**
+     * Decodes the records of a segment in order, stopping at the first
+     * incomplete or corrupt frame.
+     *
+     * @return the offset where decoding stopped; less than the file size if a
+     *         torn or corrupt frame was found
+     * @throws IOException if the file is not an audit segment
+     */
+    public static long read(Path segment, Consumer<AuditRecord> visitor) throws IOException {
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            if (buf.remaining() < 4 || buf.getInt() != SEGMENT_MAGIC) {
+                throw new IOException("Not an audit segment: " + segment);
+            }
+            AuditRecord record;
+            while ((record = AuditRecord.decode(buf)) != null) {
+                visitor.accept(record);
+            }
+            return buf.position();
+        }
+    }
+}
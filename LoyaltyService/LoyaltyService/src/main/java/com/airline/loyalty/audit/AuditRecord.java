@@ -0,0 +1,188 @@
+package com.airline.loyalty.audit;
+
+import com.airline.loyalty.model.PointsCalculation;
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.model.QuoteWarning;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+/**
+ * AuditRecord is one issued quote as written to the audit journal: the
+ * request, the result, the FX rate used and the promo applied.
+ *
+ * Frame layout (big-endian): int payload length, the payload, int CRC32C of
+ * the payload. Payload: byte version, byte kind, byte flags (bit 0: served
+ * from the quote cache), long issued at (epoch millis), double fare amount,
+ * int base points, tier bonus, promo bonus and total points, double effective
+ * FX rate, int warning mask, then the request ID, member ID, currency, cabin
+ * class, customer tier, promo code, target currency and as-of date, each an
+ * unsigned short UTF-8 length ({@code 0xFFFF} for none) and the bytes.
+ * Strings are cut at {@link #MAX_STRING_BYTES}.
+ */
+public record AuditRecord(Kind kind, boolean cached, long issuedAtMillis, String requestId, String memberId,
+                          double fareAmount, String currency, String cabinClass, String customerTier,
+                          String promoCode, String targetCurrency, String asOfDate,
+                          int basePoints, int tierBonus, int promoBonus, int totalPoints,
+                          double effectiveFxRate, int warningMask) {
+
+    public enum Kind { QUOTE, ACCRUAL }
+
+    static final int MAX_STRING_BYTES = 1024;
+    static final int MAX_FRAME_BYTES = 4 + 47 + 8 * (2 + MAX_STRING_BYTES) + 4;
+
+    private static final byte VERSION = 1;
+    private static final int FIXED_PAYLOAD_BYTES = 1 + 1 + 1 + 8 + 8 + 4 * 4 + 8 + 4;
+    private static final int NULL_STRING = 0xFFFF;
+    private static final byte[] NULL = new byte[0];
+
+    /**
+     * Encodes a record framed for the journal. Cheap enough for the event
+     * loop: one pass over the fields and one CRC.
+     */
+    public static byte[] encode(Kind kind, boolean cached, long issuedAtMillis, String requestId, String memberId,
+                                PointsQuoteRequest request, PointsCalculation calculation) {
+        byte[][] strings = {
+            utf8(requestId), utf8(memberId), utf8(request.getCurrency()), utf8(request.getCabinClass()),
+            utf8(request.getCustomerTier()), utf8(request.getPromoCode()), utf8(request.getTargetCurrency()),
+            utf8(request.getAsOfDate())
+        };
+        int payloadBytes = FIXED_PAYLOAD_BYTES;
+        for (byte[] s : strings) {
+            payloadBytes += 2 + Math.min(s.length, MAX_STRING_BYTES);
+        }
+
+        byte[] frame = new byte[4 + payloadBytes + 4];
+        ByteBuffer buf = ByteBuffer.wrap(frame);
+        buf.putInt(payloadBytes);
+        buf.put(VERSION);
+        buf.put((byte) kind.ordinal());
+        buf.put((byte) (cached ? 1 : 0));
+        buf.putLong(issuedAtMillis);
+        Double fare = request.getFareAmount();
+        buf.putDouble(fare != null ? fare : Double.NaN);
+        buf.putInt(calculation.getBasePoints());
+        buf.putInt(calculation.getTierBonus());
+        buf.putInt(calculation.getPromoBonus());
+        buf.putInt(calculation.getTotalPoints());
+        buf.putDouble(calculation.getEffectiveFxRate());
+        buf.putInt(calculation.getWarningMask());
+        for (byte[] s : strings) {
+            if (s == NULL) {
+                buf.putShort((short) NULL_STRING);
+            } else {
+                int length = Math.min(s.length, MAX_STRING_BYTES);
+                buf.putShort((short) length);
+                buf.put(s, 0, length);
+            }
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(frame, 4, payloadBytes);
+        buf.putInt((int) crc.getValue());
+        return frame;
+    }
+
+    /**
+     * Decodes the frame at {@code buf}'s position, advancing past it.
+     *
+     * @return the record, or {@code null} (position unchanged) if the bytes
+     *         left do not hold a complete frame with a matching CRC, as at
+     *         the end of a segment or a torn write
+     */
+    public static AuditRecord decode(ByteBuffer buf) {
+        int start = buf.position();
+        if (buf.remaining() < 4) {
+            return null;
+        }
+        int payloadBytes = buf.getInt(start);
+        if (payloadBytes < FIXED_PAYLOAD_BYTES || payloadBytes > MAX_FRAME_BYTES
+                || buf.remaining() < 4 + payloadBytes + 4) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buf.slice(start + 4, payloadBytes));
+        if (buf.getInt(start + 4 + payloadBytes) != (int) crc.getValue()) {
+            return null;
+        }
+
+        buf.position(start + 4);
+        byte version = buf.get();
+        if (version != VERSION) {
+            buf.position(start);
+            return null;
+        }
+        Kind kind = Kind.values()[buf.get()];
+        boolean cached = (buf.get() & 1) != 0;
+        long issuedAt = buf.getLong();
+        double fare = buf.getDouble();
+        int basePoints = buf.getInt();
+        int tierBonus = buf.getInt();
+        int promoBonus = buf.getInt();
+        int totalPoints = buf.getInt();
+        double fxRate = buf.getDouble();
+        int warnings = buf.getInt();
+        String requestId = readString(buf);
+        String memberId = readString(buf);
+        String currency = readString(buf);
+        String cabinClass = readString(buf);
+        String customerTier = readString(buf);
+        String promoCode = readString(buf);
+        String targetCurrency = readString(buf);
+        String asOfDate = readString(buf);
+        buf.position(start + 4 + payloadBytes + 4);
+        return new AuditRecord(kind, cached, issuedAt, requestId, memberId, fare, currency, cabinClass,
+            customerTier, promoCode, targetCurrency, asOfDate, basePoints, tierBonus, promoBonus, totalPoints,
+            fxRate, warnings);
+    }
+
+    public JsonObject toJson() {
+        JsonObject request = new JsonObject()
+            .put("fareAmount", fareAmount)
+            .put("currency", currency)
+            .put("cabinClass", cabinClass)
+            .put("customerTier", customerTier);
+        putIfPresent(request, "promoCode", promoCode);
+        putIfPresent(request, "targetCurrency", targetCurrency);
+        putIfPresent(request, "asOfDate", asOfDate);
+
+        JsonObject json = new JsonObject()
+            .put("issuedAt", Instant.ofEpochMilli(issuedAtMillis).toString())
+            .put("kind", kind.name())
+            .put("cached", cached);
+        putIfPresent(json, "requestId", requestId);
+        putIfPresent(json, "memberId", memberId);
+        return json
+            .put("request", request)
+            .put("result", new JsonObject()
+                .put("basePoints", basePoints)
+                .put("tierBonus", tierBonus)
+                .put("promoBonus", promoBonus)
+                .put("totalPoints", totalPoints)
+                .put("effectiveFxRate", effectiveFxRate)
+                .put("warnings", new JsonArray(QuoteWarning.names(warningMask))));
+    }
+
+    private static void putIfPresent(JsonObject json, String key, String value) {
+        if (value != null) {
+            json.put(key, value);
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? NULL : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int length = buf.getShort() & 0xFFFF;
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,81 @@
+package com.airline.loyalty.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * RecordRing is a bounded, lock-free ring of encoded records with many
+ * producers (the event loops) and a single consumer (the journal writer).
+ *
+ * A producer claims a sequence by CAS on {@code tail}, then publishes its
+ * record into the slot; the consumer takes the slot at {@code head}, clears it
+ * and advances {@code head}. A claimed but not yet published slot reads as
+ * empty, so the consumer simply retries on its next poll. A producer never
+ * waits: when the ring is full {@link #offer} returns {@code false}.
+ */
+final class RecordRing {
+
+    private final AtomicReferenceArray<byte[]> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    RecordRing(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    boolean offer(byte[] record) {
+        while (true) {
+            long t = tail.get();
+            if (t - head.get() > mask) {
+                return false;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                slots.set((int) t & mask, record);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Consumer only.
+     *
+     * @return the oldest published record, or {@code null}
+     */
+    byte[] poll() {
+        long h = head.get();
+        int index = (int) h & mask;
+        byte[] record = slots.get(index);
+        if (record == null) {
+            return null;
+        }
+        // Clear the slot before releasing it to the producers
+        slots.set(index, null);
+        head.set(h + 1);
+        return record;
+    }
+
+    /**
+     * Consumer only: the record {@link #poll} would return next, if published.
+     */
+    byte[] peek() {
+        return slots.get((int) head.get() & mask);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+}
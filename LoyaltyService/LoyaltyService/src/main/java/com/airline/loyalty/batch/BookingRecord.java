@@ -0,0 +1,9 @@
+package com.airline.loyalty.batch;
+
+import com.airline.loyalty.model.PointsQuoteRequest;
+
+/**
+ * One historical booking to re-price: its identifier, carried through to the
+ * output, and the quote request it is priced as.
+ */
+public record BookingRecord(String bookingId, PointsQuoteRequest request) {}
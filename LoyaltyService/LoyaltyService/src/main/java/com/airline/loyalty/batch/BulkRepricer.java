@@ -0,0 +1,150 @@
+package com.airline.loyalty.batch;
+
+import com.airline.loyalty.service.PointsCalculationService;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * BulkRepricer quotes a whole file of historical bookings with the same
+ * {@link PointsCalculationService} rules as the online service, without the
+ * HTTP layer.
+ *
+ * The input is split into line-aligned chunks of about {@code chunkBytes},
+ * each memory-mapped and re-priced on a ForkJoin pool. Chunk outputs are
+ * written in input order, one write per chunk; at most two chunks per worker
+ * are in flight, which bounds memory regardless of file size.
+ *
+ * The output is CSV with the header {@link #OUTPUT_HEADER}. A booking that
+ * fails validation, has no FX rate in the snapshot or cannot be parsed gets a
+ * row with only {@code bookingId} and {@code error} set.
+ */
+public class BulkRepricer {
+
+    public static final String OUTPUT_HEADER =
+        "bookingId,basePoints,tierBonus,promoBonus,totalPoints,effectiveFxRate,warnings,error\n";
+    public static final int DEFAULT_CHUNK_BYTES = 8 << 20;
+
+    private final PointsCalculationService calculationService;
+    private final int parallelism;
+    private final int chunkBytes;
+
+    public BulkRepricer(PointsCalculationService calculationService, int parallelism, int chunkBytes) {
+        if (parallelism < 1 || chunkBytes < 1) {
+            throw new IllegalArgumentException("parallelism and chunk size must be positive");
+        }
+        this.calculationService = calculationService;
+        this.parallelism = parallelism;
+        this.chunkBytes = chunkBytes;
+    }
+
+    public Result reprice(Path inputFile, InputFormat format, Path outputFile) throws IOException {
+        long startNanos = System.nanoTime();
+        long rows = 0;
+        long errors = 0;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel input = FileChannel.open(inputFile, StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(outputFile, StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            long size = input.size();
+            long position = 0;
+            RecordParser parser;
+            if (format == InputFormat.CSV) {
+                long headerEnd = lineEnd(input, 0, size);
+                ByteBuffer header = ByteBuffer.allocate((int) headerEnd);
+                readFully(input, header, 0);
+                parser = RecordParser.csv(new String(header.array(), StandardCharsets.UTF_8));
+                position = headerEnd;
+            } else {
+                parser = RecordParser.ndjson();
+            }
+
+            writeFully(output, OUTPUT_HEADER.getBytes(StandardCharsets.US_ASCII));
+
+            Deque<ForkJoinTask<ChunkRepricer.Result>> inFlight = new ArrayDeque<>();
+            while (position < size) {
+                // Extend each chunk to the end of the line it would otherwise split
+                long target = position + chunkBytes;
+                long end = target >= size ? size : lineEnd(input, target - 1, size);
+                inFlight.add(pool.submit(new ChunkRepricer(input, position, end - position, parser, calculationService)));
+                position = end;
+
+                if (inFlight.size() >= parallelism * 2) {
+                    ChunkRepricer.Result chunk = inFlight.poll().join();
+                    writeFully(output, chunk.output());
+                    rows += chunk.rows();
+                    errors += chunk.errors();
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                ChunkRepricer.Result chunk = inFlight.poll().join();
+                writeFully(output, chunk.output());
+                rows += chunk.rows();
+                errors += chunk.errors();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return new Result(rows, errors, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the offset just past the first line break at or after
+     * {@code from}, or {@code size} if there is none.
+     */
+    private static long lineEnd(FileChannel input, long from, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            window.clear();
+            int read = input.read(window, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static void readFully(FileChannel input, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (input.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Input ended " + buffer.remaining() + " bytes early");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel output, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+    }
+
+    /**
+     * Totals for a re-pricing run.
+     */
+    public record Result(long rows, long errors, long elapsedNanos) {
+
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.airline.loyalty.batch;
+
+import com.airline.loyalty.model.PointsCalculation;
+import com.airline.loyalty.model.QuoteWarning;
+import com.airline.loyalty.service.PointsCalculationService;
+import io.vertx.core.Future;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Re-prices one line-aligned byte range of the input file: maps the range,
+ * parses each line, runs it through {@link PointsCalculationService} and
+ * renders the output rows into a single buffer for one write.
+ */
+class ChunkRepricer extends RecursiveTask<ChunkRepricer.Result> {
+
+    private final FileChannel input;
+    private final long start;
+    private final long length;
+    private final RecordParser parser;
+    private final PointsCalculationService calculationService;
+
+    ChunkRepricer(FileChannel input, long start, long length, RecordParser parser,
+                  PointsCalculationService calculationService) {
+        this.input = input;
+        this.start = start;
+        this.length = length;
+        this.parser = parser;
+        this.calculationService = calculationService;
+    }
+
+    @Override
+    protected Result compute() {
+        MappedByteBuffer buffer;
+        try {
+            buffer = input.map(FileChannel.MapMode.READ_ONLY, start, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        StringBuilder out = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+        byte[] line = new byte[256];
+        long rows = 0;
+        long errors = 0;
+
+        int limit = buffer.limit();
+        int lineStart = 0;
+        for (int i = 0; i <= limit; i++) {
+            if (i < limit && buffer.get(i) != '\n') {
+                continue;
+            }
+            int lineEnd = i;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            int lineLength = lineEnd - lineStart;
+            if (lineLength > 0) {
+                if (lineLength > line.length) {
+                    line = new byte[Math.max(lineLength, line.length * 2)];
+                }
+                buffer.get(lineStart, line, 0, lineLength);
+                rows++;
+                if (!reprice(line, lineLength, start + lineStart, out)) {
+                    errors++;
+                }
+            }
+            lineStart = i + 1;
+        }
+
+        return new Result(out.toString().getBytes(StandardCharsets.UTF_8), rows, errors);
+    }
+
+    private boolean reprice(byte[] line, int lineLength, long offset, StringBuilder out) {
+        BookingRecord record;
+        try {
+            record = parser.parse(line, lineLength);
+        } catch (IllegalArgumentException e) {
+            appendError(out, null, "Malformed record at byte " + offset + ": " + e.getMessage());
+            return false;
+        }
+
+        Future<PointsCalculation> calculation = calculationService.calculatePoints(record.request());
+        if (!calculation.isComplete()) {
+            throw new IllegalStateException("Re-pricing needs FX and promo clients that answer synchronously");
+        }
+        if (calculation.failed()) {
+            appendError(out, record.bookingId(), calculation.cause().getMessage());
+            return false;
+        }
+
+        PointsCalculation points = calculation.result();
+        appendField(out, record.bookingId());
+        out.append(',').append(points.getBasePoints())
+            .append(',').append(points.getTierBonus())
+            .append(',').append(points.getPromoBonus())
+            .append(',').append(points.getTotalPoints())
+            .append(',').append(points.getEffectiveFxRate())
+            .append(',');
+        List<String> warnings = QuoteWarning.names(points.getWarningMask());
+        for (int w = 0; w < warnings.size(); w++) {
+            if (w > 0) {
+                out.append('|');
+            }
+            out.append(warnings.get(w));
+        }
+        out.append(",\n");
+        return true;
+    }
+
+    private static void appendError(StringBuilder out, String bookingId, String message) {
+        appendField(out, bookingId);
+        out.append(",,,,,,,");
+        appendField(out, message);
+        out.append('\n');
+    }
+
+    /**
+     * Appends a CSV field, quoting it only if it contains a separator, quote
+     * or line break.
+     */
+    private static void appendField(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    /**
+     * Rendered output rows for a chunk, plus row and error counts.
+     */
+    record Result(byte[] output, long rows, long errors) {}
+}
@@ -0,0 +1,25 @@
+package com.airline.loyalty.batch;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Booking file formats accepted by the bulk re-pricer.
+ */
+public enum InputFormat {
+    /** Comma-separated, with a header row naming the columns. */
+    CSV,
+    /** One JSON booking object per line. */
+    NDJSON;
+
+    public static InputFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot tell the format of " + file + "; pass --format CSV or NDJSON");
+    }
+}
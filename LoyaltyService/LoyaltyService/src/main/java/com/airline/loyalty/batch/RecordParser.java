@@ -0,0 +1,146 @@
+package com.airline.loyalty.batch;
+
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses one line of a booking file into a {@link BookingRecord}.
+ *
+ * Implementations are stateless and shared by all re-pricing threads; they
+ * throw {@link IllegalArgumentException} for a malformed line.
+ */
+public interface RecordParser {
+
+    BookingRecord parse(byte[] line, int length);
+
+    static RecordParser csv(String header) {
+        return new Csv(header);
+    }
+
+    static RecordParser ndjson() {
+        return Ndjson.INSTANCE;
+    }
+
+    /**
+     * Unquoted comma-separated fields; the header row decides which column
+     * holds which booking field, and unrecognised columns are ignored. The
+     * optional {@code asOfDate} column is the booking date the fare is quoted
+     * at.
+     */
+    final class Csv implements RecordParser {
+        private static final String[] FIELDS =
+            {"bookingId", "fareAmount", "currency", "cabinClass", "customerTier", "promoCode", "asOfDate"};
+
+        // Booking field slot per column, or -1 for ignored columns
+        private final int[] slotByColumn;
+
+        private Csv(String header) {
+            String[] columns = header.strip().split(",", -1);
+            this.slotByColumn = new int[columns.length];
+            boolean[] seen = new boolean[FIELDS.length];
+            for (int c = 0; c < columns.length; c++) {
+                slotByColumn[c] = -1;
+                for (int slot = 0; slot < FIELDS.length; slot++) {
+                    if (FIELDS[slot].equalsIgnoreCase(columns[c].strip())) {
+                        slotByColumn[c] = slot;
+                        seen[slot] = true;
+                    }
+                }
+            }
+            // promoCode and asOfDate are optional
+            for (int slot = 0; slot < FIELDS.length - 2; slot++) {
+                if (!seen[slot]) {
+                    throw new IllegalArgumentException("CSV header has no " + FIELDS[slot] + " column: " + header);
+                }
+            }
+        }
+
+        @Override
+        public BookingRecord parse(byte[] line, int length) {
+            String[] values = new String[FIELDS.length];
+            int column = 0;
+            int fieldStart = 0;
+            for (int i = 0; i <= length; i++) {
+                if (i == length || line[i] == ',') {
+                    if (column < slotByColumn.length && slotByColumn[column] >= 0 && i > fieldStart) {
+                        values[slotByColumn[column]] = new String(line, fieldStart, i - fieldStart, StandardCharsets.UTF_8);
+                    }
+                    column++;
+                    fieldStart = i + 1;
+                }
+            }
+            if (column != slotByColumn.length) {
+                throw new IllegalArgumentException("expected " + slotByColumn.length + " columns but found " + column);
+            }
+            Double fareAmount = null;
+            if (values[1] != null) {
+                try {
+                    fareAmount = Double.valueOf(values[1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("fareAmount is not a number: " + values[1]);
+                }
+            }
+            return record(values[0], fareAmount, values[2], values[3], values[4], values[5], values[6]);
+        }
+    }
+
+    /**
+     * A flat JSON object per line with the same field names as a quote request,
+     * plus {@code bookingId}; {@code asOfDate} is the booking date. Unknown
+     * fields are skipped.
+     */
+    final class Ndjson implements RecordParser {
+        private static final Ndjson INSTANCE = new Ndjson();
+        private static final JsonFactory FACTORY = new JsonFactory();
+
+        @Override
+        public BookingRecord parse(byte[] line, int length) {
+            String bookingId = null;
+            Double fareAmount = null;
+            String currency = null;
+            String cabinClass = null;
+            String customerTier = null;
+            String promoCode = null;
+            String asOfDate = null;
+
+            try (JsonParser parser = FACTORY.createParser(line, 0, length)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("expected a JSON object");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if (value == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+                    switch (field) {
+                        case "bookingId" -> bookingId = parser.getValueAsString();
+                        case "fareAmount" -> fareAmount = value.isNumeric()
+                            ? parser.getDoubleValue() : Double.valueOf(parser.getValueAsString());
+                        case "currency" -> currency = parser.getValueAsString();
+                        case "cabinClass" -> cabinClass = parser.getValueAsString();
+                        case "customerTier" -> customerTier = parser.getValueAsString();
+                        case "promoCode" -> promoCode = parser.getValueAsString();
+                        case "asOfDate" -> asOfDate = parser.getValueAsString();
+                        default -> parser.skipChildren();
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e.getMessage());
+            }
+            return record(bookingId, fareAmount, currency, cabinClass, customerTier, promoCode, asOfDate);
+        }
+    }
+
+    private static BookingRecord record(String bookingId, Double fareAmount, String currency,
+                                        String cabinClass, String customerTier, String promoCode, String asOfDate) {
+        PointsQuoteRequest request = new PointsQuoteRequest(fareAmount, currency, cabinClass, customerTier, promoCode);
+        request.setAsOfDate(asOfDate);
+        return new BookingRecord(bookingId, request);
+    }
+}
@@ -0,0 +1,69 @@
+package com.airline.loyalty.batch;
+
+import com.airline.loyalty.exception.ExternalServiceException;
+import com.airline.loyalty.service.FxServiceClient;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * FxServiceClient that answers from a rate snapshot file instead of the live
+ * FX service, so offline re-pricing is repeatable and makes no network calls.
+ *
+ * The snapshot is a JSON object of rates into the base currency:
+ * <pre>{"base": "USD", "asOf": "2024-01-31", "rates": {"EUR": 1.1, "GBP": 1.27}}</pre>
+ *
+ * It holds one rate per currency for a single date; bookings quoted as of
+ * another date take their rates from an FX history instead.
+ *
+ * Lookups return already-completed futures and the table is read-only after
+ * loading, so one instance can be shared by all re-pricing threads.
+ */
+public class SnapshotFxServiceClient extends FxServiceClient {
+
+    private final String baseCurrency;
+    private final String asOf;
+    private final Map<String, Future<Double>> rates = new HashMap<>();
+
+    public SnapshotFxServiceClient(Vertx vertx, JsonObject config, JsonObject snapshot) {
+        super(vertx, config, null);
+        this.baseCurrency = config.getJsonObject("currency").getString("base");
+        this.asOf = snapshot.getString("asOf");
+
+        String snapshotBase = snapshot.getString("base", baseCurrency);
+        if (!baseCurrency.equals(snapshotBase)) {
+            throw new IllegalArgumentException(
+                "FX snapshot is quoted into " + snapshotBase + " but the base currency is " + baseCurrency);
+        }
+        JsonObject snapshotRates = snapshot.getJsonObject("rates", new JsonObject());
+        for (String currency : snapshotRates.fieldNames()) {
+            rates.put(currency, Future.succeededFuture(snapshotRates.getDouble(currency)));
+        }
+    }
+
+    public static SnapshotFxServiceClient load(Vertx vertx, JsonObject config, Path snapshotFile) throws IOException {
+        return new SnapshotFxServiceClient(vertx, config, new JsonObject(Files.readString(snapshotFile)));
+    }
+
+    public String getAsOf() {
+        return asOf;
+    }
+
+    public int size() {
+        return rates.size();
+    }
+
+    @Override
+    public Future<Double> getExchangeRate(String fromCurrency, String toCurrency) {
+        Future<Double> rate = baseCurrency.equals(toCurrency) ? rates.get(fromCurrency) : null;
+        return rate != null ? rate
+            : Future.failedFuture(new ExternalServiceException(
+                "No FX rate for " + fromCurrency + " in snapshot", null));
+    }
+}
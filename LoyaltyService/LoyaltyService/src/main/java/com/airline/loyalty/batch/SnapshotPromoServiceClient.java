@@ -0,0 +1,55 @@
+package com.airline.loyalty.batch;
+
+import com.airline.loyalty.model.PromoResponse;
+import com.airline.loyalty.service.PromoServiceClient;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * PromoServiceClient that answers from a promo snapshot file, a JSON array of
+ * promo service responses. Codes missing from the snapshot are treated as
+ * unknown, as a 404 from the live service would be.
+ *
+ * Like {@link SnapshotFxServiceClient}, it is read-only after loading and safe
+ * to share across threads.
+ */
+public class SnapshotPromoServiceClient extends PromoServiceClient {
+
+    private static final Future<Optional<PromoResponse>> NOT_FOUND = Future.succeededFuture(Optional.empty());
+
+    private final Map<String, Future<Optional<PromoResponse>>> promos = new HashMap<>();
+
+    public SnapshotPromoServiceClient(Vertx vertx, JsonObject config, JsonArray snapshot) {
+        super(vertx, config);
+        for (int i = 0; i < snapshot.size(); i++) {
+            PromoResponse promo = snapshot.getJsonObject(i).mapTo(PromoResponse.class);
+            promos.put(promo.promoCode(), Future.succeededFuture(Optional.of(promo)));
+        }
+    }
+
+    public static SnapshotPromoServiceClient load(Vertx vertx, JsonObject config, Path snapshotFile) throws IOException {
+        JsonArray snapshot = snapshotFile == null ? new JsonArray() : new JsonArray(Files.readString(snapshotFile));
+        return new SnapshotPromoServiceClient(vertx, config, snapshot);
+    }
+
+    public int size() {
+        return promos.size();
+    }
+
+    @Override
+    public Future<Optional<PromoResponse>> getPromoDetails(String promoCode) {
+        if (promoCode == null) {
+            return NOT_FOUND;
+        }
+        return promos.getOrDefault(promoCode, NOT_FOUND);
+    }
+}
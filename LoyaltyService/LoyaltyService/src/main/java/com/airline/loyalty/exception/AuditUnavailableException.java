@@ -0,0 +1,11 @@
+package com.airline.loyalty.exception;
+
+/**
+ * The quote audit journal did not take a record and {@code audit.onFull} is
+ * reject, so the quote may not be issued. Surfaced as 503.
+ */
+public class AuditUnavailableException extends RuntimeException {
+    public AuditUnavailableException(String message) {
+        super(message);
+    }
+}
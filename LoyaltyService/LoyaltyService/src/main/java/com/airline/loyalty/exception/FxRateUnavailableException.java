@@ -0,0 +1,12 @@
+package com.airline.loyalty.exception;
+
+/**
+ * No FX rate is available for the date a quote is priced as of: the daily
+ * rate history does not cover it. Surfaced as 503, since the request itself
+ * is valid.
+ */
+public class FxRateUnavailableException extends RuntimeException {
+    public FxRateUnavailableException(String message) {
+        super(message);
+    }
+}
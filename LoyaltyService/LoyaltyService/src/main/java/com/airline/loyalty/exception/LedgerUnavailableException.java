@@ -0,0 +1,11 @@
+package com.airline.loyalty.exception;
+
+/**
+ * The accrual ledger cannot take a credit right now: its queue is full or a
+ * write failed. Surfaced as 503.
+ */
+public class LedgerUnavailableException extends RuntimeException {
+    public LedgerUnavailableException(String message) {
+        super(message);
+    }
+}
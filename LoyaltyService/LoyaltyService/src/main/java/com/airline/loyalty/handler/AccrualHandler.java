@@ -0,0 +1,211 @@
+package com.airline.loyalty.handler;
+
+import com.airline.loyalty.audit.AuditJournal;
+import com.airline.loyalty.audit.AuditRecord;
+import com.airline.loyalty.exception.AuditUnavailableException;
+import com.airline.loyalty.exception.FxRateUnavailableException;
+import com.airline.loyalty.exception.LedgerUnavailableException;
+import com.airline.loyalty.exception.ValidationException;
+import com.airline.loyalty.ledger.AccrualLedger;
+import com.airline.loyalty.logging.RequestLogContext;
+import com.airline.loyalty.model.ErrorResponse;
+import com.airline.loyalty.model.PointsAccrualRequest;
+import com.airline.loyalty.model.PointsAccrualResponse;
+import com.airline.loyalty.model.PointsCalculation;
+import com.airline.loyalty.service.PointsCalculationService;
+import com.airline.loyalty.tracing.Span;
+import com.airline.loyalty.tracing.Tracing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * AccrualHandler quotes a fare exactly as the quote endpoint does and credits
+ * the total points to the member's balance in the {@link AccrualLedger},
+ * answering once the credit is durable. A client-supplied X-Request-ID is
+ * the credit ID, so the ledger credits a retry only once, even across a
+ * restart. Responds 503 while the ledger is not taking credits. With an {@link AuditJournal}, the quote is journaled before
+ * it is credited.
+ */
+public class AccrualHandler implements Handler<RoutingContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccrualHandler.class);
+
+    private final PointsCalculationService calculationService;
+    private final AccrualLedger ledger;
+    private final AuditJournal auditJournal;
+    private final Counter requestCounter;
+    private final Counter errorCounter;
+    private final Timer requestTimer;
+    private final Validator validator;
+
+    public AccrualHandler(PointsCalculationService calculationService, AccrualLedger ledger,
+                          AuditJournal auditJournal, MeterRegistry meterRegistry) {
+        this.calculationService = calculationService;
+        this.ledger = ledger;
+        this.auditJournal = auditJournal;
+
+        // Metrics
+        this.requestCounter = Counter.builder("points_accrual_requests_total")
+                .description("Total number of points accrual requests")
+                .register(meterRegistry);
+
+        this.errorCounter = Counter.builder("points_accrual_errors_total")
+                .description("Total number of points accrual errors")
+                .register(meterRegistry);
+
+        this.requestTimer = Timer.builder("points_accrual_duration_seconds")
+                .description("Points accrual request duration, including the WAL commit")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("ledger_credits_committed_total", ledger, AccrualLedger::getCommittedCredits)
+                .description("Credits made durable in the ledger WAL")
+                .register(meterRegistry);
+        FunctionCounter.builder("ledger_wal_commits_total", ledger, AccrualLedger::getCommits)
+                .description("WAL group commits (one fsync each)")
+                .register(meterRegistry);
+        FunctionCounter.builder("ledger_credits_rejected_total", ledger, AccrualLedger::getRejectedCredits)
+                .description("Credits rejected because the ledger queue was full or a write failed")
+                .register(meterRegistry);
+        FunctionCounter.builder("ledger_credits_duplicate_total", ledger, AccrualLedger::getDuplicateCredits)
+                .description("Retried credits not applied again because their credit ID was already logged")
+                .register(meterRegistry);
+        Gauge.builder("ledger_queued_credits", ledger, AccrualLedger::getQueuedCredits)
+                .description("Credits waiting for the ledger writer")
+                .register(meterRegistry);
+        Gauge.builder("ledger_members", ledger, AccrualLedger::getMemberCount)
+                .description("Members with a balance")
+                .register(meterRegistry);
+
+        this.validator = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory()
+                .getValidator();
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        requestCounter.increment();
+        Timer.Sample sample = Timer.start();
+
+        PointsAccrualRequest request;
+        try {
+            request = ctx.body().asJsonObject().mapTo(PointsAccrualRequest.class);
+        } catch (DecodeException e) {
+            sample.stop(requestTimer);
+            logger.warn("Malformed JSON: {}", e.getMessage());
+            sendError(ctx, 400, "BAD_REQUEST", "Malformed JSON: " + e.getMessage());
+            return;
+        }
+
+        Set<ConstraintViolation<PointsAccrualRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            sample.stop(requestTimer);
+            StringBuilder sb = new StringBuilder();
+            for (ConstraintViolation<PointsAccrualRequest> v : violations) {
+                sb.append(v.getPropertyPath()).append(" ").append(v.getMessage()).append("; ");
+            }
+            logger.warn("Validation failed: {}", sb);
+            sendError(ctx, 400, "VALIDATION_ERROR", sb.toString());
+            return;
+        }
+
+        String requestId = ctx.request().getHeader(RequestLogContext.REQUEST_ID_HEADER);
+        String creditId = requestId == null || requestId.isEmpty() ? null : requestId;
+        if (creditId != null && creditId.getBytes(StandardCharsets.UTF_8).length > AccrualLedger.MAX_CREDIT_ID_BYTES) {
+            sample.stop(requestTimer);
+            sendError(ctx, 400, "VALIDATION_ERROR",
+                    "X-Request-ID must be at most " + AccrualLedger.MAX_CREDIT_ID_BYTES + " bytes");
+            return;
+        }
+
+        calculationService.calculatePoints(request)
+                .compose(calculation -> {
+                    if (auditJournal != null && !auditJournal.record(AuditRecord.Kind.ACCRUAL, false,
+                            ctx.get(RequestLogContext.REQUEST_ID_HEADER), request.getMemberId(),
+                            request, calculation)) {
+                        return Future.failedFuture(
+                                new AuditUnavailableException("Quote audit journal is not taking records"));
+                    }
+                    Span credit = Tracing.startSpan("ledger.credit");
+                    return ledger.credit(request.getMemberId(), creditId, calculation.getTotalPoints())
+                            .onComplete(ar -> {
+                                if (ar.failed()) {
+                                    credit.fail(ar.cause());
+                                }
+                                credit.end();
+                            })
+                            .map(balance -> response(request, calculation, balance));
+                })
+                .onComplete(ar -> sample.stop(requestTimer))
+                .onSuccess(response -> {
+                    send(ctx, 200, Json.encodeToBuffer(response));
+                    logger.info("Points accrued: {} to {}, balance {}",
+                            response.pointsCredited(), response.memberId(), response.balance());
+                })
+                .onFailure(err -> handleError(ctx, err));
+    }
+
+    private static PointsAccrualResponse response(PointsAccrualRequest request, PointsCalculation calculation,
+                                                  long balance) {
+        return new PointsAccrualResponse(request.getMemberId(), calculation.getTotalPoints(), balance,
+                calculation.toResponse());
+    }
+
+    private void handleError(RoutingContext ctx, Throwable err) {
+        errorCounter.increment();
+
+        if (err instanceof ValidationException) {
+            logger.warn("Validation error: {}", err.getMessage());
+            sendError(ctx, 400, "VALIDATION_ERROR", err.getMessage());
+        } else if (err instanceof LedgerUnavailableException) {
+            logger.warn("Accrual rejected: {}", err.getMessage());
+            sendError(ctx, 503, "LEDGER_UNAVAILABLE", err.getMessage());
+        } else if (err instanceof AuditUnavailableException) {
+            logger.warn("Accrual refused: {}", err.getMessage());
+            sendError(ctx, 503, "AUDIT_UNAVAILABLE", err.getMessage());
+        } else if (err instanceof FxRateUnavailableException) {
+            logger.warn("Accrual not priced: {}", err.getMessage());
+            sendError(ctx, 503, "FX_RATE_UNAVAILABLE", err.getMessage());
+        } else if (err instanceof java.util.concurrent.TimeoutException
+                || err.getCause() instanceof java.util.concurrent.TimeoutException) {
+            logger.warn("Timeout error: {}", err.getMessage());
+            sendError(ctx, 504, "TIMEOUT_ERROR", "External service timeout occurred");
+        } else {
+            logger.error("Unexpected error processing points accrual", err);
+            sendError(ctx, 500, "INTERNAL_ERROR", "An error occurred processing your request");
+        }
+    }
+
+    private void sendError(RoutingContext ctx, int statusCode, String error, String message) {
+        ErrorResponse errorResponse = new ErrorResponse(error, message, Instant.now().toString());
+        send(ctx, statusCode, Json.encodeToBuffer(errorResponse));
+    }
+
+    private void send(RoutingContext ctx, int statusCode, Buffer body) {
+        IdempotencyHandler.respond(ctx, statusCode, body);
+        ctx.response()
+                .setStatusCode(statusCode)
+                .putHeader("Content-Type", "application/json")
+                .end(body);
+    }
+}
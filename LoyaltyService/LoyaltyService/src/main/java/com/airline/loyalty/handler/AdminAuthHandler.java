@@ -0,0 +1,114 @@
+package com.airline.loyalty.handler;
+
+import com.airline.loyalty.model.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Handler;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+
+/**
+ * AdminAuthHandler admits admin requests carrying the shared secret as
+ * {@code Authorization: Bearer <token>}. Requests without credentials get 401,
+ * requests with the wrong token 403.
+ *
+ * The token comes from the {@code ADMIN_TOKEN} environment variable, else
+ * {@code admin.token}, so production can keep it out of the profile file.
+ * Other service-to-service routes (the ledger's) use the same check with a
+ * credential of their own, see {@link #token(JsonObject, String, String)}.
+ */
+public class AdminAuthHandler implements Handler<RoutingContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminAuthHandler.class);
+
+    private static final String BEARER = "Bearer ";
+
+    private final byte[] token;
+    private final String name;
+    private final Counter missingCounter;
+    private final Counter invalidCounter;
+
+    public AdminAuthHandler(String token, MeterRegistry meterRegistry) {
+        this(token, "admin", meterRegistry);
+    }
+
+    /**
+     * @param name what the token guards, for the messages and the
+     *             {@code <name>_requests_rejected_total} metric
+     */
+    public AdminAuthHandler(String token, String name, MeterRegistry meterRegistry) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.name = name;
+        this.missingCounter = rejectedCounter(meterRegistry, name, "missing_token");
+        this.invalidCounter = rejectedCounter(meterRegistry, name, "invalid_token");
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String name, String reason) {
+        return Counter.builder(name + "_requests_rejected_total")
+                .description("Requests refused for want of the " + name + " token")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The configured admin token.
+     *
+     * @throws IllegalStateException if none is configured
+     */
+    public static String token(JsonObject config) {
+        return token(config, "admin", "ADMIN_TOKEN");
+    }
+
+    /**
+     * The token from the {@code envVar} environment variable, else
+     * {@code <section>.token}.
+     *
+     * @throws IllegalStateException if none is configured
+     */
+    public static String token(JsonObject config, String section, String envVar) {
+        String token = System.getenv(envVar);
+        if (token == null || token.isBlank()) {
+            token = config.getJsonObject(section, new JsonObject()).getString("token");
+        }
+        if (token == null || token.isBlank()) {
+            throw new IllegalStateException(
+                    section + ".enabled needs a token in " + envVar + " or " + section + ".token");
+        }
+        return token;
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        String authorization = ctx.request().getHeader("Authorization");
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            missingCounter.increment();
+            ctx.response().putHeader("WWW-Authenticate", "Bearer");
+            sendError(ctx, 401, "UNAUTHORIZED", name + " token required");
+            return;
+        }
+        byte[] presented = authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(token, presented)) {
+            invalidCounter.increment();
+            logger.warn("Request to {} from {} with an invalid {} token", ctx.normalizedPath(),
+                    ctx.request().remoteAddress(), name);
+            sendError(ctx, 403, "FORBIDDEN", "Invalid " + name + " token");
+            return;
+        }
+        ctx.next();
+    }
+
+    private static void sendError(RoutingContext ctx, int statusCode, String error, String message) {
+        ErrorResponse errorResponse = new ErrorResponse(error, message, Instant.now().toString());
+        ctx.response()
+                .setStatusCode(statusCode)
+                .putHeader("Content-Type", "application/json")
+                .end(Json.encode(errorResponse));
+    }
+}
@@ -0,0 +1,42 @@
+package com.airline.loyalty.handler;
+
+import com.airline.loyalty.ledger.AccrualLedger;
+import com.airline.loyalty.model.BalanceResponse;
+import com.airline.loyalty.model.ErrorResponse;
+import io.vertx.core.Handler;
+import io.vertx.core.json.Json;
+import io.vertx.ext.web.RoutingContext;
+
+import java.time.Instant;
+import java.util.OptionalLong;
+
+/**
+ * BalanceHandler answers a member's points balance from the
+ * {@link AccrualLedger}, or 404 for a member with no accruals.
+ */
+public class BalanceHandler implements Handler<RoutingContext> {
+
+    private final AccrualLedger ledger;
+
+    public BalanceHandler(AccrualLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        String memberId = ctx.pathParam("memberId");
+        OptionalLong balance = ledger.balance(memberId);
+        if (balance.isEmpty()) {
+            ErrorResponse error = new ErrorResponse("NOT_FOUND", "No balance for member " + memberId,
+                    Instant.now().toString());
+            ctx.response()
+                    .setStatusCode(404)
+                    .putHeader("Content-Type", "application/json")
+                    .end(Json.encode(error));
+            return;
+        }
+        ctx.response()
+                .putHeader("Content-Type", "application/json")
+                .end(Json.encode(new BalanceResponse(memberId, balance.getAsLong())));
+    }
+}
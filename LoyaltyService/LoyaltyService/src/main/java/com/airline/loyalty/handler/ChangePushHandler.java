@@ -0,0 +1,76 @@
+package com.airline.loyalty.handler;
+
+import com.airline.loyalty.exception.ValidationException;
+import com.airline.loyalty.model.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Handler;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * ChangePushHandler accepts a change pushed by an upstream system on the admin
+ * endpoint, validates it and publishes it on an event-bus address, so every
+ * verticle instance applies it to its caches at once. Responds 202 once
+ * published, or 400 for a malformed change.
+ */
+public class ChangePushHandler implements Handler<RoutingContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangePushHandler.class);
+
+    private final String address;
+    private final Consumer<JsonObject> validator;
+    private final Counter pushCounter;
+
+    /**
+     * @param type      change type, the {@code type} tag of {@code admin_changes_pushed_total}
+     * @param validator throws {@link ValidationException} for a malformed change
+     */
+    public ChangePushHandler(String type, String address, Consumer<JsonObject> validator, MeterRegistry meterRegistry) {
+        this.address = address;
+        this.validator = validator;
+
+        this.pushCounter = Counter.builder("admin_changes_pushed_total")
+                .description("Upstream changes accepted on the admin endpoint")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        JsonObject change;
+        try {
+            change = ctx.body().asJsonObject();
+            if (change == null) {
+                throw new ValidationException("Request body is required");
+            }
+            validator.accept(change);
+        } catch (DecodeException e) {
+            sendError(ctx, "BAD_REQUEST", "Malformed JSON: " + e.getMessage());
+            return;
+        } catch (ValidationException e) {
+            sendError(ctx, "VALIDATION_ERROR", e.getMessage());
+            return;
+        }
+
+        ctx.vertx().eventBus().publish(address, change);
+        pushCounter.increment();
+        logger.info("Change published on {}", address);
+        ctx.response().setStatusCode(202).end();
+    }
+
+    private void sendError(RoutingContext ctx, String error, String message) {
+        ErrorResponse errorResponse = new ErrorResponse(error, message, Instant.now().toString());
+        ctx.response()
+                .setStatusCode(400)
+                .putHeader("Content-Type", "application/json")
+                .end(Json.encode(errorResponse));
+    }
+}
@@ -0,0 +1,126 @@
+package com.airline.loyalty.handler;
+
+import com.airline.loyalty.logging.RequestLogContext;
+import com.airline.loyalty.model.ErrorResponse;
+import com.airline.loyalty.service.IdempotencyStore;
+import com.airline.loyalty.service.IdempotencyStore.Claim;
+import com.airline.loyalty.service.IdempotencyStore.Entry;
+import com.airline.loyalty.service.IdempotencyStore.StoredResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+
+/**
+ * IdempotencyHandler replays the stored response for a request whose
+ * client-supplied {@code X-Request-ID} was seen on the same method and route
+ * within the idempotency window, and makes concurrent duplicates wait for the first one instead of
+ * recomputing the quote.
+ *
+ * The downstream handler reports its response through {@link #respond}, which
+ * stores anything below 500 for replay. Server errors, and requests that end
+ * without reporting (timeouts, unhandled failures), release the ID so a retry
+ * is processed afresh.
+ */
+public class IdempotencyHandler implements Handler<RoutingContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyHandler.class);
+    private static final String ENTRY_KEY = "idempotency.entry";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyStore store;
+    private final Counter replayCounter;
+    private final Counter waitCounter;
+
+    public IdempotencyHandler(IdempotencyStore store, MeterRegistry meterRegistry) {
+        this.store = store;
+
+        this.replayCounter = Counter.builder("idempotent_replays_total")
+                .description("Responses replayed for a repeated X-Request-ID")
+                .register(meterRegistry);
+
+        this.waitCounter = Counter.builder("idempotent_waits_total")
+                .description("Duplicate requests that waited for an in-flight original")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        String requestId = ctx.request().getHeader(RequestLogContext.REQUEST_ID_HEADER);
+        if (requestId == null || requestId.isEmpty()) {
+            ctx.next();
+            return;
+        }
+
+        int bodyHash = ctx.body().buffer() == null ? 0 : ctx.body().buffer().hashCode();
+        Claim claim = store.claim(key(ctx, requestId), bodyHash);
+        Entry entry = claim.entry();
+
+        if (claim.owner()) {
+            ctx.put(ENTRY_KEY, entry);
+            ctx.addEndHandler(ar -> entry.abandon());
+            ctx.next();
+            return;
+        }
+
+        if (!entry.matches(bodyHash)) {
+            logger.warn("X-Request-ID {} reused with a different body", requestId);
+            ErrorResponse error = new ErrorResponse("REQUEST_ID_REUSED",
+                    "X-Request-ID was already used for a different request", Instant.now().toString());
+            ctx.response()
+                    .setStatusCode(422)
+                    .putHeader("Content-Type", "application/json")
+                    .end(Json.encode(error));
+            return;
+        }
+
+        if (entry.response() == null) {
+            waitCounter.increment();
+        }
+        entry.await(ctx.vertx().getOrCreateContext(), stored -> {
+            if (ctx.response().ended()) {
+                return;
+            }
+            if (stored == null) {
+                // The original gave up without a replayable response; try again
+                handle(ctx);
+                return;
+            }
+            replayCounter.increment();
+            ctx.response()
+                    .setStatusCode(stored.statusCode())
+                    .putHeader("Content-Type", "application/json")
+                    .putHeader(REPLAYED_HEADER, "true")
+                    .end(stored.body());
+        });
+    }
+
+    /**
+     * The store is shared by every route this handler guards, so the same
+     * X-Request-ID sent to a different route is a different request.
+     */
+    private static String key(RoutingContext ctx, String requestId) {
+        return ctx.request().method().name() + ' ' + ctx.normalizedPath() + ' ' + requestId;
+    }
+
+    /**
+     * Records the response for the request's idempotency entry, if it owns one.
+     */
+    public static void respond(RoutingContext ctx, int statusCode, Buffer body) {
+        Entry entry = ctx.get(ENTRY_KEY);
+        if (entry == null) {
+            return;
+        }
+        if (statusCode < 500) {
+            entry.complete(new StoredResponse(statusCode, body));
+        } else {
+            entry.abandon();
+        }
+    }
+}
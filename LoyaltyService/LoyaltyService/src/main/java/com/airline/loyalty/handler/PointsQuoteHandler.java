@@ -1,17 +1,30 @@
 package com.airline.loyalty.handler;
 
+import com.airline.loyalty.audit.AuditJournal;
+import com.airline.loyalty.audit.AuditRecord;
+import com.airline.loyalty.exception.AuditUnavailableException;
+import com.airline.loyalty.exception.FxRateUnavailableException;
 import com.airline.loyalty.exception.ValidationException;
+import com.airline.loyalty.logging.RequestLogContext;
 import com.airline.loyalty.model.ErrorResponse;
+import com.airline.loyalty.model.PointsCalculation;
 import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.model.QuoteWarning;
 import com.airline.loyalty.service.PointsCalculationService;
+import com.airline.loyalty.service.QuoteCache;
+import com.airline.loyalty.tracing.Span;
+import com.airline.loyalty.tracing.Tracing;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.vertx.core.Handler;
+import io.vertx.core.ThreadingModel;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.Json;
 import io.vertx.ext.web.RoutingContext;
 import jakarta.validation.*;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,13 +38,27 @@ public class PointsQuoteHandler implements Handler<RoutingContext> {
     private static final Logger logger = LoggerFactory.getLogger(PointsQuoteHandler.class);
 
     private final PointsCalculationService calculationService;
+    private final QuoteCache quoteCache;
+    private final AuditJournal auditJournal;
     private final Counter requestCounter;
     private final Counter errorCounter;
     private final Timer requestTimer;
     private final Validator validator;
 
     public PointsQuoteHandler(PointsCalculationService calculationService, MeterRegistry meterRegistry) {
+        this(calculationService, null, meterRegistry);
+    }
+
+    public PointsQuoteHandler(PointsCalculationService calculationService, QuoteCache quoteCache,
+                              MeterRegistry meterRegistry) {
+        this(calculationService, quoteCache, null, meterRegistry);
+    }
+
+    public PointsQuoteHandler(PointsCalculationService calculationService, QuoteCache quoteCache,
+                              AuditJournal auditJournal, MeterRegistry meterRegistry) {
         this.calculationService = calculationService;
+        this.quoteCache = quoteCache;
+        this.auditJournal = auditJournal;
 
         // Metrics
         this.requestCounter = Counter.builder("points_quote_requests_total")
@@ -46,8 +73,12 @@ public class PointsQuoteHandler implements Handler<RoutingContext> {
                 .description("Points quote request duration")
                 .register(meterRegistry);
 
-        // Hibernate Validator
-        ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
+        // Hibernate Validator. The constraint messages are plain text, so they need no
+        // EL interpolation (and no jakarta.el reflection in a native image)
+        ValidatorFactory factory = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory();
         this.validator = factory.getValidator();
     }
 
@@ -59,17 +90,37 @@ public class PointsQuoteHandler implements Handler<RoutingContext> {
         PointsQuoteRequest request;
 
         // 1️⃣ Explicit JSON parsing
+        Span parse = Tracing.startSpan("quote.parse");
         try {
             request = ctx.body().asJsonObject().mapTo(PointsQuoteRequest.class);
+            parse.end();
         } catch (DecodeException e) {
+            parse.setAttribute("outcome", "malformed");
+            parse.end();
             sample.stop(requestTimer);
             logger.warn("Malformed JSON: {}", e.getMessage());
             sendError(ctx, 400, "BAD_REQUEST", "Malformed JSON: " + e.getMessage());
             return;
         }
 
+        // Identical recent quote: a cached key was validated when it was stored
+        if (quoteCache != null) {
+            QuoteCache.CachedQuote cached = quoteCache.get(request);
+            if (cached != null) {
+                Tracing.current().setAttribute("quote.cache_hit", true);
+                sample.stop(requestTimer);
+                if (audit(ctx, request, cached.calculation(), true)) {
+                    sendQuote(ctx, cached.response());
+                }
+                return;
+            }
+        }
+
         // 2️⃣ Validate request fields
+        Span validate = Tracing.startSpan("quote.validate");
         Set<ConstraintViolation<PointsQuoteRequest>> violations = validator.validate(request);
+        validate.setAttribute("violations", violations.size());
+        validate.end();
         if (!violations.isEmpty()) {
             sample.stop(requestTimer);
             StringBuilder sb = new StringBuilder();
@@ -85,19 +136,73 @@ public class PointsQuoteHandler implements Handler<RoutingContext> {
         logger.info("Processing points quote request for {} {} in {}",
                 request.getFareAmount(), request.getCurrency(), request.getCabinClass());
 
+        Span calculate = Tracing.startSpan("quote.calculate");
+        if (ctx.vertx().getOrCreateContext().threadingModel() == ThreadingModel.VIRTUAL_THREAD) {
+            // Virtual-thread verticle: wait for FX and promo inline
+            PointsCalculation calculation;
+            try {
+                calculation = calculationService.calculatePointsAwait(request);
+            } catch (Exception err) {
+                endSpan(calculate, err);
+                onQuoteFailure(ctx, sample, err);
+                return;
+            }
+            endSpan(calculate, null);
+            onQuoteSuccess(ctx, request, sample, calculation);
+            return;
+        }
+
         calculationService.calculatePoints(request)
-                .onSuccess(calculation -> {
-                    sample.stop(requestTimer);
-                    ctx.response()
-                            .setStatusCode(200)
-                            .putHeader("Content-Type", "application/json")
-                            .end(Json.encode(calculation.toResponse()));
-                    logger.info("Points quote successful: {} total points", calculation.getTotalPoints());
-                })
-                .onFailure(err -> {
-                    sample.stop(requestTimer);
-                    handleError(ctx, err);
-                });
+                .onComplete(ar -> endSpan(calculate, ar.cause()))
+                .onSuccess(calculation -> onQuoteSuccess(ctx, request, sample, calculation))
+                .onFailure(err -> onQuoteFailure(ctx, sample, err));
+    }
+
+    private void onQuoteSuccess(RoutingContext ctx, PointsQuoteRequest request, Timer.Sample sample,
+                                PointsCalculation calculation) {
+        sample.stop(requestTimer);
+        Span serialize = Tracing.startSpan("quote.serialize");
+        Buffer body = Json.encodeToBuffer(calculation.toResponse());
+        serialize.end();
+        if (!audit(ctx, request, calculation, false)) {
+            return;
+        }
+        // A quote on a stale FX rate should be recomputed once the FX service recovers
+        if (quoteCache != null && !QuoteWarning.contains(calculation.getWarningMask(), QuoteWarning.FX_RATE_STALE)) {
+            quoteCache.put(request, body, calculation);
+        }
+        sendQuote(ctx, body);
+        logger.info("Points quote successful: {} total points", calculation.getTotalPoints());
+    }
+
+    /**
+     * Journals the quote about to be sent.
+     *
+     * @return {@code false}, having answered 503, if the quote may not be issued
+     */
+    private boolean audit(RoutingContext ctx, PointsQuoteRequest request, PointsCalculation calculation,
+                          boolean cached) {
+        if (auditJournal == null || auditJournal.record(AuditRecord.Kind.QUOTE, cached,
+                ctx.get(RequestLogContext.REQUEST_ID_HEADER), null, request, calculation)) {
+            return true;
+        }
+        handleError(ctx, new AuditUnavailableException("Quote audit journal is not taking records"));
+        return false;
+    }
+
+    private void onQuoteFailure(RoutingContext ctx, Timer.Sample sample, Throwable err) {
+        sample.stop(requestTimer);
+        handleError(ctx, err);
+    }
+
+    /**
+     * Ends {@code span}, failed by {@code err} unless that is a client error.
+     */
+    private static void endSpan(Span span, Throwable err) {
+        if (err != null && !(err instanceof ValidationException)) {
+            span.fail(err);
+        }
+        span.end();
     }
 
     private void handleError(RoutingContext ctx, Throwable err) {
@@ -106,6 +211,12 @@ public class PointsQuoteHandler implements Handler<RoutingContext> {
         if (err instanceof ValidationException) {
             logger.warn("Validation error: {}", err.getMessage());
             sendError(ctx, 400, "VALIDATION_ERROR", err.getMessage());
+        } else if (err instanceof AuditUnavailableException) {
+            logger.warn("Quote refused: {}", err.getMessage());
+            sendError(ctx, 503, "AUDIT_UNAVAILABLE", err.getMessage());
+        } else if (err instanceof FxRateUnavailableException) {
+            logger.warn("Quote not priced: {}", err.getMessage());
+            sendError(ctx, 503, "FX_RATE_UNAVAILABLE", err.getMessage());
         } else if (err instanceof java.util.concurrent.TimeoutException
                 || err.getCause() instanceof java.util.concurrent.TimeoutException) {
             logger.warn("Timeout error: {}", err.getMessage());
@@ -116,11 +227,20 @@ public class PointsQuoteHandler implements Handler<RoutingContext> {
         }
     }
 
+    private void sendQuote(RoutingContext ctx, Buffer body) {
+        send(ctx, 200, body);
+    }
+
     private void sendError(RoutingContext ctx, int statusCode, String error, String message) {
         ErrorResponse errorResponse = new ErrorResponse(error, message, Instant.now().toString());
+        send(ctx, statusCode, Json.encodeToBuffer(errorResponse));
+    }
+
+    private void send(RoutingContext ctx, int statusCode, Buffer body) {
+        IdempotencyHandler.respond(ctx, statusCode, body);
         ctx.response()
                 .setStatusCode(statusCode)
                 .putHeader("Content-Type", "application/json")
-                .end(Json.encode(errorResponse));
+                .end(body);
     }
 }
@@ -0,0 +1,135 @@
+package com.airline.loyalty.handler;
+
+import com.airline.loyalty.exception.ValidationException;
+import com.airline.loyalty.model.ErrorResponse;
+import com.airline.loyalty.profiling.JfrProfiler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.Json;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * ProfilingHandler serves JDK Flight Recorder recordings on the admin
+ * endpoint, streaming each back as a {@code .jfr} file:
+ *
+ * {@link #handleRecording} records for {@code durationSeconds} (up to
+ * {@code profiling.maxDurationSeconds}) with the {@code settings} profile, and
+ * answers 409 while another on-demand recording is running.
+ * {@link #handleDump} dumps the continuous recording, or answers 404 if it is
+ * not enabled.
+ *
+ * Recordings are started, stopped and dumped on worker threads; the wait in
+ * between is a timer.
+ */
+public class ProfilingHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilingHandler.class);
+
+    private final JfrProfiler profiler;
+    private final Counter onDemandCounter;
+    private final Counter dumpCounter;
+
+    public ProfilingHandler(JfrProfiler profiler, MeterRegistry meterRegistry) {
+        this.profiler = profiler;
+        this.onDemandCounter = recordingsCounter(meterRegistry, "on_demand");
+        this.dumpCounter = recordingsCounter(meterRegistry, "continuous_dump");
+    }
+
+    private static Counter recordingsCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("profiling_recordings_total")
+            .description("JFR recordings served on the admin endpoint")
+            .tag("type", type)
+            .register(meterRegistry);
+    }
+
+    public void handleRecording(RoutingContext ctx) {
+        String settings = ctx.request().getParam("settings", profiler.getDefaultSettings());
+        int durationSeconds;
+        try {
+            durationSeconds = parseDuration(ctx.request().getParam("durationSeconds"));
+        } catch (ValidationException e) {
+            sendError(ctx, 400, "VALIDATION_ERROR", e.getMessage());
+            return;
+        }
+
+        Vertx vertx = ctx.vertx();
+        vertx.executeBlocking(() -> profiler.start(settings, durationSeconds), false)
+            .onSuccess(recording -> {
+                if (recording == null) {
+                    sendError(ctx, 409, "RECORDING_IN_PROGRESS", "Another JFR recording is running");
+                    return;
+                }
+                logger.info("JFR recording started for {} s with {} settings", durationSeconds, settings);
+                vertx.setTimer(durationSeconds * 1000L, t ->
+                    vertx.executeBlocking(() -> profiler.finish(recording), false)
+                        .onComplete(ar -> sendRecording(ctx, ar, onDemandCounter)));
+            })
+            .onFailure(err -> {
+                if (err instanceof ValidationException) {
+                    sendError(ctx, 400, "VALIDATION_ERROR", err.getMessage());
+                } else {
+                    logger.error("Failed to start JFR recording", err);
+                    sendError(ctx, 500, "PROFILING_ERROR", "Failed to start recording: " + err.getMessage());
+                }
+            });
+    }
+
+    public void handleDump(RoutingContext ctx) {
+        ctx.vertx().executeBlocking(profiler::dumpContinuous, false)
+            .onComplete(ar -> {
+                if (ar.succeeded() && ar.result() == null) {
+                    sendError(ctx, 404, "NOT_RECORDING", "The continuous JFR recording is not enabled");
+                } else {
+                    sendRecording(ctx, ar, dumpCounter);
+                }
+            });
+    }
+
+    private int parseDuration(String param) {
+        if (param == null) {
+            return profiler.getDefaultDurationSeconds();
+        }
+        int durationSeconds;
+        try {
+            durationSeconds = Integer.parseInt(param);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("durationSeconds must be a number");
+        }
+        if (durationSeconds < 1 || durationSeconds > profiler.getMaxDurationSeconds()) {
+            throw new ValidationException(
+                "durationSeconds must be between 1 and " + profiler.getMaxDurationSeconds());
+        }
+        return durationSeconds;
+    }
+
+    private void sendRecording(RoutingContext ctx, AsyncResult<Path> dumped, Counter counter) {
+        if (dumped.failed()) {
+            logger.error("Failed to dump JFR recording", dumped.cause());
+            sendError(ctx, 500, "PROFILING_ERROR", "Failed to dump recording: " + dumped.cause().getMessage());
+            return;
+        }
+        Path file = dumped.result();
+        counter.increment();
+        ctx.response()
+            .putHeader("Content-Type", "application/octet-stream")
+            .putHeader("Content-Disposition", "attachment; filename=\"" + file.getFileName() + "\"")
+            .sendFile(file.toString())
+            .onComplete(sent -> ctx.vertx().fileSystem().delete(file.toString())
+                .onFailure(err -> logger.warn("Failed to delete {}: {}", file, err.getMessage())));
+    }
+
+    private void sendError(RoutingContext ctx, int status, String error, String message) {
+        ErrorResponse errorResponse = new ErrorResponse(error, message, Instant.now().toString());
+        ctx.response()
+            .setStatusCode(status)
+            .putHeader("Content-Type", "application/json")
+            .end(Json.encode(errorResponse));
+    }
+}
@@ -0,0 +1,122 @@
+package com.airline.loyalty.handler;
+
+import com.airline.loyalty.model.ErrorResponse;
+import com.airline.loyalty.service.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * RateLimitHandler limits each client, identified by the first of the
+ * {@code rateLimit.headers} it sends (an API key or client ID), through the
+ * shared {@link RateLimiter}. Requests with none of the headers share a
+ * bucket per remote address. Requests over the limit get 429 with
+ * Retry-After; every response carries RateLimit-Limit, RateLimit-Remaining
+ * and RateLimit-Reset.
+ *
+ * The limit is best-effort per client: the headers are not authenticated, so
+ * a client can spread its requests over several IDs, and anonymous clients
+ * behind one proxy or NAT address share its bucket.
+ */
+public class RateLimitHandler implements Handler<RoutingContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitHandler.class);
+
+    private static final int MAX_CLIENT_ID_LENGTH = 128;
+
+    /** Prefix of the bucket keys of anonymous requests, by remote address. */
+    static final String ANONYMOUS_PREFIX = "remote:";
+
+    private final RateLimiter rateLimiter;
+    private final List<String> headers;
+    private final Counter allowedCounter;
+    private final Counter limitedCounter;
+
+    public RateLimitHandler(RateLimiter rateLimiter, JsonObject config, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        JsonObject limitConfig = config.getJsonObject("rateLimit", new JsonObject());
+        this.headers = limitConfig.getJsonArray("headers", new JsonArray().add("X-API-Key").add("X-Client-ID"))
+                .stream()
+                .map(String.class::cast)
+                .toList();
+
+        this.allowedCounter = requestsCounter(meterRegistry, "allowed");
+        this.limitedCounter = requestsCounter(meterRegistry, "limited");
+        Gauge.builder("rate_limit_clients", rateLimiter, RateLimiter::getClientCount)
+                .description("Clients with a token bucket")
+                .register(meterRegistry);
+        FunctionCounter.builder("rate_limit_evictions_total", rateLimiter, RateLimiter::getEvictions)
+                .description("Least recently seen clients evicted to bound the bucket set")
+                .register(meterRegistry);
+    }
+
+    private static Counter requestsCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("rate_limit_requests_total")
+                .description("Rate-limited requests, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        String clientId = clientId(ctx);
+        if (clientId == null) {
+            clientId = anonymousId(ctx);
+        } else if (clientId.length() > MAX_CLIENT_ID_LENGTH) {
+            sendError(ctx, 400, "BAD_REQUEST", "Client ID longer than " + MAX_CLIENT_ID_LENGTH + " characters");
+            return;
+        }
+
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(clientId);
+        HttpServerResponse response = ctx.response()
+                .putHeader("RateLimit-Limit", String.valueOf(decision.limit()))
+                .putHeader("RateLimit-Remaining", String.valueOf(decision.remaining()))
+                .putHeader("RateLimit-Reset", String.valueOf(decision.resetSeconds()));
+        if (decision.allowed()) {
+            allowedCounter.increment();
+            ctx.next();
+            return;
+        }
+
+        limitedCounter.increment();
+        logger.debug("Rate limited client {}", clientId);
+        response.putHeader("Retry-After", String.valueOf(decision.retryAfterSeconds()));
+        sendError(ctx, 429, "RATE_LIMITED", "Rate limit of " + decision.limit() + " requests exceeded, retry after "
+                + decision.retryAfterSeconds() + " s");
+    }
+
+    private String clientId(RoutingContext ctx) {
+        for (int i = 0; i < headers.size(); i++) {
+            String value = ctx.request().getHeader(headers.get(i));
+            if (value != null && !value.isEmpty()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static String anonymousId(RoutingContext ctx) {
+        var remote = ctx.request().remoteAddress();
+        return ANONYMOUS_PREFIX + (remote != null ? remote.hostAddress() : "unknown");
+    }
+
+    private static void sendError(RoutingContext ctx, int statusCode, String error, String message) {
+        ErrorResponse errorResponse = new ErrorResponse(error, message, Instant.now().toString());
+        ctx.response()
+                .setStatusCode(statusCode)
+                .putHeader("Content-Type", "application/json")
+                .end(Json.encode(errorResponse));
+    }
+}
@@ -0,0 +1,34 @@
+package com.airline.loyalty.handler;
+
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Readiness probe: 200 READY once the instance has finished warming up, 503
+ * WARMING_UP before that. Unlike {@link HealthCheckHandler}, which only says
+ * the process is alive, this tells the load balancer when to send traffic.
+ */
+public class ReadinessHandler implements Handler<RoutingContext> {
+
+    private final BooleanSupplier ready;
+
+    public ReadinessHandler(BooleanSupplier ready) {
+        this.ready = ready;
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        boolean isReady = ready.getAsBoolean();
+        JsonObject readiness = new JsonObject()
+            .put("status", isReady ? "READY" : "WARMING_UP")
+            .put("timestamp", System.currentTimeMillis());
+
+        ctx.response()
+            .setStatusCode(isReady ? 200 : 503)
+            .putHeader("Content-Type", "application/json")
+            .end(readiness.encode());
+    }
+}
@@ -0,0 +1,114 @@
+package com.airline.loyalty.handler;
+
+import com.airline.loyalty.model.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
+
+import java.time.Instant;
+
+/**
+ * RequestLimits bounds what a client can make the service hold in memory and
+ * for how long, whatever it sends.
+ *
+ * Only routes that take a body buffer one, and at most their limit from
+ * {@code http.maxBodyBytes} (keyed by route path, else {@code default}),
+ * with no file-upload handling. A declared Content-Length over the limit is
+ * refused with 413 before any of the body is read; a chunked body is refused
+ * as soon as it passes the limit. A body not complete within
+ * {@code http.bodyReadTimeoutMillis} gets 408. Both close the connection, so
+ * the client cannot keep streaming into it. Connections with no traffic are
+ * closed after {@code http.idleTimeoutSeconds} (see {@link #applyTo}).
+ */
+public class RequestLimits {
+
+    private static final String LIMIT_KEY = "requestLimits.maxBodyBytes";
+
+    private final JsonObject maxBodyBytes;
+    private final long defaultMaxBodyBytes;
+    private final long bodyReadTimeoutMillis;
+    private final Counter tooLarge;
+    private final Counter readTimeouts;
+
+    public RequestLimits(JsonObject config, MeterRegistry meterRegistry) {
+        JsonObject httpConfig = config.getJsonObject("http", new JsonObject());
+        this.maxBodyBytes = httpConfig.getJsonObject("maxBodyBytes", new JsonObject());
+        this.defaultMaxBodyBytes = maxBodyBytes.getLong("default", 16384L);
+        this.bodyReadTimeoutMillis = httpConfig.getLong("bodyReadTimeoutMillis", 5000L);
+
+        this.tooLarge = rejectedCounter(meterRegistry, "body_too_large");
+        this.readTimeouts = rejectedCounter(meterRegistry, "body_read_timeout");
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("http_requests_rejected_total")
+                .description("Requests refused for an oversized or slow body")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sets the per-connection idle timeout on {@code options}.
+     */
+    public static HttpServerOptions applyTo(HttpServerOptions options, JsonObject config) {
+        JsonObject httpConfig = config.getJsonObject("http", new JsonObject());
+        return options.setIdleTimeout(httpConfig.getInteger("idleTimeoutSeconds", 60));
+    }
+
+    /**
+     * @return the body handler for {@code route}, to run first on it
+     */
+    public Handler<RoutingContext> body(String route) {
+        long limit = maxBodyBytes.getLong(route, defaultMaxBodyBytes);
+        BodyHandler bodyHandler = BodyHandler.create(false).setBodyLimit(limit);
+        return ctx -> {
+            ctx.put(LIMIT_KEY, limit);
+            if (bodyReadTimeoutMillis > 0 && !ctx.request().isEnded()) {
+                long timer = ctx.vertx().setTimer(bodyReadTimeoutMillis, id -> {
+                    if (!ctx.request().isEnded() && !ctx.response().ended()) {
+                        readTimeouts.increment();
+                        reject(ctx, 408, "REQUEST_TIMEOUT",
+                                "Request body not received within " + bodyReadTimeoutMillis + " ms");
+                    }
+                });
+                ctx.addEndHandler(v -> ctx.vertx().cancelTimer(timer));
+            }
+            bodyHandler.handle(ctx);
+        };
+    }
+
+    /**
+     * Router error handler for the 413 the body handler fails with.
+     */
+    public void handleTooLarge(RoutingContext ctx) {
+        tooLarge.increment();
+        Long limit = ctx.get(LIMIT_KEY);
+        reject(ctx, 413, "PAYLOAD_TOO_LARGE",
+                "Request body exceeds " + (limit != null ? limit : defaultMaxBodyBytes) + " bytes");
+    }
+
+    private static void reject(RoutingContext ctx, int statusCode, String error, String message) {
+        if (ctx.response().ended()) {
+            return;
+        }
+        ErrorResponse errorResponse = new ErrorResponse(error, message, Instant.now().toString());
+        ctx.response()
+                .setStatusCode(statusCode)
+                .putHeader("Content-Type", "application/json")
+                .putHeader(HttpHeaders.CONNECTION, "close")
+                .end(Json.encode(errorResponse))
+                .onComplete(ar -> {
+                    // The rest of the body is never read: drop the connection rather than drain it
+                    if (ctx.request().version() != HttpVersion.HTTP_2) {
+                        ctx.request().connection().close();
+                    }
+                });
+    }
+}
@@ -0,0 +1,478 @@
+package com.airline.loyalty.ledger;
+
+import com.airline.loyalty.exception.LedgerUnavailableException;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.Shareable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * AccrualLedger keeps member points balances in memory and makes every credit
+ * durable in a write-ahead log before acknowledging it.
+ *
+ * Event loops only queue credits. A single writer thread drains the queue in
+ * batches, appends each batch to the memory-mapped WAL (see
+ * {@link WalSegment}), flushes it with one fsync (group commit), then applies
+ * it to the balances and completes the callers' futures on their contexts.
+ * Balances are per-member {@link AtomicLong}s in a {@link ConcurrentHashMap},
+ * written by the writer only and read lock-free from any thread.
+ *
+ * When a WAL segment ({@code ledger.walSegmentBytes}) fills up, and on
+ * close, the writer writes a snapshot of every balance with the LSN it
+ * covers, starts a new segment and deletes the old ones. {@link #recover}
+ * loads the snapshot and replays the WAL records after it, up to the first
+ * torn one.
+ *
+ * A credit may carry a credit ID (the client's request ID). The ID is logged
+ * with the credit, and the last {@code ledger.dedupWindow} IDs are kept with
+ * their member, in the snapshot as well, so a retry of a credit that was
+ * already logged, even before a restart, completes with the member's balance
+ * instead of crediting the points again.
+ *
+ * A full queue ({@code ledger.queueSize}) rejects credits, and after a WAL or
+ * snapshot write fails the ledger rejects every credit: a failed credit may
+ * or may not have been logged. One instance is shared by all verticle
+ * instances through Vert.x local shared data, hence {@link Shareable}.
+ */
+public class AccrualLedger implements Shareable, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccrualLedger.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x4C425331; // "LBS1"
+    private static final String SNAPSHOT_FILE = "balances.snapshot";
+
+    public static final int MAX_CREDIT_ID_BYTES = WalSegment.MAX_CREDIT_ID_BYTES;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxBatch;
+    private final BlockingQueue<Credit> queue;
+    private final Map<String, AtomicLong> balances = new ConcurrentHashMap<>();
+    // Oldest first; touched by recover() and then only by the writer
+    private final Set<CreditKey> recentCredits;
+
+    private final AtomicLong committedCredits = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong rejectedCredits = new AtomicLong();
+    private final AtomicLong duplicateCredits = new AtomicLong();
+
+    private Thread writer;
+    private volatile boolean running;
+    private volatile Throwable failure;
+    private WalSegment segment;
+    private long lastLsn;
+
+    public AccrualLedger(JsonObject config) {
+        JsonObject ledgerConfig = config.getJsonObject("ledger", new JsonObject());
+        this.directory = Path.of(ledgerConfig.getString("directory", "data/ledger"));
+        this.segmentBytes = ledgerConfig.getInteger("walSegmentBytes", 64 * 1024 * 1024);
+        this.maxBatch = ledgerConfig.getInteger("maxBatch", 4096);
+        this.queue = new ArrayBlockingQueue<>(ledgerConfig.getInteger("queueSize", 65536));
+        int dedupWindow = ledgerConfig.getInteger("dedupWindow", 100000);
+        this.recentCredits = Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CreditKey, Boolean> eldest) {
+                return size() > dedupWindow;
+            }
+        });
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getJsonObject("ledger", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    /**
+     * Restores the balances from the snapshot and the WAL and starts the
+     * writer. Blocking; later calls return at once.
+     */
+    public synchronized void recover() throws IOException {
+        if (writer != null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        long snapshotLsn = readSnapshot();
+        lastLsn = snapshotLsn;
+        long[] replayed = {0};
+        for (Path file : WalSegment.list(directory)) {
+            if (segment != null) {
+                segment.close();
+            }
+            segment = WalSegment.open(file, segmentBytes);
+            lastLsn = Math.max(lastLsn, segment.recover(snapshotLsn, (lsn, creditedAt, points, memberId, creditId) -> {
+                apply(memberId, points);
+                if (creditId != null) {
+                    recentCredits.add(new CreditKey(memberId, creditId));
+                }
+                replayed[0]++;
+            }));
+        }
+        if (segment == null) {
+            segment = WalSegment.open(WalSegment.fileName(directory, lastLsn + 1), segmentBytes);
+        }
+        logger.info("Accrual ledger recovered: {} members, snapshot at LSN {}, {} WAL records replayed",
+            balances.size(), snapshotLsn, replayed[0]);
+
+        running = true;
+        writer = new Thread(this::run, "ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Recovers on a worker thread; see {@link #recover}.
+     */
+    public Future<Void> recover(Vertx vertx) {
+        return vertx.executeBlocking(() -> {
+            recover();
+            return null;
+        }, false);
+    }
+
+    /**
+     * Credits {@code points} to {@code memberId}, without a credit ID.
+     */
+    public Future<Long> credit(String memberId, long points) {
+        return credit(memberId, null, points);
+    }
+
+    /**
+     * Credits {@code points} to {@code memberId}, unless a credit with the same
+     * member and {@code creditId} is still in the dedup window.
+     *
+     * @param creditId the ID to deduplicate retries on, or {@code null}
+     * @return the member's new balance, once the credit is durable (for a
+     *         duplicate, the current balance); fails with
+     *         {@link LedgerUnavailableException} if the ledger is not taking credits
+     * @throws IllegalArgumentException if the member or credit ID is too long
+     */
+    public Future<Long> credit(String memberId, String creditId, long points) {
+        Credit credit = new Credit(WalSegment.memberIdBytes(memberId), memberId,
+            WalSegment.creditIdBytes(creditId), creditId, points, Vertx.currentContext(), Promise.promise());
+        if (!running || failure != null) {
+            rejectedCredits.incrementAndGet();
+            return Future.failedFuture(new LedgerUnavailableException("Ledger is not accepting credits"));
+        }
+        if (!queue.offer(credit)) {
+            rejectedCredits.incrementAndGet();
+            return Future.failedFuture(new LedgerUnavailableException("Ledger queue is full"));
+        }
+        // close() may have stopped the writer since the check above; it would never take the credit
+        if (!running && queue.remove(credit)) {
+            rejectedCredits.incrementAndGet();
+            return Future.failedFuture(new LedgerUnavailableException("Ledger is not accepting credits"));
+        }
+        return credit.promise.future();
+    }
+
+    public OptionalLong balance(String memberId) {
+        AtomicLong balance = balances.get(memberId);
+        return balance == null ? OptionalLong.empty() : OptionalLong.of(balance.get());
+    }
+
+    public int getMemberCount() {
+        return balances.size();
+    }
+
+    public long getCommittedCredits() {
+        return committedCredits.get();
+    }
+
+    public long getCommits() {
+        return commits.get();
+    }
+
+    public long getRejectedCredits() {
+        return rejectedCredits.get();
+    }
+
+    public long getDuplicateCredits() {
+        return duplicateCredits.get();
+    }
+
+    public int getQueuedCredits() {
+        return queue.size();
+    }
+
+    /**
+     * Commits the credits already queued, writes a snapshot and stops the
+     * writer. Blocking.
+     */
+    @Override
+    public void close() {
+        running = false;
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long apply(String memberId, long points) {
+        return balances.computeIfAbsent(memberId, id -> new AtomicLong()).addAndGet(points);
+    }
+
+    private void run() {
+        List<Credit> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Credit first = running ? queue.poll(100, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                if (failure != null) {
+                    fail(batch, 0);
+                    continue;
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        if (failure == null) {
+            try {
+                snapshotAndRoll();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to write the ledger snapshot on close", e);
+            }
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close {}: {}", segment.file(), e.toString());
+        }
+    }
+
+    private void commit(List<Credit> batch) {
+        int applied = 0;
+        try {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < batch.size(); i++) {
+                Credit credit = batch.get(i);
+                CreditKey key = credit.creditId == null ? null : new CreditKey(credit.memberId, credit.creditId);
+                if (key != null && recentCredits.contains(key)) {
+                    credit.duplicate = true;
+                    continue;
+                }
+                if (!segment.fits(credit.memberIdBytes, credit.creditIdBytes)) {
+                    applied = flush(batch, applied, i);
+                    snapshotAndRoll();
+                }
+                segment.append(++lastLsn, now, credit.points, credit.memberIdBytes, credit.creditIdBytes);
+                // Only once appended, so a snapshot never holds the ID of a credit it does not cover
+                if (key != null) {
+                    recentCredits.add(key);
+                }
+            }
+            applied = flush(batch, applied, batch.size());
+            commits.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Ledger write failed, rejecting further credits", e);
+            failure = e;
+            fail(batch, applied);
+            return;
+        }
+        for (Credit credit : batch) {
+            credit.complete();
+        }
+    }
+
+    /**
+     * Makes the appended credits {@code from} to {@code to} durable and applies
+     * them to the balances; duplicates just read the balance.
+     *
+     * @return {@code to}
+     */
+    private int flush(List<Credit> batch, int from, int to) {
+        segment.force();
+        for (int i = from; i < to; i++) {
+            Credit credit = batch.get(i);
+            if (credit.duplicate) {
+                credit.balance = apply(credit.memberId, 0);
+                duplicateCredits.incrementAndGet();
+            } else {
+                credit.balance = apply(credit.memberId, credit.points);
+                committedCredits.incrementAndGet();
+            }
+        }
+        return to;
+    }
+
+    private void fail(List<Credit> batch, int from) {
+        for (int i = 0; i < batch.size(); i++) {
+            Credit credit = batch.get(i);
+            if (i < from) {
+                credit.complete();
+            } else {
+                rejectedCredits.incrementAndGet();
+                credit.fail(new LedgerUnavailableException("Ledger write failed"));
+            }
+        }
+    }
+
+    private void snapshotAndRoll() throws IOException {
+        segment.force();
+        writeSnapshot();
+        WalSegment previous = segment;
+        segment = WalSegment.open(WalSegment.fileName(directory, lastLsn + 1), segmentBytes);
+        previous.close();
+        for (Path file : WalSegment.list(directory)) {
+            if (!file.equals(segment.file())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Snapshot layout (big-endian): int magic "LBS1", long LSN covered,
+     * long written at (epoch millis), int member count, then per member a
+     * modified-UTF-8 member ID and a long balance, int recent credit count,
+     * then per credit in the dedup window, oldest first, a modified-UTF-8
+     * member ID and credit ID, and an int CRC32C of all that.
+     */
+    private void writeSnapshot() throws IOException {
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(lastLsn);
+            out.writeLong(System.currentTimeMillis());
+            List<Map.Entry<String, AtomicLong>> entries = new ArrayList<>(balances.entrySet());
+            out.writeInt(entries.size());
+            for (Map.Entry<String, AtomicLong> entry : entries) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().get());
+            }
+            out.writeInt(recentCredits.size());
+            for (CreditKey key : recentCredits) {
+                out.writeUTF(key.memberId());
+                out.writeUTF(key.creditId());
+            }
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.debug("Ledger snapshot written: {} members at LSN {}", balances.size(), lastLsn);
+    }
+
+    /**
+     * @return the LSN the snapshot covers, or 0 if there is none
+     */
+    private long readSnapshot() throws IOException {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return 0L;
+        }
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16), new CRC32C())) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a ledger snapshot: " + file);
+            }
+            long lsn = in.readLong();
+            in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                balances.put(in.readUTF(), new AtomicLong(in.readLong()));
+            }
+            int recent = in.readInt();
+            for (int i = 0; i < recent; i++) {
+                recentCredits.add(new CreditKey(in.readUTF(), in.readUTF()));
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Corrupt ledger snapshot: " + file);
+            }
+            return lsn;
+        }
+    }
+
+    private record CreditKey(String memberId, String creditId) {}
+
+    private static final class Credit {
+        final byte[] memberIdBytes;
+        final String memberId;
+        final byte[] creditIdBytes;
+        final String creditId;
+        final long points;
+        final Context context;
+        final Promise<Long> promise;
+        boolean duplicate;
+        long balance;
+
+        Credit(byte[] memberIdBytes, String memberId, byte[] creditIdBytes, String creditId, long points,
+               Context context, Promise<Long> promise) {
+            this.memberIdBytes = memberIdBytes;
+            this.memberId = memberId;
+            this.creditIdBytes = creditIdBytes;
+            this.creditId = creditId;
+            this.points = points;
+            this.context = context;
+            this.promise = promise;
+        }
+
+        void complete() {
+            long result = balance;
+            if (context != null) {
+                context.runOnContext(v -> promise.complete(result));
+            } else {
+                promise.complete(result);
+            }
+        }
+
+        void fail(Throwable err) {
+            if (context != null) {
+                context.runOnContext(v -> promise.fail(err));
+            } else {
+                promise.fail(err);
+            }
+        }
+    }
+}
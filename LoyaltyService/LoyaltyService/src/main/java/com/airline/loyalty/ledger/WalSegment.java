@@ -0,0 +1,212 @@
+package com.airline.loyalty.ledger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped, preallocated file of the accrual write-ahead log, named
+ * after the sequence number of its first record ({@code wal-<lsn>.log}).
+ *
+ * Record layout (big-endian):
+ * <pre>
+ * int    record length, excluding this field (0: end of log)
+ * long   sequence number (LSN)
+ * long   credited at (epoch millis)
+ * long   points
+ * short  member ID byte length
+ * bytes  member ID (UTF-8)
+ * short  credit ID byte length (0: none)
+ * bytes  credit ID (UTF-8)
+ * int    CRC32C of the fields from the LSN to the credit ID
+ * </pre>
+ * The unwritten rest of a segment is zeros, so the log ends at the first
+ * zero length, or at the first record whose CRC or LSN does not check out
+ * (a write torn by a crash).
+ */
+final class WalSegment {
+
+    static final int MAX_MEMBER_ID_BYTES = 256;
+    static final int MAX_CREDIT_ID_BYTES = 128;
+    private static final int FIXED_BYTES = 4 + 8 + 8 + 8 + 2 + 2 + 4;
+    static final int MAX_RECORD_BYTES = FIXED_BYTES + MAX_MEMBER_ID_BYTES + MAX_CREDIT_ID_BYTES;
+    private static final byte[] NO_CREDIT_ID = new byte[0];
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+    private int forcedPosition;
+
+    private WalSegment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static Path fileName(Path directory, long firstLsn) {
+        return directory.resolve(String.format("wal-%020d.log", firstLsn));
+    }
+
+    /**
+     * @return the directory's segments, oldest first
+     */
+    static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(f -> f.getFileName().toString().matches("wal-\\d{20}\\.log"))
+                .sorted()
+                .toList();
+        }
+    }
+
+    /**
+     * Creates a segment of {@code sizeBytes}, or reopens an existing one, with
+     * the write position at the start.
+     */
+    static WalSegment open(Path file, int sizeBytes) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int size = (int) Math.max(sizeBytes, channel.size());
+            return new WalSegment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long firstLsn() {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(4, name.length() - 4));
+    }
+
+    static byte[] memberIdBytes(String memberId) {
+        byte[] bytes = memberId.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_MEMBER_ID_BYTES) {
+            throw new IllegalArgumentException("Member ID longer than " + MAX_MEMBER_ID_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    static byte[] creditIdBytes(String creditId) {
+        if (creditId == null) {
+            return NO_CREDIT_ID;
+        }
+        byte[] bytes = creditId.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_CREDIT_ID_BYTES) {
+            throw new IllegalArgumentException("Credit ID longer than " + MAX_CREDIT_ID_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    boolean fits(byte[] memberId, byte[] creditId) {
+        // Room for the record and the zero length that ends the log
+        return buffer.remaining() >= FIXED_BYTES + memberId.length + creditId.length + 4;
+    }
+
+    void append(long lsn, long creditedAt, long points, byte[] memberId, byte[] creditId) {
+        int start = buffer.position();
+        buffer.putInt(FIXED_BYTES - 4 + memberId.length + creditId.length)
+            .putLong(lsn)
+            .putLong(creditedAt)
+            .putLong(points)
+            .putShort((short) memberId.length)
+            .put(memberId)
+            .putShort((short) creditId.length)
+            .put(creditId);
+        crc.reset();
+        crc.update(buffer.slice(start + 4, buffer.position() - start - 4));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Flushes the records appended since the last call to disk.
+     */
+    void force() {
+        int position = buffer.position();
+        if (position > forcedPosition) {
+            buffer.force(forcedPosition, position - forcedPosition);
+            forcedPosition = position;
+        }
+    }
+
+    /**
+     * Reads the segment's records from the start, handing those after
+     * {@code afterLsn} to {@code visitor}, and leaves the write position after
+     * the last valid record, zeroing whatever a torn write left beyond it.
+     *
+     * @return the LSN of the last valid record, or {@link #firstLsn} - 1 if none
+     */
+    long recover(long afterLsn, RecordVisitor visitor) {
+        buffer.position(0);
+        long lastLsn = firstLsn() - 1;
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length < FIXED_BYTES - 4 || length > MAX_RECORD_BYTES - 4 || length > buffer.remaining() - 4) {
+                break;
+            }
+            long lsn = buffer.getLong(start + 4);
+            short idLength = buffer.getShort(start + 28);
+            if (idLength < 0 || idLength > length - (FIXED_BYTES - 4)) {
+                break;
+            }
+            short creditIdLength = buffer.getShort(start + 30 + idLength);
+            if (creditIdLength < 0 || FIXED_BYTES - 4 + idLength + creditIdLength != length
+                    || lsn != lastLsn + 1) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(start + 4, length - 4));
+            if ((int) crc.getValue() != buffer.getInt(start + length)) {
+                break;
+            }
+            if (lsn > afterLsn) {
+                byte[] memberId = new byte[idLength];
+                buffer.get(start + 30, memberId);
+                byte[] creditId = new byte[creditIdLength];
+                buffer.get(start + 32 + idLength, creditId);
+                visitor.visit(lsn, buffer.getLong(start + 12), buffer.getLong(start + 20),
+                    new String(memberId, StandardCharsets.UTF_8),
+                    creditIdLength == 0 ? null : new String(creditId, StandardCharsets.UTF_8));
+            }
+            lastLsn = lsn;
+            buffer.position(start + 4 + length);
+        }
+        int end = buffer.position();
+        int tornEnd = Math.min(buffer.limit(), end + MAX_RECORD_BYTES);
+        for (int i = end; i < tornEnd; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force(end, tornEnd - end);
+        forcedPosition = end;
+        return lastLsn;
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        /**
+         * @param creditId the ID the credit was made under, or {@code null}
+         */
+        void visit(long lsn, long creditedAt, long points, String memberId, String creditId);
+    }
+}
@@ -0,0 +1,200 @@
+package com.airline.loyalty.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AsyncLogAppender hands logging events to a bounded queue drained by a single
+ * background worker, so console and file I/O never run on the event loop.
+ *
+ * When the queue is full the configured {@link DropPolicy} decides whether the
+ * caller drops the event or waits; once the remaining capacity falls below
+ * {@code discardingThreshold}, events below WARN are shed early. Both kinds of
+ * loss are counted and exported through {@link LoggingMetrics}.
+ *
+ * Events logged on a Vert.x thread take their request ID from the Vert.x
+ * context rather than the thread's MDC (see {@link RequestLogContext}).
+ */
+public class AsyncLogAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    public enum DropPolicy {
+        /** Drop the incoming event when the queue is full (never blocks the caller). */
+        DROP,
+        /** Block the caller until there is room in the queue. */
+        BLOCK
+    }
+
+    private static final int DEFAULT_QUEUE_SIZE = 8192;
+    private static final int BATCH_SIZE = 256;
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder discardedEvents = new LongAdder();
+
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private int discardingThreshold = -1;
+    private DropPolicy dropPolicy = DropPolicy.DROP;
+    private long maxFlushTimeMillis = 1000;
+
+    private BlockingQueue<ILoggingEvent> queue;
+    private Thread worker;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (queueSize < 1) {
+            addError("Invalid queue size [" + queueSize + "]");
+            return;
+        }
+        if (discardingThreshold < 0) {
+            discardingThreshold = queueSize / 5;
+        }
+        queue = new ArrayBlockingQueue<>(queueSize);
+        worker = new Thread(this::drainLoop, "async-log-" + getName());
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        worker.interrupt();
+        try {
+            worker.join(maxFlushTimeMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            addWarn("Worker did not finish within " + maxFlushTimeMillis + " ms, "
+                    + queue.size() + " queued events were not written");
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (queue.remainingCapacity() < discardingThreshold && !event.getLevel().isGreaterOrEqual(Level.WARN)) {
+            discardedEvents.increment();
+            return;
+        }
+
+        // Capture MDC, thread name and formatted message before crossing threads
+        Context context = Vertx.currentContext();
+        if (context != null && event instanceof LoggingEvent loggingEvent) {
+            loggingEvent.setMDCPropertyMap(RequestLogContext.withRequestId(MDC.getCopyOfContextMap(), context));
+        }
+        event.prepareForDeferredProcessing();
+
+        if (dropPolicy == DropPolicy.BLOCK) {
+            try {
+                queue.put(event);
+            } catch (InterruptedException e) {
+                droppedEvents.increment();
+                Thread.currentThread().interrupt();
+            }
+        } else if (!queue.offer(event)) {
+            droppedEvents.increment();
+        }
+    }
+
+    private void drainLoop() {
+        List<ILoggingEvent> batch = new ArrayList<>(BATCH_SIZE);
+        while (isStarted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+
+        // Flush whatever is left on shutdown
+        queue.drainTo(batch);
+        writeBatch(batch);
+    }
+
+    private void writeBatch(List<ILoggingEvent> batch) {
+        for (ILoggingEvent event : batch) {
+            appenders.appendLoopOnAppenders(event);
+        }
+        batch.clear();
+    }
+
+    // Metrics accessors
+    public long getDroppedEvents() { return droppedEvents.sum(); }
+    public long getDiscardedEvents() { return discardedEvents.sum(); }
+    public int getQueueDepth() { return queue == null ? 0 : queue.size(); }
+
+    // Configuration (set by Joran from logback.xml)
+    public int getQueueSize() { return queueSize; }
+    public void setQueueSize(int queueSize) { this.queueSize = queueSize; }
+
+    public int getDiscardingThreshold() { return discardingThreshold; }
+    public void setDiscardingThreshold(int discardingThreshold) { this.discardingThreshold = discardingThreshold; }
+
+    public DropPolicy getDropPolicy() { return dropPolicy; }
+    public void setDropPolicy(DropPolicy dropPolicy) { this.dropPolicy = dropPolicy; }
+
+    public long getMaxFlushTimeMillis() { return maxFlushTimeMillis; }
+    public void setMaxFlushTimeMillis(long maxFlushTimeMillis) { this.maxFlushTimeMillis = maxFlushTimeMillis; }
+
+    // AppenderAttachable
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,65 @@
+package com.airline.loyalty.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+
+/**
+ * LoggingMetrics exports the drop and sampling counters of the async logging
+ * pipeline configured in logback.xml.
+ */
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+        if (!(factory instanceof LoggerContext context)) {
+            return;
+        }
+
+        Iterator<Appender<ILoggingEvent>> it = context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (it.hasNext()) {
+            if (it.next() instanceof AsyncLogAppender appender) {
+                bindAppender(registry, appender);
+            }
+        }
+
+        for (TurboFilter filter : context.getTurboFilterList()) {
+            if (filter instanceof SamplingTurboFilter sampler) {
+                FunctionCounter.builder("logging_events_sampled_out_total", sampler,
+                                SamplingTurboFilter::getSampledOutEvents)
+                        .description("Log events skipped by per-logger sampling")
+                        .register(registry);
+            }
+        }
+    }
+
+    private void bindAppender(MeterRegistry registry, AsyncLogAppender appender) {
+        FunctionCounter.builder("logging_events_dropped_total", appender, AsyncLogAppender::getDroppedEvents)
+                .description("Log events dropped because the async queue was full")
+                .tag("appender", appender.getName())
+                .tag("reason", "queue_full")
+                .register(registry);
+
+        FunctionCounter.builder("logging_events_dropped_total", appender, AsyncLogAppender::getDiscardedEvents)
+                .description("Log events below WARN shed because the async queue was nearly full")
+                .tag("appender", appender.getName())
+                .tag("reason", "below_threshold")
+                .register(registry);
+
+        Gauge.builder("logging_queue_depth", appender, AsyncLogAppender::getQueueDepth)
+                .description("Log events waiting to be written")
+                .tag("appender", appender.getName())
+                .register(registry);
+    }
+}
@@ -0,0 +1,59 @@
+package com.airline.loyalty.logging;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RequestLogContext ties log events to the current request's
+ * {@code X-Request-ID}.
+ *
+ * Event-loop threads interleave many requests, so the ID is not kept in the
+ * thread's MDC, where it would outlive the request. {@link #bind} stores it
+ * as a local of the request's Vert.x duplicated context, which Vert.x carries
+ * into every callback made for that request, and {@link AsyncLogAppender}
+ * copies it into the MDC of each event logged on that context (key
+ * {@code requestId}). Events logged on a Vert.x thread outside any request
+ * carry no request ID.
+ */
+public final class RequestLogContext {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-ID";
+    public static final String MDC_REQUEST_ID = "requestId";
+
+    private RequestLogContext() {}
+
+    public static void bind(RoutingContext ctx) {
+        String requestId = ctx.get(REQUEST_ID_HEADER);
+        Context context = Vertx.currentContext();
+        if (requestId != null && context != null) {
+            context.putLocal(MDC_REQUEST_ID, requestId);
+        }
+    }
+
+    /**
+     * {@code mdc} (a copy of the thread's MDC, or null) with the request ID
+     * bound to {@code context}, if any, in place of the thread's.
+     */
+    static Map<String, String> withRequestId(Map<String, String> mdc, Context context) {
+        Map<String, String> result = mdc != null ? mdc : new HashMap<>();
+        String requestId = context.getLocal(MDC_REQUEST_ID);
+        if (requestId != null) {
+            result.put(MDC_REQUEST_ID, requestId);
+        } else {
+            result.remove(MDC_REQUEST_ID);
+        }
+        return result;
+    }
+
+    /**
+     * Access-log line for {@code LoggerHandler}.
+     */
+    public static String accessLog(RoutingContext ctx, long ms) {
+        return ctx.request().method() + " " + ctx.request().uri() + " "
+                + ctx.response().getStatusCode() + " " + ms + "ms";
+    }
+}
@@ -0,0 +1,87 @@
+package com.airline.loyalty.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SamplingTurboFilter keeps one in every N events for selected hot-path loggers.
+ *
+ * Samples are configured in logback.xml as {@code loggerName=N} entries. Only
+ * events at or below {@code maxLevel} are sampled; warnings and errors always
+ * pass through untouched.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final Map<String, Sample> samples = new HashMap<>();
+    private final LongAdder sampledOutEvents = new LongAdder();
+    private Level maxLevel = Level.INFO;
+
+    /**
+     * Adds a {@code loggerName=N} sampling rule.
+     */
+    public void addSample(String spec) {
+        int idx = spec.lastIndexOf('=');
+        if (idx <= 0) {
+            addError("Invalid sample [" + spec + "], expected loggerName=N");
+            return;
+        }
+        String loggerName = spec.substring(0, idx).trim();
+        try {
+            int rate = Integer.parseInt(spec.substring(idx + 1).trim());
+            if (rate < 1) {
+                throw new NumberFormatException("rate must be >= 1");
+            }
+            samples.put(loggerName, new Sample(rate));
+        } catch (NumberFormatException e) {
+            addError("Invalid sample rate in [" + spec + "]: " + e.getMessage());
+        }
+    }
+
+    public void setMaxLevel(String maxLevel) {
+        this.maxLevel = Level.toLevel(maxLevel, Level.INFO);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format,
+                              Object[] params, Throwable t) {
+        // isXxxEnabled() checks carry no format; let them through uncounted
+        if (!isStarted() || format == null || level.isGreaterOrEqual(Level.WARN) || level.toInt() > maxLevel.toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+
+        Sample sample = samples.get(logger.getName());
+        if (sample == null || sample.admit()) {
+            return FilterReply.NEUTRAL;
+        }
+        sampledOutEvents.increment();
+        return FilterReply.DENY;
+    }
+
+    public long getSampledOutEvents() {
+        return sampledOutEvents.sum();
+    }
+
+    private static final class Sample {
+        private final int rate;
+        private final AtomicLong counter = new AtomicLong();
+
+        Sample(int rate) {
+            this.rate = rate;
+        }
+
+        boolean admit() {
+            return rate == 1 || counter.getAndIncrement() % rate == 0;
+        }
+    }
+}
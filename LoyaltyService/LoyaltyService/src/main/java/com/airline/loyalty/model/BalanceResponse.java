@@ -0,0 +1,8 @@
+package com.airline.loyalty.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record BalanceResponse(
+	    @JsonProperty("memberId") String memberId,
+	    @JsonProperty("balance") long balance
+	) {}
@@ -0,0 +1,29 @@
+package com.airline.loyalty.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.constraints.*;
+
+/**
+ * A quote request plus the member whose balance the quoted points are
+ * credited to.
+ */
+public class PointsAccrualRequest extends PointsQuoteRequest {
+
+    @NotBlank(message = "memberId must not be blank")
+    @Size(max = 64, message = "memberId must be at most 64 characters")
+    @JsonProperty("memberId")
+    private String memberId;
+
+    // Default constructor for Jackson
+    public PointsAccrualRequest() {}
+
+    public PointsAccrualRequest(String memberId, Double fareAmount, String currency, String cabinClass,
+                                String customerTier, String promoCode) {
+        super(fareAmount, currency, cabinClass, customerTier, promoCode);
+        this.memberId = memberId;
+    }
+
+    public String getMemberId() { return memberId; }
+    public void setMemberId(String memberId) { this.memberId = memberId; }
+}
@@ -0,0 +1,10 @@
+package com.airline.loyalty.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record PointsAccrualResponse(
+	    @JsonProperty("memberId") String memberId,
+	    @JsonProperty("pointsCredited") int pointsCredited,
+	    @JsonProperty("balance") long balance,
+	    @JsonProperty("quote") PointsQuoteResponse quote
+	) {}
@@ -1,9 +1,5 @@
 package com.airline.loyalty.model;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.List;
 
 public class PointsCalculation {
@@ -12,7 +8,8 @@ public class PointsCalculation {
     private final int promoBonus;
     private final int totalPoints;
     private final double effectiveFxRate;
-    private final List<String> warnings;
+    private final int warnings;
+    private final long fxFetchedAtMillis;
 
     private PointsCalculation(Builder builder) {
         this.basePoints = builder.basePoints;
@@ -20,7 +17,8 @@ public class PointsCalculation {
         this.promoBonus = builder.promoBonus;
         this.totalPoints = builder.totalPoints;
         this.effectiveFxRate = builder.effectiveFxRate;
-        this.warnings = List.copyOf(builder.warnings);
+        this.warnings = builder.warnings;
+        this.fxFetchedAtMillis = builder.fxFetchedAtMillis;
     }
 
     public PointsQuoteResponse toResponse() {
@@ -30,7 +28,7 @@ public class PointsCalculation {
             promoBonus,
             totalPoints,
             effectiveFxRate,
-            warnings
+            QuoteWarning.names(warnings)
         );
     }
 
@@ -44,7 +42,8 @@ public class PointsCalculation {
         private int promoBonus;
         private int totalPoints;
         private double effectiveFxRate;
-        private List<String> warnings = new ArrayList<>();
+        private int warnings;
+        private long fxFetchedAtMillis = Long.MAX_VALUE;
 
         public Builder basePoints(int basePoints) {
             this.basePoints = basePoints;
@@ -71,13 +70,22 @@ public class PointsCalculation {
             return this;
         }
 
-        public Builder warnings(List<String> warnings) {
-            this.warnings = new ArrayList<>(warnings);
+        public Builder warnings(int warnings) {
+            this.warnings = warnings;
             return this;
         }
 
-        public Builder addWarning(String warning) {
-            this.warnings.add(warning);
+        public Builder addWarning(QuoteWarning warning) {
+            this.warnings |= warning.mask();
+            return this;
+        }
+
+        /**
+         * When the FX rate used was fetched; {@code Long.MAX_VALUE} (the
+         * default) if none was, or it does not age.
+         */
+        public Builder fxFetchedAtMillis(long fxFetchedAtMillis) {
+            this.fxFetchedAtMillis = fxFetchedAtMillis;
             return this;
         }
 
@@ -92,6 +100,8 @@ public class PointsCalculation {
     public int getPromoBonus() { return promoBonus; }
     public int getTotalPoints() { return totalPoints; }
     public double getEffectiveFxRate() { return effectiveFxRate; }
-    public List<String> getWarnings() { return warnings; }
+    public int getWarningMask() { return warnings; }
+    public long getFxFetchedAtMillis() { return fxFetchedAtMillis; }
+    public List<String> getWarnings() { return QuoteWarning.names(warnings); }
 }
 
@@ -29,6 +29,13 @@ public class PointsQuoteRequest implements Serializable {
     @JsonProperty("promoCode")
     private String promoCode; // optional
 
+    @Size(min = 3, max = 3, message = "targetCurrency must be a 3-letter ISO code")
+    @JsonProperty("targetCurrency")
+    private String targetCurrency; // optional, defaults to the base currency
+
+    @JsonProperty("asOfDate")
+    private String asOfDate; // optional ISO date for historical FX rates, defaults to today
+
     // Default constructor for Jackson
     public PointsQuoteRequest() {}
 
@@ -41,6 +48,12 @@ public class PointsQuoteRequest implements Serializable {
         this.promoCode = promoCode;
     }
 
+    public PointsQuoteRequest(Double fareAmount, String currency, String cabinClass, String customerTier, String promoCode,
+                              String targetCurrency) {
+        this(fareAmount, currency, cabinClass, customerTier, promoCode);
+        this.targetCurrency = targetCurrency;
+    }
+
     // Getters and Setters
     public Double getFareAmount() { return fareAmount; }
     public void setFareAmount(Double fareAmount) { this.fareAmount = fareAmount; }
@@ -56,4 +69,10 @@ public class PointsQuoteRequest implements Serializable {
 
     public String getPromoCode() { return promoCode; }
     public void setPromoCode(String promoCode) { this.promoCode = promoCode; }
+
+    public String getTargetCurrency() { return targetCurrency; }
+    public void setTargetCurrency(String targetCurrency) { this.targetCurrency = targetCurrency; }
+
+    public String getAsOfDate() { return asOfDate; }
+    public void setAsOfDate(String asOfDate) { this.asOfDate = asOfDate; }
 }
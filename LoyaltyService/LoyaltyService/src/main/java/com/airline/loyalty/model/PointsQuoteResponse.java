@@ -4,10 +4,10 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 
 public record PointsQuoteResponse(
-	    @JsonProperty("basePoints") Integer basePoints,
-	    @JsonProperty("tierBonus") Integer tierBonus,
-	    @JsonProperty("promoBonus") Integer promoBonus,
-	    @JsonProperty("totalPoints") Integer totalPoints,
-	    @JsonProperty("effectiveFxRate") Double effectiveFxRate,
+	    @JsonProperty("basePoints") int basePoints,
+	    @JsonProperty("tierBonus") int tierBonus,
+	    @JsonProperty("promoBonus") int promoBonus,
+	    @JsonProperty("totalPoints") int totalPoints,
+	    @JsonProperty("effectiveFxRate") double effectiveFxRate,
 	    @JsonProperty("warnings") List<String> warnings
 	) {}
\ No newline at end of file
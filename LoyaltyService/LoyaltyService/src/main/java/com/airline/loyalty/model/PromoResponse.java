@@ -4,9 +4,27 @@ package com.airline.loyalty.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.List;
+
+/**
+ * A promo definition from the promo service. Only the first four fields are
+ * required; the rest default to no restriction when absent:
+ * {@code validFrom} (ISO date the promo starts), {@code eligibleCabins} and
+ * {@code eligibleTiers} ({@link CabinClass} / {@link CustomerTier} names), and
+ * {@code stacksWithTierBonus} ({@code false} if the promo bonus replaces the
+ * tier bonus instead of adding to it).
+ */
 public record PromoResponse(
     @JsonProperty("promoCode") String promoCode,
     @JsonProperty("bonusMultiplier") Double bonusMultiplier,
     @JsonProperty("expiryDate") String expiryDate,
-    @JsonProperty("active") Boolean active
-) {}
\ No newline at end of file
+    @JsonProperty("active") Boolean active,
+    @JsonProperty("validFrom") String validFrom,
+    @JsonProperty("eligibleCabins") List<String> eligibleCabins,
+    @JsonProperty("eligibleTiers") List<String> eligibleTiers,
+    @JsonProperty("stacksWithTierBonus") Boolean stacksWithTierBonus
+) {
+    public PromoResponse(String promoCode, Double bonusMultiplier, String expiryDate, Boolean active) {
+        this(promoCode, bonusMultiplier, expiryDate, active, null, null, null, null);
+    }
+}
@@ -0,0 +1,91 @@
+package com.airline.loyalty.model;
+
+/**
+ * QuoteBatch is a struct-of-arrays form of many quote requests and their
+ * results, for {@code PointsCalculationService.calculateBatch}.
+ *
+ * Row {@code i} is a quote for {@code fareAmounts[i]} in
+ * {@code currencies[currencyIndex[i]]}, with {@link CabinClass} and
+ * {@link CustomerTier} ordinals, and {@code promos[promoIndex[i]]} as the promo
+ * service's answer for its code ({@code -1} for no promo code; a {@code null}
+ * table entry for a code the promo service does not know).
+ *
+ * {@code fxRates[c]} is the rate from {@code currencies[c]} into the base
+ * currency; it is ignored for the base currency itself.
+ *
+ * The result arrays are filled in place; {@code warnings} holds
+ * {@link QuoteWarning} bitmasks.
+ */
+public final class QuoteBatch {
+
+    private final int size;
+    private final String[] currencies;
+    private final double[] fxRates;
+    private final PromoResponse[] promos;
+
+    private final double[] fareAmounts;
+    private final int[] currencyIndex;
+    private final int[] cabinOrdinals;
+    private final int[] tierOrdinals;
+    private final int[] promoIndex;
+
+    private final int[] basePoints;
+    private final int[] tierBonus;
+    private final int[] promoBonus;
+    private final int[] totalPoints;
+    private final double[] effectiveFxRate;
+    private final int[] warnings;
+
+    public QuoteBatch(int size, String[] currencies, double[] fxRates, PromoResponse[] promos) {
+        if (currencies.length != fxRates.length) {
+            throw new IllegalArgumentException("currencies and fxRates must have the same length");
+        }
+        this.size = size;
+        this.currencies = currencies;
+        this.fxRates = fxRates;
+        this.promos = promos;
+
+        this.fareAmounts = new double[size];
+        this.currencyIndex = new int[size];
+        this.cabinOrdinals = new int[size];
+        this.tierOrdinals = new int[size];
+        this.promoIndex = new int[size];
+
+        this.basePoints = new int[size];
+        this.tierBonus = new int[size];
+        this.promoBonus = new int[size];
+        this.totalPoints = new int[size];
+        this.effectiveFxRate = new double[size];
+        this.warnings = new int[size];
+    }
+
+    /**
+     * Sets the inputs of row {@code i}.
+     */
+    public QuoteBatch set(int i, double fareAmount, int currency, CabinClass cabinClass, CustomerTier tier, int promo) {
+        fareAmounts[i] = fareAmount;
+        currencyIndex[i] = currency;
+        cabinOrdinals[i] = cabinClass.ordinal();
+        tierOrdinals[i] = tier.ordinal();
+        promoIndex[i] = promo;
+        return this;
+    }
+
+    public int size() { return size; }
+    public String[] currencies() { return currencies; }
+    public double[] fxRates() { return fxRates; }
+    public PromoResponse[] promos() { return promos; }
+
+    public double[] fareAmounts() { return fareAmounts; }
+    public int[] currencyIndex() { return currencyIndex; }
+    public int[] cabinOrdinals() { return cabinOrdinals; }
+    public int[] tierOrdinals() { return tierOrdinals; }
+    public int[] promoIndex() { return promoIndex; }
+
+    public int[] basePoints() { return basePoints; }
+    public int[] tierBonus() { return tierBonus; }
+    public int[] promoBonus() { return promoBonus; }
+    public int[] totalPoints() { return totalPoints; }
+    public double[] effectiveFxRate() { return effectiveFxRate; }
+    public int[] warnings() { return warnings; }
+}
@@ -0,0 +1,51 @@
+package com.airline.loyalty.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Warnings attached to a points quote.
+ *
+ * A set of warnings is carried as an {@code int} bitmask (one bit per ordinal)
+ * through the calculation; {@link #names(int)} maps a mask to the immutable,
+ * pre-built list of names that goes into the response, so no list is copied or
+ * allocated per quote.
+ */
+public enum QuoteWarning {
+    PROMO_INACTIVE,
+    PROMO_EXPIRES_SOON,
+    PROMO_EXPIRED,
+    PROMO_NOT_ELIGIBLE,
+    POINTS_CAPPED_AT_MAX,
+    /** The FX service was unavailable; the quote used the last good rate. */
+    FX_RATE_STALE;
+
+    private static final QuoteWarning[] VALUES = values();
+    private static final List<List<String>> NAMES_BY_MASK = buildNames();
+
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    public static boolean contains(int warnings, QuoteWarning warning) {
+        return (warnings & warning.mask()) != 0;
+    }
+
+    public static List<String> names(int warnings) {
+        return NAMES_BY_MASK.get(warnings);
+    }
+
+    private static List<List<String>> buildNames() {
+        List<List<String>> byMask = new ArrayList<>(1 << VALUES.length);
+        for (int mask = 0; mask < 1 << VALUES.length; mask++) {
+            List<String> names = new ArrayList<>();
+            for (QuoteWarning warning : VALUES) {
+                if ((mask & warning.mask()) != 0) {
+                    names.add(warning.name());
+                }
+            }
+            byMask.add(List.copyOf(names));
+        }
+        return List.copyOf(byMask);
+    }
+}
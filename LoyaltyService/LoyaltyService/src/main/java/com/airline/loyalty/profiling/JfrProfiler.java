@@ -0,0 +1,179 @@
+package com.airline.loyalty.profiling;
+
+import com.airline.loyalty.exception.ValidationException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.Shareable;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JfrProfiler takes JDK Flight Recorder recordings for the admin endpoint:
+ * time-limited on-demand recordings with a chosen settings profile
+ * ({@code default} or {@code profile}, or a .jfc file), one at a time, and,
+ * with {@code profiling.continuous.enabled}, a continuous recording with the
+ * low-overhead {@code default} settings, kept in JFR's rolling on-disk
+ * repository for {@code maxAgeSeconds} or up to {@code maxSizeMb}, which can
+ * be dumped after an incident.
+ *
+ * Recordings are dumped to {@code profiling.directory}; callers delete the
+ * files once sent. Every method here does file I/O, so run them off the event
+ * loop. One instance is shared by all verticle instances through Vert.x local
+ * shared data, hence {@link Shareable}.
+ */
+public class JfrProfiler implements Shareable, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrProfiler.class);
+
+    private final Path directory;
+    private final String defaultSettings;
+    private final int defaultDurationSeconds;
+    private final int maxDurationSeconds;
+    private final boolean continuousEnabled;
+    private final String continuousSettings;
+    private final Duration continuousMaxAge;
+    private final long continuousMaxSizeBytes;
+
+    private final AtomicBoolean onDemandRunning = new AtomicBoolean();
+    private final AtomicLong fileSequence = new AtomicLong();
+    private volatile Recording continuous;
+
+    public JfrProfiler(JsonObject config) {
+        JsonObject profilingConfig = config.getJsonObject("profiling", new JsonObject());
+        this.directory = Path.of(profilingConfig.getString("directory", "logs/jfr"));
+        this.defaultSettings = profilingConfig.getString("defaultSettings", "profile");
+        this.defaultDurationSeconds = profilingConfig.getInteger("defaultDurationSeconds", 30);
+        this.maxDurationSeconds = profilingConfig.getInteger("maxDurationSeconds", 300);
+
+        JsonObject continuousConfig = profilingConfig.getJsonObject("continuous", new JsonObject());
+        this.continuousEnabled = continuousConfig.getBoolean("enabled", false);
+        this.continuousSettings = continuousConfig.getString("settings", "default");
+        this.continuousMaxAge = Duration.ofSeconds(continuousConfig.getLong("maxAgeSeconds", 900L));
+        this.continuousMaxSizeBytes = continuousConfig.getLong("maxSizeMb", 100L) * 1024 * 1024;
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getJsonObject("profiling", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    public String getDefaultSettings() {
+        return defaultSettings;
+    }
+
+    public int getDefaultDurationSeconds() {
+        return defaultDurationSeconds;
+    }
+
+    public int getMaxDurationSeconds() {
+        return maxDurationSeconds;
+    }
+
+    /**
+     * Starts the continuous recording, if enabled and not yet started.
+     */
+    public synchronized void startContinuous() throws IOException, ParseException {
+        if (!continuousEnabled || continuous != null) {
+            return;
+        }
+        Recording recording = new Recording(Configuration.getConfiguration(continuousSettings));
+        recording.setName("loyalty-continuous");
+        recording.setToDisk(true);
+        recording.setMaxAge(continuousMaxAge);
+        recording.setMaxSize(continuousMaxSizeBytes);
+        recording.start();
+        continuous = recording;
+        logger.info("Continuous JFR recording started ({} settings, last {} or {} MB kept)",
+            continuousSettings, continuousMaxAge, continuousMaxSizeBytes / (1024 * 1024));
+    }
+
+    /**
+     * Starts an on-demand recording, which stops itself after
+     * {@code durationSeconds}; pass it to {@link #finish} then.
+     *
+     * @return the recording, or null if another on-demand recording is running
+     * @throws ValidationException for unknown settings
+     */
+    public Recording start(String settings, int durationSeconds) {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new ValidationException("Unknown JFR settings: " + settings);
+        }
+        if (!onDemandRunning.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            Recording recording = new Recording(configuration);
+            recording.setName("loyalty-on-demand");
+            recording.setToDisk(true);
+            recording.setDuration(Duration.ofSeconds(durationSeconds));
+            recording.start();
+            return recording;
+        } catch (RuntimeException e) {
+            onDemandRunning.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops {@code recording} if it has not stopped itself yet and dumps it.
+     *
+     * @return the dumped file
+     */
+    public Path finish(Recording recording) throws IOException {
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                try {
+                    recording.stop();
+                } catch (IllegalStateException e) {
+                    // Stopped itself meanwhile
+                }
+            }
+            Path file = newFile("on-demand");
+            recording.dump(file);
+            return file;
+        } finally {
+            recording.close();
+            onDemandRunning.set(false);
+        }
+    }
+
+    /**
+     * Dumps what the continuous recording holds, leaving it running.
+     *
+     * @return the dumped file, or null if there is no continuous recording
+     */
+    public Path dumpContinuous() throws IOException {
+        Recording recording = continuous;
+        if (recording == null) {
+            return null;
+        }
+        Path file = newFile("continuous");
+        recording.dump(file);
+        return file;
+    }
+
+    private Path newFile(String kind) throws IOException {
+        Files.createDirectories(directory);
+        return directory.resolve(kind + "-" + System.currentTimeMillis() + "-" + fileSequence.incrementAndGet() + ".jfr");
+    }
+
+    @Override
+    public synchronized void close() {
+        if (continuous != null) {
+            continuous.close();
+            continuous = null;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.airline.loyalty.service;
+
+import com.airline.loyalty.exception.ValidationException;
+import com.airline.loyalty.model.PromoResponse;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ChangeMessages validates and reads the FX and promo changes that upstream
+ * systems push through the admin endpoint and the event bus.
+ *
+ * An FX change is {@code {"base": "USD", "rates": {"EUR": 1.09},
+ * "invalidate": ["GBP"], "invalidateAll": false}}: pushed rates into
+ * {@code base} (defaulting to the configured base currency), currencies whose
+ * cached rate is dropped, or every cached rate dropped. A promo change is
+ * {@code {"promos": [...], "invalidate": ["OLDCODE"]}}: promo definitions in
+ * the promo service's format that were created or changed, and codes that
+ * were withdrawn.
+ */
+public final class ChangeMessages {
+
+    private ChangeMessages() {
+    }
+
+    /**
+     * @throws ValidationException if {@code change} is not a well-formed, non-empty FX change
+     */
+    public static void validateFxChange(JsonObject change) {
+        JsonObject rates = object(change, "rates");
+        Object invalidateAll = change.getValue("invalidateAll");
+        if (invalidateAll != null && !(invalidateAll instanceof Boolean)) {
+            throw new ValidationException("invalidateAll must be a boolean");
+        }
+        String base = string(change, "base");
+        if (base != null) {
+            currencyCode(base);
+        }
+        for (String currency : rates.fieldNames()) {
+            currencyCode(currency);
+            Object rate = rates.getValue(currency);
+            if (!(rate instanceof Number number) || !(number.doubleValue() > 0)
+                    || Double.isInfinite(number.doubleValue())) {
+                throw new ValidationException("Invalid rate for " + currency + ": " + rate);
+            }
+        }
+        List<String> invalidated = invalidated(change);
+        invalidated.forEach(ChangeMessages::currencyCode);
+        if (rates.isEmpty() && invalidated.isEmpty() && !Boolean.TRUE.equals(invalidateAll)) {
+            throw new ValidationException("FX change has no rates or invalidations");
+        }
+    }
+
+    /**
+     * @throws ValidationException if {@code change} is not a well-formed, non-empty promo change
+     */
+    public static void validatePromoChange(JsonObject change) {
+        List<PromoResponse> promos = promos(change);
+        for (PromoResponse promo : promos) {
+            if (promo.promoCode() == null || promo.promoCode().isBlank()) {
+                throw new ValidationException("Every promo needs a promoCode");
+            }
+            try {
+                PromoRule.compile(promo);
+            } catch (RuntimeException e) {
+                throw new ValidationException("Invalid promo " + promo.promoCode() + ": " + e.getMessage());
+            }
+        }
+        if (promos.isEmpty() && invalidated(change).isEmpty()) {
+            throw new ValidationException("Promo change has no promos or invalidations");
+        }
+    }
+
+    /**
+     * Currencies whose quotes an FX change affects; empty for {@code invalidateAll}.
+     */
+    public static Set<String> currencies(JsonObject fxChange) {
+        Set<String> currencies = new LinkedHashSet<>(invalidated(fxChange));
+        currencies.addAll(fxChange.getJsonObject("rates", new JsonObject()).fieldNames());
+        return currencies;
+    }
+
+    /**
+     * Promo codes whose quotes a promo change affects.
+     */
+    public static Set<String> promoCodes(JsonObject promoChange) {
+        Set<String> codes = new LinkedHashSet<>(invalidated(promoChange));
+        for (PromoResponse promo : promos(promoChange)) {
+            codes.add(promo.promoCode());
+        }
+        return codes;
+    }
+
+    static List<String> invalidated(JsonObject change) {
+        JsonArray invalidate = array(change, "invalidate");
+        List<String> values = new ArrayList<>(invalidate.size());
+        for (Object value : invalidate) {
+            if (!(value instanceof String s)) {
+                throw new ValidationException("invalidate must be an array of strings");
+            }
+            values.add(s);
+        }
+        return values;
+    }
+
+    static List<PromoResponse> promos(JsonObject change) {
+        JsonArray promos = array(change, "promos");
+        List<PromoResponse> values = new ArrayList<>(promos.size());
+        for (Object value : promos) {
+            if (!(value instanceof JsonObject promo)) {
+                throw new ValidationException("promos must be an array of objects");
+            }
+            try {
+                values.add(promo.mapTo(PromoResponse.class));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Invalid promo: " + e.getMessage());
+            }
+        }
+        return values;
+    }
+
+    private static void currencyCode(String currency) {
+        if (currency.length() != 3) {
+            throw new ValidationException("Invalid currency code: " + currency);
+        }
+    }
+
+    private static JsonObject object(JsonObject change, String field) {
+        Object value = change.getValue(field);
+        if (value == null) {
+            return new JsonObject();
+        }
+        if (!(value instanceof JsonObject object)) {
+            throw new ValidationException(field + " must be an object");
+        }
+        return object;
+    }
+
+    private static JsonArray array(JsonObject change, String field) {
+        Object value = change.getValue(field);
+        if (value == null) {
+            return new JsonArray();
+        }
+        if (!(value instanceof JsonArray array)) {
+            throw new ValidationException(field + " must be an array");
+        }
+        return array;
+    }
+
+    private static String string(JsonObject change, String field) {
+        Object value = change.getValue(field);
+        if (value != null && !(value instanceof String)) {
+            throw new ValidationException(field + " must be a string");
+        }
+        return (String) value;
+    }
+}
@@ -0,0 +1,141 @@
+package com.airline.loyalty.service;
+
+import com.airline.loyalty.model.QuoteBatch;
+import com.airline.loyalty.model.QuoteWarning;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Column-at-a-time points arithmetic for {@link PointsCalculationService#calculateBatch}.
+ *
+ * Each pass is a simple counted loop over primitive arrays with no calls or
+ * allocation, so C2 can unroll it and vectorize what the gathers allow.
+ * Ranges above {@link #SPLIT_THRESHOLD} rows are halved recursively on the
+ * common fork-join pool. The arithmetic must stay expression-for-expression
+ * identical to the scalar path so results match it bit for bit.
+ */
+final class ColumnarPointsCalculator extends RecursiveAction {
+
+    static final int SPLIT_THRESHOLD = 16_384;
+    private static final int CAPPED = QuoteWarning.POINTS_CAPPED_AT_MAX.mask();
+    private static final int NOT_ELIGIBLE = QuoteWarning.PROMO_NOT_ELIGIBLE.mask();
+
+    private final QuoteBatch batch;
+    private final double[] fxRates;
+    private final double[] tierMultipliers;
+    private final PromoColumns promos;
+    private final int maxPoints;
+    private final int from;
+    private final int to;
+
+    private ColumnarPointsCalculator(QuoteBatch batch, double[] fxRates, double[] tierMultipliers,
+                                     PromoColumns promos, int maxPoints, int from, int to) {
+        this.batch = batch;
+        this.fxRates = fxRates;
+        this.tierMultipliers = tierMultipliers;
+        this.promos = promos;
+        this.maxPoints = maxPoints;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @param fxRates         rate into the base currency per currency index (1.0 for the base)
+     * @param tierMultipliers tier bonus multiplier per {@code CustomerTier} ordinal
+     * @param promos          promo terms per promo index + 1 (slot 0 is no promo)
+     */
+    static void calculate(QuoteBatch batch, double[] fxRates, double[] tierMultipliers,
+                          PromoColumns promos, int maxPoints) {
+        ColumnarPointsCalculator task = new ColumnarPointsCalculator(batch, fxRates, tierMultipliers,
+            promos, maxPoints, 0, batch.size());
+        if (batch.size() > SPLIT_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.compute();
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from > SPLIT_THRESHOLD) {
+            int mid = (from + to) >>> 1;
+            invokeAll(
+                new ColumnarPointsCalculator(batch, fxRates, tierMultipliers, promos, maxPoints, from, mid),
+                new ColumnarPointsCalculator(batch, fxRates, tierMultipliers, promos, maxPoints, mid, to));
+            return;
+        }
+
+        double[] fares = batch.fareAmounts();
+        int[] currencyIndex = batch.currencyIndex();
+        int[] cabinOrdinals = batch.cabinOrdinals();
+        int[] tierOrdinals = batch.tierOrdinals();
+        int[] promoIndex = batch.promoIndex();
+        int[] basePoints = batch.basePoints();
+        int[] tierBonus = batch.tierBonus();
+        int[] promoBonus = batch.promoBonus();
+        int[] totalPoints = batch.totalPoints();
+        double[] effectiveFxRate = batch.effectiveFxRate();
+        int[] warnings = batch.warnings();
+
+        for (int i = from; i < to; i++) {
+            double converted = fares[i] * fxRates[currencyIndex[i]];
+            basePoints[i] = (int) Math.floor(converted);
+            effectiveFxRate[i] = Math.round(converted / fares[i] * 100.0) / 100.0;
+        }
+
+        for (int i = from; i < to; i++) {
+            tierBonus[i] = (int) Math.floor(basePoints[i] * tierMultipliers[tierOrdinals[i]]);
+        }
+
+        double[] promoMultipliers = promos.multipliers;
+        int[] promoWarnings = promos.warnings;
+        int[] promoCabinMasks = promos.cabinMasks;
+        int[] promoTierMasks = promos.tierMasks;
+        int[] promoTierBonusMasks = promos.tierBonusMasks;
+        for (int i = from; i < to; i++) {
+            int promo = promoIndex[i] + 1;
+            boolean eligible = ((promoCabinMasks[promo] >>> cabinOrdinals[i])
+                & (promoTierMasks[promo] >>> tierOrdinals[i]) & 1) != 0;
+            promoBonus[i] = eligible ? (int) Math.floor(basePoints[i] * promoMultipliers[promo]) : 0;
+            warnings[i] = eligible ? promoWarnings[promo] : NOT_ELIGIBLE;
+            tierBonus[i] &= eligible ? promoTierBonusMasks[promo] : -1;
+        }
+
+        for (int i = from; i < to; i++) {
+            int totalBeforeCap = basePoints[i] + tierBonus[i] + promoBonus[i];
+            int total = Math.min(totalBeforeCap, maxPoints);
+            totalPoints[i] = total;
+            warnings[i] |= total < totalBeforeCap ? CAPPED : 0;
+        }
+    }
+
+    /**
+     * Per-promo terms as columns: multiplier and warnings, the cabin and tier
+     * ordinal bitmasks a row must match (all ones for no restriction), and a
+     * mask ANDed into the tier bonus (0 for promos that replace it).
+     */
+    static final class PromoColumns {
+        final double[] multipliers;
+        final int[] warnings;
+        final int[] cabinMasks;
+        final int[] tierMasks;
+        final int[] tierBonusMasks;
+
+        PromoColumns(int slots) {
+            this.multipliers = new double[slots];
+            this.warnings = new int[slots];
+            this.cabinMasks = new int[slots];
+            this.tierMasks = new int[slots];
+            this.tierBonusMasks = new int[slots];
+        }
+
+        void set(int slot, PromoTerms terms, int cabinMask, int tierMask) {
+            multipliers[slot] = terms.multiplier();
+            warnings[slot] = terms.warnings();
+            cabinMasks[slot] = cabinMask;
+            tierMasks[slot] = tierMask;
+            tierBonusMasks[slot] = terms.stacksWithTierBonus() ? -1 : 0;
+        }
+    }
+}
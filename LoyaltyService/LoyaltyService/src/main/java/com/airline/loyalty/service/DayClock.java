@@ -0,0 +1,31 @@
+package com.airline.loyalty.service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Today's local date as an epoch day, recomputed only when the clock passes
+ * midnight, so per-quote date checks are an integer comparison.
+ */
+final class DayClock {
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private volatile int today;
+    private volatile long nextMidnightMillis;
+
+    int today() {
+        if (System.currentTimeMillis() >= nextMidnightMillis) {
+            roll();
+        }
+        return today;
+    }
+
+    private synchronized void roll() {
+        if (System.currentTimeMillis() < nextMidnightMillis) {
+            return;
+        }
+        LocalDate date = LocalDate.now(zone);
+        today = (int) date.toEpochDay();
+        nextMidnightMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,272 @@
+package com.airline.loyalty.service;
+
+import io.vertx.core.json.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * FxRateHistory is a read-only table of daily FX rates into the base
+ * currency, for quoting at a past date without calling the FX service.
+ *
+ * Rates are one {@code double} per currency per day, in a single
+ * currency-major matrix indexed by {@code epochDay - firstEpochDay}; days
+ * without a published rate hold {@code NaN}. The matrix is either on the heap
+ * ({@link Builder}) or memory-mapped from a history file ({@link #map}), in
+ * which case it is paged in on demand and shared with every other process
+ * mapping the same file.
+ *
+ * History file layout (big-endian):
+ * <pre>
+ * int    magic "FXH1"
+ * byte[4] base currency, space padded
+ * int    currency count
+ * int    first epoch day
+ * int    day count
+ * int    reserved
+ * byte[4] per currency code, space padded
+ * (padding to a multiple of 8 bytes)
+ * double rates[currency][day]
+ * </pre>
+ *
+ * Lookups are absolute reads of an immutable buffer, so one instance can be
+ * shared by any number of threads.
+ */
+public final class FxRateHistory {
+
+    /** A rate published this many days before the requested date still applies (weekends, holidays). */
+    public static final int MAX_GAP_DAYS = 7;
+
+    private static final int MAGIC = 0x46584831;
+    private static final int HEADER_BYTES = 24;
+    private static final int CODE_BYTES = 4;
+
+    private final String baseCurrency;
+    private final String[] currencies;
+    private final Map<String, Integer> currencyIndex = new HashMap<>();
+    private final int firstEpochDay;
+    private final int dayCount;
+    private final DoubleBuffer rates;
+
+    private FxRateHistory(String baseCurrency, String[] currencies, int firstEpochDay, int dayCount,
+                          DoubleBuffer rates) {
+        this.baseCurrency = baseCurrency;
+        this.currencies = currencies;
+        this.firstEpochDay = firstEpochDay;
+        this.dayCount = dayCount;
+        this.rates = rates;
+        for (int c = 0; c < currencies.length; c++) {
+            currencyIndex.put(currencies[c], c);
+        }
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getJsonObject("fxHistory", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    /**
+     * Maps the history file named by {@code fxHistory.file}.
+     */
+    public static FxRateHistory load(JsonObject config) throws IOException {
+        return map(Path.of(config.getJsonObject("fxHistory").getString("file")));
+    }
+
+    /**
+     * Memory-maps a history file written by {@link #write}.
+     */
+    public static FxRateHistory map(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not an FX history file");
+        }
+        String base = code(buffer, 4);
+        int currencyCount = buffer.getInt(8);
+        int firstEpochDay = buffer.getInt(12);
+        int dayCount = buffer.getInt(16);
+
+        String[] currencies = new String[currencyCount];
+        for (int c = 0; c < currencyCount; c++) {
+            currencies[c] = code(buffer, HEADER_BYTES + c * CODE_BYTES);
+        }
+        int dataOffset = dataOffset(currencyCount);
+        long expectedBytes = dataOffset + (long) currencyCount * dayCount * Double.BYTES;
+        if (buffer.capacity() != expectedBytes) {
+            throw new IOException(file + " is truncated: expected " + expectedBytes + " bytes but found "
+                + buffer.capacity());
+        }
+        DoubleBuffer rates = buffer.position(dataOffset).slice().asDoubleBuffer();
+        return new FxRateHistory(base, currencies, firstEpochDay, dayCount, rates);
+    }
+
+    /**
+     * Reads {@code date,currency,rate} rows (with a header line) of rates into
+     * {@code baseCurrency}.
+     */
+    public static FxRateHistory readCsv(String baseCurrency, Path file) throws IOException {
+        Builder builder = new Builder(baseCurrency);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.strip().split(",");
+                if (fields.length != 3) {
+                    throw new IOException("Line " + lineNumber + ": expected date,currency,rate but found " + line);
+                }
+                try {
+                    builder.put(fields[1].strip(), LocalDate.parse(fields[0].strip()), Double.parseDouble(fields[2].strip()));
+                } catch (RuntimeException e) {
+                    throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes this history in the layout {@link #map} reads.
+     */
+    public void write(Path file) throws IOException {
+        int dataOffset = dataOffset(currencies.length);
+        ByteBuffer buffer = ByteBuffer.allocate(dataOffset + currencies.length * dayCount * Double.BYTES);
+        buffer.putInt(0, MAGIC);
+        putCode(buffer, 4, baseCurrency);
+        buffer.putInt(8, currencies.length);
+        buffer.putInt(12, firstEpochDay);
+        buffer.putInt(16, dayCount);
+        for (int c = 0; c < currencies.length; c++) {
+            putCode(buffer, HEADER_BYTES + c * CODE_BYTES, currencies[c]);
+        }
+        for (int i = 0; i < currencies.length * dayCount; i++) {
+            buffer.putDouble(dataOffset + i * Double.BYTES, rates.get(i));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Rate from {@code currency} into the base currency as of {@code date}:
+     * the rate published that day, or the latest one in the
+     * {@link #MAX_GAP_DAYS} before it, also past the last recorded day;
+     * {@code NaN} if there is none.
+     */
+    public double rateToBase(String currency, LocalDate date) {
+        if (currency.equals(baseCurrency)) {
+            return 1.0;
+        }
+        Integer c = currencyIndex.get(currency);
+        long day = date.toEpochDay() - firstEpochDay;
+        if (c == null || day < 0 || day - MAX_GAP_DAYS >= dayCount) {
+            return Double.NaN;
+        }
+        int offset = c * dayCount;
+        for (int d = (int) Math.min(day, dayCount - 1L); d >= 0 && d >= day - MAX_GAP_DAYS; d--) {
+            double rate = rates.get(offset + d);
+            if (!Double.isNaN(rate)) {
+                return rate;
+            }
+        }
+        return Double.NaN;
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public LocalDate getFirstDate() {
+        return LocalDate.ofEpochDay(firstEpochDay);
+    }
+
+    public LocalDate getLastDate() {
+        return LocalDate.ofEpochDay(firstEpochDay + dayCount - 1L);
+    }
+
+    public int currencyCount() {
+        return currencies.length;
+    }
+
+    private static int dataOffset(int currencyCount) {
+        int headerAndCodes = HEADER_BYTES + currencyCount * CODE_BYTES;
+        return (headerAndCodes + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+    }
+
+    private static String code(ByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[CODE_BYTES];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII).strip();
+    }
+
+    private static void putCode(ByteBuffer buffer, int offset, String code) {
+        byte[] bytes = Arrays.copyOf(code.getBytes(StandardCharsets.US_ASCII), CODE_BYTES);
+        for (int i = code.length(); i < CODE_BYTES; i++) {
+            bytes[i] = ' ';
+        }
+        buffer.put(offset, bytes);
+    }
+
+    /**
+     * Collects daily rates into an on-heap history.
+     */
+    public static final class Builder {
+        private final String baseCurrency;
+        private final Map<String, TreeMap<Long, Double>> series = new TreeMap<>();
+
+        public Builder(String baseCurrency) {
+            this.baseCurrency = baseCurrency;
+        }
+
+        public Builder put(String currency, LocalDate date, double rate) {
+            if (currency.length() != 3) {
+                throw new IllegalArgumentException("Invalid currency code: " + currency);
+            }
+            if (!(rate > 0) || Double.isInfinite(rate)) {
+                throw new IllegalArgumentException("Invalid rate for " + currency + " on " + date + ": " + rate);
+            }
+            series.computeIfAbsent(currency, c -> new TreeMap<>()).put(date.toEpochDay(), rate);
+            return this;
+        }
+
+        public FxRateHistory build() {
+            long first = Long.MAX_VALUE;
+            long last = Long.MIN_VALUE;
+            for (TreeMap<Long, Double> days : series.values()) {
+                first = Math.min(first, days.firstKey());
+                last = Math.max(last, days.lastKey());
+            }
+            String[] currencies = series.keySet().toArray(String[]::new);
+            int dayCount = currencies.length == 0 ? 0 : Math.toIntExact(last - first + 1);
+            int firstEpochDay = currencies.length == 0 ? 0 : Math.toIntExact(first);
+
+            double[] matrix = new double[Math.multiplyExact(currencies.length, dayCount)];
+            Arrays.fill(matrix, Double.NaN);
+            for (int c = 0; c < currencies.length; c++) {
+                for (Map.Entry<Long, Double> day : series.get(currencies[c]).entrySet()) {
+                    matrix[c * dayCount + (int) (day.getKey() - firstEpochDay)] = day.getValue();
+                }
+            }
+            return new FxRateHistory(baseCurrency, currencies, firstEpochDay, dayCount, DoubleBuffer.wrap(matrix));
+        }
+    }
+}
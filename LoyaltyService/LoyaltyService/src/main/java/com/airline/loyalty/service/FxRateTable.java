@@ -0,0 +1,330 @@
+package com.airline.loyalty.service;
+
+import com.airline.loyalty.exception.FxRateUnavailableException;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * FxRateTable caches one rate per currency into the base currency and derives
+ * every other pair from it, so quoting between N currencies needs N FX calls
+ * rather than one per (from, to) pair.
+ *
+ * A cross rate is triangulated through the base: {@code rate(from, to) =
+ * rate(from, base) / rate(to, base)}. Pairs into the base currency use the
+ * cached rate unchanged, so base-currency quotes match the FX service exactly.
+ *
+ * Rates are reused for {@code fxService.rateCacheTtlMillis} (0 disables the
+ * cache). Concurrent lookups of the same currency share one FX call. The
+ * table is safe to use from several threads, as offline re-pricing does.
+ *
+ * The last good rate for each currency is kept as well. When a lookup fails
+ * (the FX service erroring, or its circuit breaker open) and that rate is
+ * younger than {@code fxService.maxStaleMillis}, it is served instead,
+ * flagged {@link Rate#stale()}, and keeps being served without waiting on the
+ * FX service while a single background probe at a time, at most every
+ * {@code fxService.probeIntervalMillis}, checks for recovery. Rates restored
+ * from a warm-cache snapshot ({@link #restore}) start out stale the same way.
+ *
+ * Rates as of a past date come from an {@link FxRateHistory}, if one is
+ * configured, and are triangulated the same way without any FX call.
+ *
+ * Upstream systems can push rates ({@link #put}) and invalidations
+ * ({@link #invalidate}) as they change, so a long TTL does not mean serving
+ * stale rates.
+ */
+public class FxRateTable {
+    private static final Logger logger = LoggerFactory.getLogger(FxRateTable.class);
+
+    private static final Future<Rate> PAR = Future.succeededFuture(new Rate(1.0, false, Long.MAX_VALUE));
+
+    private final FxServiceClient fxService;
+    private final FxRateHistory history;
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final long probeIntervalMillis;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Entry> rates = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CachedRate> lastGood = new ConcurrentHashMap<>();
+
+    private volatile String baseCurrency;
+
+    public FxRateTable(FxServiceClient fxService, FxRateHistory history, JsonObject config) {
+        this(fxService, history, config, System::currentTimeMillis);
+    }
+
+    FxRateTable(FxServiceClient fxService, FxRateHistory history, JsonObject config, LongSupplier clock) {
+        JsonObject fxConfig = config.getJsonObject("fxService");
+        this.fxService = fxService;
+        this.history = history;
+        this.ttlMillis = fxConfig.getLong("rateCacheTtlMillis", 60000L);
+        this.maxStaleMillis = fxConfig.getLong("maxStaleMillis", 900000L);
+        this.probeIntervalMillis = fxConfig.getLong("probeIntervalMillis", 1000L);
+        this.clock = clock;
+        this.baseCurrency = config.getJsonObject("currency").getString("base");
+    }
+
+    /**
+     * Drops every cached rate if the base currency changes, since they are all
+     * quoted into it.
+     */
+    public void applyRules(JsonObject config) {
+        String newBase = config.getJsonObject("currency").getString("base");
+        if (!newBase.equals(baseCurrency)) {
+            logger.info("Base currency changed from {} to {}, dropping {} cached FX rates",
+                    baseCurrency, newBase, rates.size());
+            baseCurrency = newBase;
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Rate to multiply an amount in {@code fromCurrency} by to get
+     * {@code toCurrency}.
+     */
+    public Future<Rate> rate(String fromCurrency, String toCurrency) {
+        String base = baseCurrency;
+        if (fromCurrency.equals(toCurrency)) {
+            return PAR;
+        }
+        if (toCurrency.equals(base)) {
+            return rateToBase(fromCurrency, base);
+        }
+        if (fromCurrency.equals(base)) {
+            return rateToBase(toCurrency, base).map(toRate -> new Rate(1.0 / toRate.value(), toRate.stale(),
+                    toRate.fetchedAtMillis()));
+        }
+        Future<Rate> fromRate = rateToBase(fromCurrency, base);
+        Future<Rate> toRate = rateToBase(toCurrency, base);
+        return Future.all(fromRate, toRate).map(legs -> new Rate(fromRate.result().value() / toRate.result().value(),
+                fromRate.result().stale() || toRate.result().stale(),
+                Math.min(fromRate.result().fetchedAtMillis(), toRate.result().fetchedAtMillis())));
+    }
+
+    /**
+     * Rate from {@code fromCurrency} to {@code toCurrency} as of {@code asOf}:
+     * the live rate for today (or {@code null}), otherwise the historical one.
+     *
+     * @return a future failed with {@link FxRateUnavailableException} if the
+     *         history has no rate for that date
+     */
+    public Future<Rate> rate(String fromCurrency, String toCurrency, LocalDate asOf) {
+        if (asOf == null || !asOf.isBefore(LocalDate.now())) {
+            return rate(fromCurrency, toCurrency);
+        }
+        if (fromCurrency.equals(toCurrency)) {
+            return PAR;
+        }
+        String base = baseCurrency;
+        double fromRate = historicalRateToBase(fromCurrency, base, asOf);
+        double toRate = historicalRateToBase(toCurrency, base, asOf);
+        if (Double.isNaN(fromRate) || Double.isNaN(toRate)) {
+            String missing = Double.isNaN(fromRate) ? fromCurrency : toCurrency;
+            return Future.failedFuture(new FxRateUnavailableException("No FX rate for " + missing + " as of " + asOf));
+        }
+        if (toCurrency.equals(base)) {
+            return Future.succeededFuture(new Rate(fromRate, false, Long.MAX_VALUE));
+        }
+        if (fromCurrency.equals(base)) {
+            return Future.succeededFuture(new Rate(1.0 / toRate, false, Long.MAX_VALUE));
+        }
+        return Future.succeededFuture(new Rate(fromRate / toRate, false, Long.MAX_VALUE));
+    }
+
+    /**
+     * Replaces the cached rate from {@code currency} into {@code base} with a
+     * pushed one, valid for a full TTL. Ignored if {@code base} is no longer
+     * the base currency or the cache is disabled.
+     */
+    public void put(String currency, String base, double rateToBase) {
+        if (ttlMillis <= 0 || !base.equals(baseCurrency)) {
+            return;
+        }
+        long now = clock.getAsLong();
+        lastGood.put(currency, new CachedRate(currency, rateToBase, now));
+        rates.put(currency, Entry.fresh(Future.succeededFuture(new Rate(rateToBase, false, now)), now, ttlMillis));
+    }
+
+    /**
+     * Drops the cached and last good rates for {@code currencies}; their next
+     * quote fetches a fresh rate.
+     */
+    public void invalidate(Collection<String> currencies) {
+        for (String currency : currencies) {
+            rates.remove(currency);
+            lastGood.remove(currency);
+        }
+    }
+
+    public void invalidateAll() {
+        rates.clear();
+        lastGood.clear();
+    }
+
+    /**
+     * The last good rates into the base currency, with when they were fetched.
+     */
+    public List<CachedRate> snapshot() {
+        return new ArrayList<>(lastGood.values());
+    }
+
+    /**
+     * Seeds the cache with stale rates into {@code base} from a snapshot,
+     * for currencies not already cached. Ignored if the base currency has
+     * changed since.
+     *
+     * @return the number of rates restored
+     */
+    public int restore(String base, List<CachedRate> snapshot) {
+        if (!base.equals(baseCurrency)) {
+            return 0;
+        }
+        int restored = 0;
+        for (CachedRate cached : snapshot) {
+            if (lastGood.putIfAbsent(cached.currency(), cached) == null) {
+                rates.putIfAbsent(cached.currency(), Entry.stale(cached, Long.MIN_VALUE));
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public int size() {
+        return rates.size();
+    }
+
+    private Future<Rate> rateToBase(String currency, String base) {
+        long now = clock.getAsLong();
+        Entry cached = rates.get(currency);
+        if (cached != null && cached.expiresAtMillis() > now) {
+            return cached.rate();
+        }
+        if (cached != null && cached.stale() && now - cached.fetchedAtMillis() <= maxStaleMillis) {
+            probe(currency, base, cached, now);
+            return cached.rate();
+        }
+
+        Promise<Rate> promise = Promise.promise();
+        Entry fresh = Entry.fresh(promise.future(), now, ttlMillis);
+        Entry current = rates.compute(currency,
+                (c, existing) -> existing != null && existing.expiresAtMillis() > now ? existing : fresh);
+        if (current == fresh) {
+            fxService.getExchangeRate(currency, base).onComplete(ar -> {
+                if (ar.succeeded()) {
+                    lastGood.put(currency, new CachedRate(currency, ar.result(), now));
+                    promise.complete(new Rate(ar.result(), false, now));
+                    return;
+                }
+                Entry stale = staleEntry(currency, clock.getAsLong());
+                if (stale == null) {
+                    rates.remove(currency, fresh);
+                    promise.fail(ar.cause());
+                    return;
+                }
+                logger.warn("FX rate for {} unavailable ({}), serving last good rate from {} ms ago",
+                        currency, ar.cause().getMessage(), clock.getAsLong() - stale.fetchedAtMillis());
+                rates.replace(currency, fresh, stale);
+                promise.handle(stale.rate());
+            });
+        }
+        return current.rate();
+    }
+
+    /**
+     * A stale entry for the last good rate of {@code currency}, if it is
+     * recent enough to serve, probing no earlier than one probe interval from
+     * now.
+     */
+    private Entry staleEntry(String currency, long now) {
+        CachedRate good = lastGood.get(currency);
+        if (good == null || now - good.fetchedAtMillis() > maxStaleMillis) {
+            return null;
+        }
+        return Entry.stale(good, now + probeIntervalMillis);
+    }
+
+    /**
+     * Fetches a fresh rate to replace a stale one, unless a probe is already
+     * in flight or was made within the probe interval. The stale rate stays in
+     * place if the probe fails.
+     */
+    private void probe(String currency, String base, Entry stale, long now) {
+        if (stale.probing() || now < stale.nextProbeAtMillis()) {
+            return;
+        }
+        Entry probing = stale.withProbe(true, stale.nextProbeAtMillis());
+        if (!rates.replace(currency, stale, probing)) {
+            return;
+        }
+        fxService.getExchangeRate(currency, base).onComplete(ar -> {
+            long completedAt = clock.getAsLong();
+            if (ar.succeeded()) {
+                logger.info("FX rate for {} recovered", currency);
+                lastGood.put(currency, new CachedRate(currency, ar.result(), completedAt));
+                rates.replace(currency, probing,
+                        Entry.fresh(Future.succeededFuture(new Rate(ar.result(), false, completedAt)), completedAt, ttlMillis));
+            } else {
+                logger.debug("FX probe for {} failed: {}", currency, ar.cause().getMessage());
+                rates.replace(currency, probing, stale.withProbe(false, completedAt + probeIntervalMillis));
+            }
+        });
+    }
+
+    private double historicalRateToBase(String currency, String base, LocalDate asOf) {
+        if (currency.equals(base)) {
+            return 1.0;
+        }
+        if (history == null || !base.equals(history.getBaseCurrency())) {
+            return Double.NaN;
+        }
+        return history.rateToBase(currency, asOf);
+    }
+
+    /**
+     * A fresh entry is reused until {@code expiresAtMillis}. A stale one has
+     * expired but is served until a probe ({@code probing} while in flight)
+     * replaces it, or it is older than the staleness limit.
+     */
+    private record Entry(Future<Rate> rate, long fetchedAtMillis, long expiresAtMillis,
+                         boolean stale, boolean probing, long nextProbeAtMillis) {
+
+        static Entry fresh(Future<Rate> rate, long now, long ttlMillis) {
+            return new Entry(rate, now, now + ttlMillis, false, false, 0L);
+        }
+
+        static Entry stale(CachedRate good, long nextProbeAtMillis) {
+            return new Entry(Future.succeededFuture(new Rate(good.rateToBase(), true, good.fetchedAtMillis())), good.fetchedAtMillis(),
+                    Long.MIN_VALUE, true, false, nextProbeAtMillis);
+        }
+
+        Entry withProbe(boolean probing, long nextProbeAtMillis) {
+            return new Entry(rate, fetchedAtMillis, expiresAtMillis, true, probing, nextProbeAtMillis);
+        }
+    }
+
+    /**
+     * An exchange rate, whether it is a last good rate served because a
+     * current one could not be fetched, and when its oldest leg was fetched
+     * ({@code Long.MAX_VALUE} for par and historical rates, which do not age).
+     */
+    public record Rate(double value, boolean stale, long fetchedAtMillis) {}
+
+    /**
+     * A rate from {@code currency} into the base currency, fetched at
+     * {@code fetchedAtMillis}.
+     */
+    public record CachedRate(String currency, double rateToBase, long fetchedAtMillis) {}
+}
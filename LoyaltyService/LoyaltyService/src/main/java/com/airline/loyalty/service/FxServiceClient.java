@@ -2,23 +2,33 @@ package com.airline.loyalty.service;
 
 import com.airline.loyalty.exception.ExternalServiceException;
 import com.airline.loyalty.model.FxRateResponse;
+import com.airline.loyalty.tracing.Span;
+import com.airline.loyalty.tracing.Tracing;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.vertx.circuitbreaker.CircuitBreaker;
 import io.vertx.circuitbreaker.CircuitBreakerOptions;
+import io.vertx.circuitbreaker.OpenCircuitException;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeoutException;
+
 public class FxServiceClient {
 
     private static final Logger logger = LoggerFactory.getLogger(FxServiceClient.class);
 
+    /** Matches the router's request timeout when http.requestTimeoutMillis is not set. */
+    public static final long DEFAULT_REQUEST_TIMEOUT_MILLIS = 10000;
+
     private final Vertx vertx;
     private final WebClient client;
     private final String path;
@@ -52,12 +62,15 @@ public class FxServiceClient {
 
         this.client = WebClient.create(vertx, options);
 
-        // Circuit breaker configuration
+        // Circuit breaker configuration: a lookup may take every attempt and
+        // backoff, so only one that overruns them all is cut off, but never
+        // later than leaves the promo lookup its timeout within the request's
+        long backoffs = initialBackoffMillis * ((1L << maxRetries) - 1);
+        long lookupBudget = Math.min((maxRetries + 1L) * timeout + backoffs, lookupBudgetCap(config));
         this.circuitBreaker = CircuitBreaker.create("fx-service-cb", vertx,
                 new CircuitBreakerOptions()
                         .setMaxFailures(5)
-                        .setTimeout(timeout)
-                        .setFallbackOnFailure(true)
+                        .setTimeout(lookupBudget)
                         .setResetTimeout(10000)
         );
 
@@ -71,75 +84,114 @@ public class FxServiceClient {
                 .register(meterRegistry) : null;
     }
 
+    /**
+     * The longest an FX lookup, retries included, may take: the request
+     * timeout ({@code http.requestTimeoutMillis}) less the promo lookup's
+     * timeout that follows it, and at least one attempt.
+     */
+    private long lookupBudgetCap(JsonObject config) {
+        long requestTimeout = config.getJsonObject("http", new JsonObject())
+                .getLong("requestTimeoutMillis", DEFAULT_REQUEST_TIMEOUT_MILLIS);
+        int promoTimeout = config.getJsonObject("promoService", new JsonObject()).getInteger("timeout", 0);
+        return Math.max(timeout, requestTimeout - promoTimeout);
+    }
+
     /**
      * Public method to get FX rate
      */
     public Future<Double> getExchangeRate(String fromCurrency, String toCurrency) {
-        return getExchangeRateWithRetry(fromCurrency, toCurrency, 0, initialBackoffMillis);
+        Span span = Tracing.startSpan("fx.rate")
+                .setAttribute("fx.from", fromCurrency)
+                .setAttribute("fx.to", toCurrency);
+        // One breaker command per lookup, retries included, so the breaker
+        // counts each failed lookup once
+        return circuitBreaker.<Double>execute(promise ->
+                        fetchWithRetry(fromCurrency, toCurrency, 0, initialBackoffMillis, promise, span))
+                .onComplete(ar -> {
+                    if (ar.failed()) {
+                        span.fail(ar.cause());
+                    }
+                    span.end();
+                })
+                .recover(err -> {
+                    // Circuit breaker is open, or the call failed / timed out
+                    if (failureCounter != null) failureCounter.increment();
+                    return Future.failedFuture(toExternalServiceException(err));
+                });
     }
 
     /**
-     * Retry logic with exponential backoff and circuit breaker
+     * Retry logic with exponential backoff, completing the breaker's
+     * {@code promise}. Stops once the promise is completed, e.g. by the
+     * breaker's timeout. Each attempt and backoff is a child span of
+     * {@code span}.
      */
-    private Future<Double> getExchangeRateWithRetry(String fromCurrency, String toCurrency,
-                                                    int attempt, long backoffMillis) {
-        Promise<Double> promise = Promise.promise();
-
-        circuitBreaker.executeWithFallback(
-                cbFuture -> {
-                    sendFxRequest(fromCurrency, toCurrency)
-                            .onSuccess(cbFuture::complete)
-                            .onFailure(err -> {
-                                if (attempt < maxRetries) {
-                                    if (retryCounter != null) retryCounter.increment();
-                                    long nextBackoff = backoffMillis * 2;
-                                    logger.warn("FX call failed ({}), retrying in {} ms (attempt {}/{})",
-                                            err.getMessage(), backoffMillis, attempt + 1, maxRetries);
-
-                                    // Type-safe retry
-                                    vertx.setTimer(backoffMillis, t ->
-                                        getExchangeRateWithRetry(fromCurrency, toCurrency, attempt + 1, nextBackoff)
-                                                .onComplete(ar -> {
-                                                    if (ar.succeeded()) {
-                                                        cbFuture.complete(ar.result());
-                                                    } else {
-                                                        cbFuture.fail(ar.cause());
-                                                    }
-                                                })
-                                    );
-                                } else {
-                                    if (failureCounter != null) failureCounter.increment();
-                                    logger.error("FX service call failed after {} attempts", maxRetries + 1, err);
-                                    cbFuture.fail(new ExternalServiceException(
-                                            "Failed to fetch exchange rate after " + (maxRetries + 1) + " attempts", err
-                                    ));
-                                }
-                            });
-                },
-                fallback -> {
-                    // Circuit breaker is open
-                    if (failureCounter != null) failureCounter.increment();
-                    promise.fail(new ExternalServiceException("FX service unavailable (circuit open)", null));
-                    return null; // must return null for CircuitBreaker fallback lambda
-                }
-        );
+    private void fetchWithRetry(String fromCurrency, String toCurrency, int attempt, long backoffMillis,
+                                Promise<Double> promise, Span span) {
+        Span attemptSpan = span.child("fx.attempt", Span.Kind.CLIENT).setAttribute("attempt", attempt + 1);
+        sendFxRequest(fromCurrency, toCurrency, attemptSpan).onComplete(ar -> {
+            if (ar.failed()) {
+                attemptSpan.fail(ar.cause());
+            }
+            attemptSpan.end();
+            if (ar.succeeded()) {
+                promise.tryComplete(ar.result());
+                return;
+            }
+            if (promise.future().isComplete()) {
+                return;
+            }
+            Throwable err = ar.cause();
+            if (attempt < maxRetries) {
+                if (retryCounter != null) retryCounter.increment();
+                logger.warn("FX call failed ({}), retrying in {} ms (attempt {}/{})",
+                        err.getMessage(), backoffMillis, attempt + 1, maxRetries);
+                Span backoff = span.child("fx.backoff", Span.Kind.INTERNAL).setAttribute("backoff_ms", backoffMillis);
+                vertx.setTimer(backoffMillis, t -> {
+                    backoff.end();
+                    fetchWithRetry(fromCurrency, toCurrency, attempt + 1, backoffMillis * 2, promise, span);
+                });
+            } else {
+                logger.error("FX service call failed after {} attempts", maxRetries + 1, err);
+                promise.tryFail(new ExternalServiceException(
+                        "Failed to fetch exchange rate after " + (maxRetries + 1) + " attempts", err
+                ));
+            }
+        });
+    }
 
-        return promise.future();
+    /**
+     * Maps a circuit breaker failure to the exception surfaced to the handler,
+     * keeping timeouts recognisable as {@link TimeoutException} causes.
+     */
+    private static ExternalServiceException toExternalServiceException(Throwable err) {
+        if (err instanceof ExternalServiceException ese) {
+            return ese;
+        }
+        if (err instanceof io.vertx.circuitbreaker.TimeoutException || err instanceof TimeoutException) {
+            return new ExternalServiceException("FX service timeout", new TimeoutException("FX service timeout"));
+        }
+        if (err instanceof OpenCircuitException) {
+            return new ExternalServiceException("FX service unavailable (circuit open)", err);
+        }
+        return new ExternalServiceException("FX service call failed", err);
     }
 
     /**
      * Actual HTTP request to FX service
      */
-    private Future<Double> sendFxRequest(String fromCurrency, String toCurrency) {
-        return client.get(path)
+    private Future<Double> sendFxRequest(String fromCurrency, String toCurrency, Span span) {
+        HttpRequest<Buffer> request = client.get(path)
                 .addQueryParam("from", fromCurrency)
                 .addQueryParam("to", toCurrency)
-                .timeout(timeout)
-                .send()
+                .timeout(timeout);
+        Tracing.inject(request, span);
+        return request.send()
                 .compose(response -> {
+                    span.setAttribute("http.status_code", response.statusCode());
                     if (response.statusCode() == 200) {
                         FxRateResponse fxRate = response.bodyAsJson(FxRateResponse.class);
-                        logger.info("FX rate retrieved: {} -> {} = {}", fromCurrency, toCurrency, fxRate.rate());
+                        logger.debug("FX rate retrieved: {} -> {} = {}", fromCurrency, toCurrency, fxRate.rate());
                         return Future.succeededFuture(fxRate.rate());
                     } else {
                         return Future.failedFuture(new ExternalServiceException(
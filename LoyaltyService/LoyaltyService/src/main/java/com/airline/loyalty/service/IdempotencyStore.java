@@ -0,0 +1,187 @@
+package com.airline.loyalty.service;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * IdempotencyStore remembers recent responses by client-supplied request ID so
+ * a retried request gets the original response back instead of being
+ * recomputed.
+ *
+ * The first request for an ID becomes its owner; duplicates arriving while the
+ * owner is still working are parked and woken on their own Vert.x context when
+ * it finishes. If the owner abandons the ID (e.g. on a 5xx), parked duplicates
+ * are woken to compete for ownership again.
+ *
+ * Entries are kept for {@code windowMillis} and the store holds at most
+ * {@code maxEntries}. One instance is shared by all verticle instances through
+ * Vert.x local shared data, hence {@link Shareable} and the concurrent maps.
+ */
+public class IdempotencyStore implements Shareable {
+
+    private final long windowMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    public IdempotencyStore(JsonObject config) {
+        this(config, System::currentTimeMillis);
+    }
+
+    IdempotencyStore(JsonObject config, LongSupplier clock) {
+        JsonObject idempotencyConfig = config.getJsonObject("idempotency", new JsonObject());
+        this.windowMillis = idempotencyConfig.getLong("windowMillis", 60000L);
+        this.maxEntries = idempotencyConfig.getInteger("maxEntries", 100000);
+        this.clock = clock;
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getJsonObject("idempotency", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    /**
+     * Claims {@code requestId} for a request whose body hashes to
+     * {@code bodyHash}.
+     *
+     * @return an owned claim if the caller should process the request, or a
+     *         claim on the existing entry to wait on or replay
+     */
+    public Claim claim(String requestId, int bodyHash) {
+        long now = clock.getAsLong();
+        evict(now);
+
+        Entry created = new Entry(requestId, bodyHash, now);
+        while (true) {
+            Entry existing = entries.putIfAbsent(requestId, created);
+            if (existing == null) {
+                insertionOrder.add(created);
+                return new Claim(created, true);
+            }
+            if (existing.isExpired(now) || existing.isAbandoned()) {
+                entries.remove(requestId, existing);
+                continue;
+            }
+            return new Claim(existing, false);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        Entry head;
+        while ((head = insertionOrder.peek()) != null
+                && (entries.size() >= maxEntries || head.isExpired(now))) {
+            if (insertionOrder.remove(head)) {
+                entries.remove(head.requestId, head);
+            }
+        }
+    }
+
+    /**
+     * A response captured for replay.
+     */
+    public record StoredResponse(int statusCode, Buffer body) {}
+
+    /**
+     * Result of {@link #claim}: {@code owner} is true for the request that
+     * created the entry and must complete or abandon it.
+     */
+    public record Claim(Entry entry, boolean owner) {}
+
+    public final class Entry {
+        private final String requestId;
+        private final int bodyHash;
+        private final long createdAtMillis;
+
+        private StoredResponse response;
+        private boolean abandoned;
+        private List<Runnable> waiters;
+
+        private Entry(String requestId, int bodyHash, long createdAtMillis) {
+            this.requestId = requestId;
+            this.bodyHash = bodyHash;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        public boolean matches(int bodyHash) {
+            return this.bodyHash == bodyHash;
+        }
+
+        public synchronized StoredResponse response() {
+            return response;
+        }
+
+        synchronized boolean isAbandoned() {
+            return abandoned;
+        }
+
+        boolean isExpired(long now) {
+            return now - createdAtMillis >= windowMillis;
+        }
+
+        /**
+         * Runs {@code handler} on {@code context} once the owner completes or
+         * abandons this entry (immediately if it already has).
+         */
+        public void await(Context context, Handler<StoredResponse> handler) {
+            Runnable wake = () -> context.runOnContext(v -> handler.handle(response()));
+            synchronized (this) {
+                if (response == null && !abandoned) {
+                    if (waiters == null) {
+                        waiters = new ArrayList<>(2);
+                    }
+                    waiters.add(wake);
+                    return;
+                }
+            }
+            wake.run();
+        }
+
+        public void complete(StoredResponse storedResponse) {
+            List<Runnable> toWake;
+            synchronized (this) {
+                if (response != null || abandoned) {
+                    return;
+                }
+                response = storedResponse;
+                toWake = waiters;
+                waiters = null;
+            }
+            wakeAll(toWake);
+        }
+
+        public void abandon() {
+            List<Runnable> toWake;
+            synchronized (this) {
+                if (response != null || abandoned) {
+                    return;
+                }
+                abandoned = true;
+                toWake = waiters;
+                waiters = null;
+            }
+            entries.remove(requestId, this);
+            wakeAll(toWake);
+        }
+
+        private void wakeAll(List<Runnable> toWake) {
+            if (toWake != null) {
+                toWake.forEach(Runnable::run);
+            }
+        }
+    }
+}
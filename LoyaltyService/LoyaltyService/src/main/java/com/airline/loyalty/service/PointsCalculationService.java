@@ -10,9 +10,7 @@ import org.slf4j.LoggerFactory;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
@@ -22,58 +20,283 @@ import java.util.List;
  */
 public class PointsCalculationService {
     private static final Logger logger = LoggerFactory.getLogger(PointsCalculationService.class);
+
+    private static final CustomerTier[] TIERS = CustomerTier.values();
     
-    private final FxServiceClient fxService;
+    private final FxRateTable fxRateTable;
     private final PromoServiceClient promoService;
-    private final int maxPoints;
-    private final int expiryWarningDays;
-    private final String baseCurrency;
+    private final PromoEngine promoEngine;
+    private final DayClock dayClock = new DayClock();
+    private int maxPoints;
+    private int expiryWarningDays;
+    private String baseCurrency;
 
     public PointsCalculationService(FxServiceClient fxService, PromoServiceClient promoService, JsonObject config) {
-        this.fxService = fxService;
+        this(fxService, null, promoService, null, config);
+    }
+
+    /**
+     * @param fxHistory   daily rates for quotes with a past {@code asOfDate}, or
+     *                    {@code null} if historical quotes are not supported
+     * @param promoEngine local promo decision table consulted before the promo
+     *                    service, or {@code null} to always call the service
+     */
+    public PointsCalculationService(FxServiceClient fxService, FxRateHistory fxHistory,
+                                    PromoServiceClient promoService, PromoEngine promoEngine, JsonObject config) {
+        this.fxRateTable = new FxRateTable(fxService, fxHistory, config);
         this.promoService = promoService;
+        this.promoEngine = promoEngine;
+        applyRules(config);
+    }
+
+    /**
+     * Applies the business and currency rules from a (re)loaded configuration.
+     */
+    public void applyRules(JsonObject config) {
         JsonObject businessConfig = config.getJsonObject("business");
         JsonObject currencyConfig = config.getJsonObject("currency");
         this.maxPoints = businessConfig.getInteger("maxPoints");
         this.expiryWarningDays = businessConfig.getInteger("expiryWarningDays");
         this.baseCurrency = currencyConfig.getString("base");
+        fxRateTable.applyRules(config);
+    }
+
+    public FxRateTable getFxRateTable() {
+        return fxRateTable;
+    }
+
+    /**
+     * Applies an FX change pushed on {@code MainVerticle.FX_RATES_CHANGED_ADDRESS}:
+     * {@code rates} (into {@code base}) replace the cached ones, and
+     * {@code invalidate} / {@code invalidateAll} drop cached rates.
+     */
+    public void applyFxChange(JsonObject change) {
+        if (change.getBoolean("invalidateAll", false)) {
+            fxRateTable.invalidateAll();
+        }
+        fxRateTable.invalidate(ChangeMessages.invalidated(change));
+        JsonObject rates = change.getJsonObject("rates", new JsonObject());
+        String base = change.getString("base", fxRateTable.getBaseCurrency());
+        for (String currency : rates.fieldNames()) {
+            fxRateTable.put(currency, base, rates.getDouble(currency));
+        }
+    }
+
+    /**
+     * Applies a promo change pushed on {@code MainVerticle.PROMOS_CHANGED_ADDRESS}
+     * to the promo engine and code filter.
+     */
+    public void applyPromoChange(JsonObject change) {
+        List<PromoResponse> promos = ChangeMessages.promos(change);
+        if (promoEngine != null) {
+            promoEngine.apply(promos, ChangeMessages.invalidated(change));
+        }
+        promoService.admitCodes(promos.stream().map(PromoResponse::promoCode).toList());
     }
 
     public Future<PointsCalculation> calculatePoints(PointsQuoteRequest request) {
+        LocalDate asOf;
         try {
             validateRequest(request);
+            asOf = asOfDate(request);
         } catch (ValidationException e) {
             return Future.failedFuture(e);
         }
 
-        return convertToBaseCurrency(request.getFareAmount(), request.getCurrency())
-            .compose(convertedAmount -> {
-                int basePoints = (int) Math.floor(convertedAmount);
-                double fxRate = convertedAmount / request.getFareAmount();
-                
-                return calculateTierBonus(basePoints, request.getCustomerTier())
-                    .compose(tierBonus -> calculatePromoBonus(basePoints, request.getPromoCode())
-                        .map(promoResult -> {
-                            int totalBeforeCap = basePoints + tierBonus + promoResult.bonus();
-                            int finalTotal = Math.min(totalBeforeCap, maxPoints);
-                            
-                            List<String> warnings = new ArrayList<>(promoResult.warnings());
-                            if (finalTotal < totalBeforeCap) {
-                                warnings.add("POINTS_CAPPED_AT_MAX");
-                                logger.info("Points capped: {} -> {}", totalBeforeCap, finalTotal);
-                            }
-
-                            return PointsCalculation.builder()
-                                .basePoints(basePoints)
-                                .tierBonus(tierBonus)
-                                .promoBonus(promoResult.bonus())
-                                .totalPoints(finalTotal)
-                                .effectiveFxRate(Math.round(fxRate * 100.0) / 100.0)
-                                .warnings(warnings)
-                                .build();
-                        })
-                    );
-            });
+        double fareAmount = request.getFareAmount();
+        String pointsCurrency = pointsCurrency(request);
+        if (pointsCurrency.equals(request.getCurrency())) {
+            return calculateForAmount(fareAmount, fareAmount, null, request, asOf);
+        }
+
+        return fxRateTable.rate(request.getCurrency(), pointsCurrency, asOf)
+            .compose(rate -> calculateForAmount(fareAmount, fareAmount * rate.value(), rate, request, asOf));
+    }
+
+    /**
+     * Await-style {@link #calculatePoints} for callers on a Vert.x virtual
+     * thread: the FX and promo lookups park the virtual thread instead of
+     * chaining callbacks, so blocking code can sit alongside them.
+     *
+     * @throws ValidationException for an invalid request
+     * @throws IllegalStateException if not called on a virtual thread
+     */
+    public PointsCalculation calculatePointsAwait(PointsQuoteRequest request) {
+        validateRequest(request);
+        LocalDate asOf = asOfDate(request);
+
+        double fareAmount = request.getFareAmount();
+        String pointsCurrency = pointsCurrency(request);
+        FxRateTable.Rate rate = pointsCurrency.equals(request.getCurrency())
+            ? null
+            : Future.await(fxRateTable.rate(request.getCurrency(), pointsCurrency, asOf));
+        double convertedAmount = rate == null ? fareAmount : fareAmount * rate.value();
+        PromoRule promo = localPromoRule(request.getPromoCode());
+        if (promo == null) {
+            promo = Future.await(promoService.getPromoDetails(request.getPromoCode())).map(PromoRule::compile).orElse(null);
+        }
+
+        return calculation(fareAmount, convertedAmount, rate, request, asOf, promo);
+    }
+
+    /**
+     * Calculates every row of {@code batch} in place, with the same rules and
+     * results as {@link #calculatePoints} would give each row on its own.
+     * A batch carries no booking dates: every row is quoted as of today, as a
+     * request without an {@code asOfDate} would be.
+     *
+     * Promo and tier terms are resolved once per batch, then the points are
+     * computed column by column over primitive arrays; large batches are split
+     * across the common fork-join pool.
+     *
+     * @throws ValidationException if any row would fail validation
+     */
+    public void calculateBatch(QuoteBatch batch) {
+        validateBatch(batch);
+
+        String[] currencies = batch.currencies();
+        double[] fxRates = new double[currencies.length];
+        for (int c = 0; c < currencies.length; c++) {
+            fxRates[c] = baseCurrency.equals(currencies[c]) ? 1.0 : batch.fxRates()[c];
+        }
+
+        double[] tierMultipliers = new double[TIERS.length];
+        for (CustomerTier tier : TIERS) {
+            tierMultipliers[tier.ordinal()] = tier.getMultiplier();
+        }
+
+        // Slot 0 is "no promo code"; promo p lives in slot p + 1. Eligibility
+        // masks only restrict promos that would otherwise apply.
+        PromoResponse[] promos = batch.promos();
+        int today = dayClock.today();
+        ColumnarPointsCalculator.PromoColumns promoColumns = new ColumnarPointsCalculator.PromoColumns(promos.length + 1);
+        promoColumns.set(0, PromoRule.NO_PROMO, -1, -1);
+        for (int p = 0; p < promos.length; p++) {
+            PromoRule rule = promos[p] == null ? null : PromoRule.compile(promos[p]);
+            PromoTerms terms = rule == null ? PromoRule.NO_PROMO : rule.terms(today, expiryWarningDays);
+            boolean restricted = PromoRule.isApplicable(terms);
+            promoColumns.set(p + 1, terms, restricted ? rule.cabinMask() : -1, restricted ? rule.tierMask() : -1);
+        }
+
+        ColumnarPointsCalculator.calculate(batch, fxRates, tierMultipliers, promoColumns, maxPoints);
+    }
+
+    private void validateBatch(QuoteBatch batch) {
+        for (String currency : batch.currencies()) {
+            if (currency == null || currency.length() != 3) {
+                throw new ValidationException("Invalid currency code");
+            }
+        }
+        double[] fareAmounts = batch.fareAmounts();
+        int[] currencyIndex = batch.currencyIndex();
+        int[] cabinOrdinals = batch.cabinOrdinals();
+        int[] tierOrdinals = batch.tierOrdinals();
+        int[] promoIndex = batch.promoIndex();
+        int cabinCount = CabinClass.values().length;
+        for (int i = 0; i < batch.size(); i++) {
+            if (fareAmounts[i] <= 0) {
+                throw new ValidationException("Fare amount must be greater than zero (row " + i + ")");
+            }
+            if (currencyIndex[i] < 0 || currencyIndex[i] >= batch.currencies().length) {
+                throw new ValidationException("Invalid currency index " + currencyIndex[i] + " (row " + i + ")");
+            }
+            if (cabinOrdinals[i] < 0 || cabinOrdinals[i] >= cabinCount) {
+                throw new ValidationException("Invalid cabin class ordinal " + cabinOrdinals[i] + " (row " + i + ")");
+            }
+            if (tierOrdinals[i] < 0 || tierOrdinals[i] >= TIERS.length) {
+                throw new ValidationException("Invalid customer tier ordinal " + tierOrdinals[i] + " (row " + i + ")");
+            }
+            if (promoIndex[i] < -1 || promoIndex[i] >= batch.promos().length) {
+                throw new ValidationException("Invalid promo index " + promoIndex[i] + " (row " + i + ")");
+            }
+        }
+    }
+
+    /**
+     * Currency the points accrue in: the request's target currency for partner
+     * programmes, otherwise the base currency.
+     */
+    private String pointsCurrency(PointsQuoteRequest request) {
+        return request.getTargetCurrency() != null ? request.getTargetCurrency() : baseCurrency;
+    }
+
+    /**
+     * Date the quote is priced as of, FX rates and promo terms alike, or
+     * {@code null} for today.
+     */
+    private LocalDate asOfDate(PointsQuoteRequest request) {
+        if (request.getAsOfDate() == null) {
+            return null;
+        }
+        LocalDate asOf;
+        try {
+            asOf = LocalDate.parse(request.getAsOfDate(), DateTimeFormatter.ISO_LOCAL_DATE);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Invalid asOfDate: " + request.getAsOfDate());
+        }
+        if (asOf.isAfter(LocalDate.now())) {
+            throw new ValidationException("asOfDate must not be in the future");
+        }
+        return asOf;
+    }
+
+    private Future<PointsCalculation> calculateForAmount(double fareAmount, double convertedAmount,
+                                                         FxRateTable.Rate rate, PointsQuoteRequest request,
+                                                         LocalDate asOf) {
+        PromoRule localPromo = localPromoRule(request.getPromoCode());
+        if (localPromo != null) {
+            return Future.succeededFuture(calculation(fareAmount, convertedAmount, rate, request, asOf, localPromo));
+        }
+        return promoService.getPromoDetails(request.getPromoCode())
+            .map(promoOpt -> calculation(fareAmount, convertedAmount, rate, request, asOf,
+                promoOpt.map(PromoRule::compile).orElse(null)));
+    }
+
+    private PromoRule localPromoRule(String promoCode) {
+        return promoEngine != null ? promoEngine.rule(promoCode) : null;
+    }
+
+    /**
+     * @param rate the FX rate {@code convertedAmount} was converted at, or
+     *             {@code null} if the fare is already in the points currency
+     * @param asOf the date the promo terms are evaluated on, or {@code null}
+     *             for today
+     */
+    private PointsCalculation calculation(double fareAmount, double convertedAmount, FxRateTable.Rate rate,
+                                          PointsQuoteRequest request, LocalDate asOf, PromoRule promo) {
+        int basePoints = (int) Math.floor(convertedAmount);
+        double fxRate = convertedAmount / fareAmount;
+        CustomerTier tier = CustomerTier.valueOf(request.getCustomerTier());
+        int tierBonus = calculateTierBonus(basePoints, tier);
+
+        int day = asOf != null ? (int) asOf.toEpochDay() : dayClock.today();
+        PromoTerms promoTerms = promoTerms(request.getPromoCode(), promo,
+            CabinClass.valueOf(request.getCabinClass()).ordinal(), tier.ordinal(), day);
+        if (!promoTerms.stacksWithTierBonus()) {
+            tierBonus = 0;
+        }
+        int promoBonus = calculatePromoBonus(basePoints, promoTerms);
+        int totalBeforeCap = basePoints + tierBonus + promoBonus;
+        int finalTotal = Math.min(totalBeforeCap, maxPoints);
+
+        int warnings = promoTerms.warnings();
+        if (finalTotal < totalBeforeCap) {
+            warnings |= QuoteWarning.POINTS_CAPPED_AT_MAX.mask();
+            logger.info("Points capped: {} -> {}", totalBeforeCap, finalTotal);
+        }
+        if (rate != null && rate.stale()) {
+            warnings |= QuoteWarning.FX_RATE_STALE.mask();
+        }
+
+        return PointsCalculation.builder()
+            .basePoints(basePoints)
+            .tierBonus(tierBonus)
+            .promoBonus(promoBonus)
+            .totalPoints(finalTotal)
+            .effectiveFxRate(Math.round(fxRate * 100.0) / 100.0)
+            .warnings(warnings)
+            .fxFetchedAtMillis(rate != null ? rate.fetchedAtMillis() : Long.MAX_VALUE)
+            .build();
     }
 
     private void validateRequest(PointsQuoteRequest request) {
@@ -85,6 +308,10 @@ public class PointsCalculationService {
             throw new ValidationException("Invalid currency code");
         }
 
+        if (request.getTargetCurrency() != null && request.getTargetCurrency().length() != 3) {
+            throw new ValidationException("Invalid target currency code");
+        }
+
         try {
             CabinClass.valueOf(request.getCabinClass());
         } catch (Exception e) {
@@ -98,56 +325,36 @@ public class PointsCalculationService {
         }
     }
 
-    private Future<Double> convertToBaseCurrency(double amount, String currency) {
-        if (baseCurrency.equals(currency)) {
-            return Future.succeededFuture(amount);
+    private int calculateTierBonus(int basePoints, CustomerTier tier) {
+        int bonus = (int) Math.floor(basePoints * tier.getMultiplier());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Tier bonus calculated: {} * {} = {}", basePoints, tier.getMultiplier(), bonus);
         }
+        return bonus;
+    }
 
-        return fxService.getExchangeRate(currency, baseCurrency)
-            .map(rate -> amount * rate);
+    private int calculatePromoBonus(int basePoints, PromoTerms promoTerms) {
+        int bonus = (int) Math.floor(basePoints * promoTerms.multiplier());
+        if (bonus != 0 && logger.isDebugEnabled()) {
+            logger.debug("Promo bonus calculated: {} * {} = {}", basePoints, promoTerms.multiplier(), bonus);
+        }
+        return bonus;
     }
 
-    private Future<Integer> calculateTierBonus(int basePoints, String tierName) {
-        CustomerTier tier = CustomerTier.valueOf(tierName);
-        int bonus = (int) Math.floor(basePoints * tier.getMultiplier());
-        logger.debug("Tier bonus calculated: {} * {} = {}", basePoints, tier.getMultiplier(), bonus);
-        return Future.succeededFuture(bonus);
-    }
-
-    private Future<PromoResult> calculatePromoBonus(int basePoints, String promoCode) {
-        return promoService.getPromoDetails(promoCode)
-            .map(promoOpt -> {
-                if (promoOpt.isEmpty()) {
-                    return new PromoResult(0, List.of());
-                }
-
-                PromoResponse promo = promoOpt.get();
-                if (!promo.active()) {
-                    logger.info("Promo {} is inactive", promoCode);
-                    return new PromoResult(0, List.of("PROMO_INACTIVE"));
-                }
-
-                int bonus = (int) Math.floor(basePoints * promo.bonusMultiplier());
-                List<String> warnings = new ArrayList<>();
-
-                if (promo.expiryDate() != null) {
-                    LocalDate expiryDate = LocalDate.parse(promo.expiryDate(), DateTimeFormatter.ISO_DATE);
-                    long daysUntilExpiry = ChronoUnit.DAYS.between(LocalDate.now(), expiryDate);
-                    
-                    if (daysUntilExpiry <= expiryWarningDays && daysUntilExpiry > 0) {
-                        warnings.add("PROMO_EXPIRES_SOON");
-                        logger.info("Promo {} expires in {} days", promoCode, daysUntilExpiry);
-                    } else if (daysUntilExpiry <= 0) {
-                        warnings.add("PROMO_EXPIRED");
-                        logger.info("Promo {} has expired", promoCode);
-                        return new PromoResult(0, warnings);
-                    }
-                }
-
-                logger.debug("Promo bonus calculated: {} * {} = {}", basePoints, promo.bonusMultiplier(), bonus);
-                return new PromoResult(bonus, warnings);
-            });
-    }
-
-    private record PromoResult(int bonus, List<String> warnings) {}
+    /**
+     * Evaluates {@code promo} (the compiled definition of {@code promoCode},
+     * or {@code null} if there is none) for a quote in the given cabin and tier
+     * on {@code day} (epoch day).
+     */
+    private PromoTerms promoTerms(String promoCode, PromoRule promo, int cabin, int tier, int day) {
+        if (promo == null) {
+            return PromoRule.NO_PROMO;
+        }
+
+        PromoTerms terms = promo.terms(cabin, tier, day, expiryWarningDays);
+        if (terms.warnings() != 0) {
+            logger.info("Promo {}: {}", promoCode, QuoteWarning.names(terms.warnings()));
+        }
+        return terms;
+    }
 }
@@ -0,0 +1,113 @@
+package com.airline.loyalty.service;
+
+import java.util.Collection;
+
+/**
+ * PromoCodeFilter is a Bloom filter over the promo codes in the catalogue:
+ * {@link #mightContain} is never {@code false} for a code it was built with,
+ * and {@code true} for other codes only with about the configured
+ * false-positive probability.
+ *
+ * It is immutable once built and safe to read from any thread; the client
+ * swaps in a new instance on every catalogue refresh, or a copy with a few
+ * pushed codes added ({@link #with}).
+ */
+public final class PromoCodeFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final int size;
+
+    private PromoCodeFilter(long bitCount, int hashCount, int size) {
+        this(new long[(int) ((bitCount + 63) >>> 6)], bitCount, hashCount, size);
+    }
+
+    private PromoCodeFilter(long[] bits, long bitCount, int hashCount, int size) {
+        this.bits = bits;
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.size = size;
+    }
+
+    /**
+     * Builds a filter over {@code codes} sized for a false-positive
+     * probability of {@code falsePositiveRate}.
+     */
+    public static PromoCodeFilter of(Collection<String> codes, double falsePositiveRate) {
+        int n = Math.max(codes.size(), 1);
+        double ln2 = Math.log(2);
+        long bitCount = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+
+        PromoCodeFilter filter = new PromoCodeFilter(bitCount, hashCount, codes.size());
+        for (String code : codes) {
+            filter.add(code);
+        }
+        return filter;
+    }
+
+    /**
+     * A copy that also contains {@code codes}. It keeps this filter's size, so
+     * its false-positive rate creeps up until the next rebuild.
+     */
+    public PromoCodeFilter with(Collection<String> codes) {
+        PromoCodeFilter filter = new PromoCodeFilter(bits.clone(), bitCount, hashCount, size + codes.size());
+        for (String code : codes) {
+            filter.add(code);
+        }
+        return filter;
+    }
+
+    public boolean mightContain(String code) {
+        long hash = hash(code);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * False-positive probability for the number of codes it holds.
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * size / bitCount), hashCount);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void add(String code) {
+        long hash = hash(code);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars, finished with the MurmurHash3 fmix64
+     * mixer so both 32-bit halves are well distributed.
+     */
+    private static long hash(String code) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < code.length(); i++) {
+            h ^= code.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
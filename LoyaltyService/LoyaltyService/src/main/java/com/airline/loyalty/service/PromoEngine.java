@@ -0,0 +1,155 @@
+package com.airline.loyalty.service;
+
+import com.airline.loyalty.model.PromoResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PromoEngine keeps the promo catalogue in process as a decision table of
+ * compiled {@link PromoRule}s, so quotes with a catalogued code are evaluated
+ * locally instead of calling the promo service.
+ *
+ * The table is re-synced from {@link PromoServiceClient#getCatalogue()} every
+ * {@code promoEngine.syncIntervalMillis} and swapped in whole; a failed sync
+ * keeps the previous table. Codes not in the table (none are, before the first
+ * successful sync) fall back to a per-code promo service lookup, so promos
+ * created since the last sync still apply.
+ *
+ * Promo changes pushed by upstream systems ({@link #apply}) take effect
+ * immediately, without waiting for the next sync.
+ */
+public class PromoEngine {
+    private static final Logger logger = LoggerFactory.getLogger(PromoEngine.class);
+
+    private final Vertx vertx;
+    private final PromoServiceClient promoService;
+    private final long syncIntervalMillis;
+    private final Counter syncFailureCounter;
+
+    private volatile Map<String, PromoRule> rules = Map.of();
+    private long timerId = -1;
+
+    public PromoEngine(Vertx vertx, PromoServiceClient promoService, JsonObject config, MeterRegistry meterRegistry) {
+        this.vertx = vertx;
+        this.promoService = promoService;
+        this.syncIntervalMillis = config.getJsonObject("promoEngine", new JsonObject())
+            .getLong("syncIntervalMillis", 300000L);
+
+        this.syncFailureCounter = meterRegistry != null ? Counter.builder("promo_engine_sync_failures_total")
+                .description("Promo catalogue syncs that failed and kept the previous rules")
+                .register(meterRegistry) : null;
+        if (meterRegistry != null) {
+            Gauge.builder("promo_engine_rules", this, PromoEngine::size)
+                .description("Promo rules in the local decision table")
+                .register(meterRegistry);
+        }
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getJsonObject("promoEngine", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    /**
+     * Runs the first sync and schedules the periodic ones. The returned future
+     * completes once the first sync has finished, whether or not it succeeded.
+     */
+    public Future<Void> start() {
+        timerId = vertx.setPeriodic(syncIntervalMillis, id -> sync());
+        return sync().otherwiseEmpty();
+    }
+
+    public void stop() {
+        if (timerId >= 0) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+    }
+
+    /**
+     * Replaces the decision table with the current promo catalogue.
+     */
+    public Future<Void> sync() {
+        return promoService.getCatalogue()
+            .onSuccess(catalogue -> {
+                rules = compile(catalogue);
+                logger.debug("Promo catalogue synced: {} rules", rules.size());
+            })
+            .onFailure(err -> {
+                if (syncFailureCounter != null) syncFailureCounter.increment();
+                logger.warn("Promo catalogue sync failed, keeping {} rules: {}", rules.size(), err.getMessage());
+            })
+            .mapEmpty();
+    }
+
+    /**
+     * Adds or replaces the rules for {@code promos} and drops the ones for
+     * {@code removedCodes}, which fall back to the promo service again.
+     */
+    public void apply(List<PromoResponse> promos, Collection<String> removedCodes) {
+        Map<String, PromoRule> updated = new HashMap<>(rules);
+        updated.keySet().removeAll(removedCodes);
+        updated.putAll(compile(promos));
+        rules = Map.copyOf(updated);
+        logger.debug("Promo changes applied: {} updated, {} removed, {} rules",
+            promos.size(), removedCodes.size(), rules.size());
+    }
+
+    /**
+     * The definitions of the rules in the table.
+     */
+    public List<PromoResponse> snapshot() {
+        return rules.values().stream().map(PromoRule::source).toList();
+    }
+
+    /**
+     * Seeds an empty table with promos from a warm-cache snapshot, which are
+     * used until the first successful sync replaces them.
+     *
+     * @return the number of rules restored
+     */
+    public int restore(List<PromoResponse> promos) {
+        if (!rules.isEmpty()) {
+            return 0;
+        }
+        rules = compile(promos);
+        return rules.size();
+    }
+
+    /**
+     * The compiled rule for {@code promoCode}, or {@code null} if it is not in
+     * the table.
+     */
+    PromoRule rule(String promoCode) {
+        return promoCode == null ? null : rules.get(promoCode);
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    private static Map<String, PromoRule> compile(List<PromoResponse> catalogue) {
+        Map<String, PromoRule> compiled = new HashMap<>(catalogue.size() * 2);
+        for (PromoResponse promo : catalogue) {
+            if (promo.promoCode() == null) {
+                continue;
+            }
+            try {
+                compiled.put(promo.promoCode(), PromoRule.compile(promo));
+            } catch (RuntimeException e) {
+                logger.warn("Skipping promo {} with an invalid definition: {}", promo.promoCode(), e.getMessage());
+            }
+        }
+        return Map.copyOf(compiled);
+    }
+}
@@ -0,0 +1,123 @@
+package com.airline.loyalty.service;
+
+import com.airline.loyalty.model.CabinClass;
+import com.airline.loyalty.model.CustomerTier;
+import com.airline.loyalty.model.PromoResponse;
+import com.airline.loyalty.model.QuoteWarning;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * A promo definition compiled for evaluation: dates as epoch days, eligible
+ * cabins and tiers as ordinal bitmasks, and the {@link PromoTerms} it can
+ * yield built up front, so {@link #terms} is a few integer comparisons and
+ * allocates nothing.
+ */
+final class PromoRule {
+
+    static final PromoTerms NO_PROMO = new PromoTerms(0.0, 0, true);
+    static final PromoTerms INACTIVE = new PromoTerms(0.0, QuoteWarning.PROMO_INACTIVE.mask(), true);
+    static final PromoTerms EXPIRED = new PromoTerms(0.0, QuoteWarning.PROMO_EXPIRED.mask(), true);
+    static final PromoTerms NOT_ELIGIBLE = new PromoTerms(0.0, QuoteWarning.PROMO_NOT_ELIGIBLE.mask(), true);
+
+    private static final int ALL = -1;
+
+    private final PromoResponse source;
+    private final String code;
+    private final boolean active;
+    private final long validFromDay;
+    private final long expiryDay;
+    private final int cabinMask;
+    private final int tierMask;
+    private final PromoTerms applies;
+    private final PromoTerms appliesExpiringSoon;
+
+    private PromoRule(PromoResponse promo) {
+        this.source = promo;
+        this.code = promo.promoCode();
+        // A promo that does not say whether it is active is; only false deactivates it
+        this.active = !Boolean.FALSE.equals(promo.active());
+        this.validFromDay = promo.validFrom() == null ? Long.MIN_VALUE : epochDay(promo.validFrom());
+        this.expiryDay = promo.expiryDate() == null ? Long.MAX_VALUE : epochDay(promo.expiryDate());
+        this.cabinMask = mask(CabinClass.class, promo.eligibleCabins());
+        this.tierMask = mask(CustomerTier.class, promo.eligibleTiers());
+        boolean stacks = !Boolean.FALSE.equals(promo.stacksWithTierBonus());
+        double multiplier = promo.bonusMultiplier() == null ? 0.0 : promo.bonusMultiplier();
+        this.applies = new PromoTerms(multiplier, 0, stacks);
+        this.appliesExpiringSoon = new PromoTerms(multiplier, QuoteWarning.PROMO_EXPIRES_SOON.mask(), stacks);
+    }
+
+    static PromoRule compile(PromoResponse promo) {
+        return new PromoRule(promo);
+    }
+
+    String code() {
+        return code;
+    }
+
+    /**
+     * The definition this rule was compiled from.
+     */
+    PromoResponse source() {
+        return source;
+    }
+
+    /**
+     * Terms for a quote in {@code cabin} at {@code tier} on {@code today}
+     * (epoch day): inactive (or not started), expired, not eligible, or the
+     * bonus, flagged when it expires within {@code expiryWarningDays}.
+     */
+    PromoTerms terms(int cabin, int tier, int today, int expiryWarningDays) {
+        PromoTerms terms = terms(today, expiryWarningDays);
+        return isApplicable(terms) && !eligible(cabin, tier) ? NOT_ELIGIBLE : terms;
+    }
+
+    /**
+     * Terms on {@code today} before cabin and tier eligibility is checked.
+     */
+    PromoTerms terms(int today, int expiryWarningDays) {
+        if (!active || today < validFromDay) {
+            return INACTIVE;
+        }
+        long daysUntilExpiry = expiryDay - today;
+        if (daysUntilExpiry <= 0) {
+            return EXPIRED;
+        }
+        return daysUntilExpiry <= expiryWarningDays ? appliesExpiringSoon : applies;
+    }
+
+    boolean eligible(int cabin, int tier) {
+        return ((cabinMask >>> cabin) & (tierMask >>> tier) & 1) != 0;
+    }
+
+    int cabinMask() {
+        return cabinMask;
+    }
+
+    int tierMask() {
+        return tierMask;
+    }
+
+    static boolean isApplicable(PromoTerms terms) {
+        return terms != INACTIVE && terms != EXPIRED && terms != NO_PROMO;
+    }
+
+    private static long epochDay(String isoDate) {
+        return LocalDate.parse(isoDate, DateTimeFormatter.ISO_DATE).toEpochDay();
+    }
+
+    private static <E extends Enum<E>> int mask(Class<E> type, List<String> names) {
+        if (names == null) {
+            return ALL;
+        }
+        int mask = 0;
+        for (E value : type.getEnumConstants()) {
+            if (names.contains(value.name())) {
+                mask |= 1 << value.ordinal();
+            }
+        }
+        return mask;
+    }
+}
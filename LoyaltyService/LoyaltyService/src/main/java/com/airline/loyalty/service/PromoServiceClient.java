@@ -1,33 +1,70 @@
 package com.airline.loyalty.service;
 
+import com.airline.loyalty.exception.ExternalServiceException;
 import com.airline.loyalty.model.PromoResponse;
+import com.airline.loyalty.tracing.Span;
+import com.airline.loyalty.tracing.Tracing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * PromoServiceClient provides a client abstraction for interacting with
  * the Promotion Service.
+ *
+ * With {@code promoService.codeFilter.enabled} and no {@link PromoEngine},
+ * codes are first checked against a Bloom filter of the catalogue's codes,
+ * rebuilt every {@code codeFilter.refreshIntervalMillis}; a code the filter
+ * rules out is answered as unknown without a call. Until the first build
+ * succeeds every code is looked up. With a promo engine every catalogued code
+ * is answered locally, so the codes that get here are exactly the ones the
+ * catalogue lacked at the last sync, which a filter built from it would
+ * wrongly rule out; the filter is not used then.
  **/
 public class PromoServiceClient {
     private static final Logger logger = LoggerFactory.getLogger(PromoServiceClient.class);
+    private static final Future<Optional<PromoResponse>> NO_PROMO = Future.succeededFuture(Optional.empty());
+    private final Vertx vertx;
     private final WebClient client;
     private final String host;
     private final int port;
     private final String path;
+    private final String catalogPath;
     private final int timeout;
+    private final boolean codeFilterEnabled;
+    private final long codeFilterRefreshMillis;
+    private final double codeFilterFalsePositiveRate;
+    private volatile PromoCodeFilter codeFilter;
+
+    private final Counter skippedCounter;
+    private final Counter falsePositiveCounter;
 
     public PromoServiceClient(Vertx vertx, JsonObject config) {
+        this(vertx, config, null);
+    }
+
+    public PromoServiceClient(Vertx vertx, JsonObject config, MeterRegistry meterRegistry) {
+        this.vertx = vertx;
         JsonObject promoConfig = config.getJsonObject("promoService");
         this.host = promoConfig.getString("host");
         this.port = promoConfig.getInteger("port");
         this.path = promoConfig.getString("path");
+        this.catalogPath = promoConfig.getString("catalogPath", path);
         this.timeout = promoConfig.getInteger("timeout");
 
         WebClientOptions options = new WebClientOptions()
@@ -38,34 +75,141 @@ public class PromoServiceClient {
             .setIdleTimeout(timeout);
 
         this.client = WebClient.create(vertx, options);
+
+        JsonObject filterConfig = promoConfig.getJsonObject("codeFilter", new JsonObject());
+        this.codeFilterEnabled = filterConfig.getBoolean("enabled", false);
+        this.codeFilterRefreshMillis = filterConfig.getLong("refreshIntervalMillis", 60000L);
+        this.codeFilterFalsePositiveRate = filterConfig.getDouble("falsePositiveRate", 0.01);
+
+        // Metrics
+        this.skippedCounter = meterRegistry != null ? Counter.builder("promo_lookups_skipped_total")
+                .description("Promo lookups skipped because the code filter ruled the code out")
+                .register(meterRegistry) : null;
+        this.falsePositiveCounter = meterRegistry != null ? Counter.builder("promo_filter_false_positives_total")
+                .description("Codes the filter passed that the promo service did not know")
+                .register(meterRegistry) : null;
+        if (meterRegistry != null) {
+            Gauge.builder("promo_filter_false_positive_rate", this, PromoServiceClient::observedFalsePositiveRate)
+                    .description("Share of unknown codes the filter let through")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Builds the code filter from the catalogue and refreshes it every
+     * {@code codeFilter.refreshIntervalMillis}. Only called without a
+     * {@link PromoEngine}. The returned future completes once the first build
+     * has finished, whether or not it succeeded.
+     */
+    public Future<Void> startCodeFilter() {
+        if (!codeFilterEnabled) {
+            return Future.succeededFuture();
+        }
+        vertx.setPeriodic(codeFilterRefreshMillis, id -> refreshCodeFilter()
+            .onFailure(err -> logger.warn("Promo code filter refresh failed, keeping the previous one: {}",
+                err.getMessage())));
+        return refreshCodeFilter()
+            .onFailure(err -> logger.warn("Promo code filter not built: {}", err.getMessage()))
+            .<Void>mapEmpty()
+            .otherwiseEmpty();
     }
 
     public Future<Optional<PromoResponse>> getPromoDetails(String promoCode) {
         if (promoCode == null || promoCode.isBlank()) {
-            return Future.succeededFuture(Optional.empty());
+            return NO_PROMO;
+        }
+
+        PromoCodeFilter filter = codeFilter;
+        if (filter != null && !filter.mightContain(promoCode)) {
+            if (skippedCounter != null) skippedCounter.increment();
+            logger.debug("Promo code ruled out by filter: {}", promoCode);
+            return NO_PROMO;
         }
 
         logger.debug("Fetching promo details for code: {}", promoCode);
 
-        return client.get(path + "/" + promoCode)
-            .timeout(timeout)
-            .send()
+        Span span = Tracing.startSpan("promo.lookup", Span.Kind.CLIENT).setAttribute("promo.code", promoCode);
+        HttpRequest<Buffer> request = client.get(path + "/" + promoCode)
+            .timeout(timeout);
+        Tracing.inject(request, span);
+        return request.send()
             .compose(response -> {
+                span.setAttribute("http.status_code", response.statusCode());
                 if (response.statusCode() == 200) {
                     PromoResponse promo = response.bodyAsJson(PromoResponse.class);
-                    logger.info("Promo details retrieved: {}", promoCode);
+                    logger.debug("Promo details retrieved: {}", promoCode);
                     return Future.succeededFuture(Optional.<PromoResponse>of(promo));
                 } else if (response.statusCode() == 404) {
-                    logger.info("Promo code not found: {}", promoCode);
+                    logger.debug("Promo code not found: {}", promoCode);
+                    if (filter != null && falsePositiveCounter != null) falsePositiveCounter.increment();
                     return Future.succeededFuture(Optional.<PromoResponse>empty());
                 } else {
                     logger.warn("Promo service returned unexpected status: {}", response.statusCode());
+                    span.fail("Promo service returned status " + response.statusCode());
                     return Future.succeededFuture(Optional.<PromoResponse>empty());
                 }
             })
             .recover(err -> {
                 logger.warn("Promo service call failed, continuing without promo: {}", err.getMessage());
+                span.fail(err);
                 return Future.succeededFuture(Optional.<PromoResponse>empty());
+            })
+            .onComplete(ar -> span.end());
+    }
+
+    /**
+     * Fetches every promo definition from the catalogue endpoint, a JSON array
+     * of promo responses.
+     */
+    public Future<List<PromoResponse>> getCatalogue() {
+        return client.get(catalogPath)
+            .timeout(timeout)
+            .send()
+            .compose(response -> {
+                if (response.statusCode() != 200) {
+                    return Future.failedFuture(new ExternalServiceException(
+                        "Promo catalogue returned status " + response.statusCode(), null));
+                }
+                JsonArray body = response.bodyAsJsonArray();
+                List<PromoResponse> promos = new ArrayList<>(body.size());
+                for (int i = 0; i < body.size(); i++) {
+                    promos.add(body.getJsonObject(i).mapTo(PromoResponse.class));
+                }
+                return Future.succeededFuture(promos);
             });
     }
+
+    /**
+     * Lets pushed promo codes through the code filter until the next rebuild
+     * picks them up from the catalogue.
+     */
+    public void admitCodes(Collection<String> promoCodes) {
+        PromoCodeFilter filter = codeFilter;
+        if (filter != null && !promoCodes.isEmpty()) {
+            codeFilter = filter.with(promoCodes);
+        }
+    }
+
+    private Future<List<PromoResponse>> refreshCodeFilter() {
+        return getCatalogue().onSuccess(this::rebuildCodeFilter);
+    }
+
+    private void rebuildCodeFilter(List<PromoResponse> promos) {
+        List<String> codes = new ArrayList<>(promos.size());
+        for (PromoResponse promo : promos) {
+            if (promo.promoCode() != null) {
+                codes.add(promo.promoCode());
+            }
+        }
+        PromoCodeFilter filter = PromoCodeFilter.of(codes, codeFilterFalsePositiveRate);
+        codeFilter = filter;
+        logger.debug("Promo code filter rebuilt: {} codes, expected false-positive rate {}",
+            filter.size(), filter.expectedFalsePositiveRate());
+    }
+
+    private double observedFalsePositiveRate() {
+        double falsePositives = falsePositiveCounter.count();
+        double unknown = falsePositives + skippedCounter.count();
+        return unknown == 0 ? 0.0 : falsePositives / unknown;
+    }
 }
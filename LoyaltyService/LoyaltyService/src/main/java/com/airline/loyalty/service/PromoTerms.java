@@ -0,0 +1,8 @@
+package com.airline.loyalty.service;
+
+/**
+ * What a promo contributes to one quote: its bonus multiplier, a
+ * {@link com.airline.loyalty.model.QuoteWarning} bitmask, and whether the tier
+ * bonus is still added alongside it.
+ */
+record PromoTerms(double multiplier, int warnings, boolean stacksWithTierBonus) {}
@@ -0,0 +1,252 @@
+package com.airline.loyalty.service;
+
+import com.airline.loyalty.model.CabinClass;
+import com.airline.loyalty.model.CustomerTier;
+import com.airline.loyalty.model.PointsCalculation;
+import com.airline.loyalty.model.PointsQuoteRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * QuoteCache memoizes encoded quote responses, with the calculation they were
+ * encoded from, keyed on a normalized form of the request, so repeated
+ * identical quotes skip calculation, downstream calls and serialization.
+ *
+ * An entry lives for at most {@code ttlMillis}, and never longer than the FX
+ * rate ({@code maxFxAgeMillis} after it was fetched) or promo details
+ * ({@code maxPromoAgeMillis}) it was computed from may be reused. Quotes with a promo also expire at the
+ * next local midnight, when the promo's days-until-expiry (and so its bonus and
+ * warnings) can change. The whole cache is dropped when the business or
+ * currency rules change, and the quotes using a currency or promo code when an
+ * upstream change to it is pushed.
+ *
+ * Each verticle instance owns its cache and only touches it from its event
+ * loop, so no locking is needed.
+ */
+public class QuoteCache {
+    private static final Logger logger = LoggerFactory.getLogger(QuoteCache.class);
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long maxFxAgeMillis;
+    private final long maxPromoAgeMillis;
+    private final String baseCurrency;
+    private final LongSupplier clock;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<QuoteKey, CachedQuote> entries;
+
+    private JsonObject rules;
+    private long nextMidnightMillis;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public QuoteCache(JsonObject config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, System::currentTimeMillis);
+    }
+
+    QuoteCache(JsonObject config, MeterRegistry meterRegistry, LongSupplier clock) {
+        JsonObject cacheConfig = config.getJsonObject("quoteCache", new JsonObject());
+        this.maxEntries = cacheConfig.getInteger("maxEntries", 10000);
+        this.ttlMillis = cacheConfig.getLong("ttlMillis", 300000L);
+        this.maxFxAgeMillis = cacheConfig.getLong("maxFxAgeMillis", 60000L);
+        this.maxPromoAgeMillis = cacheConfig.getLong("maxPromoAgeMillis", 120000L);
+        this.baseCurrency = config.getJsonObject("currency").getString("base");
+        this.clock = clock;
+        this.rules = rulesOf(config);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QuoteKey, CachedQuote> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        this.hitCounter = Counter.builder("quote_cache_hits_total")
+                .description("Quotes served from the response cache")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("quote_cache_misses_total")
+                .description("Quotes not found in the response cache")
+                .register(meterRegistry);
+        Gauge.builder("quote_cache_entries", entries, Map::size)
+                .description("Entries in the quote response cache")
+                .register(meterRegistry);
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getJsonObject("quoteCache", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    /**
+     * Returns an identical, still-fresh quote, or {@code null}.
+     */
+    public CachedQuote get(PointsQuoteRequest request) {
+        QuoteKey key = QuoteKey.of(request);
+        if (key == null) {
+            return null;
+        }
+        CachedQuote entry = entries.get(key);
+        if (entry == null) {
+            missCounter.increment();
+            return null;
+        }
+        if (entry.expiresAtMillis() <= clock.getAsLong()) {
+            entries.remove(key);
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return entry;
+    }
+
+    public void put(PointsQuoteRequest request, Buffer response, PointsCalculation calculation) {
+        QuoteKey key = QuoteKey.of(request);
+        if (key == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long expiresAt = now + ttlMillis;
+        String pointsCurrency = request.getTargetCurrency() != null ? request.getTargetCurrency() : baseCurrency;
+        if (!pointsCurrency.equals(request.getCurrency())) {
+            // The rate may have sat in the FX cache for a while already
+            long fetchedAt = Math.min(now, calculation.getFxFetchedAtMillis());
+            expiresAt = Math.min(expiresAt, fetchedAt + maxFxAgeMillis);
+        }
+        if (!key.promoCode().isEmpty()) {
+            expiresAt = Math.min(expiresAt, Math.min(now + maxPromoAgeMillis, nextMidnight(now)));
+        }
+        entries.put(key, new CachedQuote(response, calculation, expiresAt));
+    }
+
+    /**
+     * Drops every entry if the business or currency rules differ from the ones
+     * the cached quotes were computed with.
+     */
+    public void onConfigChanged(JsonObject config) {
+        JsonObject newRules = rulesOf(config);
+        if (!newRules.equals(rules)) {
+            logger.info("Quote rules changed, invalidating {} cached quotes", entries.size());
+            rules = newRules;
+            entries.clear();
+        }
+    }
+
+    /**
+     * Drops the quotes from or into any of {@code currencies}.
+     */
+    public void invalidateCurrencies(Collection<String> currencies) {
+        if (currencies.isEmpty()) {
+            return;
+        }
+        long[] bits = currencies.stream()
+                .filter(currency -> currency.length() == 3)
+                .mapToLong(QuoteKey::currencyBits)
+                .toArray();
+        entries.keySet().removeIf(key -> {
+            long from = key.packed() >>> 16;
+            for (long currency : bits) {
+                if (from == currency || key.target() == currency) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Drops the quotes with any of {@code promoCodes}.
+     */
+    public void invalidatePromos(Collection<String> promoCodes) {
+        if (!promoCodes.isEmpty()) {
+            entries.keySet().removeIf(key -> promoCodes.contains(key.promoCode()));
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private long nextMidnight(long now) {
+        if (now >= nextMidnightMillis) {
+            nextMidnightMillis = LocalDate.now(zone).plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        return nextMidnightMillis;
+    }
+
+    private static JsonObject rulesOf(JsonObject config) {
+        return new JsonObject()
+                .put("business", config.getJsonObject("business"))
+                .put("currency", config.getJsonObject("currency"))
+                .copy();
+    }
+
+    public record CachedQuote(Buffer response, PointsCalculation calculation, long expiresAtMillis) {}
+
+    /**
+     * Normalized request: the exact fare bits, plus currency (3 chars), cabin
+     * and tier ordinals packed into one long, plus the target currency packed
+     * the same way ({@code 0} for none), plus the promo code and the as-of
+     * date ({@code ""} for none).
+     */
+    record QuoteKey(long fareBits, long packed, long target, String promoCode, String asOfDate) {
+
+        static QuoteKey of(PointsQuoteRequest request) {
+            Double fare = request.getFareAmount();
+            String currency = request.getCurrency();
+            if (fare == null || currency == null || currency.length() != 3) {
+                return null;
+            }
+            int cabin = ordinalOf(CabinClass.class, request.getCabinClass());
+            int tier = ordinalOf(CustomerTier.class, request.getCustomerTier());
+            if (cabin < 0 || tier < 0) {
+                return null;
+            }
+            String targetCurrency = request.getTargetCurrency();
+            if (targetCurrency != null && targetCurrency.length() != 3) {
+                return null;
+            }
+
+            long packed = (currencyBits(currency) << 16)
+                    | ((long) cabin << 8)
+                    | tier;
+            long target = targetCurrency == null ? 0L : currencyBits(targetCurrency);
+            String promo = request.getPromoCode();
+            String asOfDate = request.getAsOfDate();
+            return new QuoteKey(Double.doubleToLongBits(fare), packed, target,
+                    promo == null || promo.isBlank() ? "" : promo,
+                    asOfDate == null ? "" : asOfDate);
+        }
+
+        private static long currencyBits(String currency) {
+            return ((long) currency.charAt(0) << 32)
+                    | ((long) currency.charAt(1) << 16)
+                    | currency.charAt(2);
+        }
+
+        private static <E extends Enum<E>> int ordinalOf(Class<E> type, String name) {
+            if (name == null) {
+                return -1;
+            }
+            try {
+                return Enum.valueOf(type, name).ordinal();
+            } catch (IllegalArgumentException e) {
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.airline.loyalty.service;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * RateLimiter gives each client a token bucket: {@code rateLimit.burst}
+ * requests at once, refilled at {@code rateLimit.ratePerSecond}, with
+ * per-client overrides under {@code rateLimit.clients}.
+ *
+ * Buckets live in {@code rateLimit.stripes} independent stripes chosen by the
+ * client ID's hash, each an access-ordered map guarded by its own monitor and
+ * holding at most its share of {@code rateLimit.maxClients}; the least
+ * recently seen client of a full stripe is evicted (and starts with a full
+ * bucket if it comes back). A call holds one stripe for a map lookup and a few
+ * arithmetic operations, so with many more stripes than event loops two
+ * requests rarely meet on one. One instance is shared by all verticle
+ * instances through Vert.x local shared data, hence {@link Shareable}.
+ */
+public class RateLimiter implements Shareable {
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final Limit defaultLimit;
+    private final Map<String, Limit> clientLimits = new HashMap<>();
+    private final LongSupplier nanoClock;
+    private final LongAdder evictions = new LongAdder();
+
+    public RateLimiter(JsonObject config) {
+        this(config, System::nanoTime);
+    }
+
+    RateLimiter(JsonObject config, LongSupplier nanoClock) {
+        JsonObject limitConfig = config.getJsonObject("rateLimit", new JsonObject());
+        this.defaultLimit = Limit.of(limitConfig, new Limit(100.0, 200));
+        JsonObject clients = limitConfig.getJsonObject("clients", new JsonObject());
+        for (String clientId : clients.fieldNames()) {
+            clientLimits.put(clientId, Limit.of(clients.getJsonObject(clientId), defaultLimit));
+        }
+        this.nanoClock = nanoClock;
+
+        int stripeCount = Integer.highestOneBit(Math.max(1, limitConfig.getInteger("stripes", 64)));
+        int maxClients = limitConfig.getInteger("maxClients", 10000);
+        int perStripe = Math.max(1, maxClients / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getJsonObject("rateLimit", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    /**
+     * Takes a token from {@code clientId}'s bucket, if it has one.
+     */
+    public Decision tryAcquire(String clientId) {
+        int h = clientId.hashCode();
+        Stripe stripe = stripes[(h ^ (h >>> 16)) & stripeMask];
+        long now = nanoClock.getAsLong();
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(clientId);
+            if (bucket == null) {
+                bucket = new Bucket(clientLimits.getOrDefault(clientId, defaultLimit), now);
+                stripe.put(clientId, bucket);
+            }
+            return bucket.tryAcquire(now);
+        }
+    }
+
+    public int getClientCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.size();
+            }
+        }
+        return count;
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Outcome of {@link #tryAcquire}: the bucket size, the whole tokens left,
+     * the seconds until the bucket is full again and, when refused, until the
+     * next token.
+     */
+    public record Decision(boolean allowed, int limit, int remaining, long resetSeconds, long retryAfterSeconds) {}
+
+    record Limit(double ratePerSecond, int burst) {
+        static Limit of(JsonObject config, Limit defaults) {
+            return new Limit(config.getDouble("ratePerSecond", defaults.ratePerSecond()),
+                config.getInteger("burst", defaults.burst()));
+        }
+    }
+
+    private final class Stripe extends LinkedHashMap<String, Bucket> {
+        private final int maxClients;
+
+        Stripe(int maxClients) {
+            super(16, 0.75f, true);
+            this.maxClients = maxClients;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            if (size() > maxClients) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Guarded by its stripe's monitor.
+     */
+    private static final class Bucket {
+        private final Limit limit;
+        private double tokens;
+        private long refilledAtNanos;
+
+        Bucket(Limit limit, long now) {
+            this.limit = limit;
+            this.tokens = limit.burst();
+            this.refilledAtNanos = now;
+        }
+
+        Decision tryAcquire(long now) {
+            double rate = limit.ratePerSecond();
+            tokens = Math.min(limit.burst(), tokens + (now - refilledAtNanos) * rate / 1e9);
+            refilledAtNanos = now;
+            boolean allowed = tokens >= 1.0;
+            if (allowed) {
+                tokens -= 1.0;
+            }
+            long reset = (long) Math.ceil((limit.burst() - tokens) / rate);
+            long retryAfter = allowed ? 0 : (long) Math.ceil((1.0 - tokens) / rate);
+            return new Decision(allowed, limit.burst(), (int) tokens, reset, retryAfter);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.airline.loyalty.service;
+
+import com.airline.loyalty.model.PromoResponse;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * WarmCache persists the FX rate cache and the promo engine's table to a local
+ * snapshot file, so an instance starting after a deploy begins with them
+ * instead of empty caches.
+ *
+ * The snapshot is rewritten every {@code warmCache.writeIntervalMillis} (to a
+ * temporary file, then moved over the old one) and restored before the server
+ * starts listening. Restored FX rates are stale: they are served while a fresh
+ * rate is fetched in the background. Restored promos are used until the
+ * first successful catalogue sync. Anything older than
+ * {@code warmCache.maxAgeMillis} is not restored.
+ *
+ * Snapshot layout (big-endian):
+ * <pre>
+ * int    magic "WCS1"
+ * long   saved at (epoch millis)
+ * string base currency
+ * int    FX rate count
+ *   string currency, double rate to base, long fetched at (epoch millis)
+ * int    promo count
+ *   string promo definition (JSON)
+ * </pre>
+ * where a string is an int byte length followed by UTF-8 bytes.
+ */
+public class WarmCache {
+    private static final Logger logger = LoggerFactory.getLogger(WarmCache.class);
+
+    private static final int MAGIC = 0x57435331;
+
+    private final Vertx vertx;
+    private final String file;
+    private final long writeIntervalMillis;
+    private final long maxAgeMillis;
+    private final LongSupplier clock;
+
+    public WarmCache(Vertx vertx, JsonObject config) {
+        this(vertx, config, System::currentTimeMillis);
+    }
+
+    WarmCache(Vertx vertx, JsonObject config, LongSupplier clock) {
+        JsonObject cacheConfig = config.getJsonObject("warmCache", new JsonObject());
+        this.vertx = vertx;
+        this.file = cacheConfig.getString("file", "data/warm-cache.bin");
+        this.writeIntervalMillis = cacheConfig.getLong("writeIntervalMillis", 60000L);
+        this.maxAgeMillis = cacheConfig.getLong("maxAgeMillis", 3600000L);
+        this.clock = clock;
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getJsonObject("warmCache", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    /**
+     * Restores the snapshot into {@code fxRates} and {@code promoEngine}
+     * (which may be {@code null}). Completes once done, and does not fail: a
+     * missing or unreadable snapshot just leaves the caches empty.
+     */
+    public Future<Void> restore(FxRateTable fxRates, PromoEngine promoEngine) {
+        return vertx.fileSystem().exists(file)
+            .compose(exists -> exists ? vertx.fileSystem().readFile(file) : Future.succeededFuture())
+            .map(buffer -> buffer == null ? null : decode(buffer))
+            .onSuccess(snapshot -> {
+                if (snapshot == null) {
+                    logger.info("No warm-cache snapshot at {}, starting cold", file);
+                    return;
+                }
+                long oldest = clock.getAsLong() - maxAgeMillis;
+                List<FxRateTable.CachedRate> rates = snapshot.fxRates().stream()
+                    .filter(rate -> rate.fetchedAtMillis() >= oldest)
+                    .toList();
+                int restoredRates = fxRates.restore(snapshot.baseCurrency(), rates);
+                int restoredPromos = promoEngine != null && snapshot.savedAtMillis() >= oldest
+                    ? promoEngine.restore(snapshot.promos()) : 0;
+                logger.info("Warm-cache snapshot restored: {} FX rates, {} promos", restoredRates, restoredPromos);
+            })
+            .onFailure(err -> logger.warn("Warm-cache snapshot {} not restored: {}", file, err.toString()))
+            .<Void>mapEmpty()
+            .otherwiseEmpty();
+    }
+
+    /**
+     * Writes a snapshot every {@code writeIntervalMillis}.
+     *
+     * @return the timer ID
+     */
+    public long startWriting(FxRateTable fxRates, PromoEngine promoEngine) {
+        return vertx.setPeriodic(writeIntervalMillis, id -> write(fxRates, promoEngine));
+    }
+
+    /**
+     * Replaces the snapshot file with the current cache contents.
+     */
+    public Future<Void> write(FxRateTable fxRates, PromoEngine promoEngine) {
+        Snapshot snapshot = new Snapshot(clock.getAsLong(), fxRates.getBaseCurrency(), fxRates.snapshot(),
+            promoEngine != null ? promoEngine.snapshot() : List.of());
+        String tmp = file + ".tmp";
+        Path parent = Path.of(file).toAbsolutePath().getParent();
+        return vertx.fileSystem().mkdirs(parent.toString())
+            .compose(v -> vertx.fileSystem().writeFile(tmp, encode(snapshot)))
+            .compose(v -> vertx.fileSystem().move(tmp, file,
+                new CopyOptions().setReplaceExisting(true).setAtomicMove(true)))
+            .onSuccess(v -> logger.debug("Warm-cache snapshot written: {} FX rates, {} promos",
+                snapshot.fxRates().size(), snapshot.promos().size()))
+            .onFailure(err -> logger.warn("Failed to write warm-cache snapshot {}: {}", file, err.toString()));
+    }
+
+    static Buffer encode(Snapshot snapshot) {
+        Buffer buffer = Buffer.buffer(64 + snapshot.fxRates().size() * 24 + snapshot.promos().size() * 128);
+        buffer.appendInt(MAGIC);
+        buffer.appendLong(snapshot.savedAtMillis());
+        appendString(buffer, snapshot.baseCurrency());
+        buffer.appendInt(snapshot.fxRates().size());
+        for (FxRateTable.CachedRate rate : snapshot.fxRates()) {
+            appendString(buffer, rate.currency());
+            buffer.appendDouble(rate.rateToBase());
+            buffer.appendLong(rate.fetchedAtMillis());
+        }
+        buffer.appendInt(snapshot.promos().size());
+        for (PromoResponse promo : snapshot.promos()) {
+            appendString(buffer, JsonObject.mapFrom(promo).encode());
+        }
+        return buffer;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code buffer} is not a complete snapshot
+     */
+    static Snapshot decode(Buffer buffer) {
+        try {
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not a warm-cache snapshot");
+            }
+            int[] pos = {4};
+            long savedAt = buffer.getLong(pos[0]);
+            pos[0] += Long.BYTES;
+            String base = readString(buffer, pos);
+            int rateCount = readInt(buffer, pos);
+            List<FxRateTable.CachedRate> rates = new ArrayList<>();
+            for (int i = 0; i < rateCount; i++) {
+                String currency = readString(buffer, pos);
+                double rate = buffer.getDouble(pos[0]);
+                long fetchedAt = buffer.getLong(pos[0] + Double.BYTES);
+                pos[0] += Double.BYTES + Long.BYTES;
+                rates.add(new FxRateTable.CachedRate(currency, rate, fetchedAt));
+            }
+            int promoCount = readInt(buffer, pos);
+            List<PromoResponse> promos = new ArrayList<>();
+            for (int i = 0; i < promoCount; i++) {
+                promos.add(new JsonObject(readString(buffer, pos)).mapTo(PromoResponse.class));
+            }
+            return new Snapshot(savedAt, base, rates, promos);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated warm-cache snapshot", e);
+        }
+    }
+
+    private static void appendString(Buffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.appendInt(bytes.length);
+        buffer.appendBytes(bytes);
+    }
+
+    private static int readInt(Buffer buffer, int[] pos) {
+        int value = buffer.getInt(pos[0]);
+        pos[0] += Integer.BYTES;
+        return value;
+    }
+
+    private static String readString(Buffer buffer, int[] pos) {
+        int length = readInt(buffer, pos);
+        String value = buffer.getString(pos[0], pos[0] + length, StandardCharsets.UTF_8.name());
+        pos[0] += length;
+        return value;
+    }
+
+    record Snapshot(long savedAtMillis, String baseCurrency, List<FxRateTable.CachedRate> fxRates,
+                    List<PromoResponse> promos) {}
+}
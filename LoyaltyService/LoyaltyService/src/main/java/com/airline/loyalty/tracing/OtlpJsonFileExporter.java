@@ -0,0 +1,228 @@
+package com.airline.loyalty.tracing;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes exported traces to a local file on a background thread, in the
+ * OTLP/JSON encoding: one {@code ExportTraceServiceRequest} per line, as the
+ * OpenTelemetry Collector's file exporter writes and its file receiver reads.
+ *
+ * Traces are queued without blocking and dropped (and counted) when the queue
+ * is full. The file rolls over to {@code <file>.1}, {@code <file>.2}, ... once
+ * it exceeds {@code maxFileBytes}, keeping {@code maxFiles} old files.
+ */
+final class OtlpJsonFileExporter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OtlpJsonFileExporter.class);
+
+    private static final int MAX_TRACES_PER_LINE = 256;
+
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final JsonObject resource;
+    private final BlockingQueue<List<Span>> queue;
+    private final AtomicLong exported = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private OutputStream out;
+    private long fileBytes;
+
+    OtlpJsonFileExporter(Path file, long maxFileBytes, int maxFiles, int queueSize, String serviceName) {
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.resource = new JsonObject().put("attributes", new JsonArray()
+            .add(attribute("service.name", serviceName)));
+        this.worker = new Thread(this::run, "trace-exporter");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues a trace's spans for export.
+     *
+     * @return false if the queue was full and the trace dropped
+     */
+    boolean export(List<Span> spans) {
+        if (queue.offer(spans)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    long getExportedTraces() {
+        return exported.get();
+    }
+
+    long getDroppedTraces() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes the traces already queued, then stops the worker.
+     */
+    @Override
+    public void close() {
+        // No interrupt: it would close the file channel mid-write
+        running = false;
+        try {
+            worker.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<List<Span>> batch = new ArrayList<>(MAX_TRACES_PER_LINE);
+        while (running || !queue.isEmpty()) {
+            try {
+                List<Span> first = running ? queue.poll(100, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_TRACES_PER_LINE - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to export {} traces to {}: {}", batch.size(), file, e.toString());
+            } finally {
+                batch.clear();
+            }
+        }
+        closeOutput();
+    }
+
+    private void write(List<List<Span>> traces) throws IOException {
+        JsonArray spans = new JsonArray();
+        for (List<Span> trace : traces) {
+            for (Span span : trace) {
+                spans.add(encode(span));
+            }
+        }
+        JsonObject request = new JsonObject().put("resourceSpans", new JsonArray().add(new JsonObject()
+            .put("resource", resource)
+            .put("scopeSpans", new JsonArray().add(new JsonObject()
+                .put("scope", new JsonObject().put("name", "com.airline.loyalty"))
+                .put("spans", spans)))));
+        byte[] line = (request.encode() + "\n").getBytes(StandardCharsets.UTF_8);
+
+        if (out == null) {
+            open();
+        }
+        if (fileBytes > 0 && fileBytes + line.length > maxFileBytes) {
+            closeOutput();
+            rotate();
+            open();
+        }
+        out.write(line);
+        out.flush();
+        fileBytes += line.length;
+        exported.addAndGet(traces.size());
+    }
+
+    private void open() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        out = new BufferedOutputStream(
+            Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        fileBytes = Files.size(file);
+    }
+
+    private void rotate() throws IOException {
+        Files.deleteIfExists(Path.of(file + "." + maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path older = Path.of(file + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, Path.of(file + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, Path.of(file + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+    }
+
+    private void closeOutput() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close {}: {}", file, e.toString());
+            }
+            out = null;
+        }
+    }
+
+    static JsonObject encode(Span span) {
+        Trace trace = span.trace;
+        JsonObject json = new JsonObject()
+            .put("traceId", trace.traceIdHex())
+            .put("spanId", Span.hex(span.spanId));
+        if (span.parentSpanId != 0L) {
+            json.put("parentSpanId", Span.hex(span.parentSpanId));
+        }
+        json.put("name", span.name)
+            .put("kind", span.kind.otlpValue)
+            .put("startTimeUnixNano", Long.toString(trace.unixNanos(span.startNanoTime)))
+            .put("endTimeUnixNano", Long.toString(trace.unixNanos(span.endNanoTime)));
+
+        JsonArray attributes = new JsonArray();
+        if (span.kind == Span.Kind.SERVER && trace.requestId != null) {
+            attributes.add(attribute("request.id", trace.requestId));
+        }
+        if (span.attributes != null) {
+            for (int i = 0; i < span.attributes.size(); i += 2) {
+                attributes.add(attribute((String) span.attributes.get(i), span.attributes.get(i + 1)));
+            }
+        }
+        if (!attributes.isEmpty()) {
+            json.put("attributes", attributes);
+        }
+        if (span.errorMessage != null) {
+            json.put("status", new JsonObject().put("code", 2).put("message", span.errorMessage));
+        }
+        return json;
+    }
+
+    private static JsonObject attribute(String key, Object value) {
+        JsonObject anyValue = new JsonObject();
+        if (value instanceof Boolean b) {
+            anyValue.put("boolValue", b);
+        } else if (value instanceof Double || value instanceof Float) {
+            anyValue.put("doubleValue", ((Number) value).doubleValue());
+        } else if (value instanceof Number n) {
+            // int64 values are JSON strings in OTLP/JSON
+            anyValue.put("intValue", Long.toString(n.longValue()));
+        } else {
+            anyValue.put("stringValue", String.valueOf(value));
+        }
+        return new JsonObject().put("key", key).put("value", anyValue);
+    }
+}
@@ -0,0 +1,118 @@
+package com.airline.loyalty.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A timed operation within a request's trace. Spans are cheap to record: IDs
+ * are kept as longs and only rendered when a sampled trace is exported.
+ *
+ * Outside a traced request {@link Tracing} hands out {@link #NOOP}, whose
+ * methods do nothing, so instrumented code needs no null checks.
+ */
+public final class Span {
+
+    /** OTLP span kinds. */
+    public enum Kind {
+        INTERNAL(1), SERVER(2), CLIENT(3);
+
+        final int otlpValue;
+
+        Kind(int otlpValue) {
+            this.otlpValue = otlpValue;
+        }
+    }
+
+    public static final Span NOOP = new Span(null, 0L, 0L, "", Kind.INTERNAL);
+
+    final Trace trace;
+    final long spanId;
+    final long parentSpanId;
+    final String name;
+    final Kind kind;
+    final long startNanoTime;
+    long endNanoTime;
+    // Alternating keys and values
+    List<Object> attributes;
+    String errorMessage;
+
+    Span(Trace trace, long spanId, long parentSpanId, String name, Kind kind) {
+        this.trace = trace;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.startNanoTime = trace != null ? System.nanoTime() : 0L;
+    }
+
+    static long newId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0L);
+        return id;
+    }
+
+    public boolean isRecording() {
+        return trace != null;
+    }
+
+    /**
+     * Starts a span of the same trace with this one as its parent.
+     */
+    public Span child(String name, Kind kind) {
+        return trace != null ? new Span(trace, newId(), spanId, name, kind) : NOOP;
+    }
+
+    /**
+     * @param value a String, Boolean, integral Number or floating-point Number
+     */
+    public Span setAttribute(String key, Object value) {
+        if (trace != null && value != null) {
+            if (attributes == null) {
+                attributes = new ArrayList<>(4);
+            }
+            attributes.add(key);
+            attributes.add(value);
+        }
+        return this;
+    }
+
+    /**
+     * Marks the span as failed. A trace with a failed span is always exported.
+     */
+    public Span fail(Throwable err) {
+        return fail(err.getMessage() != null ? err.getMessage() : err.getClass().getSimpleName());
+    }
+
+    public Span fail(String message) {
+        if (trace != null) {
+            errorMessage = message;
+        }
+        return this;
+    }
+
+    public void end() {
+        if (trace != null && endNanoTime == 0L) {
+            endNanoTime = System.nanoTime();
+            trace.finish(this);
+        }
+    }
+
+    /**
+     * W3C trace context for a request made within this span.
+     */
+    public String traceparent() {
+        return "00-" + trace.traceIdHex() + "-" + hex(spanId) + (trace.headSampled ? "-01" : "-00");
+    }
+
+    String requestId() {
+        return trace != null ? trace.requestId : null;
+    }
+
+    static String hex(long value) {
+        String digits = Long.toHexString(value);
+        return "0000000000000000".substring(digits.length()) + digits;
+    }
+}
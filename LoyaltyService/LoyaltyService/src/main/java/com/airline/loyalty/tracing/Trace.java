@@ -0,0 +1,62 @@
+package com.airline.loyalty.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The spans recorded for one request. Finished spans are collected until the
+ * request's root span ends, when {@link Tracer} decides whether to export them;
+ * spans ending after that (e.g. an FX retry outliving its request) are
+ * dropped.
+ */
+final class Trace {
+
+    final long traceIdHigh;
+    final long traceIdLow;
+    final boolean headSampled;
+    final String requestId;
+    private final long startEpochNanos;
+    private final long startNanoTime;
+
+    private final List<Span> finished = new ArrayList<>(8);
+    private boolean failed;
+    private boolean closed;
+
+    Trace(long traceIdHigh, long traceIdLow, boolean headSampled, String requestId) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.headSampled = headSampled;
+        this.requestId = requestId;
+        this.startNanoTime = System.nanoTime();
+        this.startEpochNanos = System.currentTimeMillis() * 1_000_000L;
+    }
+
+    synchronized void finish(Span span) {
+        if (!closed) {
+            finished.add(span);
+            failed |= span.errorMessage != null;
+        }
+    }
+
+    /**
+     * Stops collecting spans.
+     *
+     * @return the finished spans
+     */
+    synchronized List<Span> close() {
+        closed = true;
+        return finished;
+    }
+
+    synchronized boolean failed() {
+        return failed;
+    }
+
+    long unixNanos(long nanoTime) {
+        return startEpochNanos + (nanoTime - startNanoTime);
+    }
+
+    String traceIdHex() {
+        return Span.hex(traceIdHigh) + Span.hex(traceIdLow);
+    }
+}
@@ -0,0 +1,139 @@
+package com.airline.loyalty.tracing;
+
+import com.airline.loyalty.logging.RequestLogContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tracer records a trace for each request it handles and exports the
+ * interesting ones to a local OTLP/JSON file (see {@link OtlpJsonFileExporter}).
+ *
+ * Every trace is recorded, but only exported if it was head-sampled (a
+ * {@code tracing.sampleRate} share of new traces, or an incoming
+ * {@code traceparent} flagged sampled), or, when the request is over, any of
+ * its spans failed, it ended with a 5xx, or it took at least
+ * {@code tracing.slowThresholdMillis}. The rest are only counted.
+ */
+public class Tracer implements AutoCloseable {
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final OtlpJsonFileExporter exporter;
+
+    private final Counter headSampled;
+    private final Counter failedSampled;
+    private final Counter slowSampled;
+    private final Counter sampledOut;
+
+    public Tracer(JsonObject config, MeterRegistry meterRegistry) {
+        JsonObject tracingConfig = config.getJsonObject("tracing", new JsonObject());
+        this.sampleRate = tracingConfig.getDouble("sampleRate", 0.01);
+        this.slowThresholdNanos = tracingConfig.getLong("slowThresholdMillis", 500L) * 1_000_000L;
+        this.exporter = new OtlpJsonFileExporter(
+            Path.of(tracingConfig.getString("file", "logs/traces.otlp.jsonl")),
+            tracingConfig.getLong("maxFileBytes", 10L * 1024 * 1024),
+            tracingConfig.getInteger("maxFiles", 5),
+            tracingConfig.getInteger("queueSize", 1024),
+            tracingConfig.getString("serviceName", "points-quote-service"));
+
+        this.headSampled = tracesCounter(meterRegistry, "head");
+        this.failedSampled = tracesCounter(meterRegistry, "error");
+        this.slowSampled = tracesCounter(meterRegistry, "slow");
+        this.sampledOut = tracesCounter(meterRegistry, "none");
+        FunctionCounter.builder("tracing_traces_exported_total", exporter, OtlpJsonFileExporter::getExportedTraces)
+            .description("Traces written to the trace file")
+            .register(meterRegistry);
+        FunctionCounter.builder("tracing_traces_dropped_total", exporter, OtlpJsonFileExporter::getDroppedTraces)
+            .description("Sampled traces dropped because the export queue was full")
+            .register(meterRegistry);
+    }
+
+    private static Counter tracesCounter(MeterRegistry meterRegistry, String sampled) {
+        return Counter.builder("tracing_traces_total")
+            .description("Recorded traces, by why they were exported (none: not exported)")
+            .tag("sampled", sampled)
+            .register(meterRegistry);
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getJsonObject("tracing", new JsonObject()).getBoolean("enabled", false);
+    }
+
+    /**
+     * Route handler: starts the request's trace, continuing an incoming
+     * {@code traceparent}, and finishes it when the response has been sent.
+     */
+    public void traceRequest(RoutingContext ctx) {
+        Span root = startTrace(ctx.request().getHeader(Tracing.TRACEPARENT_HEADER),
+            ctx.get(RequestLogContext.REQUEST_ID_HEADER), ctx.request().method().name() + " " + ctx.request().path());
+        Context context = ctx.vertx().getOrCreateContext();
+        context.putLocal(Tracing.CONTEXT_KEY, root);
+
+        ctx.addEndHandler(ar -> {
+            context.removeLocal(Tracing.CONTEXT_KEY);
+            int status = ctx.response().getStatusCode();
+            root.setAttribute("http.status_code", status);
+            if (ar.failed()) {
+                root.fail(ar.cause());
+            } else if (status >= 500) {
+                root.fail("HTTP " + status);
+            }
+            root.end();
+            finish(root);
+        });
+        ctx.next();
+    }
+
+    Span startTrace(String traceparent, String requestId, String name) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (traceparent != null && traceparent.length() == 55 && traceparent.startsWith("00-")) {
+            try {
+                long high = Long.parseUnsignedLong(traceparent, 3, 19, 16);
+                long low = Long.parseUnsignedLong(traceparent, 19, 35, 16);
+                long parentSpanId = Long.parseUnsignedLong(traceparent, 36, 52, 16);
+                boolean sampled = (Integer.parseInt(traceparent, 53, 55, 16) & 1) == 1;
+                if ((high != 0L || low != 0L) && parentSpanId != 0L) {
+                    Trace trace = new Trace(high, low, sampled, requestId);
+                    return new Span(trace, Span.newId(), parentSpanId, name, Span.Kind.SERVER);
+                }
+            } catch (NumberFormatException e) {
+                // Malformed: start a new trace
+            }
+        }
+        Trace trace = new Trace(Span.newId(), Span.newId(), random.nextDouble() < sampleRate, requestId);
+        return new Span(trace, Span.newId(), 0L, name, Span.Kind.SERVER);
+    }
+
+    /**
+     * Tail sampling: exports the trace of {@code root}, which has ended, if
+     * it was head-sampled, failed or slow.
+     */
+    void finish(Span root) {
+        Trace trace = root.trace;
+        List<Span> spans = trace.close();
+        if (trace.headSampled) {
+            headSampled.increment();
+        } else if (trace.failed()) {
+            failedSampled.increment();
+        } else if (root.endNanoTime - root.startNanoTime >= slowThresholdNanos) {
+            slowSampled.increment();
+        } else {
+            sampledOut.increment();
+            return;
+        }
+        exporter.export(spans);
+    }
+
+    @Override
+    public void close() {
+        exporter.close();
+    }
+}
@@ -0,0 +1,56 @@
+package com.airline.loyalty.tracing;
+
+import com.airline.loyalty.logging.RequestLogContext;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.client.HttpRequest;
+
+/**
+ * Access to the current request's trace from code that has no handle on the
+ * request, such as the FX and promo clients.
+ *
+ * {@link Tracer} stores the request's root span in the request's Vert.x
+ * context, which every callback, timer and await of that request runs on.
+ * Anywhere else (startup, batch re-pricing, warm-up) the current span is
+ * {@link Span#NOOP}.
+ */
+public final class Tracing {
+
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    static final String CONTEXT_KEY = "loyalty.trace.root";
+
+    private Tracing() {}
+
+    public static Span current() {
+        Context context = Vertx.currentContext();
+        if (context == null) {
+            return Span.NOOP;
+        }
+        Span root = context.getLocal(CONTEXT_KEY);
+        return root != null ? root : Span.NOOP;
+    }
+
+    public static Span startSpan(String name) {
+        return current().child(name, Span.Kind.INTERNAL);
+    }
+
+    public static Span startSpan(String name, Span.Kind kind) {
+        return current().child(name, kind);
+    }
+
+    /**
+     * Propagates the trace context and request ID on a downstream call made
+     * within {@code span}.
+     */
+    public static void inject(HttpRequest<?> request, Span span) {
+        if (!span.isRecording()) {
+            return;
+        }
+        request.putHeader(TRACEPARENT_HEADER, span.traceparent());
+        String requestId = span.requestId();
+        if (requestId != null) {
+            request.putHeader(RequestLogContext.REQUEST_ID_HEADER, requestId);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.airline.loyalty;
+
+import com.airline.loyalty.ledger.AccrualLedger;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ledger durability: balances come back after a clean close (from the
+ * snapshot) and after a crash (replaying the WAL, up to a torn record), and
+ * so do the credit IDs that keep a retried credit from being applied twice.
+ */
+class AccrualLedgerTest {
+
+    // A WAL record for a two-byte member ID and no credit ID: length, LSN, time, points, ID length, ID,
+    // credit ID length, CRC
+    private static final int RECORD_BYTES = 4 + 8 + 8 + 8 + 2 + 2 + 2 + 4;
+
+    @TempDir
+    Path dir;
+
+    private AccrualLedger open(int walSegmentBytes) throws IOException {
+        AccrualLedger ledger = new AccrualLedger(new JsonObject().put("ledger", new JsonObject()
+            .put("directory", dir.toString())
+            .put("walSegmentBytes", walSegmentBytes)));
+        ledger.recover();
+        return ledger;
+    }
+
+    private static long await(Future<Long> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    private static void creditAll(AccrualLedger ledger, String memberId, long... points) throws Exception {
+        List<Future<Long>> credits = new ArrayList<>();
+        for (long p : points) {
+            credits.add(ledger.credit(memberId, p));
+        }
+        for (Future<Long> credit : credits) {
+            await(credit);
+        }
+    }
+
+    private List<Path> walSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().startsWith("wal-")).sorted().toList();
+        }
+    }
+
+    @Test
+    void shouldRestoreBalancesFromSnapshotAfterClose() throws Exception {
+        AccrualLedger ledger = open(1 << 20);
+        assertThat(await(ledger.credit("M1", 100))).isEqualTo(100);
+        assertThat(await(ledger.credit("M1", 50))).isEqualTo(150);
+        creditAll(ledger, "M2", 7, 8);
+        ledger.close();
+
+        assertThat(dir.resolve("balances.snapshot")).exists();
+        AccrualLedger reopened = open(1 << 20);
+        assertThat(reopened.balance("M1")).hasValue(150);
+        assertThat(reopened.balance("M2")).hasValue(15);
+        assertThat(reopened.balance("M3")).isEmpty();
+        assertThat(await(reopened.credit("M1", 1))).isEqualTo(151);
+        reopened.close();
+    }
+
+    @Test
+    void shouldReplayWalAfterCrash() throws Exception {
+        AccrualLedger crashed = open(1 << 20);
+        creditAll(crashed, "M1", 10, 20, 30);
+
+        // Never closed: no snapshot, so everything comes from the WAL
+        assertThat(dir.resolve("balances.snapshot")).doesNotExist();
+        AccrualLedger recovered = open(1 << 20);
+        assertThat(recovered.balance("M1")).hasValue(60);
+        assertThat(await(recovered.credit("M1", 1))).isEqualTo(61);
+    }
+
+    @Test
+    void shouldStopReplayAtTornRecord() throws Exception {
+        AccrualLedger crashed = open(1 << 20);
+        creditAll(crashed, "M1", 10, 20, 30);
+
+        // Corrupt the third record's points, as a write torn by a crash would
+        try (FileChannel wal = FileChannel.open(walSegments().get(0), StandardOpenOption.WRITE)) {
+            wal.write(ByteBuffer.wrap(new byte[] {0x7f}), 2L * RECORD_BYTES + 20);
+        }
+
+        AccrualLedger recovered = open(1 << 20);
+        assertThat(recovered.balance("M1")).hasValue(30);
+        // The torn record's LSN is reused and the next recovery sees the new record
+        creditAll(recovered, "M1", 5);
+        assertThat(open(1 << 20).balance("M1")).hasValue(35);
+    }
+
+    @Test
+    void shouldSnapshotAndRollWhenSegmentFills() throws Exception {
+        // Five records fit in a segment
+        AccrualLedger crashed = open(5 * RECORD_BYTES + 4);
+        for (int i = 0; i < 12; i++) {
+            creditAll(crashed, "M1", 1);
+        }
+        creditAll(crashed, "M2", 100);
+
+        assertThat(dir.resolve("balances.snapshot")).exists();
+        assertThat(walSegments()).hasSize(1);
+        AccrualLedger recovered = open(5 * RECORD_BYTES + 4);
+        assertThat(recovered.balance("M1")).hasValue(12);
+        assertThat(recovered.balance("M2")).hasValue(100);
+    }
+
+    @Test
+    void shouldCreditRetryOnlyOnceAcrossRestarts() throws Exception {
+        AccrualLedger crashed = open(1 << 20);
+        assertThat(await(crashed.credit("M1", "req-1", 100))).isEqualTo(100);
+        assertThat(await(crashed.credit("M1", "req-1", 100))).isEqualTo(100);
+
+        // From the WAL after a crash
+        AccrualLedger recovered = open(1 << 20);
+        assertThat(await(recovered.credit("M1", "req-1", 100))).isEqualTo(100);
+        // The same ID for another member is another credit
+        assertThat(await(recovered.credit("M2", "req-1", 5))).isEqualTo(5);
+        recovered.close();
+
+        // From the snapshot after a clean close
+        AccrualLedger reopened = open(1 << 20);
+        assertThat(await(reopened.credit("M1", "req-1", 100))).isEqualTo(100);
+        assertThat(await(reopened.credit("M1", "req-2", 100))).isEqualTo(200);
+        assertThat(reopened.getDuplicateCredits()).isEqualTo(1);
+        reopened.close();
+    }
+}
@@ -0,0 +1,147 @@
+package com.airline.loyalty;
+
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Accruals credit the quoted points to the member's balance, for callers
+ * holding the ledger token.
+ */
+class AccrualTest extends BaseComponentTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        config.getJsonObject("ledger")
+            .put("enabled", true)
+            .put("directory", tempDir.resolve("ledger").toString());
+        return super.deploymentOptions(config);
+    }
+
+    private ValidatableResponse postAccrual(JsonObject body) {
+        return ledger()
+            .contentType(ContentType.JSON)
+            .body(body.encode())
+            .when()
+            .post("/v1/points/accrue")
+            .then();
+    }
+
+    private static JsonObject accrual(String memberId, String currency, double fareAmount) {
+        return new JsonObject()
+            .put("memberId", memberId)
+            .put("fareAmount", fareAmount)
+            .put("currency", currency)
+            .put("cabinClass", "ECONOMY")
+            .put("customerTier", "NONE");
+    }
+
+    @Test
+    void shouldCreditQuotedPointsToBalance(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.2);
+
+        postAccrual(accrual("M-1001", "USD", 1000.0))
+            .statusCode(200)
+            .body("memberId", is("M-1001"))
+            .body("pointsCredited", is(1000))
+            .body("balance", is(1000))
+            .body("quote.totalPoints", is(1000));
+        postAccrual(accrual("M-1001", "EUR", 1000.0))
+            .statusCode(200)
+            .body("pointsCredited", is(1200))
+            .body("balance", is(2200));
+
+        ledger().get("/v1/points/balance/M-1001")
+            .then()
+            .statusCode(200)
+            .body("balance", is(2200));
+        ledger().get("/v1/points/balance/M-9999")
+            .then()
+            .statusCode(404)
+            .body("error", is("NOT_FOUND"));
+
+        given().baseUri("http://localhost:9090").get("/metrics").then()
+            .body(containsString("ledger_credits_committed_total 2.0"))
+            .body(containsString("ledger_members 1.0"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldNotReplayQuoteForAccrualWithSameRequestId(Vertx vertx, VertxTestContext ctx) {
+        JsonObject body = accrual("M-1002", "USD", 1000.0);
+        JsonObject quote = body.copy();
+        quote.remove("memberId");
+        given().baseUri(baseUrl).contentType(ContentType.JSON)
+            .header("X-Request-ID", "booking-7")
+            .body(quote.encode())
+            .post("/v1/points/quote")
+            .then()
+            .statusCode(200);
+
+        ledger().contentType(ContentType.JSON)
+            .header("X-Request-ID", "booking-7")
+            .body(body.encode())
+            .post("/v1/points/accrue")
+            .then()
+            .statusCode(200)
+            .header("Idempotent-Replayed", nullValue())
+            .body("pointsCredited", is(1000));
+        ledger().contentType(ContentType.JSON)
+            .header("X-Request-ID", "booking-7")
+            .body(body.encode())
+            .post("/v1/points/accrue")
+            .then()
+            .statusCode(200)
+            .header("Idempotent-Replayed", "true")
+            .body("balance", is(1000));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldRejectAccrualWithoutMember(Vertx vertx, VertxTestContext ctx) {
+        postAccrual(accrual(" ", "USD", 1000.0))
+            .statusCode(400)
+            .body("error", is("VALIDATION_ERROR"))
+            .body("message", containsString("memberId"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldRequireLedgerToken(Vertx vertx, VertxTestContext ctx) {
+        given().baseUri(baseUrl).contentType(ContentType.JSON)
+            .body(accrual("M-1003", "USD", 1000.0).encode())
+            .post("/v1/points/accrue")
+            .then()
+            .statusCode(401)
+            .header("WWW-Authenticate", "Bearer");
+        given().baseUri(baseUrl).header("Authorization", "Bearer wrong")
+            .get("/v1/points/balance/M-1003")
+            .then()
+            .statusCode(403)
+            .body("error", is("FORBIDDEN"));
+        // Nothing was credited
+        ledger().get("/v1/points/balance/M-1003").then().statusCode(404);
+
+        given().baseUri("http://localhost:9090").get("/metrics").then()
+            .body(containsString("ledger_requests_rejected_total{reason=\"missing_token\",} 1.0"))
+            .body(containsString("ledger_requests_rejected_total{reason=\"invalid_token\",} 1.0"));
+
+        ctx.completeNow();
+    }
+}
@@ -0,0 +1,93 @@
+package com.airline.loyalty;
+
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.service.PointsCalculationService;
+import com.airline.loyalty.testutils.AllocationMeter;
+import com.airline.loyalty.testutils.InMemoryFxServiceClient;
+import com.airline.loyalty.testutils.InMemoryPromoServiceClient;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+import com.airline.loyalty.testutils.TestConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Fails when a quote allocates more heap than its budget in
+ * allocation-budgets.properties. Runs the calculation against in-memory
+ * downstreams so only the service's own allocation is counted.
+ */
+@ExtendWith(VertxExtension.class)
+class AllocationBudgetTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AllocationBudgetTest.class);
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 20_000;
+
+    private static Properties budgets;
+
+    private PointsCalculationService service;
+    private Map<String, PointsQuoteRequest> shapes;
+
+    @BeforeAll
+    static void loadBudgets() throws IOException {
+        budgets = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/allocation-budgets.properties")) {
+            budgets.load(in);
+        }
+    }
+
+    @BeforeEach
+    void setUp(Vertx vertx) {
+        JsonObject config = TestConfig.load("test");
+        service = new PointsCalculationService(
+            new InMemoryFxServiceClient(vertx, config).withRate("EUR", 1.1),
+            new InMemoryPromoServiceClient(vertx, config)
+                .withPromo("SUMMER25", 0.25, LocalDate.now().plusDays(30), true),
+            config
+        );
+
+        shapes = Map.of(
+            "usdNoPromo", new PointsQuoteRequestBuilder().build(),
+            "fxConversion", new PointsQuoteRequestBuilder().withCurrency("EUR").withCustomerTier("GOLD").build(),
+            "usdWithPromo", new PointsQuoteRequestBuilder().withPromoCode("SUMMER25").build(),
+            "cappedWithPromo", new PointsQuoteRequestBuilder()
+                .withFareAmount(200000.0)
+                .withCustomerTier("PLATINUM")
+                .withPromoCode("SUMMER25")
+                .build()
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"usdNoPromo", "fxConversion", "usdWithPromo", "cappedWithPromo"})
+    void shouldStayWithinAllocationBudget(String shape) {
+        assumeTrue(AllocationMeter.isSupported(), "thread allocation counter not available");
+
+        PointsQuoteRequest request = shapes.get(shape);
+        long budget = Long.parseLong(budgets.getProperty(shape));
+
+        long bytesPerQuote = AllocationMeter.bytesPerOperation(
+            () -> service.calculatePoints(request).result().toResponse(), WARMUP, ITERATIONS);
+        logger.info("Allocation for {}: {} bytes/quote (budget {})", shape, bytesPerQuote, budget);
+
+        assertThat(bytesPerQuote)
+            .as("bytes allocated per %s quote", shape)
+            .isLessThanOrEqualTo(budget);
+    }
+}
@@ -0,0 +1,196 @@
+package com.airline.loyalty;
+
+import com.airline.loyalty.audit.AuditJournal;
+import com.airline.loyalty.audit.AuditRecord;
+import com.airline.loyalty.model.PointsCalculation;
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.model.QuoteWarning;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Audit records round-trip through the journal's segments in order, across
+ * segment rolls and concurrent producers, and records not taken are counted
+ * per the overflow policy.
+ */
+class AuditJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private AuditJournal journal(JsonObject audit) {
+        return new AuditJournal(new JsonObject().put("audit", audit.put("directory", dir.toString())));
+    }
+
+    private static PointsCalculation calculation(int totalPoints) {
+        return PointsCalculation.builder()
+            .basePoints(totalPoints - 100)
+            .tierBonus(60)
+            .promoBonus(40)
+            .totalPoints(totalPoints)
+            .effectiveFxRate(1.1)
+            .addWarning(QuoteWarning.PROMO_EXPIRES_SOON)
+            .build();
+    }
+
+    private List<AuditRecord> readAll() throws Exception {
+        List<AuditRecord> records = new ArrayList<>();
+        for (Path segment : AuditJournal.segments(dir)) {
+            AuditJournal.read(segment, records::add);
+        }
+        return records;
+    }
+
+    private static double count(SimpleMeterRegistry registry, String outcome) {
+        return registry.get("audit_records_total").tag("outcome", outcome).functionCounter().count();
+    }
+
+    @Test
+    void shouldRoundTripRecords() throws Exception {
+        AuditJournal journal = journal(new JsonObject());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        journal.bindTo(registry);
+        journal.start();
+
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder()
+            .withCurrency("EUR")
+            .withCustomerTier("GOLD")
+            .withPromoCode("SUMMER25")
+            .withTargetCurrency("GBP")
+            .build();
+        assertThat(journal.record(AuditRecord.Kind.QUOTE, true, "req-1", null, request, calculation(1500)))
+            .isTrue();
+        assertThat(journal.record(AuditRecord.Kind.ACCRUAL, false, null, "M-1", request, calculation(1600)))
+            .isTrue();
+        journal.close();
+
+        List<AuditRecord> records = readAll();
+        assertThat(records).hasSize(2);
+        AuditRecord quote = records.get(0);
+        assertThat(quote.kind()).isEqualTo(AuditRecord.Kind.QUOTE);
+        assertThat(quote.cached()).isTrue();
+        assertThat(quote.requestId()).isEqualTo("req-1");
+        assertThat(quote.memberId()).isNull();
+        assertThat(quote.fareAmount()).isEqualTo(1000.0);
+        assertThat(quote.currency()).isEqualTo("EUR");
+        assertThat(quote.cabinClass()).isEqualTo("ECONOMY");
+        assertThat(quote.customerTier()).isEqualTo("GOLD");
+        assertThat(quote.promoCode()).isEqualTo("SUMMER25");
+        assertThat(quote.targetCurrency()).isEqualTo("GBP");
+        assertThat(quote.asOfDate()).isNull();
+        assertThat(quote.basePoints()).isEqualTo(1400);
+        assertThat(quote.tierBonus()).isEqualTo(60);
+        assertThat(quote.promoBonus()).isEqualTo(40);
+        assertThat(quote.totalPoints()).isEqualTo(1500);
+        assertThat(quote.effectiveFxRate()).isEqualTo(1.1);
+        assertThat(quote.toJson().getJsonObject("result").getJsonArray("warnings"))
+            .isEqualTo(new JsonArray(List.of(QuoteWarning.PROMO_EXPIRES_SOON.name())));
+        assertThat(records.get(1).kind()).isEqualTo(AuditRecord.Kind.ACCRUAL);
+        assertThat(records.get(1).memberId()).isEqualTo("M-1");
+        assertThat(records.get(1).requestId()).isNull();
+
+        assertThat(count(registry, "written")).isEqualTo(2.0);
+        assertThat(registry.get("audit_batches_total").functionCounter().count()).isPositive();
+    }
+
+    @Test
+    void shouldKeepEveryRecordFromConcurrentProducersAcrossSegments() throws Exception {
+        // The smallest segment allowed holds one full batch, so this rolls many times
+        AuditJournal journal = journal(new JsonObject().put("batchBytes", 1).put("segmentBytes", 1));
+        journal.start();
+
+        int producers = 4;
+        int perProducer = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder().build();
+        for (int p = 0; p < producers; p++) {
+            String prefix = "p" + p + "-";
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    // Spin while the ring is full; this test is about ordering, not overflow
+                    while (!journal.append(AuditRecord.encode(AuditRecord.Kind.QUOTE, false, i, prefix + i, null,
+                            request, calculation(i)))) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        journal.close();
+
+        assertThat(AuditJournal.segments(dir).size()).isGreaterThan(1);
+        List<AuditRecord> records = readAll();
+        assertThat(records).hasSize(producers * perProducer);
+        // Each producer's records come out in the order it appended them
+        for (int p = 0; p < producers; p++) {
+            String prefix = "p" + p + "-";
+            List<Integer> order = records.stream()
+                .filter(r -> r.requestId().startsWith(prefix))
+                .map(AuditRecord::totalPoints)
+                .toList();
+            assertThat(order).hasSize(perProducer).isSorted();
+        }
+    }
+
+    @Test
+    void shouldCountRecordsNotTakenPerPolicy() {
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder().build();
+
+        // Not started, so nothing is taken
+        AuditJournal dropping = journal(new JsonObject());
+        SimpleMeterRegistry dropRegistry = new SimpleMeterRegistry();
+        dropping.bindTo(dropRegistry);
+        assertThat(dropping.record(AuditRecord.Kind.QUOTE, false, "r", null, request, calculation(1000)))
+            .isTrue();
+        assertThat(count(dropRegistry, "dropped")).isEqualTo(1.0);
+        assertThat(count(dropRegistry, "rejected")).isZero();
+
+        AuditJournal rejecting = journal(new JsonObject().put("onFull", "reject"));
+        SimpleMeterRegistry rejectRegistry = new SimpleMeterRegistry();
+        rejecting.bindTo(rejectRegistry);
+        assertThat(rejecting.record(AuditRecord.Kind.QUOTE, false, "r", null, request, calculation(1000)))
+            .isFalse();
+        assertThat(count(rejectRegistry, "rejected")).isEqualTo(1.0);
+        assertThat(count(rejectRegistry, "dropped")).isZero();
+    }
+
+    @Test
+    void shouldStopReadingAtTornRecord() throws Exception {
+        AuditJournal journal = journal(new JsonObject());
+        journal.start();
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder().build();
+        journal.record(AuditRecord.Kind.QUOTE, false, "r1", null, request, calculation(1000));
+        journal.record(AuditRecord.Kind.QUOTE, false, "r2", null, request, calculation(1000));
+        journal.close();
+
+        // Half of a third record, as a crash mid-write would leave
+        Path segment = AuditJournal.segments(dir).get(0);
+        long intact = Files.size(segment);
+        byte[] third = AuditRecord.encode(AuditRecord.Kind.QUOTE, false, 0L, "r3", null, request, calculation(1000));
+        Files.write(segment, Arrays.copyOf(third, third.length / 2), StandardOpenOption.APPEND);
+
+        List<AuditRecord> records = new ArrayList<>();
+        assertThat(AuditJournal.read(segment, records::add)).isEqualTo(intact);
+        assertThat(records).extracting(AuditRecord::requestId).containsExactly("r1", "r2");
+    }
+}
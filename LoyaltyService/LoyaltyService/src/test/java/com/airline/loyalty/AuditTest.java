@@ -0,0 +1,139 @@
+package com.airline.loyalty;
+
+import com.airline.loyalty.audit.AuditJournal;
+import com.airline.loyalty.audit.AuditRecord;
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+import io.restassured.http.ContentType;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Every quote issued, computed or served from the cache, and every accrual
+ * is written to the audit journal.
+ */
+class AuditTest extends BaseComponentTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path auditDir;
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        auditDir = tempDir.resolve("audit");
+        config.getJsonObject("audit")
+            .put("enabled", true)
+            .put("directory", auditDir.toString());
+        config.getJsonObject("ledger")
+            .put("enabled", true)
+            .put("directory", tempDir.resolve("ledger").toString());
+        return super.deploymentOptions(config);
+    }
+
+    /** Waits for the writer to write {@code count} records, returning them. */
+    private List<AuditRecord> awaitRecords(int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            List<AuditRecord> records = new ArrayList<>();
+            if (Files.isDirectory(auditDir)) {
+                for (Path segment : AuditJournal.segments(auditDir)) {
+                    AuditJournal.read(segment, records::add);
+                }
+            }
+            if (records.size() >= count) {
+                return records;
+            }
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private void postQuote(String requestId, PointsQuoteRequest request) {
+        given()
+            .baseUri(baseUrl)
+            .contentType(ContentType.JSON)
+            .header("X-Request-ID", requestId)
+            .body(request)
+            .when()
+            .post("/v1/points/quote")
+            .then()
+            .statusCode(200)
+            .body("totalPoints", is(1200));
+    }
+
+    @Test
+    void shouldJournalComputedAndCachedQuotes(Vertx vertx, VertxTestContext ctx) throws Exception {
+        stubFxRate("EUR", "USD", 1.2);
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder()
+            .withCurrency("EUR")
+            .withCustomerTier("NONE")
+            .build();
+
+        postQuote("audit-1", request);
+        postQuote("audit-2", request);
+
+        List<AuditRecord> records = awaitRecords(2);
+        assertThat(records).hasSize(2);
+        assertThat(records).extracting(AuditRecord::requestId).containsExactly("audit-1", "audit-2");
+        assertThat(records).extracting(AuditRecord::cached).containsExactly(false, true);
+        AuditRecord first = records.get(0);
+        assertThat(first.kind()).isEqualTo(AuditRecord.Kind.QUOTE);
+        assertThat(first.memberId()).isNull();
+        assertThat(first.fareAmount()).isEqualTo(1000.0);
+        assertThat(first.currency()).isEqualTo("EUR");
+        assertThat(first.customerTier()).isEqualTo("NONE");
+        assertThat(first.promoCode()).isNull();
+        assertThat(first.effectiveFxRate()).isEqualTo(1.2);
+        assertThat(first.totalPoints()).isEqualTo(1200);
+        assertThat(records.get(1).totalPoints()).isEqualTo(1200);
+
+        given().baseUri("http://localhost:9090").get("/metrics").then()
+            .body(containsString("audit_records_total{outcome=\"written\",} 2.0"))
+            .body(containsString("audit_records_total{outcome=\"dropped\",} 0.0"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldJournalAccrualWithMember(Vertx vertx, VertxTestContext ctx) throws Exception {
+        stubFxRate("EUR", "USD", 1.2);
+
+        ledger()
+            .contentType(ContentType.JSON)
+            .header("X-Request-ID", "accrual-1")
+            .body(new JsonObject()
+                .put("memberId", "M-1001")
+                .put("fareAmount", 1000.0)
+                .put("currency", "EUR")
+                .put("cabinClass", "ECONOMY")
+                .put("customerTier", "NONE")
+                .encode())
+            .when()
+            .post("/v1/points/accrue")
+            .then()
+            .statusCode(200)
+            .body("pointsCredited", is(1200));
+
+        AuditRecord record = awaitRecords(1).get(0);
+        assertThat(record.kind()).isEqualTo(AuditRecord.Kind.ACCRUAL);
+        assertThat(record.requestId()).isEqualTo("accrual-1");
+        assertThat(record.memberId()).isEqualTo("M-1001");
+        assertThat(record.totalPoints()).isEqualTo(1200);
+
+        ctx.completeNow();
+    }
+}
@@ -1,11 +1,13 @@
 package com.airline.loyalty;
 
 import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.testutils.DownstreamStubs;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 
 import io.restassured.http.ContentType;
 import io.restassured.response.ValidatableResponse;
+import io.restassured.specification.RequestSpecification;
 import io.vertx.config.ConfigRetriever;
 import io.vertx.config.ConfigRetrieverOptions;
 import io.vertx.config.ConfigStoreOptions;
@@ -20,9 +22,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.net.HttpURLConnection;
 import java.net.ServerSocket;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 
@@ -32,6 +41,21 @@ import static io.restassured.RestAssured.given;
 public abstract class BaseComponentTest {
 
     private static final Logger logger = LoggerFactory.getLogger(BaseComponentTest.class);
+
+    /**
+     * Native executable to run instead of deploying MainVerticle in-process
+     * (set by the native profile). Tests that reach into the running
+     * service other than over HTTP are disabled when it is set.
+     */
+    protected static final String NATIVE_BINARY = System.getProperty("loyalty.nativeBinary", "");
+
+    /** Admin server of the test profile, and its token, fresh for each run. */
+    protected static final String ADMIN_URL = "http://localhost:9091";
+    protected static final String ADMIN_TOKEN = UUID.randomUUID().toString();
+    /** Ledger token, fresh for each run. */
+    protected static final String LEDGER_TOKEN = UUID.randomUUID().toString();
+
+    private Process nativeProcess;
     protected WireMockServer fxServiceMock;
     protected WireMockServer promoServiceMock;
     protected int appPort;
@@ -93,24 +117,72 @@ public abstract class BaseComponentTest {
             .put("host", "localhost")
             .put("port", metricsPort);
 
+            config.getJsonObject("ledger")
+                .put("token", LEDGER_TOKEN);
+
+            config.getJsonObject("admin")
+                .put("token", ADMIN_TOKEN);
+
         logger.debug("FX Service Port"+fxPort);
         logger.debug("PROMO Service Port"+promoPort);
         
-        DeploymentOptions options =
-                new DeploymentOptions().setConfig(config);
+        DeploymentOptions options = deploymentOptions(config);
 
+        if (!NATIVE_BINARY.isEmpty()) {
+            vertx.executeBlocking(() -> startNativeBinary(options.getConfig()))
+                .onComplete(testContext.succeedingThenComplete());
+            return;
+        }
             vertx.deployVerticle(new MainVerticle(), options)
                 .onComplete(testContext.succeedingThenComplete());
         });
     }
 
+    /**
+     * Starts the native executable with {@code config} and waits until it
+     * answers /ready.
+     */
+    private Void startNativeBinary(JsonObject config) throws IOException, InterruptedException {
+        Path configFile = Files.createTempFile("loyalty-config", ".json");
+        Files.writeString(configFile, config.encode());
+        nativeProcess = new ProcessBuilder(NATIVE_BINARY, "-Dconfig.file=" + configFile)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("target/native-test.log")))
+            .start();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline) {
+            if (!nativeProcess.isAlive()) {
+                throw new IllegalStateException("Native binary exited with " + nativeProcess.exitValue());
+            }
+            try {
+                HttpURLConnection connection = (HttpURLConnection) URI.create(baseUrl + "/ready").toURL().openConnection();
+                if (connection.getResponseCode() == 200) {
+                    return null;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(20);
+        }
+        throw new IllegalStateException("Native binary not ready after 10s");
+    }
+
     @AfterEach
-    void tearDown(Vertx vertx, VertxTestContext testContext) {
+    void tearDown(Vertx vertx, VertxTestContext testContext) throws InterruptedException {
+        if (nativeProcess != null) {
+            nativeProcess.destroy();
+            nativeProcess.waitFor(10, TimeUnit.SECONDS);
+        }
         fxServiceMock.stop();
         promoServiceMock.stop();
         vertx.close().onComplete(testContext.succeedingThenComplete());
     }
 
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        return MainVerticle.deploymentOptions(config);
+    }
+
     private int findRandomPort() throws IOException {
         try (ServerSocket socket = new ServerSocket(0)) {
             return socket.getLocalPort();
@@ -118,26 +190,31 @@ public abstract class BaseComponentTest {
     }
     
     public void stubFxRate(String from, String to, double rate) {
-        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates"))
-            .withQueryParam("from", equalTo(from))
-            .withQueryParam("to", equalTo(to))
-            .willReturn(okJson("""
-                    {"fromCurrency":"%s","toCurrency":"%s","rate":%f,"timestamp":"%s"}
-                    """.formatted(from, to, rate, LocalDate.now().toString()))));
+        DownstreamStubs.stubFxRate(fxServiceMock, from, to, rate);
     }
-	
+
 	public void stubPromo(String promoCode, double multiplier, LocalDate expiry, boolean active) {
-        promoServiceMock.stubFor(get(urlPathEqualTo("/v1/promos/%s".formatted(promoCode)))
-            .willReturn(okJson("""
-                    {
-                        "promoCode": "%s",
-                        "bonusMultiplier": %f,
-                        "expiryDate": "%s",
-                        "active": %s
-                    }
-                    """.formatted(promoCode, multiplier, expiry.toString(), active))));
+        DownstreamStubs.stubPromo(promoServiceMock, promoCode, multiplier, expiry, active);
     }
 
+	/**
+	 * Request to the admin server, carrying the admin token.
+	 */
+	public RequestSpecification admin() {
+	    return given()
+	            .baseUri(ADMIN_URL)
+	            .header("Authorization", "Bearer " + ADMIN_TOKEN);
+	}
+
+	/**
+	 * Request to the main server, carrying the ledger token.
+	 */
+	public RequestSpecification ledger() {
+	    return given()
+	            .baseUri(baseUrl)
+	            .header("Authorization", "Bearer " + LEDGER_TOKEN);
+	}
+
 	public ValidatableResponse postQuote(PointsQuoteRequest request) {
 	    return given()
 	            .baseUri(baseUrl)
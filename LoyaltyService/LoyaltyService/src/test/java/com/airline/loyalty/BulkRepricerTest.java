@@ -0,0 +1,194 @@
+package com.airline.loyalty;
+
+import com.airline.loyalty.batch.BulkRepricer;
+import com.airline.loyalty.batch.InputFormat;
+import com.airline.loyalty.batch.SnapshotFxServiceClient;
+import com.airline.loyalty.batch.SnapshotPromoServiceClient;
+import com.airline.loyalty.model.PointsCalculation;
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.service.FxRateHistory;
+import com.airline.loyalty.service.PointsCalculationService;
+import com.airline.loyalty.testutils.InMemoryFxServiceClient;
+import com.airline.loyalty.testutils.InMemoryPromoServiceClient;
+import com.airline.loyalty.testutils.TestConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class BulkRepricerTest {
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP"};
+    private static final String[] CABINS = {"ECONOMY", "PREMIUM_ECONOMY", "BUSINESS", "FIRST"};
+    private static final String[] TIERS = {"NONE", "SILVER", "GOLD", "PLATINUM"};
+    private static final String[] PROMOS = {"", "SUMMER25", "ENDING", "UNKNOWN"};
+
+    @TempDir
+    Path dir;
+
+    private JsonObject config;
+    private JsonObject fxSnapshot;
+    private PointsCalculationService batchService;
+    private PointsCalculationService onlineService;
+
+    @BeforeEach
+    void setUp(Vertx vertx) {
+        config = TestConfig.load("test");
+        LocalDate summerEnd = LocalDate.now().plusDays(30);
+        LocalDate ending = LocalDate.now().plusDays(3);
+
+        fxSnapshot = new JsonObject()
+            .put("base", "USD")
+            .put("asOf", "2024-01-31")
+            .put("rates", new JsonObject().put("EUR", 1.1).put("GBP", 1.27));
+        JsonArray promoSnapshot = new JsonArray()
+            .add(new JsonObject().put("promoCode", "SUMMER25").put("bonusMultiplier", 0.25)
+                .put("expiryDate", summerEnd.toString()).put("active", true))
+            .add(new JsonObject().put("promoCode", "ENDING").put("bonusMultiplier", 0.5)
+                .put("expiryDate", ending.toString()).put("active", true));
+
+        batchService = new PointsCalculationService(
+            new SnapshotFxServiceClient(vertx, config, fxSnapshot),
+            new SnapshotPromoServiceClient(vertx, config, promoSnapshot),
+            config);
+        onlineService = new PointsCalculationService(
+            new InMemoryFxServiceClient(vertx, config).withRate("EUR", 1.1).withRate("GBP", 1.27),
+            new InMemoryPromoServiceClient(vertx, config)
+                .withPromo("SUMMER25", 0.25, summerEnd, true)
+                .withPromo("ENDING", 0.5, ending, true),
+            config);
+    }
+
+    @Test
+    void shouldMatchOnlineQuotesForCsvAcrossChunks() throws IOException {
+        List<PointsQuoteRequest> requests = randomRequests(2_000);
+        StringBuilder csv = new StringBuilder("bookingId,fareAmount,currency,cabinClass,customerTier,promoCode\r\n");
+        for (int i = 0; i < requests.size(); i++) {
+            PointsQuoteRequest r = requests.get(i);
+            csv.append("B").append(i).append(',').append(r.getFareAmount()).append(',').append(r.getCurrency())
+                .append(',').append(r.getCabinClass()).append(',').append(r.getCustomerTier())
+                .append(',').append(r.getPromoCode() == null ? "" : r.getPromoCode()).append("\r\n");
+        }
+        Path input = Files.writeString(dir.resolve("bookings.csv"), csv);
+        Path output = dir.resolve("points.csv");
+
+        // Small chunks so rows straddle chunk boundaries
+        BulkRepricer.Result result = new BulkRepricer(batchService, 4, 4096)
+            .reprice(input, InputFormat.of(input), output);
+
+        assertThat(result.rows()).isEqualTo(requests.size());
+        assertThat(result.errors()).isZero();
+        assertMatchesOnline(requests, Files.readAllLines(output));
+    }
+
+    @Test
+    void shouldMatchOnlineQuotesForNdjson() throws IOException {
+        List<PointsQuoteRequest> requests = randomRequests(500);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < requests.size(); i++) {
+            ndjson.append(JsonObject.mapFrom(requests.get(i)).put("bookingId", "B" + i).encode()).append('\n');
+        }
+        Path input = Files.writeString(dir.resolve("bookings.ndjson"), ndjson);
+        Path output = dir.resolve("points.csv");
+
+        BulkRepricer.Result result = new BulkRepricer(batchService, 2, 1024)
+            .reprice(input, InputFormat.of(input), output);
+
+        assertThat(result.rows()).isEqualTo(requests.size());
+        assertMatchesOnline(requests, Files.readAllLines(output));
+    }
+
+    @Test
+    void shouldReportBadRowsWithoutStopping() throws IOException {
+        Path input = Files.writeString(dir.resolve("bookings.csv"), """
+            bookingId,fareAmount,currency,cabinClass,customerTier
+            B1,100.0,JPY,ECONOMY,NONE
+            B2,abc,USD,ECONOMY,NONE
+            B3,100.0,USD,ECONOMY,BRONZE
+            B4,100.0,USD,ECONOMY,NONE
+            """);
+        Path output = dir.resolve("points.csv");
+
+        BulkRepricer.Result result = new BulkRepricer(batchService, 1, 1 << 20)
+            .reprice(input, InputFormat.CSV, output);
+
+        List<String> lines = Files.readAllLines(output);
+        assertThat(result.rows()).isEqualTo(4);
+        assertThat(result.errors()).isEqualTo(3);
+        assertThat(lines.get(1)).startsWith("B1,,,,,,,No FX rate for JPY");
+        assertThat(lines.get(2)).isEqualTo(",,,,,,,Malformed record at byte 80: fareAmount is not a number: abc");
+        assertThat(lines.get(3)).isEqualTo("B3,,,,,,,Invalid customer tier: BRONZE");
+        assertThat(lines.get(4)).isEqualTo("B4,100,0,0,100,1.0,,");
+    }
+
+    @Test
+    void shouldQuoteEachBookingAtItsBookingDate(Vertx vertx) throws IOException {
+        Path input = Files.writeString(dir.resolve("bookings.csv"), """
+            bookingId,fareAmount,currency,cabinClass,customerTier,asOfDate
+            B1,100.0,USD,ECONOMY,NONE,2024-01-15
+            B2,100.0,EUR,ECONOMY,NONE,2024-01-15
+            B3,100.0,EUR,ECONOMY,NONE,2023-01-15
+            B4,100.0,USD,ECONOMY,NONE,%s
+            B5,100.0,EUR,ECONOMY,NONE,
+            """.formatted(LocalDate.now().plusDays(1)));
+        Path output = dir.resolve("points.csv");
+        FxRateHistory history = new FxRateHistory.Builder("USD")
+            .put("EUR", LocalDate.of(2024, 1, 15), 1.08)
+            .build();
+        PointsCalculationService service = new PointsCalculationService(
+            new SnapshotFxServiceClient(vertx, config, fxSnapshot), history,
+            new SnapshotPromoServiceClient(vertx, config, new JsonArray()), null, config);
+
+        new BulkRepricer(service, 1, 1 << 20).reprice(input, InputFormat.CSV, output);
+
+        List<String> lines = Files.readAllLines(output);
+        assertThat(lines.get(1)).isEqualTo("B1,100,0,0,100,1.0,,");
+        // At the history's rate for the booking date, not the snapshot's
+        assertThat(lines.get(2)).isEqualTo("B2,108,0,0,108,1.08,,");
+        assertThat(lines.get(3)).isEqualTo("B3,,,,,,,No FX rate for EUR as of 2023-01-15");
+        assertThat(lines.get(4)).isEqualTo("B4,,,,,,,asOfDate must not be in the future");
+        assertThat(lines.get(5)).isEqualTo("B5,110,0,0,110,1.1,,");
+    }
+
+    private void assertMatchesOnline(List<PointsQuoteRequest> requests, List<String> lines) {
+        assertThat(lines.get(0) + "\n").isEqualTo(BulkRepricer.OUTPUT_HEADER);
+        assertThat(lines).hasSize(requests.size() + 1);
+        for (int i = 0; i < requests.size(); i++) {
+            PointsCalculation expected = onlineService.calculatePoints(requests.get(i)).result();
+            assertThat(lines.get(i + 1)).isEqualTo("B" + i + "," + expected.getBasePoints()
+                + "," + expected.getTierBonus() + "," + expected.getPromoBonus()
+                + "," + expected.getTotalPoints() + "," + expected.getEffectiveFxRate()
+                + "," + String.join("|", expected.getWarnings()) + ",");
+        }
+    }
+
+    private static List<PointsQuoteRequest> randomRequests(int count) {
+        Random random = new Random(42);
+        List<PointsQuoteRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String promo = PROMOS[random.nextInt(PROMOS.length)];
+            requests.add(new PointsQuoteRequest(
+                Math.round(random.nextDouble() * 100_000) / 100.0 + 0.01,
+                CURRENCIES[random.nextInt(CURRENCIES.length)],
+                CABINS[random.nextInt(CABINS.length)],
+                TIERS[random.nextInt(TIERS.length)],
+                promo.isEmpty() ? null : promo));
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,149 @@
+package com.airline.loyalty;
+
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
+import java.time.LocalDate;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * FX and promo changes pushed on the admin endpoint (admin port) update
+ * cached rates, promo rules and quotes without waiting for a TTL.
+ */
+class ChangePushTest extends BaseComponentTest {
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        promoServiceMock.stubFor(get(urlEqualTo("/v1/promos"))
+            .willReturn(okJson(new JsonArray().encode())));
+        config.put("promoEngine", new JsonObject().put("enabled", true).put("syncIntervalMillis", 300000));
+        return super.deploymentOptions(config);
+    }
+
+    private ValidatableResponse push(String path, JsonObject change) {
+        return admin()
+            .contentType(ContentType.JSON)
+            .body(change.encode())
+            .post(path)
+            .then();
+    }
+
+    @Test
+    void shouldQuoteWithPushedFxRateWithoutCallingFxService(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.2);
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").withCustomerTier("NONE").build())
+            .statusCode(200)
+            .body("basePoints", equalTo(1200));
+
+        push("/admin/fx-rates", new JsonObject().put("base", "USD").put("rates", new JsonObject().put("EUR", 1.3)))
+            .statusCode(202);
+
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").withCustomerTier("NONE").build())
+            .statusCode(200)
+            .body("basePoints", equalTo(1300));
+        fxServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldRefetchInvalidatedFxRate(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.2);
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").withCustomerTier("NONE").build())
+            .body("basePoints", equalTo(1200));
+
+        stubFxRate("EUR", "USD", 1.25);
+        push("/admin/fx-rates", new JsonObject().put("invalidate", new JsonArray().add("EUR")))
+            .statusCode(202);
+
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").withCustomerTier("NONE").build())
+            .body("basePoints", equalTo(1250));
+        fxServiceMock.verify(2, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldApplyPushedPromosImmediately(Vertx vertx, VertxTestContext ctx) {
+        stubPromo("FLASH", 0.25, LocalDate.now().plusDays(30), true);
+        postQuote(new PointsQuoteRequestBuilder().withPromoCode("FLASH").build())
+            .body("promoBonus", equalTo(250));
+
+        JsonObject flash = new JsonObject()
+            .put("promoCode", "FLASH").put("bonusMultiplier", 0.5)
+            .put("expiryDate", LocalDate.now().plusDays(30).toString()).put("active", true);
+        push("/admin/promos", new JsonObject().put("promos", new JsonArray().add(flash)))
+            .statusCode(202);
+
+        postQuote(new PointsQuoteRequestBuilder().withPromoCode("FLASH").build())
+            .body("promoBonus", equalTo(500));
+        promoServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/promos/FLASH")));
+
+        push("/admin/promos", new JsonObject().put("invalidate", new JsonArray().add("FLASH")))
+            .statusCode(202);
+        postQuote(new PointsQuoteRequestBuilder().withPromoCode("FLASH").build())
+            .body("promoBonus", equalTo(250));
+
+        given()
+            .baseUri("http://localhost:9090")
+            .get("/metrics")
+            .then()
+            .body(containsString("admin_changes_pushed_total{type=\"promo\",} 2.0"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldRejectPushWithoutAdminToken(Vertx vertx, VertxTestContext ctx) {
+        JsonObject change = new JsonObject().put("base", "USD").put("rates", new JsonObject().put("EUR", 9.9));
+        given().baseUri(ADMIN_URL).contentType(ContentType.JSON).body(change.encode())
+            .post("/admin/fx-rates")
+            .then()
+            .statusCode(401)
+            .body("error", is("UNAUTHORIZED"));
+        given().baseUri(ADMIN_URL).contentType(ContentType.JSON).body(change.encode())
+            .header("Authorization", "Bearer not-the-token")
+            .post("/admin/fx-rates")
+            .then()
+            .statusCode(403);
+
+        // The admin routes are not on the public metrics port
+        given().baseUri("http://localhost:9090").contentType(ContentType.JSON).body(change.encode())
+            .post("/admin/fx-rates")
+            .then()
+            .statusCode(404);
+        given().baseUri("http://localhost:9090").get("/metrics").then()
+            .body(containsString("admin_requests_rejected_total{reason=\"missing_token\",} 1.0"))
+            .body(containsString("admin_requests_rejected_total{reason=\"invalid_token\",} 1.0"))
+            .body(not(containsString("admin_changes_pushed_total{type=\"fx\",} 1.0")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldRejectMalformedChanges(Vertx vertx, VertxTestContext ctx) {
+        push("/admin/fx-rates", new JsonObject().put("rates", new JsonObject().put("EUR", -1)))
+            .statusCode(400)
+            .body("message", is("Invalid rate for EUR: -1"));
+        push("/admin/fx-rates", new JsonObject())
+            .statusCode(400)
+            .body("message", is("FX change has no rates or invalidations"));
+        push("/admin/promos", new JsonObject().put("promos", new JsonArray().add(new JsonObject()
+                .put("promoCode", "BAD").put("bonusMultiplier", 0.1).put("expiryDate", "soon"))))
+            .statusCode(400)
+            .body("error", is("VALIDATION_ERROR"));
+
+        ctx.completeNow();
+    }
+}
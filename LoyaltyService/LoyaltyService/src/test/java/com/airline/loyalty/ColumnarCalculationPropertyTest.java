@@ -0,0 +1,163 @@
+package com.airline.loyalty;
+
+import com.airline.loyalty.exception.ValidationException;
+import com.airline.loyalty.model.CabinClass;
+import com.airline.loyalty.model.CustomerTier;
+import com.airline.loyalty.model.PointsCalculation;
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.model.PromoResponse;
+import com.airline.loyalty.model.QuoteBatch;
+import com.airline.loyalty.service.PointsCalculationService;
+import com.airline.loyalty.testutils.InMemoryFxServiceClient;
+import com.airline.loyalty.testutils.InMemoryPromoServiceClient;
+import com.airline.loyalty.testutils.TestConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Property: for any batch, {@code calculateBatch} gives every row exactly the
+ * result {@code calculatePoints} gives it alone. Each seed generates a batch
+ * mixing ordinary fares, fares on integer boundaries, capped fares and every
+ * promo state, including cabin/tier restrictions and promos that replace the
+ * tier bonus.
+ */
+@ExtendWith(VertxExtension.class)
+class ColumnarCalculationPropertyTest {
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY"};
+    private static final double[] RATES = {Double.NaN, 1.1, 1.27, 0.0067};
+    private static final CabinClass[] CABINS = CabinClass.values();
+    private static final CustomerTier[] TIERS = CustomerTier.values();
+
+    private PromoResponse[] promos;
+    private PointsCalculationService service;
+
+    @BeforeEach
+    void setUp(Vertx vertx) {
+        JsonObject config = TestConfig.load("test");
+        LocalDate today = LocalDate.now();
+        promos = new PromoResponse[] {
+            new PromoResponse("SUMMER25", 0.25, today.plusDays(30).toString(), true),
+            new PromoResponse("ENDING", 0.5, today.plusDays(2).toString(), true),
+            new PromoResponse("TODAY", 0.5, today.toString(), true),
+            new PromoResponse("OLD", 0.4, today.minusDays(10).toString(), true),
+            new PromoResponse("PAUSED", 0.3, today.plusDays(30).toString(), false),
+            new PromoResponse("OPEN", 0.33, null, true),
+            new PromoResponse("BIZONLY", 0.5, today.plusDays(30).toString(), true,
+                null, List.of("BUSINESS", "FIRST"), null, null),
+            new PromoResponse("GOLDUP", 0.2, today.plusDays(3).toString(), true,
+                null, null, List.of("GOLD", "PLATINUM"), false),
+            new PromoResponse("UPCOMING", 0.2, today.plusDays(60).toString(), true,
+                today.plusDays(1).toString(), null, null, null),
+            new PromoResponse("SOLO", 0.6, null, true, today.minusDays(5).toString(), null, null, false),
+            null
+        };
+
+        InMemoryFxServiceClient fx = new InMemoryFxServiceClient(vertx, config);
+        for (int c = 1; c < CURRENCIES.length; c++) {
+            fx.withRate(CURRENCIES[c], RATES[c]);
+        }
+        InMemoryPromoServiceClient promoClient = new InMemoryPromoServiceClient(vertx, config);
+        for (PromoResponse promo : promos) {
+            if (promo != null) {
+                promoClient.withPromo(promo);
+            }
+        }
+        service = new PointsCalculationService(fx, promoClient, config);
+    }
+
+    static LongStream seeds() {
+        return LongStream.range(0, 50);
+    }
+
+    @ParameterizedTest
+    @MethodSource("seeds")
+    void batchMatchesScalarForRandomBatches(long seed) {
+        Random random = new Random(seed);
+        QuoteBatch batch = randomBatch(random, 1 + random.nextInt(2_000));
+
+        service.calculateBatch(batch);
+
+        assertMatchesScalar(batch);
+    }
+
+    @Test
+    void batchMatchesScalarWhenSplitAcrossForkJoinPool() {
+        QuoteBatch batch = randomBatch(new Random(7), 40_000);
+
+        service.calculateBatch(batch);
+
+        assertMatchesScalar(batch);
+    }
+
+    @Test
+    void batchRejectsRowsTheScalarPathRejects() {
+        QuoteBatch batch = new QuoteBatch(2, CURRENCIES, RATES, promos)
+            .set(0, 100.0, 0, CabinClass.ECONOMY, CustomerTier.GOLD, -1)
+            .set(1, 0.0, 0, CabinClass.ECONOMY, CustomerTier.GOLD, -1);
+
+        assertThatThrownBy(() -> service.calculateBatch(batch))
+            .isInstanceOf(ValidationException.class)
+            .hasMessageContaining("row 1");
+        assertThat(service.calculatePoints(new PointsQuoteRequest(0.0, "USD", "ECONOMY", "GOLD", null)).failed())
+            .isTrue();
+    }
+
+    private QuoteBatch randomBatch(Random random, int size) {
+        QuoteBatch batch = new QuoteBatch(size, CURRENCIES, RATES, promos);
+        for (int i = 0; i < size; i++) {
+            batch.set(i, randomFare(random), random.nextInt(CURRENCIES.length),
+                CABINS[random.nextInt(CABINS.length)], TIERS[random.nextInt(TIERS.length)],
+                random.nextInt(promos.length + 1) - 1);
+        }
+        return batch;
+    }
+
+    private static double randomFare(Random random) {
+        return switch (random.nextInt(5)) {
+            case 0 -> 0.01 + random.nextInt(100);
+            case 1 -> Math.round(random.nextDouble() * 1_000_000) / 100.0 + 0.01;
+            // Just below and on whole units, where floor() is most sensitive
+            case 2 -> Math.nextDown(1.0 + random.nextInt(5_000));
+            case 3 -> 1.0 + random.nextInt(5_000);
+            // Large enough to hit the points cap
+            default -> 10_000 + random.nextDouble() * 10_000_000;
+        };
+    }
+
+    private void assertMatchesScalar(QuoteBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            int promo = batch.promoIndex()[i];
+            PointsQuoteRequest request = new PointsQuoteRequest(
+                batch.fareAmounts()[i],
+                CURRENCIES[batch.currencyIndex()[i]],
+                CABINS[batch.cabinOrdinals()[i]].name(),
+                TIERS[batch.tierOrdinals()[i]].name(),
+                promo < 0 ? null : promos[promo] == null ? "UNKNOWN" : promos[promo].promoCode());
+            PointsCalculation expected = service.calculatePoints(request).result();
+
+            String row = "row " + i + " " + request.getFareAmount() + " " + request.getCurrency()
+                + " " + request.getCustomerTier() + " " + request.getPromoCode();
+            assertThat(batch.basePoints()[i]).as(row).isEqualTo(expected.getBasePoints());
+            assertThat(batch.tierBonus()[i]).as(row).isEqualTo(expected.getTierBonus());
+            assertThat(batch.promoBonus()[i]).as(row).isEqualTo(expected.getPromoBonus());
+            assertThat(batch.totalPoints()[i]).as(row).isEqualTo(expected.getTotalPoints());
+            assertThat(batch.effectiveFxRate()[i]).as(row).isEqualTo(expected.getEffectiveFxRate());
+            assertThat(batch.warnings()[i]).as(row).isEqualTo(expected.getWarningMask());
+        }
+    }
+}
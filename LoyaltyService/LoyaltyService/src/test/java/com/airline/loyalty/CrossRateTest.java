@@ -0,0 +1,118 @@
+package com.airline.loyalty;
+
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+import com.github.tomakehurst.wiremock.client.WireMock;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.hamcrest.Matchers.*;
+
+class CrossRateTest extends BaseComponentTest {
+
+    @Test
+    void shouldAccrueInTargetCurrencyViaBaseRates(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.1);
+        stubFxRate("GBP", "USD", 1.25);
+
+        // EUR -> GBP = 1.1 / 1.25
+        postQuote(new PointsQuoteRequestBuilder()
+                .withCurrency("EUR")
+                .withTargetCurrency("GBP")
+                .withCustomerTier("NONE")
+                .build())
+            .statusCode(200)
+            .body("basePoints", equalTo(880))
+            .body("effectiveFxRate", equalTo(0.88f));
+
+        // GBP -> EUR = 1.25 / 1.1
+        postQuote(new PointsQuoteRequestBuilder()
+                .withCurrency("GBP")
+                .withTargetCurrency("EUR")
+                .withCustomerTier("NONE")
+                .build())
+            .statusCode(200)
+            .body("basePoints", equalTo(1136))
+            .body("effectiveFxRate", equalTo(1.14f));
+
+        // Both legs were cached by the first quote
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").withCustomerTier("NONE").build())
+            .statusCode(200)
+            .body("basePoints", equalTo(1100));
+
+        fxServiceMock.verify(2, getRequestedFor(urlPathEqualTo("/v1/rates")));
+        fxServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/rates")).withQueryParam("from", WireMock.equalTo("EUR")));
+        fxServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/rates")).withQueryParam("from", WireMock.equalTo("GBP")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldInvertBaseRateForBaseCurrencyFares(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.1);
+
+        postQuote(new PointsQuoteRequestBuilder()
+                .withCurrency("USD")
+                .withTargetCurrency("EUR")
+                .withCustomerTier("NONE")
+                .build())
+            .statusCode(200)
+            .body("basePoints", equalTo(909))
+            .body("effectiveFxRate", equalTo(0.91f));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldSkipFxWhenFareIsAlreadyInTargetCurrency(Vertx vertx, VertxTestContext ctx) {
+        postQuote(new PointsQuoteRequestBuilder()
+                .withCurrency("EUR")
+                .withTargetCurrency("EUR")
+                .withCustomerTier("NONE")
+                .build())
+            .statusCode(200)
+            .body("basePoints", equalTo(1000))
+            .body("effectiveFxRate", equalTo(1.0f));
+
+        fxServiceMock.verify(0, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldRejectInvalidTargetCurrency(Vertx vertx, VertxTestContext ctx) {
+        postQuote(new PointsQuoteRequestBuilder().withTargetCurrency("EURO").build())
+            .statusCode(400)
+            .body("error", is("VALIDATION_ERROR"))
+            .body("message", containsString("targetCurrency"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldNotCacheFailedRateLookups(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("GBP", "USD", 1.25);
+        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates"))
+            .withQueryParam("from", WireMock.equalTo("EUR"))
+            .willReturn(aResponse().withStatus(500)));
+
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").withTargetCurrency("GBP").build())
+            .statusCode(500);
+
+        stubFxRate("EUR", "USD", 1.1);
+        postQuote(new PointsQuoteRequestBuilder()
+                .withCurrency("EUR")
+                .withTargetCurrency("GBP")
+                .withCustomerTier("NONE")
+                .build())
+            .statusCode(200)
+            .body("basePoints", equalTo(880));
+
+        // The GBP leg succeeded the first time and was kept
+        fxServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/rates")).withQueryParam("from", WireMock.equalTo("GBP")));
+
+        ctx.completeNow();
+    }
+}
@@ -0,0 +1,43 @@
+package com.airline.loyalty;
+
+import io.vertx.core.ThreadingModel;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The configured threading model is honoured where the runtime supports it,
+ * and refused at startup where it does not.
+ */
+class ExecutionModeTest {
+
+    private static JsonObject config(String threadingModel) {
+        return new JsonObject().put("execution", new JsonObject().put("threadingModel", threadingModel));
+    }
+
+    @Test
+    void shouldDefaultToEventLoop() {
+        assertThat(MainVerticle.deploymentOptions(new JsonObject()).getThreadingModel())
+            .isEqualTo(ThreadingModel.EVENT_LOOP);
+    }
+
+    @Test
+    void shouldRefuseVirtualThreadsBeforeJava21() {
+        assumeTrue(Runtime.version().feature() < 21, "virtual threads are available");
+
+        assertThatThrownBy(() -> MainVerticle.deploymentOptions(config("VIRTUAL_THREAD")))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("needs Java 21+");
+    }
+
+    @Test
+    void shouldDeployOnVirtualThreadsFromJava21() {
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21+");
+
+        assertThat(MainVerticle.deploymentOptions(config("VIRTUAL_THREAD")).getThreadingModel())
+            .isEqualTo(ThreadingModel.VIRTUAL_THREAD);
+    }
+}
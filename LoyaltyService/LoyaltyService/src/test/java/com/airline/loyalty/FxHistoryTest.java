@@ -0,0 +1,194 @@
+package com.airline.loyalty;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.service.FxRateHistory;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class FxHistoryTest extends BaseComponentTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        Path file = dataDir.resolve("fx-history.bin");
+        try {
+            if (!Files.exists(file)) {
+                history().write(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        config.put("fxHistory", new JsonObject().put("enabled", true).put("file", file.toString()));
+        return super.deploymentOptions(config);
+    }
+
+    private static FxRateHistory history() {
+        return new FxRateHistory.Builder("USD")
+            .put("EUR", LocalDate.of(2024, 1, 2), 1.09)
+            .put("EUR", LocalDate.of(2024, 1, 3), 1.092)
+            .put("EUR", LocalDate.of(2024, 1, 5), 1.095)
+            .put("EUR", LocalDate.of(2024, 1, 8), 1.1)
+            .put("GBP", LocalDate.of(2024, 1, 2), 1.27)
+            .put("GBP", LocalDate.of(2024, 1, 5), 1.28)
+            .build();
+    }
+
+    private static PointsQuoteRequest historicalQuote(String currency, String asOfDate) {
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder()
+            .withCurrency(currency)
+            .withCustomerTier("NONE")
+            .build();
+        request.setAsOfDate(asOfDate);
+        return request;
+    }
+
+    @Test
+    void shouldQuoteWithRateAsOfDateWithoutCallingFxService(Vertx vertx, VertxTestContext ctx) {
+        postQuote(historicalQuote("EUR", "2024-01-02"))
+            .statusCode(200)
+            .body("basePoints", equalTo(1090))
+            .body("effectiveFxRate", equalTo(1.09f));
+
+        fxServiceMock.verify(0, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldUseLatestRateBeforeADayWithoutOne(Vertx vertx, VertxTestContext ctx) {
+        // Saturday: Friday's rate applies
+        postQuote(historicalQuote("EUR", "2024-01-06"))
+            .statusCode(200)
+            .body("basePoints", equalTo(1095));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldTriangulateHistoricalCrossRates(Vertx vertx, VertxTestContext ctx) {
+        PointsQuoteRequest request = historicalQuote("EUR", "2024-01-02");
+        request.setTargetCurrency("GBP");
+
+        // 1.09 / 1.27
+        postQuote(request)
+            .statusCode(200)
+            .body("basePoints", equalTo(858));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldUseLastRateForDaysJustAfterTheHistory(Vertx vertx, VertxTestContext ctx) {
+        // The history ends on Monday 2024-01-08
+        postQuote(historicalQuote("EUR", "2024-01-10"))
+            .statusCode(200)
+            .body("basePoints", equalTo(1100));
+        postQuote(historicalQuote("GBP", "2024-01-12"))
+            .statusCode(200)
+            .body("basePoints", equalTo(1280));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldAnswerUnavailableForDatesOutsideTheHistory(Vertx vertx, VertxTestContext ctx) {
+        postQuote(historicalQuote("EUR", "2023-12-01"))
+            .statusCode(503)
+            .body("error", is("FX_RATE_UNAVAILABLE"))
+            .body("message", is("No FX rate for EUR as of 2023-12-01"));
+        postQuote(historicalQuote("EUR", "2024-01-16"))
+            .statusCode(503)
+            .body("message", is("No FX rate for EUR as of 2024-01-16"));
+        postQuote(historicalQuote("JPY", "2024-01-02"))
+            .statusCode(503)
+            .body("message", is("No FX rate for JPY as of 2024-01-02"));
+
+        fxServiceMock.verify(0, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldRejectInvalidDates(Vertx vertx, VertxTestContext ctx) {
+        postQuote(historicalQuote("EUR", "02/01/2024"))
+            .statusCode(400)
+            .body("message", is("Invalid asOfDate: 02/01/2024"));
+        postQuote(historicalQuote("EUR", LocalDate.now().plusDays(1).toString()))
+            .statusCode(400)
+            .body("message", is("asOfDate must not be in the future"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldEvaluatePromoTermsAsOfDate(Vertx vertx, VertxTestContext ctx) {
+        // Long expired today, but expiring within the warning window on the booking date
+        stubPromo("NEWYEAR", 0.5, LocalDate.of(2024, 1, 5), true);
+        PointsQuoteRequest request = historicalQuote("USD", "2024-01-02");
+        request.setPromoCode("NEWYEAR");
+
+        postQuote(request)
+            .statusCode(200)
+            .body("promoBonus", equalTo(500))
+            .body("warnings", contains("PROMO_EXPIRES_SOON"));
+
+        request.setAsOfDate(null);
+        postQuote(request)
+            .statusCode(200)
+            .body("promoBonus", equalTo(0))
+            .body("warnings", contains("PROMO_EXPIRED"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldUseLiveRateForToday(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.2);
+
+        postQuote(historicalQuote("EUR", LocalDate.now().toString()))
+            .statusCode(200)
+            .body("basePoints", equalTo(1200));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldReadBackTheSameRatesFromTheMappedFile(Vertx vertx, VertxTestContext ctx) throws IOException {
+        FxRateHistory heap = history();
+        Path file = dataDir.resolve("round-trip.bin");
+        heap.write(file);
+        FxRateHistory mapped = FxRateHistory.map(file);
+
+        assertThat(mapped.getBaseCurrency()).isEqualTo("USD");
+        assertThat(mapped.currencyCount()).isEqualTo(2);
+        assertThat(mapped.getFirstDate()).isEqualTo(LocalDate.of(2024, 1, 2));
+        assertThat(mapped.getLastDate()).isEqualTo(LocalDate.of(2024, 1, 8));
+        for (LocalDate day = LocalDate.of(2024, 1, 1); day.isBefore(LocalDate.of(2024, 1, 20)); day = day.plusDays(1)) {
+            for (String currency : new String[] {"USD", "EUR", "GBP", "JPY"}) {
+                assertThat(mapped.rateToBase(currency, day))
+                    .as(currency + " on " + day)
+                    .isEqualTo(Double.valueOf(heap.rateToBase(currency, day)));
+            }
+        }
+
+        ctx.completeNow();
+    }
+}
@@ -0,0 +1,90 @@
+package com.airline.loyalty;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Quotes keep being served on the last good FX rate while the FX service is
+ * failing, and go back to current rates once a probe sees it recover.
+ */
+class FxStaleFallbackTest extends BaseComponentTest {
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        // Rates expire at once, and the quote cache would hide the FX lookups
+        config.getJsonObject("fxService").put("rateCacheTtlMillis", 1).put("probeIntervalMillis", 200);
+        config.getJsonObject("quoteCache").put("enabled", false);
+        return super.deploymentOptions(config);
+    }
+
+    private static PointsQuoteRequest eurQuote() {
+        return new PointsQuoteRequestBuilder().withCurrency("EUR").withCustomerTier("NONE").build();
+    }
+
+    @Test
+    void shouldServeLastGoodRateWithWarningWhileFxServiceFails(Vertx vertx, VertxTestContext ctx)
+            throws InterruptedException {
+        stubFxRate("EUR", "USD", 1.2);
+        postQuote(eurQuote())
+            .statusCode(200)
+            .body("basePoints", equalTo(1200))
+            .body("warnings", empty());
+
+        fxServiceMock.resetAll();
+        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates")).willReturn(serverError()));
+        Thread.sleep(5);
+
+        postQuote(eurQuote())
+            .statusCode(200)
+            .body("basePoints", equalTo(1200))
+            .body("warnings", contains("FX_RATE_STALE"));
+        int callsWhileFailing = fxServiceMock.getAllServeEvents().size();
+
+        // Within the probe interval the stale rate is served without calling the FX service
+        postQuote(eurQuote())
+            .statusCode(200)
+            .body("warnings", contains("FX_RATE_STALE"));
+        fxServiceMock.verify(callsWhileFailing, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldReturnToCurrentRatesOnceAProbeSucceeds(Vertx vertx, VertxTestContext ctx)
+            throws InterruptedException {
+        stubFxRate("EUR", "USD", 1.2);
+        postQuote(eurQuote()).statusCode(200);
+
+        fxServiceMock.resetAll();
+        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates")).willReturn(serverError()));
+        Thread.sleep(5);
+        postQuote(eurQuote())
+            .body("warnings", contains("FX_RATE_STALE"));
+
+        fxServiceMock.resetAll();
+        stubFxRate("EUR", "USD", 1.3);
+        Thread.sleep(250);
+
+        // This quote starts the probe and is still served stale
+        postQuote(eurQuote())
+            .body("basePoints", equalTo(1200))
+            .body("warnings", contains("FX_RATE_STALE"));
+        Thread.sleep(200);
+
+        postQuote(eurQuote())
+            .statusCode(200)
+            .body("basePoints", equalTo(1300))
+            .body("warnings", empty());
+
+        ctx.completeNow();
+    }
+}
@@ -5,6 +5,8 @@ import io.vertx.core.Vertx;
 import io.vertx.junit5.VertxTestContext;
 import org.junit.jupiter.api.Test;
 
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
 
@@ -24,4 +26,40 @@ class HealthCheckTest extends BaseComponentTest {
 
         testContext.completeNow();
     }
+
+    @Test
+    void shouldRecordTimeToFirstQuote(Vertx vertx, VertxTestContext testContext) {
+        given()
+            .baseUri("http://localhost:9090")
+            .get("/metrics")
+            .then()
+            .body(containsString("startup_time_to_first_quote_seconds NaN"));
+
+        stubFxRate("EUR", "USD", 1.2);
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").build())
+            .statusCode(200);
+
+        given()
+            .baseUri("http://localhost:9090")
+            .get("/metrics")
+            .then()
+            .body(containsString("startup_time_to_ready_seconds "))
+            .body(not(containsString("startup_time_to_first_quote_seconds NaN")));
+
+        testContext.completeNow();
+    }
+
+    @Test
+    void shouldBeReadyImmediatelyWithoutWarmUp(Vertx vertx, VertxTestContext testContext) {
+        given()
+            .baseUri(baseUrl)
+            .when()
+            .get("/ready")
+            .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("status", equalTo("READY"));
+
+        testContext.completeNow();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.airline.loyalty;
+
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.response.ValidatableResponse;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class IdempotencyTest extends BaseComponentTest {
+
+    @Test
+    void shouldReplayResponseForRepeatedRequestId(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.1);
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder().withCurrency("EUR").build();
+
+        String first = postQuote("retry-1", request)
+            .statusCode(200)
+            .header("Idempotent-Replayed", nullValue())
+            .extract().asString();
+        String second = postQuote("retry-1", request)
+            .statusCode(200)
+            .header("Idempotent-Replayed", "true")
+            .header("X-Request-ID", "retry-1")
+            .extract().asString();
+
+        assertThat(second).isEqualTo(first);
+        fxServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldCoalesceConcurrentDuplicates(Vertx vertx, VertxTestContext ctx) {
+        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates"))
+            .willReturn(okJson("""
+                    {"fromCurrency":"EUR","toCurrency":"USD","rate":1.1,"timestamp":"2024-01-01"}
+                    """).withFixedDelay(500)));
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder().withCurrency("EUR").build();
+
+        CompletableFuture<Response> first = CompletableFuture.supplyAsync(() -> send("dup-1", request));
+        CompletableFuture<Response> second = CompletableFuture.supplyAsync(() -> send("dup-1", request));
+
+        assertThat(first.join().statusCode()).isEqualTo(200);
+        assertThat(second.join().statusCode()).isEqualTo(200);
+        assertThat(second.join().asString()).isEqualTo(first.join().asString());
+        fxServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldRejectRequestIdReusedForDifferentBody(Vertx vertx, VertxTestContext ctx) {
+        postQuote("reuse-1", new PointsQuoteRequestBuilder().build()).statusCode(200);
+
+        postQuote("reuse-1", new PointsQuoteRequestBuilder().withFareAmount(250.0).build())
+            .statusCode(422)
+            .body("error", is("REQUEST_ID_REUSED"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldNotReplayServerErrors(Vertx vertx, VertxTestContext ctx) {
+        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates"))
+            .willReturn(aResponse().withStatus(500)));
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder().withCurrency("EUR").build();
+
+        postQuote("fail-1", request).statusCode(500);
+
+        stubFxRate("EUR", "USD", 1.1);
+        postQuote("fail-1", request)
+            .statusCode(200)
+            .header("Idempotent-Replayed", nullValue())
+            .body("basePoints", equalTo(1100));
+
+        ctx.completeNow();
+    }
+
+    private ValidatableResponse postQuote(String requestId, PointsQuoteRequest request) {
+        return send(requestId, request).then();
+    }
+
+    private Response send(String requestId, PointsQuoteRequest request) {
+        return given()
+            .baseUri(baseUrl)
+            .contentType(ContentType.JSON)
+            .header("X-Request-ID", requestId)
+            .body(request)
+            .when()
+            .post("/v1/points/quote");
+    }
+}
@@ -0,0 +1,149 @@
+package com.airline.loyalty;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import io.restassured.http.ContentType;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+
+import com.airline.loyalty.logging.AsyncLogAppender;
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class LoggingTest extends BaseComponentTest {
+
+    @Test
+    void shouldExposeAsyncLoggingMetrics(Vertx vertx, VertxTestContext ctx) {
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder().build();
+
+        for (int i = 0; i < 20; i++) {
+            postQuote(request).statusCode(200);
+        }
+
+        given()
+            .baseUri("http://localhost:9090")
+            .get("/metrics")
+            .then()
+            .statusCode(200)
+            .body(containsString("logging_events_dropped_total{appender=\"ASYNC\",reason=\"queue_full\""))
+            .body(containsString("logging_events_dropped_total{appender=\"ASYNC\",reason=\"below_threshold\""))
+            .body(containsString("logging_queue_depth"))
+            .body(containsString("logging_events_sampled_out_total"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldDropAndCountEventsWhenQueueIsFull(Vertx vertx, VertxTestContext ctx) throws InterruptedException {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        CountDownLatch release = new CountDownLatch(1);
+
+        AppenderBase<ILoggingEvent> slowAppender = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        slowAppender.setContext(loggerContext);
+        slowAppender.start();
+
+        AsyncLogAppender appender = new AsyncLogAppender();
+        appender.setContext(loggerContext);
+        appender.setName("TEST");
+        appender.setQueueSize(4);
+        appender.setDiscardingThreshold(2);
+        appender.addAppender(slowAppender);
+        appender.start();
+
+        ch.qos.logback.classic.Logger logger = loggerContext.getLogger("test");
+        for (int i = 0; i < 20; i++) {
+            appender.doAppend(new LoggingEvent("test", logger, Level.INFO, "info " + i, null, null));
+            appender.doAppend(new LoggingEvent("test", logger, Level.ERROR, "error " + i, null, null));
+        }
+
+        // INFO is shed once the queue nears capacity; ERROR is only dropped when it is full
+        assertThat(appender.getDiscardedEvents()).isPositive();
+        assertThat(appender.getDroppedEvents()).isPositive();
+
+        release.countDown();
+        appender.stop();
+
+        ctx.completeNow();
+    }
+
+    @Test
+    @DisabledIfSystemProperty(named = "loyalty.nativeBinary", matches = ".+",
+            disabledReason = "publishes on the in-process event bus")
+    void shouldNotCarryRequestIdPastItsRequest(Vertx vertx, VertxTestContext ctx) throws InterruptedException {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        AsyncLogAppender async = (AsyncLogAppender) loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)
+            .getAppender("ASYNC");
+        List<ILoggingEvent> events = new CopyOnWriteArrayList<>();
+        AppenderBase<ILoggingEvent> capture = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                events.add(event);
+            }
+        };
+        capture.setContext(loggerContext);
+        capture.start();
+        async.addAppender(capture);
+        try {
+            given().baseUri(baseUrl).contentType(ContentType.JSON)
+                .header("X-Request-ID", "leak-1")
+                .body(new PointsQuoteRequestBuilder().build())
+                .post("/v1/points/quote")
+                .then()
+                .statusCode(200);
+
+            // Logged on the same event loop, but not for any request
+            vertx.eventBus().publish(MainVerticle.CONFIG_CHANGED_ADDRESS, new JsonObject()
+                .put("business", new JsonObject().put("maxPoints", 50000).put("expiryWarningDays", 7))
+                .put("currency", new JsonObject().put("base", "EUR")));
+
+            ILoggingEvent firstQuote = awaitEvent(events, "First quote served");
+            ILoggingEvent baseChanged = awaitEvent(events, "Base currency changed");
+            assertThat(firstQuote.getMDCPropertyMap()).containsEntry("requestId", "leak-1");
+            assertThat(firstQuote.getThreadName()).isEqualTo(baseChanged.getThreadName());
+            assertThat(baseChanged.getMDCPropertyMap()).doesNotContainKey("requestId");
+        } finally {
+            async.detachAppender(capture);
+        }
+
+        ctx.completeNow();
+    }
+
+    private static ILoggingEvent awaitEvent(List<ILoggingEvent> events, String messagePrefix)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            for (ILoggingEvent event : events) {
+                if (event.getFormattedMessage().startsWith(messagePrefix)) {
+                    return event;
+                }
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("No log event starting with \"" + messagePrefix + "\"");
+    }
+}
@@ -19,6 +19,7 @@ import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
 import java.time.LocalDate;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
 import static io.restassured.RestAssured.given;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -400,6 +401,34 @@ class PointsQuoteTests extends BaseComponentTest {
         ctx.completeNow();
     }
     
+    @Test
+    void shouldRetryFxAttemptThatTimedOut(Vertx vertx, VertxTestContext ctx) {
+        // The first attempt outlasts the 2 s FX timeout, the retry answers at once
+        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates"))
+            .inScenario("fx-timeout").whenScenarioStateIs(STARTED)
+            .willReturn(okJson("""
+                    {"fromCurrency":"EUR","toCurrency":"USD","rate":1.1,"timestamp":"2024-01-01"}
+                    """).withFixedDelay(4000))
+            .willSetStateTo("retried"));
+        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates"))
+            .inScenario("fx-timeout").whenScenarioStateIs("retried")
+            .willReturn(okJson("""
+                    {"fromCurrency":"EUR","toCurrency":"USD","rate":1.1,"timestamp":"2024-01-01"}
+                    """)));
+
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder()
+            .withCurrency("EUR")
+            .withCustomerTier("NONE")
+            .build();
+
+        postQuote(request)
+            .statusCode(200)
+            .body("basePoints", equalTo(1100));
+        fxServiceMock.verify(2, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+
     @Test
     void shouldHandleConcurrentRequests(Vertx vertx, VertxTestContext ctx) {
         int concurrentRequests = 10;
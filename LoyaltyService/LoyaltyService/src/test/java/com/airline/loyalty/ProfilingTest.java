@@ -0,0 +1,133 @@
+package com.airline.loyalty;
+
+import io.restassured.response.Response;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * The admin port serves on-demand and continuous JFR recordings as .jfr files.
+ */
+class ProfilingTest extends BaseComponentTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        config.getJsonObject("profiling")
+            .put("directory", tempDir.resolve("jfr").toString())
+            .put("maxDurationSeconds", 5)
+            .getJsonObject("continuous").put("enabled", true);
+        return super.deploymentOptions(config);
+    }
+
+    private List<RecordedEvent> readRecording(byte[] jfr) throws Exception {
+        Path file = tempDir.resolve("received.jfr");
+        Files.write(file, jfr);
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static CompletableFuture<HttpResponse<byte[]>> startRecording(HttpClient client, String query) {
+        return client.sendAsync(
+            HttpRequest.newBuilder(URI.create(ADMIN_URL + "/admin/jfr/recording?" + query))
+                .header("Authorization", "Bearer " + ADMIN_TOKEN)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Test
+    void shouldStreamTimeLimitedRecordingAndRejectConcurrentOne(Vertx vertx, VertxTestContext ctx) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        List<HttpResponse<byte[]>> responses = List.of(
+            startRecording(client, "durationSeconds=2&settings=default"),
+            startRecording(client, "durationSeconds=2")).stream().map(CompletableFuture::join).toList();
+
+        // Whichever starts first records; the other is turned away
+        assertThat(responses).extracting(HttpResponse::statusCode).containsExactlyInAnyOrder(200, 409);
+        HttpResponse<byte[]> rejected = responses.stream().filter(r -> r.statusCode() == 409).findFirst().get();
+        assertThat(new String(rejected.body())).contains("RECORDING_IN_PROGRESS");
+
+        HttpResponse<byte[]> response = responses.stream().filter(r -> r.statusCode() == 200).findFirst().get();
+        assertThat(response.headers().firstValue("Content-Type")).hasValue("application/octet-stream");
+        assertThat(response.headers().firstValue("Content-Disposition")).hasValueSatisfying(
+            value -> assertThat(value).startsWith("attachment; filename=\"on-demand-").endsWith(".jfr\""));
+        assertThat(readRecording(response.body())).isNotEmpty();
+
+        // The dumped file is deleted once sent
+        assertThat(Files.list(tempDir.resolve("jfr"))).isEmpty();
+
+        given().baseUri("http://localhost:9090").get("/metrics").then()
+            .body(containsString("profiling_recordings_total{type=\"on_demand\",} 1.0"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldRejectInvalidRecordingRequests(Vertx vertx, VertxTestContext ctx) {
+        admin().post("/admin/jfr/recording?durationSeconds=6")
+            .then()
+            .statusCode(400)
+            .body("error", is("VALIDATION_ERROR"))
+            .body("message", containsString("between 1 and 5"));
+        admin().post("/admin/jfr/recording?durationSeconds=soon")
+            .then()
+            .statusCode(400);
+        admin().post("/admin/jfr/recording?durationSeconds=1&settings=nonexistent")
+            .then()
+            .statusCode(400)
+            .body("message", containsString("Unknown JFR settings"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldRequireAdminToken(Vertx vertx, VertxTestContext ctx) {
+        given().baseUri(ADMIN_URL).post("/admin/jfr/dump")
+            .then()
+            .statusCode(401)
+            .header("WWW-Authenticate", "Bearer");
+        given().baseUri(ADMIN_URL).header("Authorization", "Bearer guess").post("/admin/jfr/recording")
+            .then()
+            .statusCode(403)
+            .body("error", is("FORBIDDEN"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldDumpContinuousRecording(Vertx vertx, VertxTestContext ctx) throws Exception {
+        // The continuous recording starts off the event loop after deployment
+        long deadline = System.currentTimeMillis() + 5000;
+        Response dump = admin().post("/admin/jfr/dump");
+        while (dump.statusCode() == 404 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            dump = admin().post("/admin/jfr/dump");
+        }
+
+        assertThat(dump.statusCode()).isEqualTo(200);
+        assertThat(dump.header("Content-Disposition")).contains("continuous-");
+        assertThat(readRecording(dump.asByteArray())).isNotEmpty();
+
+        ctx.completeNow();
+    }
+}
@@ -0,0 +1,93 @@
+package com.airline.loyalty;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+
+import com.airline.loyalty.service.PromoCodeFilter;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Quotes with the promo code filter built from the promo service stub's
+ * catalogue and the promo engine off.
+ */
+class PromoCodeFilterTest extends BaseComponentTest {
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        JsonArray catalogue = new JsonArray()
+            .add(new JsonObject()
+                .put("promoCode", "SUMMER25").put("bonusMultiplier", 0.25)
+                .put("expiryDate", LocalDate.now().plusDays(30).toString()).put("active", true));
+        promoServiceMock.stubFor(get(urlEqualTo("/v1/promos"))
+            .willReturn(okJson(catalogue.encode())));
+
+        config.getJsonObject("promoService").put("codeFilter", new JsonObject()
+            .put("enabled", true).put("refreshIntervalMillis", 300000).put("falsePositiveRate", 0.01));
+        return super.deploymentOptions(config);
+    }
+
+    @Test
+    void shouldSkipLookupForCodesNotInCatalogue(Vertx vertx, VertxTestContext ctx) {
+        postQuote(new PointsQuoteRequestBuilder().withPromoCode("SUMMRE25").build())
+            .statusCode(200)
+            .body("promoBonus", equalTo(0))
+            .body("warnings", empty());
+
+        promoServiceMock.verify(0, getRequestedFor(urlPathEqualTo("/v1/promos/SUMMRE25")));
+        given()
+            .baseUri("http://localhost:9090")
+            .get("/metrics")
+            .then()
+            .body(containsString("promo_lookups_skipped_total 1.0"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldStillLookUpCataloguedCodes(Vertx vertx, VertxTestContext ctx) {
+        stubPromo("SUMMER25", 0.25, LocalDate.now().plusDays(30), true);
+
+        postQuote(new PointsQuoteRequestBuilder().withPromoCode("SUMMER25").build())
+            .statusCode(200)
+            .body("promoBonus", equalTo(250));
+
+        promoServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/promos/SUMMER25")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldNeverRuleOutACataloguedCode(Vertx vertx, VertxTestContext ctx) {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            codes.add("PROMO" + i);
+        }
+        PromoCodeFilter filter = PromoCodeFilter.of(codes, 0.01);
+
+        assertThat(codes).allMatch(filter::mightContain);
+        long falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain("UNKNOWN" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100000.0).isLessThan(0.02);
+        assertThat(filter.expectedFalsePositiveRate()).isCloseTo(0.01, within(0.002));
+
+        ctx.completeNow();
+    }
+}
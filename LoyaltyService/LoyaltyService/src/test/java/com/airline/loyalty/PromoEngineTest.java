@@ -0,0 +1,120 @@
+package com.airline.loyalty;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
+import java.time.LocalDate;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Quotes with the promo engine enabled and a promo catalogue served by the
+ * promo service stub.
+ */
+class PromoEngineTest extends BaseComponentTest {
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        LocalDate today = LocalDate.now();
+        JsonArray catalogue = new JsonArray()
+            .add(new JsonObject()
+                .put("promoCode", "BIZ50").put("bonusMultiplier", 0.5)
+                .put("expiryDate", today.plusDays(3).toString()).put("active", true)
+                .put("eligibleCabins", new JsonArray().add("BUSINESS").add("FIRST")))
+            .add(new JsonObject()
+                .put("promoCode", "SOLO").put("bonusMultiplier", 0.6)
+                .put("expiryDate", today.plusDays(30).toString()).put("active", true)
+                .put("stacksWithTierBonus", false))
+            .add(new JsonObject()
+                .put("promoCode", "UPCOMING").put("bonusMultiplier", 0.2)
+                .put("expiryDate", today.plusDays(30).toString()).put("active", true)
+                .put("validFrom", today.plusDays(1).toString()))
+            .add(new JsonObject()
+                .put("promoCode", "NOFLAG").put("bonusMultiplier", 0.1)
+                .put("expiryDate", today.plusDays(30).toString()));
+        promoServiceMock.stubFor(get(urlEqualTo("/v1/promos"))
+            .willReturn(okJson(catalogue.encode())));
+
+        config.put("promoEngine", new JsonObject().put("enabled", true).put("syncIntervalMillis", 300000));
+        config.getJsonObject("promoService").put("codeFilter", new JsonObject()
+            .put("enabled", true).put("refreshIntervalMillis", 300000));
+        return super.deploymentOptions(config);
+    }
+
+    @Test
+    void shouldEvaluateCataloguedPromosWithoutCallingPromoService(Vertx vertx, VertxTestContext ctx) {
+        postQuote(new PointsQuoteRequestBuilder().withCabinClass("BUSINESS").withPromoCode("BIZ50").build())
+            .statusCode(200)
+            .body("basePoints", equalTo(1000))
+            .body("tierBonus", equalTo(150))
+            .body("promoBonus", equalTo(500))
+            .body("warnings", contains("PROMO_EXPIRES_SOON"));
+
+        postQuote(new PointsQuoteRequestBuilder().withCabinClass("ECONOMY").withPromoCode("BIZ50").build())
+            .statusCode(200)
+            .body("promoBonus", equalTo(0))
+            .body("warnings", contains("PROMO_NOT_ELIGIBLE"));
+
+        promoServiceMock.verify(0, getRequestedFor(urlPathEqualTo("/v1/promos/BIZ50")));
+        given()
+            .baseUri("http://localhost:9090")
+            .get("/metrics")
+            .then()
+            .body(containsString("promo_engine_rules 4.0"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldReplaceTierBonusForNonStackingPromo(Vertx vertx, VertxTestContext ctx) {
+        postQuote(new PointsQuoteRequestBuilder().withCustomerTier("GOLD").withPromoCode("SOLO").build())
+            .statusCode(200)
+            .body("tierBonus", equalTo(0))
+            .body("promoBonus", equalTo(600))
+            .body("totalPoints", equalTo(1600));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldTreatPromoBeforeItsValidityWindowAsInactive(Vertx vertx, VertxTestContext ctx) {
+        postQuote(new PointsQuoteRequestBuilder().withPromoCode("UPCOMING").build())
+            .statusCode(200)
+            .body("promoBonus", equalTo(0))
+            .body("warnings", contains("PROMO_INACTIVE"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldTreatPromoWithoutActiveFlagAsActive(Vertx vertx, VertxTestContext ctx) {
+        postQuote(new PointsQuoteRequestBuilder().withPromoCode("NOFLAG").build())
+            .statusCode(200)
+            .body("promoBonus", equalTo(100))
+            .body("warnings", empty());
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldFallBackToPromoServiceForCodesNotInCatalogue(Vertx vertx, VertxTestContext ctx) {
+        // Created since the sync: the code filter must not rule it out
+        stubPromo("FRESH", 0.25, LocalDate.now().plusDays(30), true);
+
+        postQuote(new PointsQuoteRequestBuilder().withPromoCode("FRESH").build())
+            .statusCode(200)
+            .body("promoBonus", equalTo(250));
+
+        promoServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/promos/FRESH")));
+
+        ctx.completeNow();
+    }
+}
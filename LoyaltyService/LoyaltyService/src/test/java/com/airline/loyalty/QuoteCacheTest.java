@@ -0,0 +1,152 @@
+package com.airline.loyalty;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
+import java.time.LocalDate;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class QuoteCacheTest extends BaseComponentTest {
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        config.getJsonObject("quoteCache").put("maxFxAgeMillis", 2000);
+        return super.deploymentOptions(config);
+    }
+
+    @Test
+    void shouldServeIdenticalQuoteFromCache(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.1);
+        stubPromo("SUMMER25", 0.25, LocalDate.now().plusDays(30), true);
+
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder()
+            .withCurrency("EUR")
+            .withPromoCode("SUMMER25")
+            .build();
+
+        String first = postQuote(request).statusCode(200).extract().asString();
+        String second = postQuote(request)
+            .statusCode(200)
+            .header("Content-Type", containsString("application/json"))
+            .extract().asString();
+
+        assertThat(second).isEqualTo(first);
+        fxServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/rates")));
+        promoServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/promos/SUMMER25")));
+
+        given()
+            .baseUri("http://localhost:9090")
+            .get("/metrics")
+            .then()
+            .body(containsString("quote_cache_hits_total 1.0"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldKeySeparatelyOnEveryRequestField(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.1);
+
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").build())
+            .statusCode(200)
+            .body("tierBonus", equalTo(165));
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").withCustomerTier("GOLD").build())
+            .statusCode(200)
+            .body("tierBonus", equalTo(330));
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").withFareAmount(1000.01).build())
+            .statusCode(200)
+            .body("basePoints", equalTo(1100));
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").withTargetCurrency("EUR").build())
+            .statusCode(200)
+            .body("basePoints", equalTo(1000));
+
+        // Every quote was recomputed; the EUR rate itself is fetched once
+        given()
+            .baseUri("http://localhost:9090")
+            .get("/metrics")
+            .then()
+            .body(containsString("quote_cache_misses_total 4.0"));
+        fxServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldExpireQuoteWithTheFxRateItUsed(Vertx vertx, VertxTestContext ctx) throws InterruptedException {
+        stubFxRate("EUR", "USD", 1.1);
+
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").build()).statusCode(200);
+        Thread.sleep(1200);
+        // Computed from the rate cached 1.2 s ago, so good for only 0.8 s more
+        PointsQuoteRequest later = new PointsQuoteRequestBuilder().withCurrency("EUR").withFareAmount(1000.01).build();
+        postQuote(later).statusCode(200);
+        Thread.sleep(1000);
+        postQuote(later).statusCode(200);
+
+        given()
+            .baseUri("http://localhost:9090")
+            .get("/metrics")
+            .then()
+            .body(containsString("quote_cache_misses_total 3.0"));
+        fxServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldNotCacheFailedQuotes(Vertx vertx, VertxTestContext ctx) {
+        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates"))
+            .willReturn(aResponse().withStatus(500)));
+
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder().withCurrency("EUR").build();
+        postQuote(request).statusCode(500);
+
+        stubFxRate("EUR", "USD", 1.1);
+        postQuote(request)
+            .statusCode(200)
+            .body("basePoints", equalTo(1100));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    @DisabledIfSystemProperty(named = "loyalty.nativeBinary", matches = ".+",
+            disabledReason = "publishes on the in-process event bus")
+    void shouldInvalidateCacheWhenRulesChange(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.1);
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder().withCurrency("EUR").build();
+
+        postQuote(request)
+            .statusCode(200)
+            .body("totalPoints", equalTo(1265));
+
+        JsonObject changed = new JsonObject()
+            .put("business", new JsonObject().put("maxPoints", 1000).put("expiryWarningDays", 7))
+            .put("currency", new JsonObject().put("base", "USD"));
+        vertx.eventBus().publish(MainVerticle.CONFIG_CHANGED_ADDRESS, changed);
+
+        // The next quote is recomputed under the new cap rather than replayed
+        postQuote(request)
+            .statusCode(200)
+            .body("totalPoints", equalTo(1000))
+            .body("warnings", hasItem("POINTS_CAPPED_AT_MAX"));
+        given()
+            .baseUri("http://localhost:9090")
+            .get("/metrics")
+            .then()
+            .body(containsString("quote_cache_misses_total 2.0"));
+
+        ctx.completeNow();
+    }
+}
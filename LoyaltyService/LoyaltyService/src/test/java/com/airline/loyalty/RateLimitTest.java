@@ -0,0 +1,105 @@
+package com.airline.loyalty;
+
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Clients identified by an API key or client ID, and anonymous clients by
+ * remote address, are held to their token bucket, and told where they stand
+ * in rate-limit headers.
+ */
+class RateLimitTest extends BaseComponentTest {
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        // Practically no refill, so only the burst is available within a test
+        config.put("rateLimit", new JsonObject()
+            .put("enabled", true)
+            .put("ratePerSecond", 0.001)
+            .put("burst", 2)
+            .put("clients", new JsonObject()
+                .put("gold-partner", new JsonObject().put("burst", 5))));
+        return super.deploymentOptions(config);
+    }
+
+    private ValidatableResponse quote(String header, String clientId) {
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder().withCustomerTier("NONE").build();
+        var spec = given().baseUri(baseUrl).contentType(ContentType.JSON).body(request);
+        if (header != null) {
+            spec.header(header, clientId);
+        }
+        return spec.when().post("/v1/points/quote").then();
+    }
+
+    @Test
+    void shouldLimitEachClientToItsBucket(Vertx vertx, VertxTestContext ctx) {
+        quote("X-API-Key", "partner-a")
+            .statusCode(200)
+            .header("RateLimit-Limit", "2")
+            .header("RateLimit-Remaining", "1");
+        quote("X-API-Key", "partner-a")
+            .statusCode(200)
+            .header("RateLimit-Remaining", "0");
+        quote("X-API-Key", "partner-a")
+            .statusCode(429)
+            .header("RateLimit-Remaining", "0")
+            .header("Retry-After", not(emptyOrNullString()))
+            .body("error", is("RATE_LIMITED"));
+
+        // Other clients, and requests naming no client, are unaffected
+        quote("X-Client-ID", "partner-b")
+            .statusCode(200)
+            .header("RateLimit-Remaining", "1");
+        quote(null, null)
+            .statusCode(200)
+            .header("RateLimit-Remaining", "1");
+
+        given().baseUri("http://localhost:9090").get("/metrics").then()
+            .body(containsString("rate_limit_requests_total{outcome=\"allowed\",} 4.0"))
+            .body(containsString("rate_limit_requests_total{outcome=\"limited\",} 1.0"))
+            .body(containsString("rate_limit_clients 3.0"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldLimitAnonymousRequestsByRemoteAddress(Vertx vertx, VertxTestContext ctx) {
+        quote(null, null)
+            .statusCode(200)
+            .header("RateLimit-Limit", "2")
+            .header("RateLimit-Remaining", "1");
+        quote(null, null)
+            .statusCode(200)
+            .header("RateLimit-Remaining", "0");
+        quote(null, null)
+            .statusCode(429)
+            .body("error", is("RATE_LIMITED"));
+
+        // Naming a client moves the request to that client's bucket
+        quote("X-API-Key", "partner-a")
+            .statusCode(200)
+            .header("RateLimit-Remaining", "1");
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldApplyPerClientOverride(Vertx vertx, VertxTestContext ctx) {
+        quote("X-API-Key", "gold-partner")
+            .statusCode(200)
+            .header("RateLimit-Limit", "5")
+            .header("RateLimit-Remaining", "4");
+
+        ctx.completeNow();
+    }
+}
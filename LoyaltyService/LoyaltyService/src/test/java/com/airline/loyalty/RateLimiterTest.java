@@ -0,0 +1,73 @@
+package com.airline.loyalty;
+
+import com.airline.loyalty.service.RateLimiter;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The limiter hands out exactly a bucket's tokens under concurrent use and
+ * keeps its client set bounded by evicting the least recently seen.
+ */
+class RateLimiterTest {
+
+    private static RateLimiter limiter(JsonObject rateLimit) {
+        // Practically no refill, so only the burst is available within a test
+        return new RateLimiter(new JsonObject().put("rateLimit", rateLimit.put("ratePerSecond", 0.001)));
+    }
+
+    @Test
+    void shouldGrantExactlyTheBurstAcrossThreads() throws Exception {
+        RateLimiter limiter = limiter(new JsonObject().put("burst", 500));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tasks.add(() -> {
+                int allowed = 0;
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire("busy").allowed()) {
+                        allowed++;
+                    }
+                }
+                return allowed;
+            });
+        }
+        int allowed = 0;
+        for (Future<Integer> result : executor.invokeAll(tasks)) {
+            allowed += result.get();
+        }
+        executor.shutdown();
+
+        assertThat(allowed).isEqualTo(500);
+        RateLimiter.Decision refused = limiter.tryAcquire("busy");
+        assertThat(refused.allowed()).isFalse();
+        assertThat(refused.remaining()).isZero();
+        assertThat(refused.retryAfterSeconds()).isPositive();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlySeenClient() {
+        RateLimiter limiter = limiter(new JsonObject().put("burst", 1).put("stripes", 1).put("maxClients", 2));
+
+        assertThat(limiter.tryAcquire("a").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("b").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("a").allowed()).isFalse();
+        // "b" is now the least recently seen, so "c" evicts it
+        assertThat(limiter.tryAcquire("c").allowed()).isTrue();
+
+        assertThat(limiter.getClientCount()).isEqualTo(2);
+        assertThat(limiter.getEvictions()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("a").allowed()).isFalse();
+        // Back with a full bucket
+        assertThat(limiter.tryAcquire("b").allowed()).isTrue();
+    }
+}
@@ -0,0 +1,111 @@
+package com.airline.loyalty;
+
+import io.restassured.http.ContentType;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Request bodies are bounded per route: oversized ones are refused with 413
+ * and slow ones with 408, closing the connection.
+ */
+class RequestLimitsTest extends BaseComponentTest {
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        config.getJsonObject("http")
+            .put("bodyReadTimeoutMillis", 300)
+            .put("maxBodyBytes", new JsonObject()
+                .put("default", 16384)
+                .put("/v1/points/quote", 1024));
+        return super.deploymentOptions(config);
+    }
+
+    private static String quoteOfSize(int bytes) {
+        String quote = new JsonObject()
+            .put("fareAmount", 1000.0)
+            .put("currency", "USD")
+            .put("cabinClass", "ECONOMY")
+            .put("customerTier", "NONE")
+            .put("promoCode", "")
+            .encode();
+        return quote.replace("\"promoCode\":\"\"", "\"promoCode\":\"" + "X".repeat(bytes - quote.length()) + "\"");
+    }
+
+    /** Sends {@code request} on a fresh connection and reads until the server closes it. */
+    private String exchange(String request, byte[]... bodyParts) throws IOException {
+        try (Socket socket = new Socket("localhost", appPort)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write(request.getBytes(StandardCharsets.US_ASCII));
+            for (byte[] part : bodyParts) {
+                out.write(part);
+            }
+            out.flush();
+            InputStream in = socket.getInputStream();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void shouldRefuseDeclaredOversizedBody(Vertx vertx, VertxTestContext ctx) {
+        given().baseUri(baseUrl).contentType(ContentType.JSON).body(quoteOfSize(1024))
+            .post("/v1/points/quote")
+            .then()
+            .statusCode(not(413));
+
+        given().baseUri(baseUrl).contentType(ContentType.JSON).body(quoteOfSize(1025))
+            .post("/v1/points/quote")
+            .then()
+            .statusCode(413)
+            .header("Connection", "close")
+            .body("error", is("PAYLOAD_TOO_LARGE"))
+            .body("message", containsString("1024 bytes"));
+
+        given().baseUri("http://localhost:9090").get("/metrics").then()
+            .body(containsString("http_requests_rejected_total{reason=\"body_too_large\",} 1.0"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldRefuseChunkedBodyOnceOverLimit(Vertx vertx, VertxTestContext ctx) throws IOException {
+        byte[] chunk = ("200\r\n" + "x".repeat(0x200) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        String response = exchange("POST /v1/points/quote HTTP/1.1\r\n"
+            + "Host: localhost\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Transfer-Encoding: chunked\r\n\r\n", chunk, chunk, chunk);
+
+        assertThat(response).startsWith("HTTP/1.1 413").contains("PAYLOAD_TOO_LARGE");
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldTimeOutSlowBody(Vertx vertx, VertxTestContext ctx) throws IOException {
+        // Declares 100 bytes but sends 10, then stalls
+        String response = exchange("POST /v1/points/quote HTTP/1.1\r\n"
+            + "Host: localhost\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: 100\r\n\r\n"
+            + "{\"fareAmou");
+
+        assertThat(response).startsWith("HTTP/1.1 408").contains("REQUEST_TIMEOUT");
+        given().baseUri("http://localhost:9090").get("/metrics").then()
+            .body(containsString("http_requests_rejected_total{reason=\"body_read_timeout\",} 1.0"));
+
+        ctx.completeNow();
+    }
+}
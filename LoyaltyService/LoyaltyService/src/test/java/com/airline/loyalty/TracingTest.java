@@ -0,0 +1,144 @@
+package com.airline.loyalty;
+
+import io.restassured.http.ContentType;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+import com.github.tomakehurst.wiremock.client.WireMock;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Requests are traced end to end: the trace context reaches the downstream
+ * services, and sampled, failed or slow traces are written to the trace file.
+ */
+class TracingTest extends BaseComponentTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @TempDir
+    Path tempDir;
+
+    private Path traceFile;
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        traceFile = tempDir.resolve("traces.otlp.jsonl");
+        // Nothing is head-sampled here, so only failed traces and incoming sampled ones are exported
+        config.put("tracing", new JsonObject()
+            .put("enabled", true)
+            .put("sampleRate", 0.0)
+            .put("slowThresholdMillis", 60000)
+            .put("file", traceFile.toString()));
+        config.getJsonObject("quoteCache").put("enabled", false);
+        return super.deploymentOptions(config);
+    }
+
+    private static PointsQuoteRequest eurQuote() {
+        return new PointsQuoteRequestBuilder().withCurrency("EUR").withCustomerTier("NONE").build();
+    }
+
+    /** Waits for the exporter to write a trace, returning every span in the file. */
+    private List<JsonObject> awaitSpans() throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Files.exists(traceFile) || Files.size(traceFile) == 0) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+        List<JsonObject> spans = new ArrayList<>();
+        for (String line : Files.readAllLines(traceFile)) {
+            JsonArray lineSpans = new JsonObject(line).getJsonArray("resourceSpans").getJsonObject(0)
+                .getJsonArray("scopeSpans").getJsonObject(0).getJsonArray("spans");
+            for (int i = 0; i < lineSpans.size(); i++) {
+                spans.add(lineSpans.getJsonObject(i));
+            }
+        }
+        return spans;
+    }
+
+    private static JsonObject span(List<JsonObject> spans, String name) {
+        return spans.stream().filter(s -> name.equals(s.getString("name"))).findFirst()
+            .orElseThrow(() -> new AssertionError("No " + name + " span in " + spans));
+    }
+
+    @Test
+    void shouldContinueIncomingSampledTraceAndPropagateIt(Vertx vertx, VertxTestContext ctx) throws Exception {
+        stubFxRate("EUR", "USD", 1.2);
+
+        given()
+            .baseUri(baseUrl)
+            .contentType(ContentType.JSON)
+            .header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01")
+            .header("X-Request-ID", "trace-test-1")
+            .body(eurQuote())
+            .when()
+            .post("/v1/points/quote")
+            .then()
+            .statusCode(200)
+            .body("basePoints", is(1200));
+
+        fxServiceMock.verify(getRequestedFor(urlPathEqualTo("/v1/rates"))
+            .withHeader("traceparent", matching("00-" + TRACE_ID + "-[0-9a-f]{16}-01"))
+            .withHeader("X-Request-ID", WireMock.equalTo("trace-test-1")));
+
+        List<JsonObject> spans = awaitSpans();
+        assertThat(spans).allSatisfy(s -> assertThat(s.getString("traceId")).isEqualTo(TRACE_ID));
+        JsonObject root = span(spans, "POST /v1/points/quote");
+        assertThat(root.getString("parentSpanId")).isEqualTo("00f067aa0ba902b7");
+        assertThat(root.getInteger("kind")).isEqualTo(2);
+        assertThat(root.getJsonArray("attributes").encode()).contains("trace-test-1");
+
+        JsonObject attempt = span(spans, "fx.attempt");
+        assertThat(attempt.getString("parentSpanId")).isEqualTo(span(spans, "fx.rate").getString("spanId"));
+        assertThat(attempt.getInteger("kind")).isEqualTo(3);
+        span(spans, "quote.parse");
+        span(spans, "quote.calculate");
+        assertThat(spans).noneMatch(s -> s.containsKey("status"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldExportOnlyFailedTracesWhenNotSampled(Vertx vertx, VertxTestContext ctx) throws Exception {
+        stubFxRate("EUR", "USD", 1.2);
+        postQuote(eurQuote()).statusCode(200);
+
+        // The trace context still reaches the FX service, flagged not sampled
+        fxServiceMock.verify(getRequestedFor(urlPathEqualTo("/v1/rates"))
+            .withHeader("traceparent", matching("00-[0-9a-f]{32}-[0-9a-f]{16}-00"))
+            .withHeader("X-Request-ID", matching(".+")));
+
+        fxServiceMock.resetAll();
+        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates")).willReturn(serverError()));
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("GBP").withCustomerTier("NONE").build())
+            .statusCode(greaterThanOrEqualTo(500));
+
+        List<JsonObject> spans = awaitSpans();
+        assertThat(spans).extracting(s -> s.getString("traceId")).containsOnly(spans.get(0).getString("traceId"));
+        assertThat(spans).filteredOn(s -> "fx.attempt".equals(s.getString("name"))).hasSize(3)
+            .allSatisfy(s -> assertThat(s.getJsonObject("status").getInteger("code")).isEqualTo(2));
+        assertThat(spans).filteredOn(s -> "fx.backoff".equals(s.getString("name"))).hasSize(2);
+        assertThat(span(spans, "POST /v1/points/quote").getJsonObject("status").getInteger("code")).isEqualTo(2);
+
+        given().baseUri("http://localhost:9090").get("/metrics").then()
+            .body(containsString("tracing_traces_total{sampled=\"none\",} 1.0"))
+            .body(containsString("tracing_traces_total{sampled=\"error\",} 1.0"));
+
+        ctx.completeNow();
+    }
+}
@@ -0,0 +1,72 @@
+package com.airline.loyalty;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.ThreadingModel;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+
+import com.airline.loyalty.model.PointsQuoteRequest;
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
+import java.time.LocalDate;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs quotes through the service deployed as a virtual-thread verticle, where
+ * PointsQuoteHandler awaits FX and promo inline. Skipped before Java 21.
+ */
+@DisabledIfSystemProperty(named = "loyalty.nativeBinary", matches = ".+",
+        disabledReason = "sets the threading model on the in-process deployment")
+class VirtualThreadModeTest extends BaseComponentTest {
+
+    @BeforeAll
+    static void requireVirtualThreads() {
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21+");
+    }
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        return super.deploymentOptions(config).setThreadingModel(ThreadingModel.VIRTUAL_THREAD);
+    }
+
+    @Test
+    void shouldQuoteWithFxAndPromoOnVirtualThreads(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.1);
+        stubPromo("SUMMER25", 0.25, LocalDate.now().plusDays(3), true);
+
+        PointsQuoteRequest request = new PointsQuoteRequestBuilder()
+            .withCurrency("EUR")
+            .withPromoCode("SUMMER25")
+            .build();
+
+        postQuote(request)
+            .statusCode(200)
+            .body("basePoints", equalTo(1100))
+            .body("promoBonus", equalTo(275))
+            .body("warnings", hasItem("PROMO_EXPIRES_SOON"));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldMapDownstreamFailuresLikeEventLoopMode(Vertx vertx, VertxTestContext ctx) {
+        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates"))
+            .willReturn(aResponse().withStatus(500)));
+
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").build())
+            .statusCode(500)
+            .body("error", is("INTERNAL_ERROR"));
+
+        postQuote(new PointsQuoteRequestBuilder().withFareAmount(-5.0).build())
+            .statusCode(400);
+
+        ctx.completeNow();
+    }
+}
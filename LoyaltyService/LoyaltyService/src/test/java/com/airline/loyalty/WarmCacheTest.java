@@ -0,0 +1,99 @@
+package com.airline.loyalty;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * A redeployed verticle starts with the FX rates and promos its predecessor
+ * cached, written to the warm-cache snapshot when it stopped.
+ */
+class WarmCacheTest extends BaseComponentTest {
+
+    @TempDir
+    Path dataDir;
+
+    private DeploymentOptions options;
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        JsonArray catalogue = new JsonArray()
+            .add(new JsonObject()
+                .put("promoCode", "WARM10").put("bonusMultiplier", 0.1)
+                .put("expiryDate", LocalDate.now().plusDays(30).toString()).put("active", true));
+        promoServiceMock.stubFor(get(urlEqualTo("/v1/promos"))
+            .willReturn(okJson(catalogue.encode())));
+
+        config.put("promoEngine", new JsonObject().put("enabled", true).put("syncIntervalMillis", 300000));
+        config.put("warmCache", new JsonObject()
+            .put("enabled", true)
+            .put("file", dataDir.resolve("warm-cache.bin").toString())
+            .put("writeIntervalMillis", 60000)
+            .put("maxAgeMillis", 3600000));
+        options = super.deploymentOptions(config);
+        return options;
+    }
+
+    private void redeploy(Vertx vertx) throws Exception {
+        for (String id : vertx.deploymentIDs()) {
+            vertx.undeploy(id).toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        }
+        vertx.deployVerticle(new MainVerticle(), options).toCompletionStage().toCompletableFuture()
+            .get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisabledIfSystemProperty(named = "loyalty.nativeBinary", matches = ".+",
+            disabledReason = "redeploys the in-process verticle")
+    void shouldServeSnapshotRatesAndPromosWhileDownstreamIsFailing(Vertx vertx, VertxTestContext ctx)
+            throws Exception {
+        stubFxRate("EUR", "USD", 1.2);
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").withCustomerTier("NONE").build())
+            .statusCode(200)
+            .body("basePoints", equalTo(1200));
+
+        fxServiceMock.resetAll();
+        fxServiceMock.stubFor(get(urlPathEqualTo("/v1/rates")).willReturn(serverError()));
+        promoServiceMock.resetAll();
+        promoServiceMock.stubFor(any(anyUrl()).willReturn(serverError()));
+
+        redeploy(vertx);
+        assertThat(Files.exists(dataDir.resolve("warm-cache.bin"))).isTrue();
+
+        postQuote(new PointsQuoteRequestBuilder()
+                .withCurrency("EUR").withCustomerTier("NONE").withPromoCode("WARM10").build())
+            .statusCode(200)
+            .body("basePoints", equalTo(1200))
+            .body("promoBonus", equalTo(120));
+
+        ctx.completeNow();
+    }
+
+    @Test
+    void shouldStartColdWithoutASnapshot(Vertx vertx, VertxTestContext ctx) {
+        stubFxRate("EUR", "USD", 1.2);
+
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("EUR").withCustomerTier("NONE").build())
+            .statusCode(200)
+            .body("basePoints", equalTo(1200));
+        fxServiceMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+}
@@ -0,0 +1,67 @@
+package com.airline.loyalty;
+
+import io.restassured.response.Response;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+
+import com.airline.loyalty.testutils.PointsQuoteRequestBuilder;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * With warm-up enabled the service reports ready only after running synthetic
+ * quotes against stubbed downstreams, and starts with its FX rates primed.
+ */
+class WarmUpTest extends BaseComponentTest {
+
+    @Override
+    protected DeploymentOptions deploymentOptions(JsonObject config) {
+        // Warm-up runs as soon as the server listens, so stub the priming lookups up front
+        stubFxRate("EUR", "USD", 1.2);
+        stubFxRate("GBP", "USD", 1.25);
+        config.put("warmUp", new JsonObject()
+            .put("enabled", true)
+            .put("rounds", 2)
+            .put("currencies", new JsonArray().add("USD").add("EUR").add("GBP"))
+            .put("maxMillis", 10000));
+        return super.deploymentOptions(config);
+    }
+
+    private Response awaitReady() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        Response response = given().baseUri(baseUrl).get("/ready");
+        while (response.statusCode() != 200 && System.currentTimeMillis() < deadline) {
+            assertThat(response.statusCode()).isEqualTo(503);
+            assertThat(response.jsonPath().getString("status")).isEqualTo("WARMING_UP");
+            Thread.sleep(50);
+            response = given().baseUri(baseUrl).get("/ready");
+        }
+        return response;
+    }
+
+    @Test
+    void shouldBecomeReadyWithoutCallingDownstreamsForSyntheticQuotes(Vertx vertx, VertxTestContext ctx)
+            throws Exception {
+        Response ready = awaitReady();
+        assertThat(ready.statusCode()).isEqualTo(200);
+        assertThat(ready.jsonPath().getString("status")).isEqualTo("READY");
+
+        // Only the priming lookups reach the FX service, and the WARMUP promo is stubbed
+        fxServiceMock.verify(2, getRequestedFor(urlPathEqualTo("/v1/rates")));
+        promoServiceMock.verify(0, anyRequestedFor(anyUrl()));
+
+        postQuote(new PointsQuoteRequestBuilder().withCurrency("GBP").withCustomerTier("NONE").build())
+            .statusCode(200)
+            .body("basePoints", is(1250));
+        fxServiceMock.verify(2, getRequestedFor(urlPathEqualTo("/v1/rates")));
+
+        ctx.completeNow();
+    }
+}
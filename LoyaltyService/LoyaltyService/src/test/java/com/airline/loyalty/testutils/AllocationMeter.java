@@ -0,0 +1,37 @@
+package com.airline.loyalty.testutils;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures heap bytes allocated by the current thread, using the HotSpot
+ * per-thread allocation counter.
+ */
+public final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AllocationMeter() {}
+
+    public static boolean isSupported() {
+        return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Runs {@code warmup} untimed iterations (so the JIT has compiled and
+     * escape-analysed the path), then returns the mean bytes allocated per
+     * iteration over {@code iterations} more.
+     */
+    public static long bytesPerOperation(Runnable operation, int warmup, int iterations) {
+        for (int i = 0; i < warmup; i++) {
+            operation.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long after = THREADS.getThreadAllocatedBytes(threadId);
+        return (after - before) / iterations;
+    }
+}
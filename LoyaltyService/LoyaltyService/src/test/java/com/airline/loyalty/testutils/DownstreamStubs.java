@@ -0,0 +1,44 @@
+package com.airline.loyalty.testutils;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+import java.time.LocalDate;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+/**
+ * WireMock stubs for the FX and promo services, shared by the component tests
+ * and the load-test simulators.
+ */
+public final class DownstreamStubs {
+
+    private DownstreamStubs() {}
+
+    public static void stubFxRate(WireMockServer fxService, String from, String to, double rate) {
+        fxService.stubFor(get(urlPathEqualTo("/v1/rates"))
+            .withQueryParam("from", equalTo(from))
+            .withQueryParam("to", equalTo(to))
+            .willReturn(okJson("""
+                    {"fromCurrency":"%s","toCurrency":"%s","rate":%f,"timestamp":"%s"}
+                    """.formatted(from, to, rate, LocalDate.now().toString()))));
+    }
+
+    public static void stubPromo(WireMockServer promoService, String promoCode, double multiplier,
+                                 LocalDate expiry, boolean active) {
+        promoService.stubFor(get(urlPathEqualTo("/v1/promos/%s".formatted(promoCode)))
+            .willReturn(okJson("""
+                    {
+                        "promoCode": "%s",
+                        "bonusMultiplier": %f,
+                        "expiryDate": "%s",
+                        "active": %s
+                    }
+                    """.formatted(promoCode, multiplier, expiry.toString(), active))));
+    }
+
+    public static void stubUnknownPromos(WireMockServer promoService) {
+        promoService.stubFor(get(urlPathMatching("/v1/promos/.*"))
+            .atPriority(10)
+            .willReturn(aResponse().withStatus(404)));
+    }
+}
@@ -0,0 +1,35 @@
+package com.airline.loyalty.testutils;
+
+import com.airline.loyalty.exception.ExternalServiceException;
+import com.airline.loyalty.service.FxServiceClient;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * FxServiceClient that answers from an in-memory table with already-completed
+ * futures, for tests and benchmarks that exercise the service without HTTP.
+ */
+public class InMemoryFxServiceClient extends FxServiceClient {
+
+    private final Map<String, Future<Double>> rates = new HashMap<>();
+
+    public InMemoryFxServiceClient(Vertx vertx, JsonObject config) {
+        super(vertx, config, null);
+    }
+
+    public InMemoryFxServiceClient withRate(String fromCurrency, double rate) {
+        rates.put(fromCurrency, Future.succeededFuture(rate));
+        return this;
+    }
+
+    @Override
+    public Future<Double> getExchangeRate(String fromCurrency, String toCurrency) {
+        Future<Double> rate = rates.get(fromCurrency);
+        return rate != null ? rate
+            : Future.failedFuture(new ExternalServiceException("No rate for " + fromCurrency, null));
+    }
+}
@@ -0,0 +1,46 @@
+package com.airline.loyalty.testutils;
+
+import com.airline.loyalty.model.PromoResponse;
+import com.airline.loyalty.service.PromoServiceClient;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * PromoServiceClient that answers from an in-memory table with already-completed
+ * futures, for tests and benchmarks that exercise the service without HTTP.
+ */
+public class InMemoryPromoServiceClient extends PromoServiceClient {
+
+    private static final Future<Optional<PromoResponse>> NOT_FOUND = Future.succeededFuture(Optional.empty());
+
+    private final Map<String, Future<Optional<PromoResponse>>> promos = new HashMap<>();
+
+    public InMemoryPromoServiceClient(Vertx vertx, JsonObject config) {
+        super(vertx, config);
+    }
+
+    public InMemoryPromoServiceClient withPromo(String promoCode, double multiplier, LocalDate expiry, boolean active) {
+        promos.put(promoCode, Future.succeededFuture(Optional.of(
+            new PromoResponse(promoCode, multiplier, expiry.toString(), active))));
+        return this;
+    }
+
+    public InMemoryPromoServiceClient withPromo(PromoResponse promo) {
+        promos.put(promo.promoCode(), Future.succeededFuture(Optional.of(promo)));
+        return this;
+    }
+
+    @Override
+    public Future<Optional<PromoResponse>> getPromoDetails(String promoCode) {
+        if (promoCode == null) {
+            return NOT_FOUND;
+        }
+        return promos.getOrDefault(promoCode, NOT_FOUND);
+    }
+}
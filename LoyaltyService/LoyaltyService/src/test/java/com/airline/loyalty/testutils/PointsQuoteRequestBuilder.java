@@ -9,6 +9,7 @@ public class PointsQuoteRequestBuilder {
     private String cabinClass = "ECONOMY";
     private String customerTier = "SILVER";
     private String promoCode = null;
+    private String targetCurrency = null;
 
     public PointsQuoteRequestBuilder withFareAmount(Double fareAmount) {
         this.fareAmount = fareAmount;
@@ -35,8 +36,13 @@ public class PointsQuoteRequestBuilder {
         return this;
     }
 
+    public PointsQuoteRequestBuilder withTargetCurrency(String targetCurrency) {
+        this.targetCurrency = targetCurrency;
+        return this;
+    }
+
     // Build the record
     public PointsQuoteRequest build() {
-        return new PointsQuoteRequest(fareAmount, currency, cabinClass, customerTier, promoCode);
+        return new PointsQuoteRequest(fareAmount, currency, cabinClass, customerTier, promoCode, targetCurrency);
     }
 }
@@ -0,0 +1,24 @@
+package com.airline.loyalty.testutils;
+
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads a profile config ({@code application-<profile>.json}) from the classpath.
+ */
+public final class TestConfig {
+
+    private TestConfig() {}
+
+    public static JsonObject load(String profile) {
+        try (InputStream in = TestConfig.class.getResourceAsStream("/application-" + profile + ".json")) {
+            return new JsonObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}